@@ -33,7 +33,7 @@ import java.io.Serializable;
  */
 public abstract class AbstractToken implements Serializable { // NOPMD
     /**
-     * a end position of token.
+     * a end position of token (null in compact positions mode).
      */
     private final TextPos end;
     /**
@@ -41,9 +41,13 @@ public abstract class AbstractToken implements Serializable { // NOPMD
      */
     private final ErrorInfo errorInfo;
     /**
-     * a start position of token.
+     * a start position of token (null in compact positions mode).
      */
     private final TextPos start;
+    /**
+     * the compact positions (null if positions are explicit).
+     */
+    private final CompactPositions compact;
 
     /**
      * The generic constructor for token.
@@ -62,13 +66,46 @@ public abstract class AbstractToken implements Serializable { // NOPMD
         this.start = start;
         this.end = end;
         this.errorInfo = errorInfo;
+        this.compact = null;
+    }
+
+    /**
+     * The constructor for token with compact positions. The positions are created on demand using index.
+     *
+     * @param textIndex   the text index for the source
+     * @param startOffset the start offset
+     * @param endOffset   the end offset
+     * @param errorInfo   error information associated with token
+     */
+    protected AbstractToken(final TextIndex textIndex, final long startOffset, final long endOffset,
+                            final ErrorInfo errorInfo) {
+        if (textIndex == null) {
+            throw new IllegalArgumentException("Text index must not be null");
+        }
+        this.start = null;
+        this.end = null;
+        this.errorInfo = errorInfo;
+        this.compact = new CompactPositions(textIndex, startOffset, endOffset);
+    }
+
+    /**
+     * The constructor that uses the same positions as other token.
+     *
+     * @param positions the token to take positions from
+     * @param errorInfo error information associated with token
+     */
+    protected AbstractToken(final AbstractToken positions, final ErrorInfo errorInfo) {
+        this.start = positions.start;
+        this.end = positions.end;
+        this.errorInfo = errorInfo;
+        this.compact = positions.compact;
     }
 
     /**
      * @return a position of next character right after token
      */
     public final TextPos end() {
-        return end;
+        return compact == null ? end : compact.end();
     }
 
     /**
@@ -82,7 +119,28 @@ public abstract class AbstractToken implements Serializable { // NOPMD
      * @return start position of token
      */
     public final TextPos start() {
-        return start;
+        return compact == null ? start : compact.start();
+    }
+
+    /**
+     * @return the start offset of the token (it is available without creating {@link TextPos})
+     */
+    public final long startOffset() {
+        return compact == null ? start.offset() : compact.startOffset();
+    }
+
+    /**
+     * @return the end offset of the token (it is available without creating {@link TextPos})
+     */
+    public final long endOffset() {
+        return compact == null ? end.offset() : compact.endOffset();
+    }
+
+    /**
+     * @return the text index if the token uses compact positions, null if positions are explicit
+     */
+    public final TextIndex textIndex() {
+        return compact == null ? null : compact.textIndex();
     }
 
     /**
@@ -0,0 +1,99 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers;
+
+import java.io.Serializable;
+
+/**
+ * The token positions in compact positions mode: the offsets and the text index used to create {@link TextPos}
+ * on demand. The object is shared between tokens that wrap each other, so the wrapping tokens do not allocate
+ * anything for positions.
+ */
+final class CompactPositions implements Serializable {
+    /**
+     * generated serial version id.
+     */
+    private static final long serialVersionUID = 4702365834291127341L;
+    /**
+     * the text index used to create positions.
+     */
+    private final TextIndex textIndex;
+    /**
+     * the start offset.
+     */
+    private final long startOffset;
+    /**
+     * the end offset.
+     */
+    private final long endOffset;
+
+    /**
+     * The constructor.
+     *
+     * @param textIndex   the text index for the source
+     * @param startOffset the start offset
+     * @param endOffset   the end offset
+     */
+    CompactPositions(final TextIndex textIndex, final long startOffset, final long endOffset) {
+        this.textIndex = textIndex;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * @return the text index
+     */
+    TextIndex textIndex() {
+        return textIndex;
+    }
+
+    /**
+     * @return the start offset
+     */
+    long startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return the end offset
+     */
+    long endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return the start position
+     */
+    TextPos start() {
+        return textIndex.position(startOffset);
+    }
+
+    /**
+     * @return the end position
+     */
+    TextPos end() {
+        return textIndex.position(endOffset);
+    }
+}
@@ -27,6 +27,8 @@ package net.sf.etl.parsers;
 
 import net.sf.etl.parsers.characters.Whitespaces;
 import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import net.sf.etl.parsers.resource.ResourceDescriptor;
+import net.sf.etl.parsers.resource.ResourceUsage;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -52,6 +54,18 @@ public final class DefaultTermParserConfiguration implements TermParserConfigura
      * The property that specifies tab size.
      */
     public static final String ETL_TAB_SIZE_PROPERTY = "etl.tab.size";
+    /**
+     * The property that specifies whether compact positions are used.
+     */
+    public static final String ETL_COMPACT_POSITIONS_PROPERTY = "etl.compact.positions";
+    /**
+     * The property that specifies whether text of whitespaces and comments is skipped by lexer.
+     */
+    public static final String ETL_SKIP_IGNORABLE_TEXT_PROPERTY = "etl.skip.ignorable.text";
+    /**
+     * The property that specifies whether token texts are interned per parse session.
+     */
+    public static final String ETL_INTERN_TOKEN_TEXT_PROPERTY = "etl.intern.token.text";
     /**
      * The tabulation size.
      */
@@ -60,6 +74,18 @@ public final class DefaultTermParserConfiguration implements TermParserConfigura
      * The charset encoding.
      */
     private final Charset encoding;
+    /**
+     * If true, compact positions are used.
+     */
+    private final boolean compactPositions;
+    /**
+     * If true, the text of whitespaces and comments is not built.
+     */
+    private final boolean ignorableTextSkipped;
+    /**
+     * If true, the token texts are interned per parse session.
+     */
+    private final boolean tokenTextInterned;
     /**
      * The grammar cache.
      */
@@ -72,15 +98,60 @@ public final class DefaultTermParserConfiguration implements TermParserConfigura
      * @param encoding the encoding
      */
     public DefaultTermParserConfiguration(final int tabSize, final Charset encoding) {
+        this(tabSize, encoding, false);
+    }
+
+    /**
+     * The constructor from fields.
+     *
+     * @param tabSize          the tab size
+     * @param encoding         the encoding
+     * @param compactPositions if true, compact positions are used
+     */
+    public DefaultTermParserConfiguration(final int tabSize, final Charset encoding,
+                                          final boolean compactPositions) {
+        this(tabSize, encoding, compactPositions, false);
+    }
+
+    /**
+     * The constructor from fields.
+     *
+     * @param tabSize              the tab size
+     * @param encoding             the encoding
+     * @param compactPositions     if true, compact positions are used
+     * @param ignorableTextSkipped if true, the text of whitespaces and comments is not built
+     */
+    public DefaultTermParserConfiguration(final int tabSize, final Charset encoding,
+                                          final boolean compactPositions, final boolean ignorableTextSkipped) {
+        this(tabSize, encoding, compactPositions, ignorableTextSkipped, false);
+    }
+
+    /**
+     * The constructor from fields.
+     *
+     * @param tabSize              the tab size
+     * @param encoding             the encoding
+     * @param compactPositions     if true, compact positions are used
+     * @param ignorableTextSkipped if true, the text of whitespaces and comments is not built
+     * @param tokenTextInterned    if true, the token texts are interned per parse session
+     */
+    public DefaultTermParserConfiguration(final int tabSize, final Charset encoding,
+                                          final boolean compactPositions, final boolean ignorableTextSkipped,
+                                          final boolean tokenTextInterned) {
         this.tabSize = tabSize;
         this.encoding = encoding;
+        this.compactPositions = compactPositions;
+        this.ignorableTextSkipped = ignorableTextSkipped;
+        this.tokenTextInterned = tokenTextInterned;
     }
 
     /**
      * The default constructor that takes default values from system properties.
      */
     public DefaultTermParserConfiguration() {
-        this(getDefaultTabSize(), getDefaultEncoding());
+        this(getDefaultTabSize(), getDefaultEncoding(), Boolean.getBoolean(ETL_COMPACT_POSITIONS_PROPERTY),
+                Boolean.getBoolean(ETL_SKIP_IGNORABLE_TEXT_PROPERTY),
+                Boolean.getBoolean(ETL_INTERN_TOKEN_TEXT_PROPERTY));
     }
 
 
@@ -138,7 +209,7 @@ public final class DefaultTermParserConfiguration implements TermParserConfigura
      */
     private void cacheGrammar(final Set<String> cachedGrammars, final CompiledGrammar grammar) {
         final String systemId = grammar.getDescriptor().getSystemId();
-        if (!cachedGrammars.add(systemId)) {
+        if (cachedGrammars.add(systemId)) {
             grammarCache.put(systemId, grammar);
             for (final CompiledGrammar other : grammar.getOtherGrammars()) {
                 cacheGrammar(cachedGrammars, other);
@@ -146,8 +217,103 @@ public final class DefaultTermParserConfiguration implements TermParserConfigura
         }
     }
 
+    /**
+     * Get system ids of resources that affect the cached grammars. These are the grammars themselves and
+     * the resources that were used to load them.
+     *
+     * @return the system ids of the resources
+     */
+    public Set<String> getCachedResourceIds() {
+        final Set<String> systemIds = new HashSet<>();
+        synchronized (grammarCache) {
+            for (final CompiledGrammar grammar : grammarCache.values()) {
+                collectResourceIds(systemIds, grammar.getDescriptor());
+            }
+        }
+        return systemIds;
+    }
+
+    /**
+     * Collect resource ids from the descriptor.
+     *
+     * @param systemIds  the collected system ids
+     * @param descriptor the descriptor
+     */
+    private static void collectResourceIds(final Set<String> systemIds, final ResourceDescriptor descriptor) {
+        if (systemIds.add(descriptor.getSystemId())) {
+            for (final ResourceUsage usage : descriptor.getUsedResources()) {
+                collectResourceIds(systemIds, usage.descriptor());
+            }
+        }
+    }
+
+    /**
+     * Expire grammars that were loaded from the resource or that depend on it. This method is used when
+     * the resource is changed.
+     *
+     * @param systemId the system id of the changed resource
+     * @return the amount of expired grammars
+     */
+    public int expireResource(final String systemId) {
+        synchronized (grammarCache) {
+            final int size = grammarCache.size();
+            grammarCache.values().removeIf(grammar -> dependsOn(grammar, systemId, new HashSet<>()));
+            return size - grammarCache.size();
+        }
+    }
+
+    /**
+     * Check if grammar depends on the resource.
+     *
+     * @param grammar  the grammar
+     * @param systemId the system id of the resource
+     * @param visited  the visited grammars
+     * @return true if the grammar or grammars used by it depend on the resource
+     */
+    private static boolean dependsOn(final CompiledGrammar grammar, final String systemId,
+                                     final Set<String> visited) {
+        if (!visited.add(grammar.getDescriptor().getSystemId())) {
+            return false;
+        }
+        final Set<String> resources = new HashSet<>();
+        collectResourceIds(resources, grammar.getDescriptor());
+        if (resources.contains(systemId)) {
+            return true;
+        }
+        for (final CompiledGrammar other : grammar.getOtherGrammars()) {
+            if (dependsOn(other, systemId, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clear the grammar cache.
+     */
+    public void clearGrammarCache() {
+        synchronized (grammarCache) {
+            grammarCache.clear();
+        }
+    }
+
     @Override
     public Charset getEncoding(final String systemId) {
         return encoding;
     }
+
+    @Override
+    public boolean isCompactPositions(final String systemId) {
+        return compactPositions;
+    }
+
+    @Override
+    public boolean isIgnorableTextSkipped(final String systemId) {
+        return ignorableTextSkipped;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(final String systemId) {
+        return tokenTextInterned ? new SymbolTable() : null;
+    }
 }
@@ -48,7 +48,7 @@ public final class PhraseToken extends AbstractToken {
      * @param errors errors
      */
     public PhraseToken(final PhraseTokens kind, final Token token, final ErrorInfo errors) {
-        super(token.start(), token.end(), errors);
+        super(token, errors);
         if (kind == null) {
             throw new IllegalArgumentException("Kind must not be null");
         }
@@ -81,6 +81,33 @@ public final class PhraseToken extends AbstractToken {
      */
     public PhraseToken(final PhraseTokens kind, final TextPos position, final ErrorInfo errors) {
         super(position, position, errors);
+        this.kind = checkMarkupKind(kind);
+        this.wrappedToken = null;
+    }
+
+    /**
+     * A constructor for mark-up phrase token with compact position.
+     *
+     * @param kind      a kind of token. It must be one of the following values
+     *                  START_BLOCK, END_BLOCK, STATEMENT_END, or END_BLOCK.
+     * @param textIndex the text index used to create position
+     * @param offset    an offset in stream
+     * @param errors    errors
+     */
+    public PhraseToken(final PhraseTokens kind, final TextIndex textIndex, final long offset,
+                       final ErrorInfo errors) {
+        super(textIndex, offset, offset, errors);
+        this.kind = checkMarkupKind(kind);
+        this.wrappedToken = null;
+    }
+
+    /**
+     * Check kind of mark-up token.
+     *
+     * @param kind the kind to check
+     * @return the kind
+     */
+    private static PhraseTokens checkMarkupKind(final PhraseTokens kind) {
         if (kind == null) {
             throw new IllegalArgumentException("Kind must not be null");
         }
@@ -89,13 +116,11 @@ public final class PhraseToken extends AbstractToken {
             case SOFT_STATEMENT_END:
             case START_BLOCK:
             case STATEMENT_END:
-                break;
+                return kind;
             default:
                 throw new IllegalArgumentException("Invalid kind " + kind
                         + "for this constructor.");
         }
-        this.kind = kind;
-        this.wrappedToken = null;
     }
 
     /**
@@ -0,0 +1,152 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers;
+
+/**
+ * <p>The table of token texts that is used to share the same {@link String} instance between tokens with the same
+ * text. The table uses open addressing with linear probing, and the text is matched against the lexer buffer
+ * before a new string is allocated, so repeated identifiers and keywords do not create new strings at all.</p>
+ * <p>Only short texts are interned, and the table stops growing after {@link #MAX_SIZE} entries, the longer or
+ * extra texts are just converted to strings.</p>
+ * <p>The object is not thread safe, so it is usually created for the single parse session
+ * (see {@link TermParserConfiguration#getSymbolTable(String)}).</p>
+ */
+public final class SymbolTable {
+    /**
+     * The maximum length of the interned text.
+     */
+    public static final int MAX_LENGTH = 64;
+    /**
+     * The maximum amount of the interned texts.
+     */
+    public static final int MAX_SIZE = 1 << 16;
+    /**
+     * The initial capacity of the table.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * The interned strings (null for empty slots).
+     */
+    private String[] strings = new String[INITIAL_CAPACITY];
+    /**
+     * The hash codes of the interned strings.
+     */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    /**
+     * The amount of interned strings.
+     */
+    private int size;
+
+    /**
+     * Calculate hash code of the text. The hash code is the same as {@link String#hashCode()}.
+     *
+     * @param text the text
+     * @return the hash code
+     */
+    private static int hash(final CharSequence text) {
+        int h = 0;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * Get the slot index for the hash code.
+     *
+     * @param hash the hash code
+     * @param mask the table mask
+     * @return the index
+     */
+    private static int index(final int hash, final int mask) {
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    /**
+     * Get the shared string for the text.
+     *
+     * @param text the text
+     * @return the string with the same content as the text
+     */
+    public String intern(final CharSequence text) {
+        final int length = text.length();
+        if (length > MAX_LENGTH) {
+            return text.toString();
+        }
+        final int hash = hash(text);
+        final int mask = strings.length - 1;
+        int i = index(hash, mask);
+        while (true) {
+            final String s = strings[i];
+            if (s == null) {
+                break;
+            }
+            if (hashes[i] == hash && s.length() == length && s.contentEquals(text)) {
+                return s;
+            }
+            i = i + 1 & mask;
+        }
+        final String rc = text.toString();
+        if (size < MAX_SIZE) {
+            strings[i] = rc;
+            hashes[i] = hash;
+            size++;
+            if (size * 2 > strings.length) {
+                grow();
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * @return the amount of interned strings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Double the table capacity.
+     */
+    private void grow() {
+        final String[] oldStrings = strings;
+        final int[] oldHashes = hashes;
+        strings = new String[oldStrings.length * 2];
+        hashes = new int[oldStrings.length * 2];
+        final int mask = strings.length - 1;
+        for (int j = 0; j < oldStrings.length; j++) {
+            if (oldStrings[j] != null) {
+                int i = index(oldHashes[j], mask);
+                while (strings[i] != null) {
+                    i = i + 1 & mask;
+                }
+                strings[i] = oldStrings[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+}
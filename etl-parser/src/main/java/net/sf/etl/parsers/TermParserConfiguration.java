@@ -64,4 +64,39 @@ public interface TermParserConfiguration {
      * @return the charset
      */
     Charset getEncoding(String systemId);
+
+    /**
+     * Check if compact positions should be used for the source. In compact positions mode, tokens keep only
+     * offsets and {@link TextIndex} for the source, and {@link TextPos} objects are created on demand.
+     * The mode is opt-in, so the default implementation returns false.
+     *
+     * @param systemId the system id
+     * @return true if compact positions should be used
+     */
+    default boolean isCompactPositions(final String systemId) {
+        return false;
+    }
+
+    /**
+     * Check if the lexer should skip building text for whitespaces and non-documentation comments.
+     * The tokens are still reported with correct kinds and positions, but with an empty text.
+     * This is useful when such tokens are suppressed later anyway. The default implementation returns false.
+     *
+     * @param systemId the system id
+     * @return true if the text of ignorable tokens should not be built
+     */
+    default boolean isIgnorableTextSkipped(final String systemId) {
+        return false;
+    }
+
+    /**
+     * Get the symbol table used to share token texts in the parse session. The method is invoked once
+     * when the lexer is started for the source. The sharing is opt-in, so the default implementation returns null.
+     *
+     * @param systemId the system id
+     * @return the symbol table, or null if the token texts are not shared
+     */
+    default SymbolTable getSymbolTable(final String systemId) {
+        return null;
+    }
 }
@@ -92,8 +92,52 @@ public final class TermToken extends AbstractToken {
         this.structureId = structureId;
         this.definedAt = definedAt;
     }
+
+    /**
+     * A token with compact positions. The positions are created on demand using the text index.
+     *
+     * @param kind        the kind of error
+     * @param role        the role of the token
+     * @param structureId the structure identifier
+     * @param token       the phrase token
+     * @param textIndex   the text index
+     * @param startOffset the start offset of the token
+     * @param endOffset   the end offset of the token
+     * @param definedAt   the grammar location there the token is defined
+     * @param errorInfo   the error information error info covered by error
+     */
+    public TermToken(final Terms kind, final SyntaxRole role, final Object structureId, final PhraseToken token,
+                     final TextIndex textIndex, final long startOffset, final long endOffset,
+                     final SourceLocation definedAt, final ErrorInfo errorInfo) {
+        super(textIndex, startOffset, endOffset, errorInfo);
+        this.kind = kind;
+        this.role = role;
+        this.token = token;
+        this.structureId = structureId;
+        this.definedAt = definedAt;
+    }
     // CHECKSTYLE:ON
 
+    /**
+     * A token that wraps phrase token and has the same positions.
+     *
+     * @param kind        the kind of error
+     * @param role        the role of the token
+     * @param structureId the structure identifier
+     * @param token       the phrase token (must not be null)
+     * @param definedAt   the grammar location there the token is defined
+     * @param errorInfo   the error information error info covered by error
+     */
+    public TermToken(final Terms kind, final SyntaxRole role, final Object structureId, final PhraseToken token,
+                     final SourceLocation definedAt, final ErrorInfo errorInfo) {
+        super(token, errorInfo);
+        this.kind = kind;
+        this.role = role;
+        this.token = token;
+        this.structureId = structureId;
+        this.definedAt = definedAt;
+    }
+
 
     /**
      * @return a context of the term
@@ -0,0 +1,151 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>The index of the positions in the single source file. The index is used for compact positions mode
+ * (see {@link TermParserConfiguration#isCompactPositions(String)}), where tokens keep only offsets, and
+ * {@link TextPos} objects are created on demand.</p>
+ * <p>The index stores checkpoints where line and column could not be derived from the previous checkpoint by
+ * counting characters: line starts, positions after tabs and positions after supplementary code points.
+ * The checkpoints are appended by the lexer in the order of offsets, so the index could be used for all offsets
+ * up to the current lexer position.</p>
+ * <p>The object is not thread safe while the source is being parsed.</p>
+ */
+public final class TextIndex implements Serializable {
+    /**
+     * The initial capacity of the index.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * generated serial version id.
+     */
+    private static final long serialVersionUID = -2153405519733497207L;
+    /**
+     * The checkpoint offsets.
+     */
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    /**
+     * The checkpoint lines.
+     */
+    private int[] lines = new int[INITIAL_CAPACITY];
+    /**
+     * The checkpoint columns.
+     */
+    private int[] columns = new int[INITIAL_CAPACITY];
+    /**
+     * The amount of checkpoints.
+     */
+    private int size;
+
+    /**
+     * The constructor.
+     *
+     * @param start the start position of the source
+     */
+    public TextIndex(final TextPos start) {
+        checkpoint(start.line(), start.column(), start.offset());
+    }
+
+    /**
+     * Add a checkpoint. If the checkpoint has the same offset as the last one, it replaces the last one.
+     *
+     * @param line   the line
+     * @param column the column
+     * @param offset the offset (must not be less than the offset of the previous checkpoint)
+     */
+    public void checkpoint(final int line, final int column, final long offset) {
+        if (size > 0 && offsets[size - 1] == offset) {
+            size--;
+        } else if (size == offsets.length) {
+            final int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        offsets[size] = offset;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+    }
+
+    /**
+     * Get line for the offset.
+     *
+     * @param offset the offset
+     * @return the line
+     */
+    public int line(final long offset) {
+        return lines[find(offset)];
+    }
+
+    /**
+     * Get column for the offset.
+     *
+     * @param offset the offset
+     * @return the column
+     */
+    public int column(final long offset) {
+        final int i = find(offset);
+        return columns[i] + (int) (offset - offsets[i]);
+    }
+
+    /**
+     * Get text position for the offset.
+     *
+     * @param offset the offset
+     * @return the text position
+     */
+    public TextPos position(final long offset) {
+        final int i = find(offset);
+        return new TextPos(lines[i], columns[i] + (int) (offset - offsets[i]), offset);
+    }
+
+    /**
+     * Find the last checkpoint that is not after the offset.
+     *
+     * @param offset the offset
+     * @return the checkpoint index
+     */
+    private int find(final long offset) {
+        final int i = Arrays.binarySearch(offsets, 0, size, offset);
+        if (i >= 0) {
+            return i;
+        }
+        final int insertionPoint = -i - 1;
+        if (insertionPoint == 0) {
+            throw new IllegalArgumentException("The offset is before the start of the index: " + offset);
+        }
+        return insertionPoint - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "TextIndex{size=" + size + '}';
+    }
+}
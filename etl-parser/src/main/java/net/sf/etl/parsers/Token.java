@@ -57,6 +57,23 @@ public final class Token extends AbstractToken {
         this.text = text;
     }
 
+    /**
+     * A constructor for token with compact positions.
+     *
+     * @param kind        the kind of token
+     * @param text        the token text
+     * @param textIndex   the text index used to create positions
+     * @param startOffset the start offset of token in text
+     * @param endOffset   the end offset of token in text
+     * @param errors      the errors
+     */
+    public Token(final TokenKey kind, final String text, final TextIndex textIndex, final long startOffset,
+                 final long endOffset, final ErrorInfo errors) {
+        super(textIndex, startOffset, endOffset, errors);
+        this.key = kind;
+        this.text = text;
+    }
+
 
     /**
      * @return the key for the token
@@ -29,11 +29,15 @@ import net.sf.etl.parsers.DefinitionContext;
 import net.sf.etl.parsers.ErrorInfo;
 import net.sf.etl.parsers.GrammarId;
 import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.SyntaxRole;
 import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
 import net.sf.etl.parsers.event.grammar.CompiledGrammar;
 import net.sf.etl.parsers.resource.ResolvedObject;
 import net.sf.etl.parsers.resource.ResourceRequest;
 
+import java.util.Set;
+
 /**
  * The term parser interface that parses the stream.
  */
@@ -117,4 +121,19 @@ public interface TermParser {
      * @return get system id
      */
     String getSystemId();
+
+    /**
+     * Suppress tokens with the specified kinds and roles. The suppressed tokens are not created at all,
+     * except when they have errors. Only {@link Terms#IGNORABLE}, {@link Terms#CONTROL}, and
+     * {@link Terms#STRUCTURAL} tokens could be suppressed, since other tokens define the structure of the source.
+     * The tree parsers skip such tokens anyway, so they could be suppressed if there are no other consumers
+     * (like formatters or listeners) that need them. The suppression is an optimization, so the default
+     * implementation ignores the request and produces all tokens.
+     *
+     * @param kinds the kinds of tokens to suppress (empty set disables suppression)
+     * @param roles the roles of tokens to suppress
+     */
+    default void setSuppressedTokens(final Set<Terms> kinds, final Set<SyntaxRole> roles) {
+        // the tokens are not suppressed by default
+    }
 }
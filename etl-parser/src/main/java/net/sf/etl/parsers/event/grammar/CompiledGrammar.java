@@ -127,4 +127,15 @@ public interface CompiledGrammar extends Serializable {
      * @return if true, the script mode should be used if mode for the source is not specified
      */
     boolean isScript();
+
+    /**
+     * Get models of objects that could be created by the contexts of this grammar. The objects
+     * created by the contexts imported from other grammars are described by those grammars.
+     * The default implementation returns an empty list, as the models are optional.
+     *
+     * @return the object models
+     */
+    default List<ObjectModel> getObjectModels() {
+        return List.of();
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.grammar;
+
+import net.sf.etl.parsers.ObjectName;
+
+import java.util.List;
+
+/**
+ * The structure of the object that could be produced by the grammar. The model is gathered
+ * during grammar compilation from object and property definitions, so it describes what
+ * the term parser could report for the object, and it could be used to generate the AST classes.
+ *
+ * @param name       the object name
+ * @param properties the properties in the order of the first appearance in the grammar
+ */
+public record ObjectModel(ObjectName name, List<PropertyModel> properties) {
+    /**
+     * The property of the object.
+     *
+     * @param name        the property name as it is used in the grammar
+     * @param list        true if it is a list property
+     * @param objects     the objects that could be directly created inside the property
+     * @param values      true if the property could contain value tokens
+     * @param expressions true if the property could contain objects produced by expressions or blocks,
+     *                    types of these objects are not known from the property definition
+     */
+    public record PropertyModel(String name, boolean list, List<ObjectName> objects, boolean values,
+                                boolean expressions) {
+    }
+}
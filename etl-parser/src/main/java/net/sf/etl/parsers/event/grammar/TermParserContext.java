@@ -26,7 +26,9 @@
 package net.sf.etl.parsers.event.grammar;
 
 import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.SyntaxRole;
 import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
 import net.sf.etl.parsers.event.TermParser;
 
 /**
@@ -169,4 +171,16 @@ public interface TermParserContext {
      * @return the current token at mark or null
      */
     TermToken peekObjectAtMark();
+
+    /**
+     * Check if tokens with the specified kind and role are suppressed. The default implementation returns false.
+     *
+     * @param kind the token kind
+     * @param role the token role
+     * @return true if such tokens should not be produced (unless they have errors)
+     * @see TermParser#setSuppressedTokens(java.util.Set, java.util.Set)
+     */
+    default boolean isSuppressed(final Terms kind, final SyntaxRole role) {
+        return false;
+    }
 }
@@ -103,6 +103,10 @@ public final class ActionBuilder { //NOPMD
      * The state factory.
      */
     private ActionStateFactory targetFactory;
+    /**
+     * The properties that were started at mark, they belong to the next object started at mark.
+     */
+    private final List<PropertyNode> markProperties = new ArrayList<>();
 
     /**
      * A constructor for builder.
@@ -319,7 +323,13 @@ public final class ActionBuilder { //NOPMD
      * @return the object node that have been created
      */
     public ObjectNode endObject() {
-        return endNode(ObjectNode.class);
+        final ObjectNode rc = endNode(ObjectNode.class);
+        final List<PropertyNode> properties = rc.isAtMark() ? markProperties : List.of();
+        contextBuilder.grammarBuilder().objectModel().object(rc, properties);
+        if (rc.isAtMark()) {
+            markProperties.clear();
+        }
+        return rc;
     }
 
     /**
@@ -359,7 +369,10 @@ public final class ActionBuilder { //NOPMD
      * end the property node.
      */
     public void endProperty() {
-        endNode(PropertyNode.class);
+        final PropertyNode rc = endNode(PropertyNode.class);
+        if (rc.isAtMark()) {
+            markProperties.add(rc);
+        }
     }
 
     /**
@@ -582,6 +595,7 @@ public final class ActionBuilder { //NOPMD
      */
     public void endDefinition() {
         definitionStack.remove(definitionStack.size() - 1);
+        markProperties.clear();
     }
 
     /**
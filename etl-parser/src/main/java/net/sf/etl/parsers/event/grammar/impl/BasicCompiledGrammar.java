@@ -30,9 +30,11 @@ import net.sf.etl.parsers.ErrorInfo;
 import net.sf.etl.parsers.ExpressionContext;
 import net.sf.etl.parsers.event.grammar.CompiledGrammar;
 import net.sf.etl.parsers.event.grammar.KeywordContext;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
 import net.sf.etl.parsers.event.grammar.TermParserStateFactory;
 import net.sf.etl.parsers.resource.ResourceDescriptor;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +92,10 @@ public final class BasicCompiledGrammar implements CompiledGrammar {
      * If true, default mode for the grammar is script mode.
      */
     private final boolean script;
+    /**
+     * The object models.
+     */
+    private final List<ObjectModel> objectModels;
 
     //CHECKSTYLE:OFF
 
@@ -107,6 +113,7 @@ public final class BasicCompiledGrammar implements CompiledGrammar {
      * @param definitionContexts       the definition contexts
      * @param expressionContexts       the expression contexts
      * @param script                   the default script mode
+     * @param objectModels             the object models
      */
     public BasicCompiledGrammar(final ResourceDescriptor resourceDescriptor, // NOPMD
                                 final ErrorInfo errors,
@@ -117,7 +124,8 @@ public final class BasicCompiledGrammar implements CompiledGrammar {
                                 final Map<ExpressionContext, TermParserStateFactory> expressionParsers,
                                 final List<CompiledGrammar> otherGrammars,
                                 final List<DefinitionContext> definitionContexts,
-                                final List<ExpressionContext> expressionContexts, final boolean script) {
+                                final List<ExpressionContext> expressionContexts, final boolean script,
+                                final List<ObjectModel> objectModels) {
         this.resourceDescriptor = resourceDescriptor;
         this.errors = errors;
         this.defaultContext = defaultContext;
@@ -126,6 +134,7 @@ public final class BasicCompiledGrammar implements CompiledGrammar {
         this.statementSequenceParsers = statementSequenceParsers;
         this.expressionParsers = expressionParsers;
         this.script = script;
+        this.objectModels = Collections.unmodifiableList(new ArrayList<>(objectModels));
         this.otherGrammars = Collections.unmodifiableList(otherGrammars);
         this.definitionContexts = Collections.unmodifiableList(definitionContexts);
         this.expressionContexts = Collections.unmodifiableList(expressionContexts);
@@ -207,4 +216,9 @@ public final class BasicCompiledGrammar implements CompiledGrammar {
     public boolean isScript() {
         return script;
     }
+
+    @Override
+    public List<ObjectModel> getObjectModels() {
+        return objectModels;
+    }
 }
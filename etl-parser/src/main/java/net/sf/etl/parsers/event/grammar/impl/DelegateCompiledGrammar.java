@@ -30,6 +30,7 @@ import net.sf.etl.parsers.ErrorInfo;
 import net.sf.etl.parsers.ExpressionContext;
 import net.sf.etl.parsers.event.grammar.CompiledGrammar;
 import net.sf.etl.parsers.event.grammar.KeywordContext;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
 import net.sf.etl.parsers.event.grammar.TermParserStateFactory;
 import net.sf.etl.parsers.resource.ResourceDescriptor;
 
@@ -138,4 +139,9 @@ public final class DelegateCompiledGrammar implements CompiledGrammar {
     public boolean isScript() {
         return grammar.isScript();
     }
+
+    @Override
+    public List<ObjectModel> getObjectModels() {
+        return grammar.getObjectModels();
+    }
 }
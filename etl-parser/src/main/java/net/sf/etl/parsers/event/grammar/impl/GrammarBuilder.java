@@ -75,6 +75,10 @@ public final class GrammarBuilder {
      * The compiled grammar.
      */
     private CompiledGrammar compiledGrammar;
+    /**
+     * The object models gathered from the contexts of this grammar.
+     */
+    private final ObjectModelBuilder objectModel = new ObjectModelBuilder();
 
 
     /**
@@ -246,7 +250,14 @@ public final class GrammarBuilder {
                 expressionParsers,
                 linkedGrammars,
                 new ArrayList<>(statementSequences.keySet()),
-                new ArrayList<>(expressionParsers.keySet()), script);
+                new ArrayList<>(expressionParsers.keySet()), script, objectModel.build());
+    }
+
+    /**
+     * @return the builder for object models of this grammar
+     */
+    public ObjectModelBuilder objectModel() {
+        return objectModel;
     }
 
     /**
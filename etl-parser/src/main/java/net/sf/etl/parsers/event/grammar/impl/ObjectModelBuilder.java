@@ -0,0 +1,195 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.grammar.impl;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
+import net.sf.etl.parsers.event.grammar.impl.flattened.WrapperLink;
+import net.sf.etl.parsers.event.grammar.impl.nodes.BlockNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.CallNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.FallbackObjectNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.GroupNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.Node;
+import net.sf.etl.parsers.event.grammar.impl.nodes.ObjectNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.PropertyNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.ScopeNode;
+import net.sf.etl.parsers.event.grammar.impl.nodes.TokenNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The builder for object models of the grammar. The object nodes are registered when they are
+ * completed by {@link ActionBuilder}, and definitions of the same object from different places
+ * are merged.
+ */
+public final class ObjectModelBuilder {
+    /**
+     * The objects.
+     */
+    private final Map<ObjectName, Map<String, PropertyInfo>> objects = new LinkedHashMap<>(); // NOPMD
+
+    /**
+     * Register the object node.
+     *
+     * @param node           the object node
+     * @param markProperties the properties that were started at mark before the object
+     */
+    public void object(final ObjectNode node, final List<PropertyNode> markProperties) {
+        ObjectName owner = node.name();
+        Map<String, PropertyInfo> ownerProperties = properties(owner);
+        // wrappers are reported inside the object, the innermost wrapper contains the object body
+        final List<WrapperLink> links = new ArrayList<>();
+        for (WrapperLink link = node.wrappers(); link != null; link = link.innerWrapper()) {
+            links.add(link);
+        }
+        for (int i = links.size() - 1; i >= 0; i--) {
+            final WrapperLink link = links.get(i);
+            final ObjectName wrapper = new ObjectName(link.namespace(), link.name());
+            property(ownerProperties, link.property(), false).objects.add(wrapper);
+            owner = wrapper;
+            ownerProperties = properties(owner);
+        }
+        for (final PropertyNode property : markProperties) {
+            // the property started at mark receives the preceding expression (left operand)
+            property(ownerProperties, property.name().name(), property.isList()).expressions = true;
+            collect(property, ownerProperties);
+        }
+        collect(node.innerNode(), ownerProperties);
+    }
+
+    /**
+     * Get properties of the object.
+     *
+     * @param name the object name
+     * @return the properties
+     */
+    private Map<String, PropertyInfo> properties(final ObjectName name) {
+        return objects.computeIfAbsent(name, k -> new LinkedHashMap<>());
+    }
+
+    /**
+     * Get or create property.
+     *
+     * @param properties the object properties
+     * @param name       the property name
+     * @param isList     true if the property is a list property
+     * @return the property
+     */
+    private static PropertyInfo property(final Map<String, PropertyInfo> properties, final String name,
+                                         final boolean isList) {
+        final PropertyInfo rc = properties.computeIfAbsent(name, k -> new PropertyInfo());
+        rc.list |= isList;
+        return rc;
+    }
+
+    /**
+     * Collect properties defined by the node.
+     *
+     * @param node       the node
+     * @param properties the properties of the object
+     */
+    private static void collect(final Node node, final Map<String, PropertyInfo> properties) {
+        if (node instanceof PropertyNode p) {
+            classify(p.innerNode(), property(properties, p.name().name(), p.isList()));
+        } else if (node instanceof ObjectNode || node instanceof FallbackObjectNode) {
+            // properties of nested objects are registered with those objects
+            return;
+        } else if (node instanceof ScopeNode s) {
+            collect(s.innerNode(), properties);
+        } else if (node instanceof GroupNode g) {
+            for (final Node n : g.nodes()) {
+                collect(n, properties);
+            }
+        }
+    }
+
+    /**
+     * Classify the content of the property.
+     *
+     * @param node     the node
+     * @param property the property
+     */
+    private static void classify(final Node node, final PropertyInfo property) {
+        if (node instanceof ObjectNode o) {
+            property.objects.add(o.name());
+        } else if (node instanceof FallbackObjectNode || node instanceof CallNode || node instanceof BlockNode) {
+            property.expressions = true;
+        } else if (node instanceof TokenNode t) {
+            property.values |= t.termKind() == Terms.VALUE;
+        } else if (node instanceof ScopeNode s) {
+            classify(s.innerNode(), property);
+        } else if (node instanceof GroupNode g) {
+            for (final Node n : g.nodes()) {
+                classify(n, property);
+            }
+        }
+    }
+
+    /**
+     * @return the object models
+     */
+    public List<ObjectModel> build() {
+        final List<ObjectModel> rc = new ArrayList<>();
+        for (final Map.Entry<ObjectName, Map<String, PropertyInfo>> e : objects.entrySet()) {
+            final List<ObjectModel.PropertyModel> properties = new ArrayList<>();
+            for (final Map.Entry<String, PropertyInfo> p : e.getValue().entrySet()) {
+                final PropertyInfo info = p.getValue();
+                properties.add(new ObjectModel.PropertyModel(p.getKey(), info.list, // NOPMD
+                        List.copyOf(info.objects), info.values, info.expressions));
+            }
+            rc.add(new ObjectModel(e.getKey(), List.copyOf(properties))); // NOPMD
+        }
+        return List.copyOf(rc);
+    }
+
+    /**
+     * The mutable property information.
+     */
+    private static final class PropertyInfo {
+        /**
+         * The nested objects.
+         */
+        private final Set<ObjectName> objects = new LinkedHashSet<>();
+        /**
+         * True if it is a list property.
+         */
+        private boolean list;
+        /**
+         * True if property contains values.
+         */
+        private boolean values;
+        /**
+         * True if property contains calls.
+         */
+        private boolean expressions;
+    }
+}
@@ -64,6 +64,13 @@ public final class ObjectNode extends TermScopeNode {
         return name;
     }
 
+    /**
+     * @return the wrappers of the object
+     */
+    public WrapperLink wrappers() {
+        return wrappers;
+    }
+
 
     @Override
     protected Action buildStartState(final ActionBuilder b, final Action bodyStates, final Action errorExit,
@@ -80,6 +80,13 @@ public final class TokenNode extends Node {
         this.tokenKey = tokenKey;
     }
 
+    /**
+     * @return the term kind for the token
+     */
+    public Terms termKind() {
+        return termKind;
+    }
+
     @Override
     public void collectKeywords(final Set<Keyword> keywords, final Set<ActionBuilder> visited) {
         if (text != null) {
@@ -0,0 +1,161 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.impl;
+
+import net.sf.etl.parsers.characters.Identifiers;
+import net.sf.etl.parsers.characters.Whitespaces;
+
+import java.nio.CharBuffer;
+
+/**
+ * <p>Bulk scanning of ASCII character runs for the lexer fast paths. The lexer falls back to the code point
+ * at time processing when the run stops, so the classes here only need to be conservative: any character that
+ * is not in the class (including all non-ASCII characters and surrogates) just terminates the run.</p>
+ * <p>The {@link CharBuffer} does not provide a wider view over characters, so the run is detected using
+ * a class table over the backing array where the array is available.</p>
+ */
+final class AsciiRuns {
+    /**
+     * The class of characters that could continue whitespace token (space and tab).
+     */
+    static final int SPACE = 1;
+    /**
+     * The class of characters that could continue identifier.
+     */
+    static final int IDENTIFIER = 2;
+    /**
+     * The class of characters that could continue line comment.
+     */
+    static final int LINE_COMMENT = 4;
+    /**
+     * The class of characters that could continue block comment without changing its phase.
+     */
+    static final int BLOCK_COMMENT = 8;
+    /**
+     * The number of ASCII characters.
+     */
+    private static final int ASCII_SIZE = 0x80;
+    /**
+     * The character classes for ASCII characters.
+     */
+    private static final byte[] CLASSES = new byte[ASCII_SIZE];
+
+    static {
+        for (int c = 0; c < ASCII_SIZE; c++) {
+            int classes = 0;
+            if (c == ' ' || c == '\t') {
+                classes |= SPACE;
+            }
+            if (Identifiers.isIdentifierPart(c)) {
+                classes |= IDENTIFIER;
+            }
+            if (!Whitespaces.isNewline(c)) {
+                classes |= LINE_COMMENT;
+                if (c != '*') {
+                    classes |= BLOCK_COMMENT;
+                }
+            }
+            CLASSES[c] = (byte) classes;
+        }
+    }
+
+    /**
+     * Private constructor for utility class.
+     */
+    private AsciiRuns() {
+        // do nothing
+    }
+
+    /**
+     * Get length of the run of the characters of the specified class from the buffer position.
+     *
+     * @param buffer the buffer (it is not modified)
+     * @param mask   the character class
+     * @return the amount of characters in the run
+     */
+    static int length(final CharBuffer buffer, final int mask) {
+        final int position = buffer.position();
+        final int limit = buffer.limit();
+        if (buffer.hasArray()) {
+            final char[] array = buffer.array();
+            final int base = buffer.arrayOffset();
+            final int end = base + limit;
+            int i = base + position;
+            while (i < end) {
+                final char c = array[i];
+                if (c >= ASCII_SIZE || (CLASSES[c] & mask) == 0) {
+                    break;
+                }
+                i++;
+            }
+            return i - base - position;
+        } else {
+            int i = position;
+            while (i < limit) {
+                final char c = buffer.get(i);
+                if (c >= ASCII_SIZE || (CLASSES[c] & mask) == 0) {
+                    break;
+                }
+                i++;
+            }
+            return i - position;
+        }
+    }
+
+    /**
+     * Move characters from the buffer to the text.
+     *
+     * @param text   the text to append to
+     * @param buffer the buffer to get characters from
+     * @param length the amount of characters
+     */
+    static void transfer(final StringBuilder text, final CharBuffer buffer, final int length) {
+        final int position = buffer.position();
+        if (buffer.hasArray()) {
+            text.append(buffer.array(), buffer.arrayOffset() + position, length);
+        } else {
+            text.append(buffer, 0, length);
+        }
+        buffer.position(position + length);
+    }
+
+    /**
+     * Calculate column after the run of spaces and tabs.
+     *
+     * @param buffer  the buffer positioned at the start of the run (it is not modified)
+     * @param length  the length of the run
+     * @param column  the column at the start of the run
+     * @param tabSize the tab size
+     * @return the column after the run
+     */
+    static int spacesColumn(final CharBuffer buffer, final int length, final int column, final int tabSize) {
+        int rc = column;
+        for (int i = 0; i < length; i++) {
+            rc = buffer.get(buffer.position() + i) == '\t' ? LexerImpl.tab(rc, tabSize) : rc + 1;
+        }
+        return rc;
+    }
+}
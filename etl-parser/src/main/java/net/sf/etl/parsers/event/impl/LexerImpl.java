@@ -28,7 +28,9 @@ package net.sf.etl.parsers.event.impl;
 import net.sf.etl.parsers.DefaultTermParserConfiguration;
 import net.sf.etl.parsers.ErrorInfo;
 import net.sf.etl.parsers.ParserException;
+import net.sf.etl.parsers.SymbolTable;
 import net.sf.etl.parsers.TermParserConfiguration;
+import net.sf.etl.parsers.TextIndex;
 import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.Token;
 import net.sf.etl.parsers.TokenKey;
@@ -192,6 +194,14 @@ public final class LexerImpl implements Lexer { // NOPMD
      * The start position.
      */
     private TextPos start = TextPos.START;
+    /**
+     * The start offset.
+     */
+    private long startOffset = TextPos.START_OFFSET;
+    /**
+     * The text index (null if explicit positions are used).
+     */
+    private TextIndex textIndex;
     /**
      * The line.
      */
@@ -240,6 +250,18 @@ public final class LexerImpl implements Lexer { // NOPMD
      * The tab size.
      */
     private int tabSize;
+    /**
+     * If true, the text of whitespaces and comments is not built.
+     */
+    private boolean ignorableTextSkipped;
+    /**
+     * If true, the text of the current token is not built.
+     */
+    private boolean skipText;
+    /**
+     * The symbol table for token texts (null if texts are not shared).
+     */
+    private SymbolTable symbols;
 
     /**
      * The constructor from configuration.
@@ -277,6 +299,11 @@ public final class LexerImpl implements Lexer { // NOPMD
         started = true;
         this.start = startPosition;
         this.systemId = startSystemId;
+        if (configuration.isCompactPositions(startSystemId)) {
+            textIndex = new TextIndex(current());
+        }
+        ignorableTextSkipped = configuration.isIgnorableTextSkipped(startSystemId);
+        symbols = configuration.getSymbolTable(startSystemId);
     }
 
     @Override
@@ -341,7 +368,7 @@ public final class LexerImpl implements Lexer { // NOPMD
             // TODO make invalid characters a range token rather than single character one
             // invalid character
             codepoint(buffer, eof);
-            error("lexical.InvalidCharacter", start, current());
+            error("lexical.InvalidCharacter", startPos(), current());
             kind = Tokens.WHITESPACE;
             return makeToken();
         } else {
@@ -461,7 +488,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                         phase = NUMBER_AFTER_EXPONENT;
                     } else {
                         if (kind == Tokens.FLOAT && numberBase != Numbers.DECIMAL) {
-                            error("lexical.BinaryExponentRequired", start, current());
+                            error("lexical.BinaryExponentRequired", startPos(), current());
                             return makeToken();
                         }
                         phase = NUMBER_BEFORE_SUFFIX;
@@ -478,7 +505,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                         codepoint(buffer, eof);
                         phase = NUMBER_IN_EXPONENT_VALUE;
                     } else {
-                        error("lexical.UnterminatedNumberExponent", start, current());
+                        error("lexical.UnterminatedNumberExponent", startPos(), current());
                         phase = NUMBER_BEFORE_SUFFIX;
                     }
                     break;
@@ -577,10 +604,10 @@ public final class LexerImpl implements Lexer { // NOPMD
                         codepoint(buffer, eof);
                         phase = STRING_ESCAPED;
                     } else if (Whitespaces.isNewline(codepoint)) {
-                        error("lexical.NewLineInString", start, current());
+                        error("lexical.NewLineInString", startPos(), current());
                         return makeToken();
                     } else if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     } else {
                         codepoint(buffer, eof);
@@ -594,10 +621,10 @@ public final class LexerImpl implements Lexer { // NOPMD
                 case STRING_ESCAPED:
                     phase = STRING_NORMAL;
                     if (Whitespaces.isNewline(codepoint)) {
-                        error("lexical.NewLineInString", start, current());
+                        error("lexical.NewLineInString", startPos(), current());
                         return makeToken();
                     } else if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     } else {
                         codepoint(buffer, eof);
@@ -612,7 +639,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                             return ParserState.INPUT_NEEDED;
                         }
                     } else if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     } else {
                         final QuoteClass endQuoteClass = QuoteClass.classify(codepoint);
@@ -626,7 +653,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                     break;
                 case STRING_MULTILINE_ESCAPED:
                     if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     }
                     phase = STRING_MULTILINE_NORMAL;
@@ -640,7 +667,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                     break;
                 case STRING_MULTILINE_AFTER_CR:
                     if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     }
                     if (!consumeNewLine(buffer, eof, STRING_MULTILINE_AFTER_CR, STRING_MULTILINE_NORMAL)) {
@@ -650,7 +677,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                     break;
                 case STRING_MULTILINE_END_FIRST_QUOTE:
                     if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     }
                     if (codepoint == endQuote) {
@@ -663,7 +690,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                     break;
                 case STRING_MULTILINE_END_SECOND_QUOTE:
                     if (codepoint == -1) {
-                        error("lexical.EOFInString", start, current());
+                        error("lexical.EOFInString", startPos(), current());
                         return makeToken();
                     }
                     if (codepoint == endQuote) {
@@ -689,6 +716,7 @@ public final class LexerImpl implements Lexer { // NOPMD
      */
     private ParserState parseSpace(final CharBuffer buffer, final boolean eof) {
         kind = Tokens.WHITESPACE;
+        skipText = ignorableTextSkipped;
         return continueSpaces(buffer, eof);
     }
 
@@ -701,9 +729,17 @@ public final class LexerImpl implements Lexer { // NOPMD
      */
     private ParserState continueSpaces(final CharBuffer buffer, final boolean eof) {
         while (Whitespaces.isSpace(peek(buffer, eof))) {
-            final int codepoint = codepoint(buffer, eof);
-            if (codepoint == '\t') {
-                column = tab(column - 1, tabSize);
+            final int length = AsciiRuns.length(buffer, AsciiRuns.SPACE);
+            if (length > 0) {
+                final int newColumn = AsciiRuns.spacesColumn(buffer, length, column, tabSize);
+                final boolean hasTabs = newColumn != column + length;
+                column = newColumn;
+                consumeRun(buffer, length);
+                if (hasTabs) {
+                    checkpoint();
+                }
+            } else {
+                codepoint(buffer, eof);
             }
             if (moreDataNeeded(buffer, eof)) {
                 return ParserState.INPUT_NEEDED;
@@ -760,8 +796,7 @@ public final class LexerImpl implements Lexer { // NOPMD
                     return false;
                 }
             } else {
-                line++;
-                column = TextPos.START_COLUMN;
+                newLineStarted();
                 return true;
             }
         } else if (phase != crPhase) {
@@ -772,9 +807,26 @@ public final class LexerImpl implements Lexer { // NOPMD
             codepoint(buffer, eof);
         }
         phase = normalPhase;
+        newLineStarted();
+        return true;
+    }
+
+    /**
+     * Update position after the new line.
+     */
+    private void newLineStarted() {
         line++;
         column = TextPos.START_COLUMN;
-        return true;
+        checkpoint();
+    }
+
+    /**
+     * Record the current position to the text index, if compact positions are used.
+     */
+    private void checkpoint() {
+        if (textIndex != null) {
+            textIndex.checkpoint(line, column, offset);
+        }
     }
 
     /**
@@ -803,7 +855,13 @@ public final class LexerImpl implements Lexer { // NOPMD
     private ParserState continueIdentifier(final CharBuffer buffer, final boolean eof) {
         int codepoint = peek(buffer, eof);
         while (Identifiers.isIdentifierPart(codepoint)) {
-            codepoint(buffer, eof);
+            final int length = AsciiRuns.length(buffer, AsciiRuns.IDENTIFIER);
+            if (length > 0) {
+                column += length;
+                consumeRun(buffer, length);
+            } else {
+                codepoint(buffer, eof);
+            }
             if (moreDataNeeded(buffer, eof)) {
                 return ParserState.INPUT_NEEDED;
             }
@@ -905,6 +963,7 @@ public final class LexerImpl implements Lexer { // NOPMD
     private ParserState parseLineComment(final CharBuffer buffer, final boolean eof) {
         // it is already known that it is line comment
         kind = Tokens.LINE_COMMENT;
+        skipText = ignorableTextSkipped;
         final int first = codepoint(buffer, eof);
         final int second = codepoint(buffer, eof);
         phase = first == '/' && second == '/' ? LINE_COMMENT_START : LINE_COMMENT_NORMAL;
@@ -926,6 +985,11 @@ public final class LexerImpl implements Lexer { // NOPMD
         if (phase == LINE_COMMENT_START) {
             if (codepoint == '/') {
                 kind = Tokens.DOC_COMMENT;
+                if (skipText) {
+                    // the documentation comments are significant, so the text is restored
+                    skipText = false;
+                    text = new StringBuilder("//");
+                }
             }
             phase = LINE_COMMENT_NORMAL;
         }
@@ -933,7 +997,13 @@ public final class LexerImpl implements Lexer { // NOPMD
             return makeToken();
         }
         do {
-            codepoint(buffer, eof);
+            final int length = AsciiRuns.length(buffer, AsciiRuns.LINE_COMMENT);
+            if (length > 0) {
+                column += length;
+                consumeRun(buffer, length);
+            } else {
+                codepoint(buffer, eof);
+            }
             if (moreDataNeededNext(buffer, eof)) {
                 return ParserState.INPUT_NEEDED;
             }
@@ -952,6 +1022,7 @@ public final class LexerImpl implements Lexer { // NOPMD
     private ParserState parseBlockComment(final CharBuffer buffer, final boolean eof) {
         // it is already known that it is line comment
         kind = Tokens.BLOCK_COMMENT;
+        skipText = ignorableTextSkipped;
         codepoint(buffer, eof);
         codepoint(buffer, eof);
         phase = BLOCK_COMMENT_NORMAL;
@@ -972,7 +1043,7 @@ public final class LexerImpl implements Lexer { // NOPMD
             }
             final int codepoint = peek(buffer, eof);
             if (codepoint == -1) {
-                error("lexical.EOFInBlockComment", start, current());
+                error("lexical.EOFInBlockComment", startPos(), current());
                 return makeToken();
             }
             switch (phase) {
@@ -985,7 +1056,13 @@ public final class LexerImpl implements Lexer { // NOPMD
                             return ParserState.INPUT_NEEDED;
                         }
                     } else {
-                        codepoint(buffer, eof);
+                        final int length = AsciiRuns.length(buffer, AsciiRuns.BLOCK_COMMENT);
+                        if (length > 0) {
+                            column += length;
+                            consumeRun(buffer, length);
+                        } else {
+                            codepoint(buffer, eof);
+                        }
                     }
                     break;
                 case BLOCK_COMMENT_AFTER_CR:
@@ -1030,23 +1107,45 @@ public final class LexerImpl implements Lexer { // NOPMD
     private int codepoint(final CharBuffer buffer, final boolean eof) {
         assert !moreDataNeeded(buffer, eof) : "Can consume only if there is data available";
         final int c = Character.codePointAt(buffer, 0);
-        if (text == null) {
-            text = new StringBuilder();
-        }
         final int s = Character.charCount(c);
+        column++;
         if (s == 2) {
             buffer.get();
             buffer.get();
             offset += 2;
+            checkpoint();
         } else {
             buffer.get();
             offset++;
         }
-        column++;
-        text.appendCodePoint(c);
+        if (!skipText) {
+            if (text == null) {
+                text = new StringBuilder();
+            }
+            text.appendCodePoint(c);
+        }
         return c;
     }
 
+    /**
+     * Consume the run of ASCII characters detected by {@link AsciiRuns}. The column is updated by the caller,
+     * since it depends on the character class.
+     *
+     * @param buffer the buffer to consume from
+     * @param length the length of the run
+     */
+    private void consumeRun(final CharBuffer buffer, final int length) {
+        if (skipText) {
+            buffer.position(buffer.position() + length);
+        } else {
+            if (text == null) {
+                text = new StringBuilder();
+            }
+            AsciiRuns.transfer(text, buffer, length);
+        }
+        offset += length;
+    }
+
     /**
      * Peek character in the buffer.
      *
@@ -1133,7 +1232,6 @@ public final class LexerImpl implements Lexer { // NOPMD
         if (next != null) {
             throw new IllegalStateException("Next token is already available: " + next);
         }
-        final TextPos end = current();
         final TokenKey key;
         if (kind.hasQuotes()) {
             key = TokenKey.quoted(kind, modifier, quoteClass);
@@ -1142,15 +1240,37 @@ public final class LexerImpl implements Lexer { // NOPMD
         } else {
             key = TokenKey.simple(kind);
         }
-        next = new Token(key, text == null ? "" : text.toString(), start, end, errorInfo);
+        final String tokenText;
+        if (text == null) {
+            tokenText = "";
+        } else if (symbols == null) {
+            tokenText = text.toString();
+        } else {
+            tokenText = symbols.intern(text);
+        }
+        if (textIndex == null) {
+            final TextPos end = current();
+            next = new Token(key, tokenText, start, end, errorInfo);
+            start = end;
+        } else {
+            next = new Token(key, tokenText, textIndex, startOffset, offset, errorInfo);
+        }
+        startOffset = offset;
         kind = null;
         text = null;
-        start = end;
+        skipText = false;
         errorInfo = null;
         modifier = null;
         return ParserState.OUTPUT_AVAILABLE;
     }
 
+    /**
+     * @return the start position of the current token
+     */
+    private TextPos startPos() {
+        return textIndex == null ? start : textIndex.position(startOffset);
+    }
+
     /**
      * @return the current position in the token
      */
@@ -70,9 +70,9 @@ public final class PhraseParserImpl implements PhraseParser {
      */
     private static final int AFTER_EOF = 6;
     /**
-     * The stack of block positions.
+     * The stack of block start tokens.
      */
-    private final List<TextPos> blockStarts = new ArrayList<>();
+    private final List<Token> blockStarts = new ArrayList<>();
     /**
      * The parser state.
      */
@@ -130,7 +130,7 @@ public final class PhraseParserImpl implements PhraseParser {
                                 return peek(t, PhraseTokens.CONTROL, BEFORE_BLOCK_END);
                             }
                         case START_BLOCK:
-                            blockStarts.add(t.start());
+                            blockStarts.add(t);
                             return before(t, PhraseTokens.START_BLOCK, AFTER_BLOCK_START);
                         default:
                             throw new IllegalStateException("Unknown phrase role: " + t.kind().getPhraseRole());
@@ -149,7 +149,7 @@ public final class PhraseParserImpl implements PhraseParser {
                         case END_BLOCK:
                             return before(t, PhraseTokens.STATEMENT_END, STATEMENT_SEQUENCE);
                         case START_BLOCK:
-                            blockStarts.add(t.start());
+                            blockStarts.add(t);
                             return before(t, PhraseTokens.START_BLOCK, AFTER_BLOCK_START);
                         default:
                             throw new IllegalStateException("Unknown phrase role: " + t.kind().getPhraseRole());
@@ -172,7 +172,7 @@ public final class PhraseParserImpl implements PhraseParser {
                     if (blockStarts.isEmpty()) {
                         return consume(token, PhraseTokens.EOF, AFTER_EOF);
                     } else {
-                        final TextPos startPos = blockStarts.remove(blockStarts.size() - 1);
+                        final TextPos startPos = blockStarts.remove(blockStarts.size() - 1).start();
                         error("phrase.UnterminatedBlock", startPos);
                         return before(t, PhraseTokens.END_BLOCK, STATEMENT);
                     }
@@ -192,7 +192,9 @@ public final class PhraseParserImpl implements PhraseParser {
      */
     private ParserState before(final Token token, final PhraseTokens kind, final int nextState) {
         state = nextState;
-        output = new PhraseToken(kind, token.start(), errors);
+        output = token.textIndex() == null
+                ? new PhraseToken(kind, token.start(), errors)
+                : new PhraseToken(kind, token.textIndex(), token.startOffset(), errors);
         errors = null;
         return ParserState.OUTPUT_AVAILABLE;
     }
@@ -207,7 +209,10 @@ public final class PhraseParserImpl implements PhraseParser {
      */
     private ParserState after(final Cell<Token> token, final PhraseTokens kind, final int nextState) {
         state = nextState;
-        output = new PhraseToken(kind, token.take().end(), errors);
+        final Token t = token.take();
+        output = t.textIndex() == null
+                ? new PhraseToken(kind, t.end(), errors)
+                : new PhraseToken(kind, t.textIndex(), t.endOffset(), errors);
         errors = null;
         return ParserState.OUTPUT_AVAILABLE;
     }
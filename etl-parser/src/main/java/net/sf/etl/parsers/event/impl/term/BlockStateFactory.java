@@ -134,8 +134,7 @@ public final class BlockStateFactory implements TermParserStateFactory {
                     if (current.kind() != PhraseTokens.START_BLOCK) {
                         throw new IllegalStateException("Invalid state for the call" + mode + " : " + current);
                     }
-                    context.produce(new TermToken(Terms.BLOCK_START, null, statementContext, current,
-                            current.start(), current.end(), null));
+                    context.produce(new TermToken(Terms.BLOCK_START, null, statementContext, current, null, null));
                     context.startSoftEndContext();
                     context.consumePhraseToken();
                     context.call(statementSequenceFactory);
@@ -150,8 +149,7 @@ public final class BlockStateFactory implements TermParserStateFactory {
                         throw new IllegalStateException("Unexpected call status: " + callStatus);
                     }
                     context.endSoftEndContext();
-                    context.produce(new TermToken(Terms.BLOCK_END, null, statementContext, current,
-                            current.start(), current.end(), null));
+                    context.produce(new TermToken(Terms.BLOCK_END, null, statementContext, current, null, null));
                     context.consumePhraseToken();
                     mode = AFTER_BLOCK;
                     break;
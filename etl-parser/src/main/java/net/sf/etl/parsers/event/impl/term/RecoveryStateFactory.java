@@ -128,13 +128,13 @@ public final class RecoveryStateFactory implements TermParserStateFactory {
                 case START_BLOCK:
                     blockSkip++;
                     context.produce(new TermToken(Terms.BLOCK_START, SyntaxRole.CONTROL, DefinitionContext.UNKNOWN,
-                            current, current.start(), current.end(), null));
+                            current, null, null));
                     context.consumePhraseToken();
                     return;
                 case END_BLOCK:
                     blockSkip--;
                     context.produce(new TermToken(Terms.BLOCK_END, SyntaxRole.CONTROL, DefinitionContext.UNKNOWN,
-                            current, current.start(), current.end(), null));
+                            current, null, null));
                     context.consumePhraseToken();
                     return;
                 case STATEMENT_END:
@@ -151,8 +151,7 @@ public final class SourceStateFactory implements TermParserStateFactory {
                     break;
                 case PARSING_STATEMENTS:
                     if (current.kind() == PhraseTokens.EOF) {
-                        context.produce(new TermToken(Terms.EOF, SyntaxRole.CONTROL, null, current,
-                                current.start(), current.end(), null));
+                        context.produce(new TermToken(Terms.EOF, SyntaxRole.CONTROL, null, current, null, null));
                         context.consumePhraseToken();
                         context.exit(this, true);
                         break;
@@ -25,11 +25,13 @@
 
 package net.sf.etl.parsers.event.impl.term;
 
+import net.sf.etl.parsers.AbstractToken;
 import net.sf.etl.parsers.PhraseToken;
 import net.sf.etl.parsers.SourceLocation;
 import net.sf.etl.parsers.SyntaxRole;
 import net.sf.etl.parsers.TermToken;
 import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.Tokens;
 import net.sf.etl.parsers.event.grammar.TermParserContext;
 
@@ -50,8 +52,10 @@ public final class TermParserContextUtil {
      * @param token   the reported token
      */
     public static void reportControl(final TermParserContext context, final PhraseToken token) {
-        context.produce(new TermToken(Terms.CONTROL, SyntaxRole.CONTROL,
-                null, token, token.start(), token.end(), null));
+        if (isSuppressed(context, Terms.CONTROL, SyntaxRole.CONTROL, token)) {
+            return;
+        }
+        context.produce(new TermToken(Terms.CONTROL, SyntaxRole.CONTROL, null, token, null, null));
     }
 
     /**
@@ -84,7 +88,45 @@ public final class TermParserContextUtil {
      */
     public static void reportIgnorable(final TermParserContext context, final SyntaxRole role,
                                        final PhraseToken token) {
-        context.produce(new TermToken(Terms.IGNORABLE, role, null, token, token.start(), token.end(), null));
+        if (isSuppressed(context, Terms.IGNORABLE, role, token)) {
+            return;
+        }
+        context.produce(new TermToken(Terms.IGNORABLE, role, null, token, null, null));
+    }
+
+    /**
+     * Check if the token should not be reported. The tokens with errors are always reported.
+     *
+     * @param context the context
+     * @param kind    the kind of the term token
+     * @param role    the role of the term token
+     * @param token   the phrase token
+     * @return true if the term token should not be created
+     */
+    public static boolean isSuppressed(final TermParserContext context, final Terms kind, final SyntaxRole role,
+                                       final PhraseToken token) {
+        return context.isSuppressed(kind, role)
+                && !token.hasErrors() && !(token.hasToken() && token.token().hasErrors());
+    }
+
+    /**
+     * Create an empty structural token located at the start of other token.
+     *
+     * @param kind   the token kind
+     * @param type   the structure id
+     * @param at     the token at which start the structural token is located
+     * @param source the source location in the grammar that caused this token creation
+     * @return the created token
+     */
+    public static TermToken structuralAt(final Terms kind, final Object type, final AbstractToken at,
+                                         final SourceLocation source) {
+        if (at.textIndex() == null) {
+            final TextPos start = at.start();
+            return new TermToken(kind, null, type, null, start, start, source, null);
+        } else {
+            final long start = at.startOffset();
+            return new TermToken(kind, null, type, null, at.textIndex(), start, start, source, null);
+        }
     }
 
     /**
@@ -103,8 +145,10 @@ public final class TermParserContextUtil {
             switch (t.kind()) {
                 case SOFT_STATEMENT_END:
                     if (!context.isScriptMode() || !context.canSoftEndStatement()) {
-                        context.produce(new TermToken(Terms.IGNORABLE, SyntaxRole.IGNORABLE, null, t,
-                                t.start(), t.end(), source, null));
+                        if (!isSuppressed(context, Terms.IGNORABLE, SyntaxRole.IGNORABLE, t)) {
+                            context.produce(new TermToken(Terms.IGNORABLE, SyntaxRole.IGNORABLE, null, t, source,
+                                    null));
+                        }
                         context.consumePhraseToken();
                         return true;
                     }
@@ -119,8 +163,10 @@ public final class TermParserContextUtil {
                     return true;
                 case SIGNIFICANT:
                     if (skipDocumentation && t.hasToken() && t.token().kind() == Tokens.DOC_COMMENT) {
-                        context.produce(new TermToken(Terms.IGNORABLE, SyntaxRole.DOCUMENTATION, null, t,
-                                t.start(), t.end(), source, null));
+                        if (!isSuppressed(context, Terms.IGNORABLE, SyntaxRole.DOCUMENTATION, t)) {
+                            context.produce(new TermToken(Terms.IGNORABLE, SyntaxRole.DOCUMENTATION, null, t, source,
+                                    null));
+                        }
                         context.consumePhraseToken();
                         return true;
                     }
@@ -32,6 +32,7 @@ import net.sf.etl.parsers.LoadedGrammarInfo;
 import net.sf.etl.parsers.ParserException;
 import net.sf.etl.parsers.PhraseToken;
 import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.SyntaxRole;
 import net.sf.etl.parsers.TermToken;
 import net.sf.etl.parsers.Terms;
 import net.sf.etl.parsers.TextPos;
@@ -51,7 +52,9 @@ import net.sf.etl.parsers.resource.ResolvedObject;
 import net.sf.etl.parsers.resource.ResourceRequest;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Core implementation of term parser that delegates to other term parsers.
@@ -65,6 +68,10 @@ public final class TermParserImpl implements TermParser { // NOPMD
      * The token queue.
      */
     private final MarkedQueue<TermToken> queue = new MarkedQueue<>();
+    /**
+     * The suppressed roles by term kind (bit mask by role ordinal).
+     */
+    private final int[] suppressedRoles = new int[Terms.values().length];
     /**
      * Stack for soft ends.
      */
@@ -135,9 +142,9 @@ public final class TermParserImpl implements TermParser { // NOPMD
      */
     private Doctype doctype;
     /**
-     * The current position.
+     * The last phrase token seen by the parser (used to get current position on demand).
      */
-    private TextPos currentPos;
+    private PhraseToken currentToken;
     /**
      * The default public id.
      */
@@ -205,6 +212,7 @@ public final class TermParserImpl implements TermParser { // NOPMD
                     + " do not match original " + grammarRequest);
         }
         final DefinitionContext initialContextCandidate = resolvedGrammar.getObject().getDefaultContext();
+        final TextPos currentPos = currentPos();
         final TextPos contextStart = doctype == null || doctype.getContext() == null
                 ? currentPos : doctype.getContext().start();
         final TextPos contextEnd = doctype == null || doctype.getContext() == null
@@ -251,6 +259,13 @@ public final class TermParserImpl implements TermParser { // NOPMD
                 null, currentPos, currentPos, merged));
     }
 
+    /**
+     * @return the current position
+     */
+    private TextPos currentPos() {
+        return currentToken == null ? null : currentToken.start();
+    }
+
     @Override
     public TermToken read() {
         if (queue.hasMark() || queue.isEmpty()) {
@@ -267,7 +282,7 @@ public final class TermParserImpl implements TermParser { // NOPMD
     public ParserState parse(final Cell<PhraseToken> token) {
         tokenCell = token;
         if (tokenCell.hasElement()) {
-            currentPos = tokenCell.peek().start();
+            currentToken = tokenCell.peek();
         }
         try {
             while (true) {
@@ -295,6 +310,26 @@ public final class TermParserImpl implements TermParser { // NOPMD
         return systemId;
     }
 
+    @Override
+    public void setSuppressedTokens(final Set<Terms> kinds, final Set<SyntaxRole> roles) {
+        int mask = 0;
+        for (final SyntaxRole role : roles) {
+            mask |= 1 << role.ordinal();
+        }
+        Arrays.fill(suppressedRoles, 0);
+        for (final Terms kind : kinds) {
+            switch (kind) {
+                case IGNORABLE:
+                case CONTROL:
+                case STRUCTURAL:
+                    suppressedRoles[kind.ordinal()] = mask;
+                    break;
+                default:
+                    throw new IllegalArgumentException("The tokens of kind could not be suppressed: " + kind);
+            }
+        }
+    }
+
     /**
      * Add listener for tokens.
      *
@@ -758,5 +793,10 @@ public final class TermParserImpl implements TermParser { // NOPMD
         public TermToken peekObjectAtMark() {
             return queue.peekObjectAfterMark();
         }
+
+        @Override
+        public boolean isSuppressed(final Terms kind, final SyntaxRole role) {
+            return role != null && (suppressedRoles[kind.ordinal()] & 1 << role.ordinal()) != 0;
+        }
     }
 }
@@ -25,11 +25,12 @@
 
 package net.sf.etl.parsers.event.impl.term.action;
 
+import net.sf.etl.parsers.AbstractToken;
 import net.sf.etl.parsers.SourceLocation;
 import net.sf.etl.parsers.TermToken;
 import net.sf.etl.parsers.Terms;
-import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.event.grammar.TermParserContext;
+import net.sf.etl.parsers.event.impl.term.TermParserContextUtil;
 
 /**
  * Token action.
@@ -61,8 +62,8 @@ public final class ReportBeforeMarkAction extends SimpleAction {
     @Override
     public void parseMore(final TermParserContext context, final ActionState state) {
         final TermToken termToken = context.peekObjectAtMark();
-        final TextPos start = termToken != null ? termToken.start() : context.current().start();
-        context.produceBeforeMark(new TermToken(kind, null, type, null, start, start, getSource(), null));
+        final AbstractToken at = termToken != null ? termToken : context.current();
+        context.produceBeforeMark(TermParserContextUtil.structuralAt(kind, type, at, getSource()));
         state.nextAction(getNext());
     }
 }
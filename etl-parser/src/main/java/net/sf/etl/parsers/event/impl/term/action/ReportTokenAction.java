@@ -31,6 +31,7 @@ import net.sf.etl.parsers.SyntaxRole;
 import net.sf.etl.parsers.TermToken;
 import net.sf.etl.parsers.Terms;
 import net.sf.etl.parsers.event.grammar.TermParserContext;
+import net.sf.etl.parsers.event.impl.term.TermParserContextUtil;
 
 /**
  * The action that reports current phrase token to the parser with the specified kind and syntax role.
@@ -62,8 +63,9 @@ public final class ReportTokenAction extends SimpleAction {
     @Override
     public void parseMore(final TermParserContext context, final ActionState state) {
         final PhraseToken in = context.current();
-        final TermToken out = new TermToken(kind, role, null, in, in.start(), in.end(), getSource(), null);
-        context.produce(out);
+        if (!TermParserContextUtil.isSuppressed(context, kind, role, in)) {
+            context.produce(new TermToken(kind, role, null, in, getSource(), null));
+        }
         context.consumePhraseToken();
         state.nextAction(getNext());
     }
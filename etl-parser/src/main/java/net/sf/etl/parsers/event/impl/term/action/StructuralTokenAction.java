@@ -25,11 +25,12 @@
 
 package net.sf.etl.parsers.event.impl.term.action;
 
+import net.sf.etl.parsers.AbstractToken;
 import net.sf.etl.parsers.SourceLocation;
 import net.sf.etl.parsers.TermToken;
 import net.sf.etl.parsers.Terms;
-import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.event.grammar.TermParserContext;
+import net.sf.etl.parsers.event.impl.term.TermParserContextUtil;
 
 /**
  * Token action.
@@ -69,11 +70,10 @@ public final class StructuralTokenAction extends SimpleAction {
     public void parseMore(final TermParserContext context, final ActionState state) {
         if (atMark) {
             final TermToken termToken = context.peekObjectAtMark();
-            final TextPos start = termToken != null ? termToken.start() : context.current().start();
-            context.produceAfterMark(new TermToken(kind, null, type, null, start, start, getSource(), null));
+            final AbstractToken at = termToken != null ? termToken : context.current();
+            context.produceAfterMark(TermParserContextUtil.structuralAt(kind, type, at, getSource()));
         } else {
-            final TextPos start = context.current().start();
-            context.produce(new TermToken(kind, null, type, null, start, start, getSource(), null));
+            context.produce(TermParserContextUtil.structuralAt(kind, type, context.current(), getSource()));
         }
         state.nextAction(getNext());
     }
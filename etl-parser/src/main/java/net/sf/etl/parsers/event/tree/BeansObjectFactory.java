@@ -32,10 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.Array;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -47,10 +44,10 @@ import java.util.List;
  * For example, the parser is used in test suite for some tests.
  * </p>
  * <p>
- * The parser uses BeanInfo classes quite naively. The performance impact of
- * this is not known and it should be measured later. For example, parser tries
- * to locate property in the list of properties returned by BeanInfo using
- * linear search. It also has unknown impact.
+ * The BeanInfo, the constructor, and the property accessors are resolved only
+ * once for each class, and they are shared between parser instances. The features
+ * are represented by {@link PropertyBinding}s, so the accessors are invoked using
+ * method handles without looking up the property for each value.
  * </p>
  * <p>
  * The parser recognizes the following types in bean properties:
@@ -66,7 +63,7 @@ import java.util.List;
  *
  * @author const
  */
-public class BeansObjectFactory extends ReflectionObjectFactoryBase<Object, PropertyDescriptor,
+public class BeansObjectFactory extends ReflectionObjectFactoryBase<Object, PropertyBinding,
         BeanInfo, List<Object>> {
     /**
      * a logger.
@@ -92,8 +89,10 @@ public class BeansObjectFactory extends ReflectionObjectFactoryBase<Object, Prop
     protected final Object createInstance(final BeanInfo metaObject, final ObjectName name) {
         final Class<?> beanClass = metaObject.getBeanDescriptor().getBeanClass();
         try {
-            return beanClass.getConstructor().newInstance();
-        } catch (final Exception e) { // NOPMD
+            return BindingPlan.get(beanClass).newInstance();
+        } catch (final Error e) { // NOPMD
+            throw e;
+        } catch (final Throwable e) { // NOPMD
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Object cannot be created: {}", beanClass.getName());
             }
@@ -110,7 +109,7 @@ public class BeansObjectFactory extends ReflectionObjectFactoryBase<Object, Prop
      */
     protected final BeanInfo getBeanInfo(final Class<?> beanClass) {
         try {
-            return Introspector.getBeanInfo(beanClass);
+            return BindingPlan.get(beanClass).beanInfo();
         } catch (final IntrospectionException e) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("BeanInfo has not been found for class: {}", beanClass.getName());
@@ -120,29 +119,29 @@ public class BeansObjectFactory extends ReflectionObjectFactoryBase<Object, Prop
     }
 
     @Override
-    public final void setToFeature(final Object rc, final PropertyDescriptor f, final Object v) {
-        final Method m = f.getWriteMethod();
+    public final void setToFeature(final Object rc, final PropertyBinding f, final Object v) {
         try {
-            m.invoke(rc, v);
-        } catch (final Exception e) { // NOPMD
-            throw new ParserException("Cannot set to feature " + f.getName()
+            f.set(rc, v);
+        } catch (final Error e) { // NOPMD
+            throw e;
+        } catch (final Throwable e) { // NOPMD
+            throw new ParserException("Cannot set to feature " + f
                     + " a value " + v + " of type " + v.getClass().getName()
-                    + " using method " + m, e);
+                    + " using method " + f.descriptor().getWriteMethod(), e);
         }
     }
 
     @Override
-    public final void addToFeature(final Object rc, final PropertyDescriptor f, final List<Object> holder,
+    public final void addToFeature(final Object rc, final PropertyBinding f, final List<Object> holder,
                                    final Object v) {
         holder.add(v);
     }
 
     @Override
     public final List<Object> startListCollection(final Object rc, final BeanInfo metaObject,
-                                                  final PropertyDescriptor f) {
-        final Method m = f.getReadMethod();
+                                                  final PropertyBinding f) {
         try {
-            final Object array = m.invoke(rc);
+            final Object array = f.get(rc);
             final ArrayList<Object> list = new ArrayList<>();
             if (array != null) {
                 final int n = Array.getLength(array);
@@ -151,44 +150,60 @@ public class BeansObjectFactory extends ReflectionObjectFactoryBase<Object, Prop
                 }
             }
             return list;
-        } catch (final Exception e) { // NOPMD
-            throw new ParserException("Cannot read property " + f.getName(), e);
+        } catch (final Error e) { // NOPMD
+            throw e;
+        } catch (final Throwable e) { // NOPMD
+            throw new ParserException("Cannot read property " + f, e);
         }
     }
 
     @Override
     public final void endListCollection(final Object rc, final BeanInfo metaObject,
-                                        final PropertyDescriptor f, final List<Object> holder) {
+                                        final PropertyBinding f, final List<Object> holder) {
         try {
-            final Method m = f.getWriteMethod();
             final int n = holder.size();
-            final Object array = Array.newInstance(f.getPropertyType().getComponentType(), n);
+            final Object array = Array.newInstance(f.descriptor().getPropertyType().getComponentType(), n);
             for (int i = 0; i < n; i++) {
                 Array.set(array, i, holder.get(i));
             }
-            m.invoke(rc, array);
-        } catch (final Exception e) { // NOPMD
+            f.set(rc, array);
+        } catch (final Error e) { // NOPMD
+            throw e;
+        } catch (final Throwable e) { // NOPMD
             throw new ParserException("Cannot write feature " + f, e);
         }
     }
 
     @Override
-    public final PropertyDescriptor getPropertyMetaObject(final Object rc, final BeanInfo metaObject,
-                                                          final String name) {
-        final String featureName = PropertyName.lowerCaseFeatureName(name);
-        final PropertyDescriptor[] propertyDescriptors = metaObject.getPropertyDescriptors();
-        for (final PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-            if (propertyDescriptor.getName().equals(featureName)) {
-                return propertyDescriptor;
-            }
+    public final PropertyBinding getPropertyMetaObject(final Object rc, final BeanInfo metaObject,
+                                                       final String name) {
+        final Class<?> beanClass = metaObject.getBeanDescriptor().getBeanClass();
+        final PropertyBinding binding = binding(beanClass, name);
+        if (binding == null) {
+            throw new ParserException("Cannot find feature " + PropertyName.lowerCaseFeatureName(name)
+                    + " in class " + beanClass.getName());
+        }
+        return binding;
+    }
+
+    /**
+     * Get property binding from the shared plan for the class.
+     *
+     * @param beanClass the bean class
+     * @param name      the property name
+     * @return the binding or null if there is no such property
+     */
+    private static PropertyBinding binding(final Class<?> beanClass, final String name) {
+        try {
+            return BindingPlan.get(beanClass).property(name);
+        } catch (final IntrospectionException e) {
+            throw new ParserException("BeanInfo not found for object name " + beanClass.getName(), e);
         }
-        throw new ParserException("Cannot find feature " + featureName + " in class "
-                + metaObject.getBeanDescriptor().getBeanClass().getName());
     }
 
     @Override
-    protected final Class<?> getFeatureType(final PropertyDescriptor feature) {
-        Class<?> fc = feature.getPropertyType();
+    protected final Class<?> getFeatureType(final PropertyBinding feature) {
+        Class<?> fc = feature.descriptor().getPropertyType();
         if (fc.isArray()) {
             fc = fc.getComponentType();
         }
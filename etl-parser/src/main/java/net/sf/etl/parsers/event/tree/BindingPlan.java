@@ -0,0 +1,211 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import net.sf.etl.parsers.PropertyName;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The binding plan for the class used by reflection-based object factories. The plan resolves
+ * the constructor and the property accessors of the class once and keeps them as
+ * {@link MethodHandle}s. The plans are shared across all factory instances using {@link ClassValue},
+ * so they do not keep classes from unloading.
+ *
+ * @author const
+ */
+final class BindingPlan {
+    /**
+     * The plans for classes.
+     */
+    private static final ClassValue<BindingPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected BindingPlan computeValue(final Class<?> type) {
+            return new BindingPlan(type);
+        }
+    };
+    /**
+     * The erased type of the constructor.
+     */
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    /**
+     * The erased type of the getter.
+     */
+    static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * The erased type of the setter.
+     */
+    static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    /**
+     * The type for the plan.
+     */
+    private final Class<?> type;
+    /**
+     * The no-argument constructor or null if it could not be resolved.
+     */
+    private final MethodHandle constructor;
+    /**
+     * The problem with resolving the constructor.
+     */
+    private final ReflectiveOperationException constructorProblem;
+    /**
+     * The field bindings by property name as it is used in the grammar and by feature name.
+     */
+    private final Map<String, FieldBinding> fields = new ConcurrentHashMap<>();
+    /**
+     * The bean property bindings by property name as it is used in the grammar.
+     */
+    private final Map<String, PropertyBinding> properties = new ConcurrentHashMap<>();
+    /**
+     * The bean info, it is lazily initialized.
+     */
+    private volatile BeanInfo beanInfo; // NOPMD
+    /**
+     * The bean property bindings by feature name, it is lazily initialized together with bean info.
+     */
+    private volatile Map<String, PropertyBinding> beanProperties; // NOPMD
+
+    /**
+     * The constructor.
+     *
+     * @param type the type to bind
+     */
+    private BindingPlan(final Class<?> type) {
+        this.type = type;
+        MethodHandle handle = null;
+        ReflectiveOperationException problem = null;
+        try {
+            handle = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            problem = e;
+        }
+        this.constructor = handle;
+        this.constructorProblem = problem;
+    }
+
+    /**
+     * Get plan for the class.
+     *
+     * @param type the class
+     * @return the shared plan for the class
+     */
+    static BindingPlan get(final Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Create a new instance using no-argument public constructor.
+     *
+     * @return the new instance
+     * @throws Throwable if the constructor could not be resolved or if it has failed
+     */
+    Object newInstance() throws Throwable { // NOPMD
+        if (constructor == null) {
+            throw constructorProblem;
+        }
+        return constructor.invokeExact();
+    }
+
+    /**
+     * Get bean info for the class.
+     *
+     * @return the bean info
+     * @throws IntrospectionException if the class could not be introspected
+     */
+    BeanInfo beanInfo() throws IntrospectionException {
+        BeanInfo rc = beanInfo;
+        if (rc == null) {
+            synchronized (this) {
+                rc = beanInfo;
+                if (rc == null) {
+                    rc = Introspector.getBeanInfo(type);
+                    final Map<String, PropertyBinding> map = new HashMap<>(); // NOPMD
+                    for (final PropertyDescriptor descriptor : rc.getPropertyDescriptors()) {
+                        map.put(descriptor.getName(), new PropertyBinding(descriptor));
+                    }
+                    beanProperties = map;
+                    beanInfo = rc;
+                }
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * Get bean property binding.
+     *
+     * @param name the property name (as it is used in the grammar or the feature name)
+     * @return the binding or null if there is no such property
+     * @throws IntrospectionException if the class could not be introspected
+     */
+    PropertyBinding property(final String name) throws IntrospectionException {
+        final PropertyBinding rc = properties.get(name);
+        if (rc != null) {
+            return rc;
+        }
+        beanInfo();
+        final PropertyBinding binding = beanProperties.get(PropertyName.lowerCaseFeatureName(name));
+        if (binding != null) {
+            properties.put(name, binding);
+        }
+        return binding;
+    }
+
+    /**
+     * Get public field binding.
+     *
+     * @param name the property name (as it is used in the grammar or the feature name)
+     * @return the binding
+     * @throws NoSuchFieldException   if there is no such public field
+     * @throws IllegalAccessException if the field could not be accessed
+     */
+    FieldBinding field(final String name) throws NoSuchFieldException, IllegalAccessException {
+        FieldBinding rc = fields.get(name);
+        if (rc == null) {
+            final String featureName = PropertyName.lowerCaseFeatureName(name);
+            rc = fields.get(featureName);
+            if (rc == null) {
+                final FieldBinding binding = new FieldBinding(type.getField(featureName));
+                rc = fields.putIfAbsent(featureName, binding);
+                if (rc == null) {
+                    rc = binding;
+                }
+            }
+            fields.put(name, rc);
+        }
+        return rc;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * The binding for the public field. The binding is the feature meta-object for {@link FieldObjectFactory},
+ * so the accessors are resolved once per field and used directly for each property value. The bindings
+ * are created by {@link BindingPlan} and shared across all factory instances.
+ *
+ * @author const
+ */
+public final class FieldBinding {
+    /**
+     * The field.
+     */
+    private final Field field;
+    /**
+     * The getter for the field.
+     */
+    private final MethodHandle getter;
+    /**
+     * The setter for the field or null if field is final.
+     */
+    private final MethodHandle setter;
+
+    /**
+     * The constructor.
+     *
+     * @param field the field
+     * @throws IllegalAccessException if the field is not accessible
+     */
+    FieldBinding(final Field field) throws IllegalAccessException {
+        this.field = field;
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        this.getter = lookup.unreflectGetter(field).asType(BindingPlan.GETTER_TYPE);
+        this.setter = Modifier.isFinal(field.getModifiers()) ? null
+                : lookup.unreflectSetter(field).asType(BindingPlan.SETTER_TYPE);
+    }
+
+    /**
+     * @return the field
+     */
+    public Field field() {
+        return field;
+    }
+
+    /**
+     * Get field value.
+     *
+     * @param object the object
+     * @return the field value
+     * @throws Throwable if the field could not be read
+     */
+    Object get(final Object object) throws Throwable { // NOPMD
+        return getter.invokeExact(object);
+    }
+
+    /**
+     * Set field value.
+     *
+     * @param object the object
+     * @param value  the value to set
+     * @throws Throwable if the field could not be written
+     */
+    void set(final Object object, final Object value) throws Throwable { // NOPMD
+        if (setter == null) {
+            throw new IllegalAccessException("The field is final: " + field);
+        }
+        setter.invokeExact(object, value);
+    }
+
+    @Override
+    public String toString() {
+        return field.toString();
+    }
+}
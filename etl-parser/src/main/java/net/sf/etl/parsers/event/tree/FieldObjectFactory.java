@@ -26,16 +26,13 @@ package net.sf.etl.parsers.event.tree;
 
 import net.sf.etl.parsers.ObjectName;
 import net.sf.etl.parsers.ParserException;
-import net.sf.etl.parsers.PropertyName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * <p>
@@ -51,6 +48,10 @@ import java.util.Map;
  * <p>
  * Fields of other types are treated as simple properties.
  * </p>
+ * <p>
+ * The features are represented by {@link FieldBinding}s, so the field accessors
+ * are resolved once per field rather than for each property value.
+ * </p>
  * <p/>
  * <p>
  * Currently only the following value types are recognized:
@@ -67,20 +68,13 @@ import java.util.Map;
  * @param <B> a type of the base object
  * @author const
  */
-public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
+public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, FieldBinding,
         Class<?>, List<Object>> {
     /**
      * The logger.
      */
     private static final Logger LOG = LoggerFactory.getLogger(FieldObjectFactory.class);
 
-    /**
-     * The cache of fields.
-     */
-    // TODO review usage ConcurrentHashMap in object factories (static vs. per parser instance)
-    private final Map<Class<?>, Map<String, Field>> fieldCache = // NOPMD
-            new HashMap<>();
-
     /**
      * The constructor from super class.
      *
@@ -91,17 +85,19 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
     }
 
     @Override
-    public final void addToFeature(final B rc, final Field f, final List<Object> holder, final Object v) {
+    public final void addToFeature(final B rc, final FieldBinding f, final List<Object> holder, final Object v) {
         holder.add(v);
-        valueEnlisted(rc, f, v);
+        valueEnlisted(rc, f.field(), v);
     }
 
     @SuppressWarnings("unchecked")
     @Override
     protected final B createInstance(final Class<?> metaObject, final ObjectName name) {
         try {
-            return (B) metaObject.getConstructor().newInstance();
-        } catch (Exception e) { // NOPMD
+            return (B) BindingPlan.get(metaObject).newInstance();
+        } catch (Error e) { // NOPMD
+            throw e;
+        } catch (Throwable e) { // NOPMD
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Instance of " + metaObject.getCanonicalName() + " cannot be created.", e);
             }
@@ -110,7 +106,7 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
     }
 
     @Override
-    public final void endListCollection(final B rc, final Class<?> metaObject, final Field f,
+    public final void endListCollection(final B rc, final Class<?> metaObject, final FieldBinding f,
                                         final List<Object> holder) {
         // do nothing
     }
@@ -121,15 +117,17 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
     }
 
     @Override
-    public final Field getPropertyMetaObject(final B rc, final Class<?> metaObject, final String name) {
+    public final FieldBinding getPropertyMetaObject(final B rc, final Class<?> metaObject, final String name) {
         return field(metaObject, name);
     }
 
     @Override
-    public final void setToFeature(final B rc, final Field f, final Object v) {
+    public final void setToFeature(final B rc, final FieldBinding f, final Object v) {
         try {
             f.set(rc, v);
-        } catch (IllegalAccessException e) {
+        } catch (RuntimeException | Error e) { // NOPMD
+            throw e;
+        } catch (Throwable e) { // NOPMD
             if (LOG.isErrorEnabled()) {
                 LOG.error("The field %s cannot be accessed.".formatted(f), e);
             }
@@ -139,7 +137,7 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
 
     @SuppressWarnings("unchecked")
     @Override
-    public final List<Object> startListCollection(final B rc, final Class<?> metaObject, final Field f) {
+    public final List<Object> startListCollection(final B rc, final Class<?> metaObject, final FieldBinding f) {
         try {
             final List<Object> list = (List<Object>) f.get(rc);
             if (list == null) {
@@ -154,7 +152,9 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
                 LOG.error("The field " + f + " is not of List type.", e);
             }
             throw e;
-        } catch (IllegalAccessException e) {
+        } catch (RuntimeException | Error e) { // NOPMD
+            throw e;
+        } catch (Throwable e) { // NOPMD
             if (LOG.isErrorEnabled()) {
                 LOG.error("The field " + f + " cannot be accessed.", e);
             }
@@ -163,7 +163,8 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
     }
 
     @Override
-    protected final Class<?> getFeatureType(final Field f) {
+    protected final Class<?> getFeatureType(final FieldBinding binding) {
+        final Field f = binding.field();
         Class<?> elementType = f.getType();
         if (List.class.isAssignableFrom(elementType)) {
             final Type rawType = f.getGenericType();
@@ -196,23 +197,16 @@ public class FieldObjectFactory<B> extends ReflectionObjectFactoryBase<B, Field,
     }
 
     /**
-     * Get a field from class. The method maintains internal cache. Note that
-     * cache is private to this parser instance.
+     * Get a field binding from class. The bindings are resolved once and shared
+     * between parser instances.
      *
      * @param c    class to example
      * @param name a name to get
-     * @return the field
+     * @return the field binding
      */
-    private Field field(final Class<?> c, final String name) {
+    private static FieldBinding field(final Class<?> c, final String name) {
         try {
-            final String featureName = PropertyName.lowerCaseFeatureName(name);
-            Map<String, Field> classFields = fieldCache.computeIfAbsent(c, k -> new HashMap<>());
-            Field rc = classFields.get(featureName);
-            if (rc == null) {
-                rc = c.getField(featureName);
-                classFields.put(featureName, rc);
-            }
-            return rc;
+            return BindingPlan.get(c).field(name);
         } catch (Exception e) { // NOPMD
             if (LOG.isErrorEnabled()) {
                 LOG.error("Unable to find field " + name + " in class " + c.getCanonicalName(), e);
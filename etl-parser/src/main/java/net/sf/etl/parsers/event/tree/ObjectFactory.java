@@ -26,17 +26,22 @@ package net.sf.etl.parsers.event.tree; // NOPMD
 
 import net.sf.etl.parsers.ObjectName;
 import net.sf.etl.parsers.ParserException;
+import net.sf.etl.parsers.PropertyName;
 import net.sf.etl.parsers.SourceLocation;
 import net.sf.etl.parsers.StandardGrammars;
 import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.TextIndex;
 import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.Token;
 import net.sf.etl.parsers.literals.LiteralUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -52,6 +57,26 @@ import java.util.Set;
  * @author const
  */
 public abstract class ObjectFactory<B, F, M, H> {
+    /**
+     * The maximum amount of cached feature converters. The features are cached by identity,
+     * so the factories that create a new feature object for each lookup would just use the
+     * converters cached by type.
+     */
+    private static final int MAX_FEATURE_CONVERTERS = 4096;
+    /**
+     * The case-insensitive lookup tables for enumerations.
+     */
+    private static final ClassValue<Map<String, Enum<?>>> ENUM_CONSTANTS = new ClassValue<>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(final Class<?> type) {
+            final Map<String, Enum<?>> rc = new HashMap<>(); // NOPMD
+            for (final Object o : type.getEnumConstants()) {
+                final Enum<?> e = (Enum<?>) o;
+                rc.putIfAbsent(e.name().toLowerCase(Locale.ROOT), e);
+            }
+            return rc;
+        }
+    };
     /**
      * This set contains namespaces ignored by parser.
      */
@@ -64,6 +89,14 @@ public abstract class ObjectFactory<B, F, M, H> {
      * The value parsers.
      */
     private final List<ValueParser> valueParsers = new ArrayList<>();
+    /**
+     * The compiled value converters for features.
+     */
+    private final Map<F, ValueConverter> featureConverters = new IdentityHashMap<>(); // NOPMD
+    /**
+     * The compiled value converters for value types.
+     */
+    private final Map<Class<?>, ValueConverter> typeConverters = new HashMap<>(); // NOPMD
 
     /**
      * If this flag is true, when default statement is encountered during
@@ -142,21 +175,66 @@ public abstract class ObjectFactory<B, F, M, H> {
     }
 
     /**
-     * Parse value to fit to feature.
+     * Parse value to fit to feature. The converter is selected once for each feature,
+     * and then it is reused for the subsequent values.
      *
      * @param f     the feature that will be used to set or add this value
      * @param value the value to parse
      * @return parsed value
      */
     public final Object parseValue(final F f, final Token value) {
-        final Class<?> type = getFeatureType(f);
-        for (final ValueParser parser : valueParsers) {
-            final Object o = parser.parse(type, value);
-            if (o != null) {
-                return o;
+        ValueConverter converter = featureConverters.get(f);
+        if (converter == null) {
+            converter = typeConverters.computeIfAbsent(getFeatureType(f), this::compileConverter);
+            if (featureConverters.size() >= MAX_FEATURE_CONVERTERS) {
+                featureConverters.clear();
             }
+            featureConverters.put(f, converter);
         }
-        return value.text();
+        return converter.convert(value);
+    }
+
+    /**
+     * Compile converter for the value type. The converters for the standard value parsers are
+     * specialized for the type, other types are converted by value parsers.
+     *
+     * @param type the value type
+     * @return the converter
+     */
+    private ValueConverter compileConverter(final Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return value -> LiteralUtils.parseInt(value.text());
+        }
+        if (type == double.class || type == Double.class) {
+            return value -> LiteralUtils.parseDouble(value.text());
+        }
+        if (type == String.class) {
+            return Token::text;
+        }
+        if (type == Token.class) {
+            return value -> value;
+        }
+        if (type.isEnum()) {
+            final Map<String, Enum<?>> constants = ENUM_CONSTANTS.get(type);
+            return value -> {
+                final String text = value.text();
+                final Enum<?> e = constants.get(text.toLowerCase(Locale.ROOT));
+                if (e != null) {
+                    return e;
+                }
+                // the slow path for the characters that are case-folded differently
+                return new EnumParser().parse(type, value);
+            };
+        }
+        return value -> {
+            for (final ValueParser parser : valueParsers) {
+                final Object o = parser.parse(type, value);
+                if (o != null) {
+                    return o;
+                }
+            }
+            return value.text();
+        };
     }
 
     /**
@@ -246,7 +324,21 @@ public abstract class ObjectFactory<B, F, M, H> {
      */
     public final F getPropertyMetaObject(final B rc, final M metaObject,
                                          final TermToken token) {
-        return getPropertyMetaObject(rc, metaObject, token.propertyName().name());
+        return getPropertyMetaObject(rc, metaObject, token.propertyName());
+    }
+
+    /**
+     * get feature meta object by the property name from the grammar. The grammar usually reports the same
+     * {@link PropertyName} instance for each occurrence of the property, so the factories could cache
+     * features by the name identity. The default implementation looks up the feature by the name text.
+     *
+     * @param rc         the object
+     * @param metaObject the meta-object to examine
+     * @param name       the property name
+     * @return a feature object
+     */
+    protected F getPropertyMetaObject(final B rc, final M metaObject, final PropertyName name) {
+        return getPropertyMetaObject(rc, metaObject, name.name());
     }
 
     /**
@@ -324,6 +416,20 @@ public abstract class ObjectFactory<B, F, M, H> {
      */
     protected abstract B createInstance(final M metaObject, final ObjectName name);
 
+    /**
+     * Complete instance creation. The method is invoked when all properties of the object
+     * has been set and the end position is reported. The default implementation returns
+     * the object as is, but factories for immutable objects could create the actual object here.
+     *
+     * @param rc         the object returned from {@link #createInstance(Object, ObjectName)}
+     * @param metaObject the meta object
+     * @param name       the name of object
+     * @return the completed object
+     */
+    protected B completeInstance(final B rc, final M metaObject, final ObjectName name) {
+        return rc;
+    }
+
     /**
      * The value converter interface.
      */
@@ -338,6 +444,19 @@ public abstract class ObjectFactory<B, F, M, H> {
         Object parse(Class<?> valueType, Token valueToken);
     }
 
+    /**
+     * The value converter that is compiled for the specific value type.
+     */
+    private interface ValueConverter {
+        /**
+         * Convert token to value.
+         *
+         * @param valueToken the value token
+         * @return the converted value
+         */
+        Object convert(Token valueToken);
+    }
+
     /**
      * The position policy interface.
      */
@@ -551,6 +670,120 @@ public abstract class ObjectFactory<B, F, M, H> {
         }
     }
 
+    /**
+     * The compact position policy. The implementation tries to set properties startOffset and endOffset with
+     * corresponding offsets, so the objects could keep positions as primitive long fields. The line and column
+     * for the reported offsets could be resolved later using {@link #position(long)}. If the parser uses compact
+     * positions, the text index of the source is used for resolution, otherwise the policy keeps a side table
+     * of the reported positions. The policy keeps state, so the instance should not be shared between factories.
+     */
+    public static final class PositionPolicyOffsets implements PositionPolicy {
+        /**
+         * The initial capacity of the side table.
+         */
+        private static final int INITIAL_CAPACITY = 64;
+        /**
+         * The text index of the source (null if tokens use explicit positions).
+         */
+        private TextIndex textIndex;
+        /**
+         * The reported offsets in the increasing order.
+         */
+        private long[] offsets = new long[INITIAL_CAPACITY];
+        /**
+         * The lines for the reported offsets.
+         */
+        private int[] lines = new int[INITIAL_CAPACITY];
+        /**
+         * The columns for the reported offsets.
+         */
+        private int[] columns = new int[INITIAL_CAPACITY];
+        /**
+         * The size of the side table.
+         */
+        private int size;
+
+        /**
+         * Get instance of the position policy.
+         *
+         * @return the instance.
+         */
+        public static PositionPolicyOffsets get() {
+            return new PositionPolicyOffsets();
+        }
+
+        @Override
+        public <B1, F1, M1, H1> Object setObjectStartPos(
+                final ObjectFactory<B1, F1, M1, H1> factory,
+                final B1 rc, final M1 metaObject, final TermToken token) {
+            record(token);
+            final F1 startOffsetFeature = factory.getPropertyMetaObject(rc, metaObject, "startOffset");
+            factory.setToFeature(rc, startOffsetFeature, token.startOffset());
+            return null;
+        }
+
+        @Override
+        public <B1, F1, M1, H1> void setObjectEndPos(
+                final ObjectFactory<B1, F1, M1, H1> factory,
+                final String systemId, final B1 rc, final M1 metaObject,
+                final Object startValue, final TermToken token) {
+            record(token);
+            final F1 endOffsetFeature = factory.getPropertyMetaObject(rc, metaObject, "endOffset");
+            factory.setToFeature(rc, endOffsetFeature, token.startOffset());
+        }
+
+        /**
+         * Record the start position of the token.
+         *
+         * @param token the token
+         */
+        private void record(final TermToken token) {
+            if (token.textIndex() != null) {
+                textIndex = token.textIndex();
+                return;
+            }
+            final long offset = token.startOffset();
+            int i = size;
+            while (i > 0 && offsets[i - 1] >= offset) {
+                if (offsets[i - 1] == offset) {
+                    return;
+                }
+                i--;
+            }
+            if (size == offsets.length) {
+                final int capacity = size * 2;
+                offsets = Arrays.copyOf(offsets, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+            }
+            System.arraycopy(offsets, i, offsets, i + 1, size - i);
+            System.arraycopy(lines, i, lines, i + 1, size - i);
+            System.arraycopy(columns, i, columns, i + 1, size - i);
+            final TextPos pos = token.start();
+            offsets[i] = offset;
+            lines[i] = pos.line();
+            columns[i] = pos.column();
+            size++;
+        }
+
+        /**
+         * Resolve the offset reported by this policy to the text position.
+         *
+         * @param offset the offset
+         * @return the text position
+         */
+        public TextPos position(final long offset) {
+            if (textIndex != null) {
+                return textIndex.position(offset);
+            }
+            final int i = Arrays.binarySearch(offsets, 0, size, offset);
+            if (i < 0) {
+                throw new IllegalArgumentException("The offset is not reported by this policy: " + offset);
+            }
+            return new TextPos(lines[i], columns[i], offset);
+        }
+    }
+
     /**
      * The "none" position policy. The implementation does nothing.
      */
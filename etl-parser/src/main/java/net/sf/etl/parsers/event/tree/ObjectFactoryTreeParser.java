@@ -436,7 +436,7 @@ public final class ObjectFactoryTreeParser<B, F, M, H>
                             final TokenCollector r = collectors.pop();
                             assert r == rc; // NOPMD
                         }
-                        exit(rc);
+                        exit(factory.completeInstance(rc, metaObject, name));
                         return;
                     }
                 case VALUE:
@@ -0,0 +1,360 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import net.sf.etl.parsers.ParserException;
+import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.SyntaxRole;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.Token;
+import net.sf.etl.parsers.event.Cell;
+import net.sf.etl.parsers.event.ParserState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * The tree parser that builds top-level objects in parallel. The term tokens of each top-level object are buffered
+ * on the calling thread, and the object is built from them by {@link ObjectFactoryTreeParser} on the executor.
+ * The objects are still returned in the source order. Because object factories are not thread-safe, the factory
+ * supplier is invoked once per worker thread, so it should return a new factory configured in the same way.
+ * The error tokens and top-level unexpected tokens are reported on the calling thread in the source order,
+ * the unexpected tokens inside objects are reported on the worker threads. The text index behind compact
+ * positions is updated by the lexer while objects are built, so such positions are resolved on the calling
+ * thread before the tokens are passed to the executor.
+ *
+ * @param <B> this is a base type for returned objects
+ */
+public final class ParallelTreeParser<B> implements TreeParser<B> {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelTreeParser.class);
+    /**
+     * The factories for worker threads.
+     */
+    private final ThreadLocal<ObjectFactory<B, ?, ?, ?>> factories;
+    /**
+     * The executor for object construction.
+     */
+    private final Executor executor;
+    /**
+     * The maximum amount of objects that are built at the same time.
+     */
+    private final int maxPending;
+    /**
+     * The current system identifier.
+     */
+    private final String systemId;
+    /**
+     * The objects under construction in the source order.
+     */
+    private final ArrayDeque<CompletableFuture<B>> pending = new ArrayDeque<>();
+    /**
+     * Token listeners for all tokens.
+     */
+    private final List<TokenCollector> tokenListeners = new ArrayList<>();
+    /**
+     * The tokens of the current top-level object, or null if parser is outside of object.
+     */
+    private List<TermToken> buffer;
+    /**
+     * The nesting depth of objects in the buffer.
+     */
+    private int depth;
+    /**
+     * True if EOF has been reached.
+     */
+    private boolean eof;
+    /**
+     * The currently available object.
+     */
+    private B current;
+    /**
+     * flag indicating that parser had errors.
+     */
+    private boolean hadErrors;
+    /**
+     * Listener for tokens with errors.
+     */
+    private TokenCollector errorTokenHandler = token -> {
+        if (LOG.isErrorEnabled()) {
+            LOG.error("ERROR: %s Error detected: %s".formatted(getSystemId(), token));
+        }
+    };
+    /**
+     * Listener for unexpected tokens.
+     */
+    private TokenCollector unexpectedTokenHandler = token -> {
+        throw new ParserException("The token is not expected at this position: " + token);
+    };
+
+    /**
+     * The constructor.
+     *
+     * @param factories  the supplier of object factories, it is invoked once per worker thread
+     * @param executor   the executor used to build objects
+     * @param maxPending the maximum amount of top-level objects that are built at the same time,
+     *                   the parser waits for the first object when this amount is reached
+     * @param systemId   the system id
+     */
+    public ParallelTreeParser(final Supplier<? extends ObjectFactory<B, ?, ?, ?>> factories,
+                              final Executor executor, final int maxPending, final String systemId) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("At least one pending object should be allowed: " + maxPending);
+        }
+        this.factories = ThreadLocal.withInitial(factories);
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.systemId = systemId;
+        tokenListeners.add(token -> {
+            if (token.hasAnyErrors()) {
+                hadErrors = true;
+                if (errorTokenHandler != null) {
+                    errorTokenHandler.collect(token);
+                }
+            }
+        });
+    }
+
+    @Override
+    public B read() {
+        if (current == null) {
+            throw new ParserException("The result is not available!");
+        }
+        final B rc = current;
+        current = null;
+        return rc;
+    }
+
+    @Override
+    public ParserState parse(final Cell<TermToken> tokenCell) {
+        while (true) {
+            if (current != null) {
+                return ParserState.OUTPUT_AVAILABLE;
+            }
+            final CompletableFuture<B> first = pending.peek();
+            if (first != null && (eof || first.isDone() || pending.size() >= maxPending)) {
+                pending.remove();
+                current = await(first);
+            } else if (eof) {
+                return ParserState.EOF;
+            } else if (tokenCell.isEmpty()) {
+                return ParserState.INPUT_NEEDED;
+            } else {
+                accept(tokenCell.take());
+            }
+        }
+    }
+
+    /**
+     * Wait for the object.
+     *
+     * @param future the future for the object
+     * @return the object or null if the object was skipped
+     */
+    private B await(final CompletableFuture<B> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new ParserException("The object construction failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Accept the token.
+     *
+     * @param token the token
+     */
+    private void accept(final TermToken token) {
+        notify(token);
+        if (buffer != null) {
+            buffer.add(token);
+            switch (token.kind()) {
+                case OBJECT_START:
+                    depth++;
+                    break;
+                case OBJECT_END:
+                    depth--;
+                    if (depth == 0) {
+                        submit(buffer);
+                        buffer = null;
+                    }
+                    break;
+                case EOF:
+                    throw new IllegalStateException("Unexpected eof inside object: " + token);
+                default:
+                    break;
+            }
+        } else {
+            switch (token.kind()) {
+                case OBJECT_START:
+                    buffer = new ArrayList<>();
+                    buffer.add(token);
+                    depth = 1;
+                    break;
+                case PROPERTY_START:
+                case LIST_PROPERTY_START:
+                    if (unexpectedTokenHandler != null) {
+                        unexpectedTokenHandler.collect(token);
+                    }
+                    break;
+                case EOF:
+                    eof = true;
+                    break;
+                default:
+                    // tokens outside of objects are skipped
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Submit the object for construction.
+     *
+     * @param tokens the tokens of the object
+     */
+    private void submit(final List<TermToken> tokens) {
+        tokens.replaceAll(ParallelTreeParser::resolve);
+        final TermToken last = tokens.get(tokens.size() - 1);
+        tokens.add(new TermToken(Terms.EOF, SyntaxRole.CONTROL, null, null, last.end(), last.end(), null));
+        final TokenCollector unexpected = unexpectedTokenHandler;
+        pending.add(CompletableFuture.supplyAsync(() -> build(tokens, unexpected), executor));
+    }
+
+    /**
+     * Resolve compact positions of the term token.
+     *
+     * @param token the token
+     * @return the same token if it has explicit positions, or a copy with the positions resolved
+     */
+    private static TermToken resolve(final TermToken token) {
+        if (token.textIndex() == null) {
+            return token;
+        }
+        return new TermToken(token.kind(), token.role(), token.getStructureId(),
+                token.token() == null ? null : resolve(token.token()), token.start(), token.end(),
+                token.definedAt(), token.errorInfo());
+    }
+
+    /**
+     * Resolve compact positions of the phrase token.
+     *
+     * @param token the token
+     * @return the same token if it has explicit positions, or a copy with the positions resolved
+     */
+    private static PhraseToken resolve(final PhraseToken token) {
+        if (token.textIndex() == null) {
+            return token;
+        }
+        if (!token.hasToken()) {
+            return new PhraseToken(token.kind(), token.start(), token.errorInfo());
+        }
+        final Token t = token.token();
+        return new PhraseToken(token.kind(), t.textIndex() == null ? t
+                : new Token(t.key(), t.text(), t.start(), t.end(), t.errorInfo()), token.errorInfo());
+    }
+
+    /**
+     * Build the object on the worker thread.
+     *
+     * @param tokens     the tokens of the object followed by EOF
+     * @param unexpected the handler for unexpected tokens
+     * @return the object or null if the object is ignored by the factory
+     */
+    private B build(final List<TermToken> tokens, final TokenCollector unexpected) {
+        final TreeParser<B> parser = ObjectFactoryTreeParser.make(factories.get(), systemId);
+        parser.setErrorTokenHandler(null);
+        parser.setUnexpectedTokenHandler(unexpected);
+        final Cell<TermToken> cell = new Cell<>();
+        B rc = null;
+        for (final TermToken token : tokens) {
+            cell.put(token);
+            ParserState state = parser.parse(cell);
+            while (state == ParserState.OUTPUT_AVAILABLE) {
+                rc = parser.read();
+                state = parser.parse(cell);
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * Notify listeners.
+     *
+     * @param tk the token
+     */
+    private void notify(final TermToken tk) {
+        for (final TokenCollector c : tokenListeners) {
+            try {
+                c.collect(tk);
+            } catch (Exception ex) { // NOPMD
+                LOG.error("Error while notifying listener", ex);
+            }
+        }
+    }
+
+    @Override
+    public String getSystemId() {
+        return systemId;
+    }
+
+    @Override
+    public boolean hadErrors() {
+        return hadErrors;
+    }
+
+    @Override
+    public void setErrorTokenHandler(final TokenCollector errorTokenHandler) {
+        this.errorTokenHandler = errorTokenHandler;
+    }
+
+    @Override
+    public void setUnexpectedTokenHandler(final TokenCollector unexpectedTokenHandler) {
+        this.unexpectedTokenHandler = unexpectedTokenHandler;
+    }
+
+    @Override
+    public void addTokenListener(final TokenCollector listener) {
+        tokenListeners.add(listener);
+    }
+
+    @Override
+    public void removeTokenListener(final TokenCollector listener) {
+        tokenListeners.remove(listener);
+    }
+}
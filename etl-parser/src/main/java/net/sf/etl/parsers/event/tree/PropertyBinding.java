@@ -0,0 +1,132 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.event.tree;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * The binding for the bean property. The binding is the feature meta-object for {@link BeansObjectFactory},
+ * so the accessors are resolved once per property and used directly for each property value. The bindings
+ * are created by {@link BindingPlan} and shared across all factory instances.
+ *
+ * @author const
+ */
+public final class PropertyBinding {
+    /**
+     * The property descriptor.
+     */
+    private final PropertyDescriptor descriptor;
+    /**
+     * The read method or null.
+     */
+    private final MethodHandle reader;
+    /**
+     * The write method or null.
+     */
+    private final MethodHandle writer;
+    /**
+     * The problem with resolving accessors.
+     */
+    private final IllegalAccessException problem;
+
+    /**
+     * The constructor.
+     *
+     * @param descriptor the property descriptor
+     */
+    PropertyBinding(final PropertyDescriptor descriptor) {
+        this.descriptor = descriptor;
+        MethodHandle read = null;
+        MethodHandle write = null;
+        IllegalAccessException accessProblem = null;
+        try {
+            read = handle(descriptor.getReadMethod(), BindingPlan.GETTER_TYPE);
+            write = handle(descriptor.getWriteMethod(), BindingPlan.SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            accessProblem = e;
+        }
+        this.reader = read;
+        this.writer = write;
+        this.problem = accessProblem;
+    }
+
+    /**
+     * Convert method to the handle.
+     *
+     * @param method the method to convert
+     * @param erased the erased type
+     * @return the handle or null if method is null
+     * @throws IllegalAccessException if method is not accessible
+     */
+    private static MethodHandle handle(final Method method, final MethodType erased) throws IllegalAccessException {
+        return method == null ? null : MethodHandles.publicLookup().unreflect(method).asType(erased);
+    }
+
+    /**
+     * @return the property descriptor
+     */
+    public PropertyDescriptor descriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Get property value.
+     *
+     * @param object the object
+     * @return the property value
+     * @throws Throwable if the property could not be read
+     */
+    Object get(final Object object) throws Throwable { // NOPMD
+        if (reader == null) {
+            throw problem != null ? problem
+                    : new IllegalStateException("The property is not readable: " + descriptor.getName());
+        }
+        return reader.invokeExact(object);
+    }
+
+    /**
+     * Set property value.
+     *
+     * @param object the object
+     * @param value  the value to set
+     * @throws Throwable if the property could not be written
+     */
+    void set(final Object object, final Object value) throws Throwable { // NOPMD
+        if (writer == null) {
+            throw problem != null ? problem
+                    : new IllegalStateException("The property is not writable: " + descriptor.getName());
+        }
+        writer.invokeExact(object, value);
+    }
+
+    @Override
+    public String toString() {
+        return descriptor.getName();
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.ParserException;
+import net.sf.etl.parsers.PropertyName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * This is a factory for immutable models. The properties of the object are accumulated
+ * in the compact buffer, and the object is created using a single constructor invocation
+ * when the object ends. The following classes are supported:
+ * </p>
+ * <ul>
+ * <li>Records - the canonical constructor is used, and record components are used as properties.</li>
+ * <li>Classes with a public constructor annotated with {@link ConstructorProperties} - the annotation
+ * provides property names for the constructor parameters.</li>
+ * </ul>
+ * <p>
+ * Parameters of the types {@link List}, {@link Collection}, and {@link Iterable} are treated as list
+ * properties, and they receive unmodifiable lists. Array parameters are treated as list properties too.
+ * Missing properties are passed as null, zero, or empty collections. The model classes should be public,
+ * and the objects under construction could not be used as {@link TokenCollector}.
+ * </p>
+ *
+ * @author const
+ */
+public class RecordObjectFactory extends ReflectionObjectFactoryBase<Object, RecordObjectFactory.Component,
+        RecordObjectFactory.Shape, List<Object>> {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(RecordObjectFactory.class);
+    /**
+     * The shapes for classes, they are shared between factory instances.
+     */
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(final Class<?> type) {
+            return new Shape(type);
+        }
+    };
+
+    /**
+     * The constructor.
+     *
+     * @param classLoader the class loader for the parser
+     */
+    public RecordObjectFactory(final ClassLoader classLoader) {
+        super(classLoader);
+    }
+
+    @Override
+    protected final Shape getMetaObject(final ObjectName name) {
+        return SHAPES.get(getObjectClass(name));
+    }
+
+    @Override
+    protected final Object createInstance(final Shape metaObject, final ObjectName name) {
+        return new Builder(metaObject);
+    }
+
+    @Override
+    protected final Object completeInstance(final Object rc, final Shape metaObject, final ObjectName name) {
+        return metaObject.create(((Builder) rc).values);
+    }
+
+    @Override
+    public final void setToFeature(final Object rc, final Component f, final Object v) {
+        ((Builder) rc).values[f.index] = v;
+    }
+
+    @Override
+    public final void addToFeature(final Object rc, final Component f, final List<Object> holder,
+                                   final Object v) {
+        holder.add(v);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List<Object> startListCollection(final Object rc, final Shape metaObject, final Component f) {
+        final Object[] values = ((Builder) rc).values;
+        if (values[f.index] instanceof ArrayList<?> list) {
+            return (List<Object>) list;
+        }
+        final List<Object> list = new ArrayList<>();
+        values[f.index] = list;
+        return list;
+    }
+
+    @Override
+    public final void endListCollection(final Object rc, final Shape metaObject, final Component f,
+                                        final List<Object> holder) {
+        // do nothing, the list is converted when the object is created
+    }
+
+    @Override
+    public final Component getPropertyMetaObject(final Object rc, final Shape metaObject, final String name) {
+        final Component component = metaObject.components.get(PropertyName.lowerCaseFeatureName(name));
+        if (component == null) {
+            throw new ParserException("Cannot find property " + name + " in class "
+                    + metaObject.type.getName());
+        }
+        return component;
+    }
+
+    @Override
+    protected final Class<?> getFeatureType(final Component feature) {
+        return feature.elementType;
+    }
+
+    /**
+     * The object under construction.
+     */
+    private static final class Builder {
+        /**
+         * The values of constructor arguments.
+         */
+        private final Object[] values;
+
+        /**
+         * The constructor.
+         *
+         * @param shape the shape of the object
+         */
+        private Builder(final Shape shape) {
+            this.values = new Object[shape.defaults.length];
+        }
+    }
+
+    /**
+     * The property of the immutable object, it corresponds to the constructor parameter.
+     */
+    public static final class Component {
+        /**
+         * The property name.
+         */
+        private final String name;
+        /**
+         * The index of constructor parameter.
+         */
+        private final int index;
+        /**
+         * The parameter type.
+         */
+        private final Class<?> type;
+        /**
+         * The value type, it is an element type for the list properties.
+         */
+        private final Class<?> elementType;
+
+        /**
+         * The constructor.
+         *
+         * @param name        the property name
+         * @param index       the index of constructor parameter
+         * @param type        the parameter type
+         * @param genericType the generic parameter type
+         */
+        private Component(final String name, final int index, final Class<?> type, final Type genericType) {
+            this.name = name;
+            this.index = index;
+            this.type = type;
+            if (type.isArray()) {
+                this.elementType = type.getComponentType();
+            } else if (isList(type)) {
+                this.elementType = genericType instanceof ParameterizedType pt
+                        && pt.getActualTypeArguments()[0] instanceof Class<?> c ? c : Object.class;
+            } else {
+                this.elementType = type;
+            }
+        }
+
+        /**
+         * Check if the type is treated as list.
+         *
+         * @param type the type to check
+         * @return true if the type is list type
+         */
+        private static boolean isList(final Class<?> type) {
+            return type == List.class || type == Collection.class || type == Iterable.class;
+        }
+
+        /**
+         * @return the property name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the parameter type
+         */
+        public Class<?> type() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return "Component{name='" + name + "', type=" + type.getName() + '}';
+        }
+    }
+
+    /**
+     * The shape of the immutable class: its constructor and properties.
+     */
+    public static final class Shape {
+        /**
+         * The class.
+         */
+        private final Class<?> type;
+        /**
+         * The constructor that accepts arguments as array.
+         */
+        private final MethodHandle constructor;
+        /**
+         * The properties by name.
+         */
+        private final Map<String, Component> components = new HashMap<>(); // NOPMD
+        /**
+         * The properties by constructor parameter index.
+         */
+        private final Component[] parameters;
+        /**
+         * The default values for parameters.
+         */
+        private final Object[] defaults;
+
+        /**
+         * The constructor.
+         *
+         * @param type the class to examine
+         */
+        private Shape(final Class<?> type) {
+            this.type = type;
+            final Constructor<?> c;
+            final String[] names;
+            try {
+                if (type.isRecord()) {
+                    final RecordComponent[] recordComponents = type.getRecordComponents();
+                    final Class<?>[] types = new Class<?>[recordComponents.length];
+                    names = new String[recordComponents.length];
+                    for (int i = 0; i < types.length; i++) {
+                        types[i] = recordComponents[i].getType();
+                        names[i] = recordComponents[i].getName();
+                    }
+                    c = type.getDeclaredConstructor(types);
+                } else {
+                    c = findAnnotatedConstructor(type);
+                    names = c.getAnnotation(ConstructorProperties.class).value();
+                }
+                final Class<?>[] types = c.getParameterTypes();
+                final Type[] genericTypes = c.getGenericParameterTypes();
+                if (names.length != types.length) {
+                    throw new ParserException("The constructor properties do not match parameters: " + c);
+                }
+                parameters = new Component[types.length];
+                defaults = new Object[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    final Component component = new Component(names[i], i, types[i],
+                            genericTypes.length == types.length ? genericTypes[i] : types[i]);
+                    parameters[i] = component;
+                    components.put(names[i], component);
+                    if (types[i].isPrimitive()) {
+                        defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+                    } else if (types[i].isArray()) {
+                        defaults[i] = Array.newInstance(types[i].getComponentType(), 0);
+                    } else if (Component.isList(types[i])) {
+                        defaults[i] = Collections.emptyList();
+                    }
+                }
+                constructor = MethodHandles.publicLookup().unreflectConstructor(c)
+                        .asSpreader(Object[].class, types.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                if (LOG.isErrorEnabled()) {
+                    LOG.error("The constructor of " + type.getName() + " cannot be accessed.", e);
+                }
+                throw new ParserException("The constructor of " + type.getName() + " cannot be accessed.", e);
+            }
+        }
+
+        /**
+         * Find constructor annotated with {@link ConstructorProperties}.
+         *
+         * @param type the type to examine
+         * @return the constructor
+         */
+        private static Constructor<?> findAnnotatedConstructor(final Class<?> type) {
+            Constructor<?> rc = null;
+            for (final Constructor<?> c : type.getConstructors()) {
+                if (c.isAnnotationPresent(ConstructorProperties.class)) {
+                    if (rc != null) {
+                        throw new ParserException("Several annotated constructors are found in " + type.getName());
+                    }
+                    rc = c;
+                }
+            }
+            if (rc == null) {
+                throw new ParserException("The class " + type.getName()
+                        + " is neither record nor has a constructor annotated with @ConstructorProperties");
+            }
+            return rc;
+        }
+
+        /**
+         * @return the class
+         */
+        public Class<?> type() {
+            return type;
+        }
+
+        /**
+         * Create an instance of the class.
+         *
+         * @param values the values for constructor parameters (the array is reused for arguments)
+         * @return the created object
+         */
+        private Object create(final Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                final Object value = values[i];
+                if (value == null) {
+                    values[i] = defaults[i];
+                } else if (value instanceof ArrayList<?> list) {
+                    final Class<?> t = parameters[i].type;
+                    if (t.isArray()) {
+                        final int n = list.size();
+                        final Object array = Array.newInstance(t.getComponentType(), n);
+                        for (int j = 0; j < n; j++) {
+                            Array.set(array, j, list.get(j));
+                        }
+                        values[i] = array;
+                    } else if (Component.isList(t)) {
+                        values[i] = Collections.unmodifiableList(list);
+                    }
+                }
+            }
+            try {
+                return constructor.invokeExact(values);
+            } catch (Error e) { // NOPMD
+                throw e;
+            } catch (Throwable e) { // NOPMD
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Instance of " + type.getName() + " cannot be created.", e);
+                }
+                throw new ParserException("Instance of " + type.getName() + " cannot be created.", e);
+            }
+        }
+    }
+}
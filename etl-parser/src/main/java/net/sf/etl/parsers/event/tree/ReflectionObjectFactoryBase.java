@@ -59,6 +59,10 @@ public abstract class ReflectionObjectFactoryBase<B, F, M, H> extends ObjectFact
      */
     private final Map<String, HashMap<String, Class<?>>> objectMapping = // NOPMD
             new HashMap<>();
+    /**
+     * The classes that were already resolved by this factory.
+     */
+    private final Map<ObjectName, Class<?>> resolvedClasses = new HashMap<>(); // NOPMD
 
     /**
      * The constructor.
@@ -103,6 +107,7 @@ public abstract class ReflectionObjectFactoryBase<B, F, M, H> extends ObjectFact
      */
     public final void mapNamespaceToPackage(final String namespace, final String javaPackage) {
         namespaceMapping.put(namespace, javaPackage);
+        resolvedClasses.clear();
     }
 
     /**
@@ -116,15 +121,31 @@ public abstract class ReflectionObjectFactoryBase<B, F, M, H> extends ObjectFact
         HashMap<String, Class<?>> nameToClass = objectMapping.computeIfAbsent(namespace,
                 k -> new HashMap<>());
         nameToClass.put(name, beanClass);
+        resolvedClasses.clear();
     }
 
     /**
-     * Get object class.
+     * Get object class. The class is resolved only once for each object name.
      *
      * @param name the name of class
      * @return class for the object name
      */
     protected final Class<?> getObjectClass(final ObjectName name) {
+        Class<?> rc = resolvedClasses.get(name);
+        if (rc == null) {
+            rc = resolveObjectClass(name);
+            resolvedClasses.put(name, rc);
+        }
+        return rc;
+    }
+
+    /**
+     * Resolve object class using the mappings.
+     *
+     * @param name the name of class
+     * @return class for the object name
+     */
+    private Class<?> resolveObjectClass(final ObjectName name) {
         // check object name map
         final HashMap<String, Class<?>> nameToObject = objectMapping.get(name.namespace());
         if (nameToObject != null) {
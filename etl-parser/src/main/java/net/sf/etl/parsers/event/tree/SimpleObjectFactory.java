@@ -100,8 +100,10 @@ public class SimpleObjectFactory<B>
     @Override
     protected final B createInstance(final Class<?> metaObject, final ObjectName name) {
         try {
-            return (B) metaObject.getConstructor().newInstance();
-        } catch (Exception e) { // NOPMD
+            return (B) BindingPlan.get(metaObject).newInstance();
+        } catch (Error e) { // NOPMD
+            throw e;
+        } catch (Throwable e) { // NOPMD
             if (LOG.isErrorEnabled()) {
                 LOG.error("Instance of " + metaObject.getCanonicalName() + " cannot be created.", e);
             }
@@ -0,0 +1,237 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.event.TermParser;
+import net.sf.etl.parsers.resource.ResolvedObject;
+import net.sf.etl.parsers.resource.ResourceRequest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * The asynchronous counterpart of {@link DefaultGrammarResolver}. It drives the same grammar compilation process,
+ * but the grammars are located with {@link AsyncGrammarLocator} and the grammar sources with the <code>file:</code>
+ * scheme are read with {@link java.nio.channels.AsynchronousFileChannel}, so no thread waits for the pending
+ * resolution. The other sources are read using the executor. The parsing and compilation of grammars happen in
+ * the executor as well.
+ * </p>
+ * <p>
+ * The direct file read is equivalent to {@link DefaultTermReaderConfiguration#openReader(String)}, so it is used
+ * only with that configuration. With other configurations, all sources are read with
+ * {@link TermReaderConfiguration#openReader(String)} using the executor, as the configuration might provide
+ * content that differs from the file on disk (for example, unsaved editor buffers).
+ * </p>
+ * <p>
+ * The grammars used by the grammar sources themselves (normally, the bootstrap grammar for ETL grammars) are
+ * resolved synchronously, as the grammar source is parsed at once.
+ * </p>
+ */
+public final class AsyncGrammarResolver {
+    /**
+     * The configuration.
+     */
+    private final TermReaderCatalogConfiguration configuration;
+    /**
+     * The grammar locator (if null, the blocking catalog from configuration is used with executor).
+     */
+    private final AsyncGrammarLocator locator;
+    /**
+     * The executor for grammar compilation and blocking operations.
+     */
+    private final Executor executor;
+
+    /**
+     * The constructor.
+     *
+     * @param configuration the configuration
+     * @param locator       the grammar locator
+     * @param executor      the executor for grammar compilation and blocking operations
+     */
+    public AsyncGrammarResolver(final TermReaderCatalogConfiguration configuration, final AsyncGrammarLocator locator,
+                                final Executor executor) {
+        this.configuration = configuration;
+        this.locator = locator;
+        this.executor = executor;
+    }
+
+    /**
+     * The constructor that uses the blocking catalog from configuration with the executor.
+     *
+     * @param configuration the configuration
+     * @param executor      the executor for catalog access, grammar compilation and blocking operations
+     */
+    public AsyncGrammarResolver(final TermReaderCatalogConfiguration configuration, final Executor executor) {
+        this(configuration, null, executor);
+    }
+
+    /**
+     * Resolve the grammar requested by the parser. When the returned future completes successfully, the grammar
+     * is provided to the parser. The parser must not be used until then.
+     *
+     * @param termParser the parser that requests the grammar
+     * @return the future that completes when the grammar is provided to the parser
+     */
+    public CompletableFuture<Void> resolve(final TermParser termParser) {
+        final Resolution resolution;
+        final ResourceRequest request;
+        try {
+            final GrammarLocator catalog = configuration.getCatalog(termParser.getSystemId());
+            final AsyncGrammarLocator currentLocator = locator != null ? locator
+                    : r -> CompletableFuture.supplyAsync(() -> catalog.resolve(r), executor);
+            resolution = new Resolution(new BlockingCatalogSession(configuration, catalog, termParser,
+                    Collections.emptySet()), currentLocator);
+            request = resolution.session.start();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+        if (request == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return resolution.start(request);
+    }
+
+    /**
+     * Read the grammar source.
+     *
+     * @param systemId the system id of the source
+     * @return the future for the text of the source
+     */
+    private CompletableFuture<String> readSource(final String systemId) {
+        final Path path = configuration instanceof DefaultTermReaderConfiguration ? toLocalPath(systemId) : null;
+        if (path != null) {
+            final Charset encoding = configuration.getParserConfiguration().getEncoding(systemId);
+            return AsyncFileReader.read(path).thenApply(bytes -> new String(bytes, encoding));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try (Reader reader = configuration.openReader(systemId)) {
+                final StringWriter writer = new StringWriter();
+                reader.transferTo(writer);
+                return writer.toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Get local path for the <code>file:</code> system id.
+     *
+     * @param systemId the system id
+     * @return the path or null if it is not a local file
+     */
+    private static Path toLocalPath(final String systemId) {
+        if (!systemId.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return Path.of(new URI(systemId));
+        } catch (Exception e) { // NOPMD
+            return null;
+        }
+    }
+
+    /**
+     * The single resolution process. The steps of the session are executed sequentially, the future chain
+     * provides the necessary ordering between threads.
+     */
+    private final class Resolution {
+        /**
+         * The session that keeps the state of the grammar compilation.
+         */
+        private final BlockingCatalogSession session;
+        /**
+         * The grammar locator.
+         */
+        private final AsyncGrammarLocator grammarLocator;
+
+        /**
+         * The constructor.
+         *
+         * @param session        the session
+         * @param grammarLocator the grammar locator
+         */
+        private Resolution(final BlockingCatalogSession session, final AsyncGrammarLocator grammarLocator) {
+            this.session = session;
+            this.grammarLocator = grammarLocator;
+        }
+
+        /**
+         * Start resolution of the grammar requested by the parser.
+         *
+         * @param request the grammar request
+         * @return the future that completes when the grammar is provided
+         */
+        private CompletableFuture<Void> start(final ResourceRequest request) {
+            return grammarLocator.resolve(request).thenCompose(result -> load(request, result, true)
+                    .thenComposeAsync(source -> session.startGrammar(request, result, source)
+                            ? next() : CompletableFuture.completedFuture(null), executor));
+        }
+
+        /**
+         * Continue the compilation until the next grammar is needed, and load it.
+         *
+         * @return the future that completes when the grammar is provided
+         */
+        private CompletableFuture<Void> next() {
+            final ResourceRequest request = session.process();
+            if (request == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return grammarLocator.resolve(request).thenCompose(result -> load(request, result, false)
+                    .thenComposeAsync(source -> {
+                        session.loadGrammar(request, result, source);
+                        return next();
+                    }, executor));
+        }
+
+        /**
+         * Load the source of the grammar if it is needed. If the source could not be read, the session reads it
+         * again on its own, and reports the problem in the same way as the blocking resolution.
+         *
+         * @param request the grammar request
+         * @param result  the location of the grammar
+         * @param initial true if it is the grammar requested by the parser
+         * @return the future for the source text (the text is null, if the source is not needed)
+         */
+        private CompletableFuture<String> load(final ResourceRequest request, final ResolvedObject<String> result,
+                                               final boolean initial) {
+            if (!session.isSourceNeeded(request, result, initial)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return readSource(result.getObject()).exceptionally(t -> null);
+        }
+    }
+}
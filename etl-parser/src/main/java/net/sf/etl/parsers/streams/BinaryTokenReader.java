@@ -0,0 +1,326 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.ErrorInfo;
+import net.sf.etl.parsers.SourceLocation;
+import net.sf.etl.parsers.TextIndex;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The reader for the binary token streams written by {@link BinaryTokenWriter}. The stream is read from a cache
+ * entry that could be truncated or corrupted, so all problems with the data are reported as {@link IOException},
+ * and the callers treat such entry as a cache miss.
+ */
+final class BinaryTokenReader {
+    /**
+     * The data.
+     */
+    private final byte[] data;
+    /**
+     * The string table.
+     */
+    private final List<String> strings = new ArrayList<>();
+    /**
+     * The system id of the source.
+     */
+    private final String systemId;
+    /**
+     * The text index (null if explicit positions are used).
+     */
+    private final TextIndex textIndex;
+    /**
+     * The current position in data.
+     */
+    private int position;
+    /**
+     * The line of the previous position.
+     */
+    private int lastLine = TextPos.START_LINE;
+    /**
+     * The column of the previous position.
+     */
+    private int lastColumn = TextPos.START_COLUMN;
+    /**
+     * The offset of the previous position.
+     */
+    private long lastOffset = TextPos.START_OFFSET;
+
+    /**
+     * The constructor.
+     *
+     * @param data             the data to read
+     * @param magic            the expected magic number
+     * @param version          the expected version
+     * @param systemId         the system id of the source
+     * @param compactPositions if true, the text index is built for positions
+     * @throws IOException if the data has unsupported format
+     */
+    BinaryTokenReader(final byte[] data, final int magic, final int version, final String systemId,
+                      final boolean compactPositions) throws IOException {
+        this.data = data; // NOPMD
+        this.systemId = systemId;
+        if (readInt() != magic || readInt() != version) {
+            throw new IOException("Unsupported binary token stream format for " + systemId);
+        }
+        this.textIndex = compactPositions ? new TextIndex(TextPos.START) : null;
+    }
+
+    /**
+     * @return the system id of the source
+     */
+    String getSystemId() {
+        return systemId;
+    }
+
+    /**
+     * @return true if there is more data
+     */
+    boolean hasMore() {
+        return position < data.length;
+    }
+
+    /**
+     * @return the text index (null if explicit positions are used)
+     */
+    TextIndex textIndex() {
+        return textIndex;
+    }
+
+    /**
+     * @return the read byte
+     * @throws IOException if the stream is truncated
+     */
+    private int readByte() throws IOException {
+        if (position >= data.length) {
+            throw new IOException("Unexpected end of binary token stream for " + systemId);
+        }
+        return data[position++] & 0xFF;
+    }
+
+    /**
+     * @return the read non-negative integer
+     * @throws IOException if the stream is truncated, or the value does not fit into non-negative integer
+     */
+    int readInt() throws IOException {
+        int rc = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Integer.SIZE) {
+                throw new IOException("Too long integer in binary token stream for " + systemId);
+            }
+            b = readByte();
+            rc |= (b & BinaryTokenWriter.VARINT_MASK) << shift;
+            shift += BinaryTokenWriter.VARINT_BITS;
+        } while ((b & BinaryTokenWriter.VARINT_MORE) != 0);
+        if (rc < 0) {
+            throw new IOException("Negative integer " + rc + " in binary token stream for " + systemId);
+        }
+        return rc;
+    }
+
+    /**
+     * Read the index of an element in the table.
+     *
+     * @param size the size of the table
+     * @return the read index
+     * @throws IOException if the stream is truncated or the index is outside of the table
+     */
+    int readIndex(final int size) throws IOException {
+        final int rc = readInt();
+        if (rc < 0 || rc >= size) {
+            throw new IOException("Invalid index " + rc + " (size " + size + ") in binary token stream for "
+                    + systemId);
+        }
+        return rc;
+    }
+
+    /**
+     * Read the count of the elements that follow. Each element takes at least one byte, so the count could not
+     * exceed the remaining data.
+     *
+     * @return the read count
+     * @throws IOException if the stream is truncated or the count is too big
+     */
+    int readCount() throws IOException {
+        final int rc = readInt();
+        if (rc < 0 || rc > data.length - position) {
+            throw new IOException("Invalid count " + rc + " in binary token stream for " + systemId);
+        }
+        return rc;
+    }
+
+    /**
+     * @return the read signed long
+     * @throws IOException if the stream is truncated
+     */
+    long readLong() throws IOException {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            v |= (long) (b & BinaryTokenWriter.VARINT_MASK) << shift;
+            shift += BinaryTokenWriter.VARINT_BITS;
+        } while ((b & BinaryTokenWriter.VARINT_MORE) != 0);
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    /**
+     * @return the read string (might be null)
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    String readString() throws IOException {
+        final int tag = readInt();
+        if (tag == BinaryTokenWriter.STRING_NULL) {
+            return null;
+        }
+        if (tag == BinaryTokenWriter.STRING_NEW) {
+            final int length = readInt();
+            if (length < 0 || length > data.length - position) {
+                throw new IOException("Invalid string length " + length + " in binary token stream for " + systemId);
+            }
+            final String rc = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            strings.add(rc);
+            return rc;
+        }
+        final int index = tag - BinaryTokenWriter.STRING_REFERENCE;
+        if (index < 0 || index >= strings.size()) {
+            throw new IOException("Invalid string reference " + tag + " in binary token stream for " + systemId);
+        }
+        return strings.get(index);
+    }
+
+    /**
+     * Read position relatively to the previous position. If compact positions are used, the position is
+     * recorded to the text index.
+     *
+     * @return the offset of the position
+     * @throws IOException if the stream is truncated
+     */
+    long readOffset() throws IOException {
+        final int line = (int) (lastLine + readLong());
+        final int column = readInt();
+        final long offset = lastOffset + readLong();
+        if (textIndex != null && offset >= lastOffset
+                && (line != lastLine || column - lastColumn != offset - lastOffset)) {
+            textIndex.checkpoint(line, column, offset);
+        }
+        lastLine = line;
+        lastColumn = column;
+        lastOffset = offset;
+        return offset;
+    }
+
+    /**
+     * Read position relatively to the previous position.
+     *
+     * @return the position
+     * @throws IOException if the stream is truncated
+     */
+    TextPos readPosition() throws IOException {
+        final long offset = readOffset();
+        return new TextPos(lastLine, lastColumn, offset);
+    }
+
+    /**
+     * @return the read errors
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    ErrorInfo readErrors() throws IOException {
+        final int count = readCount();
+        if (count == 0) {
+            return null;
+        }
+        final ErrorInfo[] errors = new ErrorInfo[count];
+        for (int i = 0; i < count; i++) {
+            final String errorId = readString();
+            final int argCount = readCount();
+            final Object[] args = new Object[argCount];
+            for (int j = 0; j < argCount; j++) {
+                args[j] = readArgument();
+            }
+            final TextPos start = readAbsolutePosition();
+            final TextPos end = readAbsolutePosition();
+            final String errorSystemId = readString();
+            errors[i] = new ErrorInfo(errorId, argCount == 0 ? Collections.emptyList()
+                    : Collections.unmodifiableList(Arrays.asList(args)),
+                    new SourceLocation(start, end, errorSystemId == null ? systemId : errorSystemId), null);
+        }
+        return ErrorInfo.merge(errors);
+    }
+
+    /**
+     * @return the read source location (might be null)
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    SourceLocation readLocation() throws IOException {
+        if (readInt() == 0) {
+            return null;
+        }
+        final TextPos start = readAbsolutePosition();
+        final TextPos end = readAbsolutePosition();
+        return new SourceLocation(start, end, readString());
+    }
+
+    /**
+     * @return the read error argument
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    private Object readArgument() throws IOException {
+        final int tag = readInt();
+        switch (tag) {
+            case BinaryTokenWriter.ARG_NULL:
+                return null;
+            case BinaryTokenWriter.ARG_STRING:
+                return readString();
+            case BinaryTokenWriter.ARG_INTEGER:
+                return (int) readLong();
+            case BinaryTokenWriter.ARG_LONG:
+                return readLong();
+            default:
+                throw new IOException("Unknown error argument tag " + tag + " for " + systemId);
+        }
+    }
+
+    /**
+     * @return the read absolute position
+     * @throws IOException if the stream is truncated
+     */
+    private TextPos readAbsolutePosition() throws IOException {
+        final int line = readInt();
+        final int column = readInt();
+        return new TextPos(line, column, readLong());
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.ErrorInfo;
+import net.sf.etl.parsers.SourceLocation;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The writer for the binary token streams. The format uses variable length integers, a string table where
+ * the string is written on the first occurrence and referenced by the index later, and positions that are
+ * delta-encoded relatively to the previous position. The format is read by {@link BinaryTokenReader}.
+ */
+final class BinaryTokenWriter {
+    /**
+     * The string tag for null.
+     */
+    static final int STRING_NULL = 0;
+    /**
+     * The string tag for the new string.
+     */
+    static final int STRING_NEW = 1;
+    /**
+     * The first string reference tag.
+     */
+    static final int STRING_REFERENCE = 2;
+    /**
+     * The error argument tag: null.
+     */
+    static final int ARG_NULL = 0;
+    /**
+     * The error argument tag: string.
+     */
+    static final int ARG_STRING = 1;
+    /**
+     * The error argument tag: integer.
+     */
+    static final int ARG_INTEGER = 2;
+    /**
+     * The error argument tag: long.
+     */
+    static final int ARG_LONG = 3;
+    /**
+     * The bits in the byte of the variable length integer.
+     */
+    static final int VARINT_BITS = 7;
+    /**
+     * The payload mask for the variable length integer.
+     */
+    static final int VARINT_MASK = 0x7F;
+    /**
+     * The continuation bit for the variable length integer.
+     */
+    static final int VARINT_MORE = 0x80;
+    /**
+     * The output.
+     */
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(); // NOPMD
+    /**
+     * The string table.
+     */
+    private final Map<String, Integer> strings = new HashMap<>(); // NOPMD
+    /**
+     * The system id of the source, errors for this system id are written without system id.
+     */
+    private final String systemId;
+    /**
+     * The line of the previous position.
+     */
+    private int lastLine = TextPos.START_LINE;
+    /**
+     * The offset of the previous position.
+     */
+    private long lastOffset = TextPos.START_OFFSET;
+
+    /**
+     * The constructor.
+     *
+     * @param magic    the magic number of the format
+     * @param version  the version of the format
+     * @param systemId the system id of the source
+     */
+    BinaryTokenWriter(final int magic, final int version, final String systemId) {
+        this.systemId = systemId;
+        writeInt(magic);
+        writeInt(version);
+    }
+
+    /**
+     * Write non-negative integer.
+     *
+     * @param value the value
+     */
+    void writeInt(final int value) {
+        int v = value;
+        while ((v & ~VARINT_MASK) != 0) {
+            out.write(v & VARINT_MASK | VARINT_MORE);
+            v >>>= VARINT_BITS;
+        }
+        out.write(v);
+    }
+
+    /**
+     * Write signed long value.
+     *
+     * @param value the value
+     */
+    void writeLong(final long value) {
+        long v = value << 1 ^ value >> (Long.SIZE - 1);
+        while ((v & ~VARINT_MASK) != 0) {
+            out.write((int) (v & VARINT_MASK) | VARINT_MORE);
+            v >>>= VARINT_BITS;
+        }
+        out.write((int) v);
+    }
+
+    /**
+     * Write string using the string table.
+     *
+     * @param value the value (might be null)
+     */
+    void writeString(final String value) {
+        if (value == null) {
+            writeInt(STRING_NULL);
+            return;
+        }
+        final Integer index = strings.get(value);
+        if (index != null) {
+            writeInt(STRING_REFERENCE + index);
+            return;
+        }
+        strings.put(value, strings.size());
+        writeInt(STRING_NEW);
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write the position relatively to the previous position.
+     *
+     * @param position the position
+     */
+    void writePosition(final TextPos position) {
+        writeLong(position.line() - lastLine);
+        writeInt(position.column());
+        writeLong(position.offset() - lastOffset);
+        lastLine = position.line();
+        lastOffset = position.offset();
+    }
+
+    /**
+     * Write errors. The error arguments that are not strings or numbers are written as strings.
+     *
+     * @param errors the errors (might be null)
+     */
+    void writeErrors(final ErrorInfo errors) {
+        if (errors == null) {
+            writeInt(0);
+            return;
+        }
+        final List<ErrorInfo> list = new ArrayList<>();
+        for (final ErrorInfo e : errors) {
+            list.add(e);
+        }
+        writeInt(list.size());
+        for (final ErrorInfo e : list) {
+            writeString(e.errorId());
+            writeInt(e.errorArgs().size());
+            for (final Object arg : e.errorArgs()) {
+                writeArgument(arg);
+            }
+            writeAbsolutePosition(e.start());
+            writeAbsolutePosition(e.end());
+            final String errorSystemId = e.location().systemId();
+            writeString(systemId.equals(errorSystemId) ? null : errorSystemId);
+        }
+    }
+
+    /**
+     * Write the source location without affecting relative positions.
+     *
+     * @param location the location (might be null)
+     */
+    void writeLocation(final SourceLocation location) {
+        if (location == null) {
+            writeInt(0);
+            return;
+        }
+        writeInt(1);
+        writeAbsolutePosition(location.start());
+        writeAbsolutePosition(location.end());
+        writeString(location.systemId());
+    }
+
+    /**
+     * Write error argument.
+     *
+     * @param arg the argument
+     */
+    private void writeArgument(final Object arg) {
+        if (arg == null) {
+            writeInt(ARG_NULL);
+        } else if (arg instanceof Integer) {
+            writeInt(ARG_INTEGER);
+            writeLong((Integer) arg);
+        } else if (arg instanceof Long) {
+            writeInt(ARG_LONG);
+            writeLong((Long) arg);
+        } else {
+            writeInt(ARG_STRING);
+            writeString(arg.toString());
+        }
+    }
+
+    /**
+     * Write position without affecting relative positions.
+     *
+     * @param position the position
+     */
+    private void writeAbsolutePosition(final TextPos position) {
+        writeInt(position.line());
+        writeInt(position.column());
+        writeLong(position.offset());
+    }
+
+    /**
+     * @return the written data
+     */
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+}
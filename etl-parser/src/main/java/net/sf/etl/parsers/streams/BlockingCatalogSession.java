@@ -43,6 +43,7 @@ import net.sf.etl.parsers.resource.ResourceDescriptor;
 import net.sf.etl.parsers.resource.ResourceRequest;
 import net.sf.etl.parsers.resource.ResourceUsage;
 
+import java.io.StringReader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -101,6 +102,27 @@ final class BlockingCatalogSession { // NOPMD
      * Preform resolution.
      */
     public void resolve() {
+        final ResourceRequest resourceRequest = start();
+        if (resourceRequest == null) {
+            return;
+        }
+        var result = resolveInitialGrammar(resourceRequest);
+        if (!startGrammar(resourceRequest, result, null)) {
+            return;
+        }
+        ResourceRequest request = process();
+        while (request != null) {
+            loadGrammar(request, catalog.resolve(request), null);
+            request = process();
+        }
+    }
+
+    /**
+     * Start the session.
+     *
+     * @return the grammar request that needs to be resolved, or null if the grammar is already provided
+     */
+    ResourceRequest start() {
         final ResourceRequest resourceRequest = parser.grammarRequest();
         if (resourceRequest == null) {
             throw new IllegalStateException("The parser should have an active request for the grammar");
@@ -108,32 +130,57 @@ final class BlockingCatalogSession { // NOPMD
             throw new IllegalStateException("The parser must not have a loaded grammar.");
         }
         if (checkBootstrapGrammars(resourceRequest, Collections.emptyList())) {
-            return;
+            return null;
         }
-        var result = resolveInitialGrammar(resourceRequest);
-        if (!startGrammar(resourceRequest, result)) {
-            return;
+        return resourceRequest;
+    }
+
+    /**
+     * Run the compiler until it needs the next grammar or finishes.
+     *
+     * @return the request for the next grammar, or null if the grammar is compiled and provided to the parser
+     */
+    ResourceRequest process() {
+        final ParserState state = grammarCompilerEngine.process();
+        switch (state) {
+            case OUTPUT_AVAILABLE:
+                final ResolvedObject<CompiledGrammar> read = grammarCompilerEngine.read();
+                configuration.getParserConfiguration().cacheGrammar(read.getObject());
+                finish(read);
+                return null;
+            case RESOURCE_NEEDED:
+                assert !grammarCompilerEngine.requests().isEmpty();
+                return grammarCompilerEngine.requests().iterator().next();
+            case EOF:
+            case INPUT_NEEDED:
+                throw new IllegalStateException("Invalid compiler state: " + state);
+            default:
+                throw new IllegalStateException("Unknown compiler state: " + state);
         }
-        while (true) {
-            final ParserState state = grammarCompilerEngine.process();
-            switch (state) {
-                case OUTPUT_AVAILABLE:
-                    final ResolvedObject<CompiledGrammar> read = grammarCompilerEngine.read();
-                    configuration.getParserConfiguration().cacheGrammar(read.getObject());
-                    finish(read);
-                    return;
-                case RESOURCE_NEEDED:
-                    assert !grammarCompilerEngine.requests().isEmpty();
-                    final ResourceRequest request = grammarCompilerEngine.requests().iterator().next();
-                    loadGrammar(request, catalog.resolve(request));
-                    break;
-                case EOF:
-                case INPUT_NEEDED:
-                    throw new IllegalStateException("Invalid compiler state: " + state);
-                default:
-                    throw new IllegalStateException("Unknown compiler state: " + state);
-            }
+    }
+
+    /**
+     * Check if the grammar source is needed to handle the resolution result.
+     *
+     * @param resourceRequest the resource request
+     * @param result          the resolution result
+     * @param initial         true if it is the result for the grammar requested by the parser,
+     *                        false if it is the result for the grammar requested by the compiler
+     * @return true if the grammar source will be read by {@link #startGrammar(ResourceRequest, ResolvedObject, String)}
+     * or by {@link #loadGrammar(ResourceRequest, ResolvedObject, String)}
+     */
+    boolean isSourceNeeded(final ResourceRequest resourceRequest, final ResolvedObject<String> result,
+                           final boolean initial) {
+        final String systemId = result.getObject();
+        if (systemId == null) {
+            return false;
+        }
+        if (!initial) {
+            return true;
         }
+        return !isBootstrapGrammar(resourceRequest)
+                && configuration.getParserConfiguration().getCachedGrammar(systemId) == null
+                && !loadedGrammars.contains(systemId);
     }
 
     /**
@@ -141,10 +188,12 @@ final class BlockingCatalogSession { // NOPMD
      *
      * @param resourceRequest the resource request
      * @param result          the result
+     * @param source          the text of the grammar source (if null, the source is read using the configuration)
      * @return true if grammar started successfully and needs to be processed,
      * false if resolution finished.
      */
-    private boolean startGrammar(final ResourceRequest resourceRequest, final ResolvedObject<String> result) {
+    boolean startGrammar(final ResourceRequest resourceRequest, final ResolvedObject<String> result,
+                         final String source) {
         final List<ResourceUsage> resolutionHistory = result.getResolutionHistory();
         if (checkBootstrapGrammars(resourceRequest, resolutionHistory)) {
             return false;
@@ -170,7 +219,7 @@ final class BlockingCatalogSession { // NOPMD
                             null));
         } else {
             grammarCompilerEngine.start(resourceRequest);
-            loadGrammar(resourceRequest, result);
+            loadGrammar(resourceRequest, result, source);
         }
         return true;
     }
@@ -185,6 +234,18 @@ final class BlockingCatalogSession { // NOPMD
         return catalog.resolve(resourceRequest);
     }
 
+    /**
+     * Check if the grammar is one of bootstrap grammars.
+     *
+     * @param resourceRequest the resource request
+     * @return true if the grammar is provided without loading
+     */
+    private static boolean isBootstrapGrammar(final ResourceRequest resourceRequest) {
+        return StandardGrammars.ETL_GRAMMAR_ID.equals(resourceRequest.grammarId())
+                || StandardGrammars.DEFAULT_GRAMMAR_ID.equals(resourceRequest.grammarId())
+                || StandardGrammars.DOCTYPE_GRAMMAR_ID.equals(resourceRequest.grammarId());
+    }
+
     /**
      * Check if the grammar is one of bootstrap grammars, and load it instead.
      *
@@ -237,8 +298,10 @@ final class BlockingCatalogSession { // NOPMD
      *
      * @param request the catalog request
      * @param result  the resolution
+     * @param source  the text of the grammar source (if null, the source is read using the configuration)
      */
-    protected void loadGrammar(final ResourceRequest request, final ResolvedObject<String> result) { // NOPMD
+    void loadGrammar(final ResourceRequest request, final ResolvedObject<String> result, // NOPMD
+                     final String source) {
         final String systemId = result.getObject();
         final List<ResourceUsage> resolution = result.getResolutionHistory();
         try {
@@ -259,9 +322,10 @@ final class BlockingCatalogSession { // NOPMD
                                 alreadyProvided.getObject()),
                         null);
             }
-            final URL url = new URL(systemId);
             var errors = new ArrayList<ErrorInfo>();
-            final TermParserReader reader = new TermParserReader(configuration, url);
+            final TermParserReader reader = source == null
+                    ? new TermParserReader(configuration, new URL(systemId))
+                    : new TermParserReader(configuration, new StringReader(source), systemId);
             try {
                 reader.setResolver(termParser -> {
                     final ResourceRequest resourceRequest = termParser.grammarRequest();
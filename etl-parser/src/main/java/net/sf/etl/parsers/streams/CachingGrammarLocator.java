@@ -0,0 +1,169 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.GrammarId;
+import net.sf.etl.parsers.resource.ResolvedObject;
+import net.sf.etl.parsers.resource.ResourceRequest;
+import net.sf.etl.parsers.resource.ResourceUsage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The locator that remembers failed resolutions of the other locator. When many sources refer to a missing grammar,
+ * the catalogs are walked only once per time-to-live instead of once per source. The failures are keyed by
+ * the grammar id, so the wrapped locator is expected to resolve grammars independently of the requesting source,
+ * as the catalog-based locators do. The successful resolutions are not cached here, since the compiled grammars are
+ * already cached by {@link net.sf.etl.parsers.TermParserConfiguration}.
+ */
+public final class CachingGrammarLocator implements GrammarLocator {
+    /**
+     * The default time-to-live of the failed resolutions in milliseconds.
+     */
+    public static final long DEFAULT_NEGATIVE_TTL = 30_000L;
+    /**
+     * The default maximum amount of remembered failures.
+     */
+    public static final int DEFAULT_NEGATIVE_CACHE_SIZE = 1024;
+    /**
+     * The wrapped locator.
+     */
+    private final GrammarLocator locator;
+    /**
+     * The time-to-live of the failed resolutions in nanoseconds.
+     */
+    private final long ttlNanos;
+    /**
+     * The maximum amount of remembered failures.
+     */
+    private final int maxSize;
+    /**
+     * The failed resolutions in the access order (guarded by itself).
+     */
+    private final LinkedHashMap<GrammarId, Miss> misses = new LinkedHashMap<>(16, 0.75f, true); // NOPMD
+
+    /**
+     * The constructor.
+     *
+     * @param locator the wrapped locator
+     * @param ttl     the time-to-live of the failed resolutions in milliseconds
+     * @param maxSize the maximum amount of remembered failures
+     */
+    public CachingGrammarLocator(final GrammarLocator locator, final long ttl, final int maxSize) {
+        if (locator == null) {
+            throw new IllegalArgumentException("The locator must not be null");
+        }
+        this.locator = locator;
+        this.ttlNanos = ttl * 1_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The constructor with default limits.
+     *
+     * @param locator the wrapped locator
+     */
+    public CachingGrammarLocator(final GrammarLocator locator) {
+        this(locator, DEFAULT_NEGATIVE_TTL, DEFAULT_NEGATIVE_CACHE_SIZE);
+    }
+
+    @Override
+    public ResolvedObject<String> resolve(final ResourceRequest resourceRequest) {
+        final GrammarId grammarId = resourceRequest.grammarId();
+        synchronized (misses) {
+            final Miss miss = misses.get(grammarId);
+            if (miss != null) {
+                if (System.nanoTime() - miss.created < ttlNanos) {
+                    return new ResolvedObject<>(resourceRequest, miss.result.getResolutionHistory(),
+                            miss.result.getDescriptor(), null);
+                }
+                misses.remove(grammarId);
+            }
+        }
+        final ResolvedObject<String> result = locator.resolve(resourceRequest);
+        if (result.getObject() == null && ttlNanos > 0 && maxSize > 0) {
+            synchronized (misses) {
+                misses.put(grammarId, new Miss(result, System.nanoTime()));
+                final Iterator<Miss> iterator = misses.values().iterator();
+                while (misses.size() > maxSize && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget failures that consulted the resource. This method is used when the resource is changed.
+     *
+     * @param systemId the system id of the changed resource
+     * @return the amount of forgotten failures
+     */
+    public int expireResource(final String systemId) {
+        synchronized (misses) {
+            final int size = misses.size();
+            misses.values().removeIf(miss -> {
+                for (final ResourceUsage usage : miss.result.getResolutionHistory()) {
+                    if (systemId.equals(usage.descriptor().getSystemId())) {
+                        return true;
+                    }
+                }
+                return systemId.equals(miss.result.getDescriptor().getSystemId());
+            });
+            return size - misses.size();
+        }
+    }
+
+    /**
+     * Forget all failures.
+     */
+    public void clear() {
+        synchronized (misses) {
+            misses.clear();
+        }
+    }
+
+    /**
+     * @return the current amount of remembered failures
+     */
+    public int getCurrentSize() {
+        synchronized (misses) {
+            return misses.size();
+        }
+    }
+
+    /**
+     * The remembered failure.
+     *
+     * @param result  the failed resolution
+     * @param created the time when the failure was remembered ({@link System#nanoTime()})
+     */
+    private record Miss(ResolvedObject<String> result, long created) {
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.ParserIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The directory with the cached data keyed by the hash of the source content and parameters that affect
+ * the cached data. The entries are written atomically, so the directory could be shared between processes.
+ * The failures to write the cache are logged and ignored, since the cache is only an optimization.
+ */
+final class ContentCache {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ContentCache.class);
+    /**
+     * The hex digits.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * The buffer size used to read the source.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * The digest algorithm.
+     */
+    private static final String DIGEST = "SHA-256";
+    /**
+     * The cache directory.
+     */
+    private final Path directory;
+    /**
+     * The suffix for cache entries.
+     */
+    private final String suffix;
+
+    /**
+     * The constructor.
+     *
+     * @param directory the cache directory
+     * @param suffix    the suffix of the cache entries
+     */
+    ContentCache(final Path directory, final String suffix) {
+        this.directory = directory;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Calculate key for the content.
+     *
+     * @param content    the content
+     * @param parameters the parameters that affect the cached data
+     * @return the key
+     */
+    static String key(final String content, final Object... parameters) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The digest is not available: " + DIGEST, e);
+        }
+        for (final Object parameter : parameters) {
+            digest.update(String.valueOf(parameter).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        final byte[] hash = digest.digest();
+        final char[] rc = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            rc[i * 2] = HEX[hash[i] >> 4 & 0xF];
+            rc[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(rc);
+    }
+
+    /**
+     * Read the entire source text.
+     *
+     * @param configuration the configuration
+     * @param systemId      the system id of the source
+     * @return the text
+     */
+    static String readText(final TermReaderConfiguration configuration, final String systemId) {
+        try (Reader reader = configuration.openReader(systemId)) {
+            final StringBuilder rc = new StringBuilder();
+            final char[] buffer = new char[BUFFER_SIZE];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                rc.append(buffer, 0, count);
+            }
+            return rc.toString();
+        } catch (IOException ex) {
+            throw new ParserIOException("Unable to open resource: " + systemId, ex);
+        }
+    }
+
+    /**
+     * Load the entry.
+     *
+     * @param key the key
+     * @return the entry data or null if entry is not available
+     */
+    byte[] load(final String key) {
+        try {
+            return Files.readAllBytes(directory.resolve(key + suffix));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Failed to read cache entry " + key + suffix + " in " + directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * Store the entry.
+     *
+     * @param key  the key
+     * @param data the entry data
+     */
+    void store(final String key, final byte[] data) {
+        try {
+            Files.createDirectories(directory);
+            final Path target = directory.resolve(key + suffix);
+            final Path temp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temp, data);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to write cache entry " + key + suffix + " in " + directory, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ContentCache{directory=" + directory + ", suffix='" + suffix + "'}";
+    }
+}
@@ -98,13 +98,13 @@ public final class DefaultTermReaderConfiguration implements TermReaderCatalogCo
     }
 
     /**
-     * Get default catalog with class loader.
+     * Get default catalog with class loader. The failed lookups are remembered for a while.
      *
      * @param classLoader the class loader to use
      * @return the default catalog
      */
     private static GrammarLocator getDefaultCatalog(final ClassLoader classLoader) {
-        return new GrammarClasspathLocator(classLoader);
+        return new CachingGrammarLocator(new GrammarClasspathLocator(classLoader));
     }
 
 
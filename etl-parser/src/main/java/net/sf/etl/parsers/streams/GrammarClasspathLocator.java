@@ -25,7 +25,6 @@
 
 package net.sf.etl.parsers.streams;
 
-import net.sf.etl.parsers.StandardGrammars;
 import net.sf.etl.parsers.resource.ResolvedObject;
 import net.sf.etl.parsers.resource.ResourceDescriptor;
 import net.sf.etl.parsers.resource.ResourceRequest;
@@ -53,7 +52,11 @@ public class GrammarClasspathLocator implements GrammarLocator {
 
     @Override
     public ResolvedObject<String> resolve(ResourceRequest request) {
-        URL url = StandardGrammars.getGrammarResource(classLoader, request.grammarId());
+        final String path = request.grammarId().getResourcePath();
+        final URL url = classLoader.getResource(path);
+        if (url == null) {
+            return new ResolvedObject<>(request, List.of(), new ResourceDescriptor(path), null);
+        }
         return new ResolvedObject<>(request, List.of(), new ResourceDescriptor(url.toString()), url.toString());
     }
 }
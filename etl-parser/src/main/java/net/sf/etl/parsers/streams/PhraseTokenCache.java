@@ -0,0 +1,257 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.PhraseTokens;
+import net.sf.etl.parsers.TermParserConfiguration;
+import net.sf.etl.parsers.TextPos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The persistent cache of the phrase token streams. The lexer and the phrase parser do not depend on the grammar,
+ * so the phrase token stream could be reused when only the grammar changes. The streams are stored in the compact
+ * binary form keyed by the hash of the source content, the tab size, the encoding, and the lexer options.
+ * The entry is written when the source is parsed up to EOF, and the later requests replay the stored stream
+ * without lexing the source. The entry is decoded completely before replay, so a truncated or corrupted entry
+ * is treated as a cache miss, and it is overwritten after the source is parsed again.
+ */
+public final class PhraseTokenCache {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(PhraseTokenCache.class);
+    /**
+     * The suffix of the cache entries.
+     */
+    private static final String SUFFIX = ".etlp";
+    /**
+     * The cache directory.
+     */
+    private final ContentCache cache;
+
+    /**
+     * The constructor.
+     *
+     * @param directory the cache directory (it is created when the first entry is written)
+     */
+    public PhraseTokenCache(final Path directory) {
+        this.cache = new ContentCache(directory, SUFFIX);
+    }
+
+    /**
+     * Open the phrase token stream for the URL.
+     *
+     * @param configuration the configuration
+     * @param url           the url of the source
+     * @return the phrase token stream (either replayed from the cache, or recorded to the cache)
+     */
+    public AbstractReader<PhraseToken> open(final TermReaderConfiguration configuration, final URL url) {
+        return open(configuration, url.toString());
+    }
+
+    /**
+     * Open the phrase token stream for the system id.
+     *
+     * @param configuration the configuration
+     * @param systemId      the system id of the source
+     * @return the phrase token stream (either replayed from the cache, or recorded to the cache)
+     */
+    public AbstractReader<PhraseToken> open(final TermReaderConfiguration configuration, final String systemId) {
+        return open(configuration, ContentCache.readText(configuration, systemId), systemId);
+    }
+
+    /**
+     * Open the phrase token stream for the text.
+     *
+     * @param configuration the configuration
+     * @param text          the text of the source
+     * @param systemId      the system id of the source
+     * @return the phrase token stream (either replayed from the cache, or recorded to the cache)
+     */
+    public AbstractReader<PhraseToken> open(final TermReaderConfiguration configuration, final String text,
+                                            final String systemId) {
+        final TermParserConfiguration parserConfiguration = configuration.getParserConfiguration();
+        final String key = ContentCache.key(text, PhraseTokenCodec.VERSION,
+                parserConfiguration.getTabSize(systemId), parserConfiguration.getEncoding(systemId),
+                parserConfiguration.isIgnorableTextSkipped(systemId));
+        final byte[] data = cache.load(key);
+        if (data != null) {
+            try {
+                return new ReplayReader(decode(data, systemId, parserConfiguration.isCompactPositions(systemId)),
+                        systemId);
+            } catch (IOException ex) {
+                LOG.warn("The cache entry " + key + " is corrupted, the source is parsed again: " + systemId, ex);
+            }
+        }
+        return new RecordingReader(new PhraseParserReader(
+                new LexerReader(configuration, new StringReader(text), systemId, TextPos.START)), key);
+    }
+
+    /**
+     * Decode the entry.
+     *
+     * @param data             the entry data
+     * @param systemId         the system id of the source
+     * @param compactPositions if true, the compact positions are used for tokens
+     * @return the decoded tokens
+     * @throws IOException if the entry is truncated or corrupted
+     */
+    private static List<PhraseToken> decode(final byte[] data, final String systemId, final boolean compactPositions)
+            throws IOException {
+        final BinaryTokenReader in = new BinaryTokenReader(data, PhraseTokenCodec.MAGIC, PhraseTokenCodec.VERSION,
+                systemId, compactPositions);
+        final List<PhraseToken> rc = new ArrayList<>();
+        try {
+            while (in.hasMore()) {
+                rc.add(PhraseTokenCodec.readPhraseToken(in));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IOException("Invalid token in binary token stream for " + systemId, ex);
+        }
+        if (rc.isEmpty() || rc.get(rc.size() - 1).kind() != PhraseTokens.EOF) {
+            throw new IOException("The binary token stream is not terminated by EOF for " + systemId);
+        }
+        return rc;
+    }
+
+    @Override
+    public String toString() {
+        return "PhraseTokenCache{" + cache + '}';
+    }
+
+    /**
+     * The reader that replays the cached phrase token stream.
+     */
+    private static final class ReplayReader extends AbstractReaderImpl<PhraseToken> {
+        /**
+         * The decoded tokens.
+         */
+        private final List<PhraseToken> tokens;
+        /**
+         * The system id.
+         */
+        private final String systemId;
+        /**
+         * The position of the next token.
+         */
+        private int position;
+
+        /**
+         * The constructor.
+         *
+         * @param tokens   the decoded tokens
+         * @param systemId the system id
+         */
+        private ReplayReader(final List<PhraseToken> tokens, final String systemId) {
+            this.tokens = tokens;
+            this.systemId = systemId;
+        }
+
+        @Override
+        protected boolean doAdvance() {
+            if (position >= tokens.size()) {
+                return false;
+            }
+            setCurrent(tokens.get(position++));
+            return true;
+        }
+
+        @Override
+        protected void doClose() {
+            // nothing to close
+        }
+
+        @Override
+        public String getSystemId() {
+            return systemId;
+        }
+    }
+
+    /**
+     * The reader that records the phrase token stream to the cache.
+     */
+    private final class RecordingReader extends AbstractReaderImpl<PhraseToken> {
+        /**
+         * The underlying reader.
+         */
+        private final PhraseParserReader reader;
+        /**
+         * The key of the entry.
+         */
+        private final String key;
+        /**
+         * The output (null when the entry is already written).
+         */
+        private BinaryTokenWriter out;
+
+        /**
+         * The constructor.
+         *
+         * @param reader the underlying reader
+         * @param key    the key of the entry
+         */
+        private RecordingReader(final PhraseParserReader reader, final String key) {
+            this.reader = reader;
+            this.key = key;
+            this.out = new BinaryTokenWriter(PhraseTokenCodec.MAGIC, PhraseTokenCodec.VERSION, reader.getSystemId());
+        }
+
+        @Override
+        protected boolean doAdvance() {
+            if (!reader.advance()) {
+                return false;
+            }
+            final PhraseToken token = reader.current();
+            setCurrent(token);
+            if (out != null) {
+                PhraseTokenCodec.write(out, token);
+                if (token.kind() == PhraseTokens.EOF) {
+                    cache.store(key, out.toByteArray());
+                    out = null;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected void doClose() {
+            reader.close();
+        }
+
+        @Override
+        public String getSystemId() {
+            return reader.getSystemId();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.ErrorInfo;
+import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.PhraseTokens;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.parsers.Token;
+import net.sf.etl.parsers.TokenKey;
+import net.sf.etl.parsers.Tokens;
+import net.sf.etl.parsers.characters.QuoteClass;
+
+import java.io.IOException;
+
+/**
+ * The binary encoding for {@link PhraseToken} streams.
+ */
+final class PhraseTokenCodec {
+    /**
+     * The magic number of the format ("ETLP").
+     */
+    static final int MAGIC = 0x45544C50;
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+    /**
+     * The phrase token kinds.
+     */
+    private static final PhraseTokens[] PHRASE_KINDS = PhraseTokens.values();
+    /**
+     * The token kinds.
+     */
+    private static final Tokens[] TOKEN_KINDS = Tokens.values();
+    /**
+     * The quote classes.
+     */
+    private static final QuoteClass[] QUOTE_CLASSES = QuoteClass.values();
+
+    /**
+     * Private constructor for utility class.
+     */
+    private PhraseTokenCodec() {
+        // do nothing
+    }
+
+    /**
+     * Write the phrase token.
+     *
+     * @param out   the output
+     * @param token the token to write
+     */
+    static void write(final BinaryTokenWriter out, final PhraseToken token) {
+        out.writeInt(token.kind().ordinal());
+        if (token.hasToken()) {
+            write(out, token.token());
+        } else {
+            out.writePosition(token.start());
+        }
+        out.writeErrors(token.errorInfo());
+    }
+
+    /**
+     * Write the lexical token.
+     *
+     * @param out   the output
+     * @param token the token to write
+     */
+    static void write(final BinaryTokenWriter out, final Token token) {
+        final TokenKey key = token.key();
+        out.writeInt(key.kind().ordinal());
+        out.writeString(key.modifier());
+        out.writeInt(key.quoteClass() == null ? 0 : key.quoteClass().ordinal() + 1);
+        out.writeString(token.text());
+        out.writePosition(token.start());
+        out.writePosition(token.end());
+        out.writeErrors(token.errorInfo());
+    }
+
+    /**
+     * Read the phrase token.
+     *
+     * @param in the input
+     * @return the read token
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    static PhraseToken readPhraseToken(final BinaryTokenReader in) throws IOException {
+        final PhraseTokens kind = PHRASE_KINDS[in.readIndex(PHRASE_KINDS.length)];
+        switch (kind) {
+            case SIGNIFICANT:
+            case IGNORABLE:
+            case CONTROL:
+            case EOF:
+                final Token token = readToken(in);
+                return new PhraseToken(kind, token, in.readErrors());
+            default:
+                if (in.textIndex() == null) {
+                    final TextPos position = in.readPosition();
+                    return new PhraseToken(kind, position, in.readErrors());
+                } else {
+                    final long offset = in.readOffset();
+                    return new PhraseToken(kind, in.textIndex(), offset, in.readErrors());
+                }
+        }
+    }
+
+    /**
+     * Read the lexical token.
+     *
+     * @param in the input
+     * @return the read token
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    static Token readToken(final BinaryTokenReader in) throws IOException {
+        final Tokens kind = TOKEN_KINDS[in.readIndex(TOKEN_KINDS.length)];
+        final String modifier = in.readString();
+        final int quoteClassIndex = in.readIndex(QUOTE_CLASSES.length + 1);
+        final QuoteClass quoteClass = quoteClassIndex == 0 ? null : QUOTE_CLASSES[quoteClassIndex - 1];
+        final TokenKey key;
+        if (kind.hasQuotes()) {
+            key = TokenKey.quoted(kind, modifier, quoteClass);
+        } else if (kind.hasModifier()) {
+            key = TokenKey.modified(kind, modifier);
+        } else {
+            key = TokenKey.simple(kind);
+        }
+        final String text = in.readString();
+        if (in.textIndex() == null) {
+            final TextPos start = in.readPosition();
+            final TextPos end = in.readPosition();
+            final ErrorInfo errors = in.readErrors();
+            return new Token(key, text, start, end, errors);
+        } else {
+            final long start = in.readOffset();
+            final long end = in.readOffset();
+            final ErrorInfo errors = in.readErrors();
+            return new Token(key, text, in.textIndex(), start, end, errors);
+        }
+    }
+}
@@ -27,7 +27,9 @@ package net.sf.etl.parsers.streams;
 
 import net.sf.etl.parsers.GrammarId;
 import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.SyntaxRole;
 import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
 import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.event.Cell;
 import net.sf.etl.parsers.event.ParserState;
@@ -37,6 +39,7 @@ import net.sf.etl.parsers.event.impl.term.TermParserImpl;
 
 import java.io.Reader;
 import java.net.URL;
+import java.util.Set;
 
 /**
  * The reader for term parser.
@@ -49,7 +52,7 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
     /**
      * The reader.
      */
-    private final PhraseParserReader phraseParserReader;
+    private final AbstractReader<PhraseToken> phraseParserReader;
     /**
      * Term parser implementation.
      */
@@ -71,8 +74,9 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
      * @param termParser         the term parser
      * @param resolver           the resolver
      */
-    public TermParserReader(final TermReaderConfiguration configuration, final PhraseParserReader phraseParserReader,
-                            final TermParser termParser, final GrammarResolver resolver) {
+    public TermParserReader(final TermReaderConfiguration configuration,
+                            final AbstractReader<PhraseToken> phraseParserReader, final TermParser termParser,
+                            final GrammarResolver resolver) {
         this.configuration = configuration;
         this.phraseParserReader = phraseParserReader;
         this.termParser = termParser;
@@ -86,7 +90,7 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
      * @param forcedGrammar      the grammar that is forced for the parser
      * @param scriptMode         if true, the grammar is used in script mode
      */
-    public TermParserReader(final PhraseParserReader phraseParserReader, final CompiledGrammar forcedGrammar,
+    public TermParserReader(final AbstractReader<PhraseToken> phraseParserReader, final CompiledGrammar forcedGrammar,
                             final boolean scriptMode) {
         this(DefaultTermReaderConfiguration.INSTANCE, phraseParserReader, forcedGrammar, scriptMode);
     }
@@ -99,8 +103,9 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
      * @param forcedGrammar      the grammar that is forced for the parser
      * @param scriptMode         if true, the grammar is used in script mode
      */
-    public TermParserReader(final TermReaderConfiguration configuration, final PhraseParserReader phraseParserReader,
-                            final CompiledGrammar forcedGrammar, final boolean scriptMode) {
+    public TermParserReader(final TermReaderConfiguration configuration,
+                            final AbstractReader<PhraseToken> phraseParserReader, final CompiledGrammar forcedGrammar,
+                            final boolean scriptMode) {
         this(configuration, phraseParserReader, new TermParserImpl(),
                 configuration.getGrammarResolver(phraseParserReader.getSystemId()));
         this.termParser.forceGrammar(forcedGrammar, scriptMode);
@@ -112,7 +117,7 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
      *
      * @param phraseParserReader the phrase parser reader
      */
-    public TermParserReader(final PhraseParserReader phraseParserReader) {
+    public TermParserReader(final AbstractReader<PhraseToken> phraseParserReader) {
         this(DefaultTermReaderConfiguration.INSTANCE, phraseParserReader);
     }
 
@@ -120,9 +125,10 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
      * The constructor.
      *
      * @param configuration      the configuration
-     * @param phraseParserReader the phrase parser reader
+     * @param phraseParserReader the phrase parser reader (or other source of phrase tokens)
      */
-    public TermParserReader(final TermReaderConfiguration configuration, final PhraseParserReader phraseParserReader) {
+    public TermParserReader(final TermReaderConfiguration configuration,
+                            final AbstractReader<PhraseToken> phraseParserReader) {
         this(configuration, phraseParserReader, new TermParserImpl(),
                 configuration.getGrammarResolver(phraseParserReader.getSystemId()));
         this.termParser.start(phraseParserReader.getSystemId());
@@ -211,6 +217,17 @@ public final class TermParserReader extends AbstractReaderImpl<TermToken> {
         this.resolver = resolver;
     }
 
+    /**
+     * Suppress tokens with the specified kinds and roles.
+     *
+     * @param kinds the kinds of tokens to suppress (empty set disables suppression)
+     * @param roles the roles of tokens to suppress
+     * @see TermParser#setSuppressedTokens(Set, Set)
+     */
+    public void setSuppressedTokens(final Set<Terms> kinds, final Set<SyntaxRole> roles) {
+        this.termParser.setSuppressedTokens(kinds, roles);
+    }
+
     /**
      * Set default grammar.
      *
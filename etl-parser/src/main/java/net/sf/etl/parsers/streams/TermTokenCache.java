@@ -0,0 +1,411 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.TermParserConfiguration;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The persistent cache of the term token streams. The streams are stored in the compact binary form keyed by the hash
+ * of the source content, the tab size, the encoding, and the lexer options. The structure identifiers refer to contexts
+ * in grammars by index, so the stream could be replayed only with the same grammars. The grammars are identified by
+ * system id and the fingerprint of their sources. The recorded grammars are looked up in the grammar cache of the
+ * configuration, and if they are not there yet, the grammar for the source is resolved using the configured resolver
+ * (only the doctype of the source is parsed for it). So the entries written by other processes are replayed as soon as
+ * the grammar fingerprints match. The grammar resolution is assumed to be stable for the source (the same doctype
+ * resolves to the same grammar), since the source is not parsed when the stream is replayed. The entry is decoded
+ * completely before replay, so a truncated or corrupted entry is treated as a cache miss.
+ */
+public final class TermTokenCache {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(TermTokenCache.class);
+    /**
+     * The suffix of the cache entries.
+     */
+    private static final String SUFFIX = ".etlt";
+    /**
+     * The cache directory.
+     */
+    private final ContentCache cache;
+    /**
+     * The grammars loaded during parsing by system id.
+     */
+    private final Map<String, GrammarEntry> grammars = new ConcurrentHashMap<>();
+
+    /**
+     * The constructor.
+     *
+     * @param directory the cache directory (it is created when the first entry is written)
+     */
+    public TermTokenCache(final Path directory) {
+        this.cache = new ContentCache(directory, SUFFIX);
+    }
+
+    /**
+     * Open the term token stream for the URL.
+     *
+     * @param configuration the configuration
+     * @param url           the url of the source
+     * @return the term token stream (either replayed from the cache, or recorded to the cache)
+     */
+    public AbstractReader<TermToken> open(final TermReaderConfiguration configuration, final URL url) {
+        return open(configuration, url.toString());
+    }
+
+    /**
+     * Open the term token stream for the system id.
+     *
+     * @param configuration the configuration
+     * @param systemId      the system id of the source
+     * @return the term token stream (either replayed from the cache, or recorded to the cache)
+     */
+    public AbstractReader<TermToken> open(final TermReaderConfiguration configuration, final String systemId) {
+        return open(configuration, ContentCache.readText(configuration, systemId), systemId);
+    }
+
+    /**
+     * Open the term token stream for the text.
+     *
+     * @param configuration the configuration
+     * @param text          the text of the source
+     * @param systemId      the system id of the source
+     * @return the term token stream (either replayed from the cache, or recorded to the cache)
+     */
+    public AbstractReader<TermToken> open(final TermReaderConfiguration configuration, final String text,
+                                          final String systemId) {
+        final TermParserConfiguration parserConfiguration = configuration.getParserConfiguration();
+        final String key = ContentCache.key(text, TermTokenEncoder.VERSION, PhraseTokenCodec.VERSION,
+                parserConfiguration.getTabSize(systemId), parserConfiguration.getEncoding(systemId),
+                parserConfiguration.isIgnorableTextSkipped(systemId));
+        final byte[] data = cache.load(key);
+        if (data != null) {
+            try {
+                List<TermToken> tokens = decode(data, systemId, parserConfiguration);
+                if (tokens == null && resolveGrammar(configuration, text, systemId)) {
+                    tokens = decode(data, systemId, parserConfiguration);
+                }
+                if (tokens != null) {
+                    return new ReplayReader(tokens, systemId);
+                }
+            } catch (IOException ex) {
+                LOG.warn("The cache entry " + key + " is corrupted, the source is parsed again: " + systemId, ex);
+            }
+        }
+        return new RecordingReader(new TermParserReader(configuration, new StringReader(text), systemId), key);
+    }
+
+    /**
+     * Decode the entry.
+     *
+     * @param data                the entry data
+     * @param systemId            the system id of the source
+     * @param parserConfiguration the parser configuration
+     * @return the decoded tokens, or null if some grammar used by the entry is not available
+     * @throws IOException if the entry is truncated or corrupted
+     */
+    private List<TermToken> decode(final byte[] data, final String systemId,
+                                   final TermParserConfiguration parserConfiguration) throws IOException {
+        final BinaryTokenReader in = new BinaryTokenReader(data, TermTokenEncoder.MAGIC, TermTokenEncoder.VERSION,
+                systemId, parserConfiguration.isCompactPositions(systemId));
+        final List<TermToken> rc = new ArrayList<>();
+        try {
+            final List<CompiledGrammar> usedGrammars = TermTokenDecoder.readGrammars(in,
+                    (grammarId, fingerprint) -> findGrammar(parserConfiguration, grammarId, fingerprint));
+            if (usedGrammars == null) {
+                return null;
+            }
+            final TermTokenDecoder decoder = new TermTokenDecoder(in, usedGrammars);
+            while (decoder.hasMore()) {
+                rc.add(decoder.read());
+            }
+        } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException ex) {
+            throw new IOException("Invalid token in binary token stream for " + systemId, ex);
+        }
+        if (rc.isEmpty() || rc.get(rc.size() - 1).kind() != Terms.EOF) {
+            throw new IOException("The binary token stream is not terminated by EOF for " + systemId);
+        }
+        return rc;
+    }
+
+    /**
+     * Find the grammar loaded by this cache or cached by the configuration.
+     *
+     * @param parserConfiguration the parser configuration
+     * @param systemId            the system id of the grammar
+     * @param fingerprint         the fingerprint of the grammar
+     * @return the grammar or null if the grammar is not loaded or has different fingerprint
+     */
+    private CompiledGrammar findGrammar(final TermParserConfiguration parserConfiguration, final String systemId,
+                                        final String fingerprint) {
+        final GrammarEntry entry = grammars.get(systemId);
+        if (entry != null && entry.fingerprint().equals(fingerprint)) {
+            return entry.grammar();
+        }
+        final CompiledGrammar cached = parserConfiguration.getCachedGrammar(systemId);
+        return cached != null && fingerprint(cached).equals(fingerprint) ? cached : null;
+    }
+
+    /**
+     * Resolve the grammar for the source using the resolver from the configuration. Only the doctype of the source
+     * is parsed, and the resolved grammar is cached by the configuration.
+     *
+     * @param configuration the configuration
+     * @param text          the text of the source
+     * @param systemId      the system id of the source
+     * @return true if the grammar has been resolved
+     */
+    private static boolean resolveGrammar(final TermReaderConfiguration configuration, final String text,
+                                          final String systemId) {
+        final GrammarResolver resolver = configuration.getGrammarResolver(systemId);
+        final boolean[] resolved = new boolean[1];
+        final TermParserReader reader = new TermParserReader(configuration, new StringReader(text), systemId);
+        try {
+            reader.setResolver(termParser -> {
+                resolver.resolve(termParser);
+                resolved[0] = true;
+            });
+            while (!resolved[0] && reader.advance()) { // NOPMD
+                // the tokens before the grammar is resolved are skipped
+            }
+        } finally {
+            reader.close();
+        }
+        return resolved[0];
+    }
+
+    /**
+     * Get the fingerprint of the grammar, and register grammar for replay.
+     *
+     * @param grammar the grammar
+     * @return the fingerprint
+     */
+    private String fingerprint(final CompiledGrammar grammar) {
+        final String systemId = grammar.getDescriptor().getSystemId();
+        final GrammarEntry entry = grammars.get(systemId);
+        if (entry != null && entry.grammar() == grammar) {
+            return entry.fingerprint();
+        }
+        final Map<CompiledGrammar, Boolean> visited = new IdentityHashMap<>(); // NOPMD
+        final List<CompiledGrammar> all = new ArrayList<>();
+        collectGrammars(visited, all, grammar);
+        all.sort(Comparator.comparing(g -> g.getDescriptor().getSystemId()));
+        final StringBuilder sources = new StringBuilder();
+        for (final CompiledGrammar g : all) {
+            sources.append(g.getDescriptor().getSystemId()).append('\n');
+            sources.append(readGrammarSource(g)).append('\n');
+        }
+        final String fingerprint = ContentCache.key(sources.toString());
+        grammars.put(systemId, new GrammarEntry(grammar, fingerprint));
+        return fingerprint;
+    }
+
+    /**
+     * Collect the grammar and all grammars referenced from it.
+     *
+     * @param visited the visited grammars
+     * @param all     the collected grammars
+     * @param grammar the grammar to collect
+     */
+    private static void collectGrammars(final Map<CompiledGrammar, Boolean> visited, final List<CompiledGrammar> all,
+                                        final CompiledGrammar grammar) {
+        if (visited.put(grammar, Boolean.TRUE) == null) {
+            all.add(grammar);
+            for (final CompiledGrammar other : grammar.getOtherGrammars()) {
+                collectGrammars(visited, all, other);
+            }
+        }
+    }
+
+    /**
+     * Read the grammar source. If the source could not be read, the version from descriptor is used.
+     *
+     * @param grammar the grammar
+     * @return the grammar source
+     */
+    private static String readGrammarSource(final CompiledGrammar grammar) {
+        try (InputStream in = new URL(grammar.getDescriptor().getSystemId()).openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            return "version:" + grammar.getDescriptor().getVersion();
+        }
+    }
+
+    /**
+     * Store the token stream.
+     *
+     * @param key      the key
+     * @param systemId the system id of the source
+     * @param tokens   the tokens
+     */
+    private void store(final String key, final String systemId, final List<TermToken> tokens) {
+        final List<CompiledGrammar> usedGrammars = TermTokenEncoder.grammars(tokens);
+        final List<String> fingerprints = new ArrayList<>(usedGrammars.size());
+        for (final CompiledGrammar grammar : usedGrammars) {
+            fingerprints.add(fingerprint(grammar));
+        }
+        final TermTokenEncoder out = new TermTokenEncoder(systemId, usedGrammars, fingerprints);
+        for (final TermToken token : tokens) {
+            out.write(token);
+        }
+        cache.store(key, out.toByteArray());
+    }
+
+    @Override
+    public String toString() {
+        return "TermTokenCache{" + cache + '}';
+    }
+
+    /**
+     * The loaded grammar.
+     *
+     * @param grammar     the grammar
+     * @param fingerprint the fingerprint of grammar sources
+     */
+    private record GrammarEntry(CompiledGrammar grammar, String fingerprint) {
+    }
+
+    /**
+     * The reader that replays the cached term token stream.
+     */
+    private static final class ReplayReader extends AbstractReaderImpl<TermToken> {
+        /**
+         * The decoded tokens.
+         */
+        private final List<TermToken> tokens;
+        /**
+         * The system id.
+         */
+        private final String systemId;
+        /**
+         * The position of the next token.
+         */
+        private int position;
+
+        /**
+         * The constructor.
+         *
+         * @param tokens   the decoded tokens
+         * @param systemId the system id
+         */
+        private ReplayReader(final List<TermToken> tokens, final String systemId) {
+            this.tokens = tokens;
+            this.systemId = systemId;
+        }
+
+        @Override
+        protected boolean doAdvance() {
+            if (position >= tokens.size()) {
+                return false;
+            }
+            setCurrent(tokens.get(position++));
+            return true;
+        }
+
+        @Override
+        protected void doClose() {
+            // nothing to close
+        }
+
+        @Override
+        public String getSystemId() {
+            return systemId;
+        }
+    }
+
+    /**
+     * The reader that records the term token stream to the cache.
+     */
+    private final class RecordingReader extends AbstractReaderImpl<TermToken> {
+        /**
+         * The underlying reader.
+         */
+        private final TermParserReader reader;
+        /**
+         * The key of the entry.
+         */
+        private final String key;
+        /**
+         * The recorded tokens (null when the entry is already written).
+         */
+        private List<TermToken> tokens = new ArrayList<>();
+
+        /**
+         * The constructor.
+         *
+         * @param reader the underlying reader
+         * @param key    the key of the entry
+         */
+        private RecordingReader(final TermParserReader reader, final String key) {
+            this.reader = reader;
+            this.key = key;
+        }
+
+        @Override
+        protected boolean doAdvance() {
+            if (!reader.advance()) {
+                return false;
+            }
+            final TermToken token = reader.current();
+            setCurrent(token);
+            if (tokens != null) {
+                tokens.add(token);
+                if (token.kind() == Terms.EOF) {
+                    store(key, reader.getSystemId(), tokens);
+                    tokens = null;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected void doClose() {
+            reader.close();
+        }
+
+        @Override
+        public String getSystemId() {
+            return reader.getSystemId();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.DefinitionContext;
+import net.sf.etl.parsers.DefinitionInfo;
+import net.sf.etl.parsers.ErrorInfo;
+import net.sf.etl.parsers.ExpressionContext;
+import net.sf.etl.parsers.GrammarId;
+import net.sf.etl.parsers.GrammarInfo;
+import net.sf.etl.parsers.LoadedGrammarInfo;
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.PropertyName;
+import net.sf.etl.parsers.SourceLocation;
+import net.sf.etl.parsers.SyntaxRole;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import net.sf.etl.parsers.resource.ResolvedObject;
+import net.sf.etl.parsers.resource.ResourceRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * The decoder for {@link TermToken} streams written by {@link TermTokenEncoder}.
+ */
+final class TermTokenDecoder {
+    /**
+     * The term kinds.
+     */
+    private static final Terms[] TERM_KINDS = Terms.values();
+    /**
+     * The syntax roles.
+     */
+    private static final SyntaxRole[] ROLES = SyntaxRole.values();
+    /**
+     * The input.
+     */
+    private final BinaryTokenReader in;
+    /**
+     * The grammars.
+     */
+    private final List<CompiledGrammar> grammars;
+    /**
+     * The already read structures.
+     */
+    private final List<Object> structures = new ArrayList<>();
+
+    /**
+     * The constructor.
+     *
+     * @param in       the input positioned after the grammar table
+     * @param grammars the grammars from the grammar table
+     */
+    TermTokenDecoder(final BinaryTokenReader in, final List<CompiledGrammar> grammars) {
+        this.in = in;
+        this.grammars = grammars;
+    }
+
+    /**
+     * Read the grammar table.
+     *
+     * @param in     the input
+     * @param lookup the function that finds the grammar by system id and fingerprint
+     * @return the grammars or null if some grammar is not available
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    static List<CompiledGrammar> readGrammars(final BinaryTokenReader in,
+                                              final BiFunction<String, String, CompiledGrammar> lookup)
+            throws IOException {
+        final int count = in.readCount();
+        final List<CompiledGrammar> rc = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String systemId = in.readString();
+            final String fingerprint = in.readString();
+            final CompiledGrammar grammar = lookup.apply(systemId, fingerprint);
+            if (grammar == null) {
+                return null;
+            }
+            rc.add(grammar);
+        }
+        return rc;
+    }
+
+    /**
+     * @return true if there are more tokens
+     */
+    boolean hasMore() {
+        return in.hasMore();
+    }
+
+    /**
+     * Read the token.
+     *
+     * @return the token
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    TermToken read() throws IOException {
+        final Terms kind = TERM_KINDS[in.readIndex(TERM_KINDS.length)];
+        final int roleIndex = in.readIndex(ROLES.length + 1);
+        final SyntaxRole role = roleIndex == 0 ? null : ROLES[roleIndex - 1];
+        final Object structure = readStructure();
+        final int flags = in.readInt();
+        final PhraseToken token = (flags & TermTokenEncoder.HAS_TOKEN) != 0
+                ? PhraseTokenCodec.readPhraseToken(in) : null;
+        final boolean hasStart = (flags & TermTokenEncoder.HAS_START) != 0;
+        final boolean hasEnd = (flags & TermTokenEncoder.HAS_END) != 0;
+        if (in.textIndex() != null && hasStart && hasEnd) {
+            final long start = in.readOffset();
+            final long end = in.readOffset();
+            final SourceLocation definedAt = in.readLocation();
+            final ErrorInfo errors = in.readErrors();
+            return new TermToken(kind, role, structure, token, in.textIndex(), start, end, definedAt, errors);
+        }
+        final TextPos start = hasStart ? in.readPosition() : null;
+        final TextPos end = hasEnd ? in.readPosition() : null;
+        final SourceLocation definedAt = in.readLocation();
+        final ErrorInfo errors = in.readErrors();
+        return new TermToken(kind, role, structure, token, start, end, definedAt, errors);
+    }
+
+    /**
+     * Read the structure identifier of the specified type.
+     *
+     * @param type the expected type
+     * @param <T>  the expected type
+     * @return the read structure identifier (might be null)
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    private <T> T readStructure(final Class<T> type) throws IOException {
+        final Object rc = readStructure();
+        if (rc != null && !type.isInstance(rc)) {
+            throw new IOException("Unexpected structure " + rc + " in binary token stream for " + in.getSystemId());
+        }
+        return type.cast(rc);
+    }
+
+    /**
+     * @return the read grammar
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    private CompiledGrammar readGrammar() throws IOException {
+        return grammars.get(in.readIndex(grammars.size()));
+    }
+
+    /**
+     * @return the read structure identifier
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    private Object readStructure() throws IOException {
+        final int tag = in.readInt();
+        if (tag == TermTokenEncoder.STRUCTURE_NULL) {
+            return null;
+        }
+        if (tag != TermTokenEncoder.STRUCTURE_NEW) {
+            final int index = tag - TermTokenEncoder.STRUCTURE_REFERENCE;
+            if (index < 0 || index >= structures.size()) {
+                throw new IOException("Invalid structure reference " + tag + " in binary token stream for "
+                        + in.getSystemId());
+            }
+            return structures.get(index);
+        }
+        final int type = in.readInt();
+        final Object rc;
+        switch (type) {
+            case TermTokenEncoder.DEFINITION_CONTEXT:
+                final List<DefinitionContext> statementContexts = readGrammar().getStatementContexts();
+                rc = statementContexts.get(in.readIndex(statementContexts.size()));
+                break;
+            case TermTokenEncoder.DEFINITION_CONTEXT_LITERAL:
+                rc = new DefinitionContext(readGrammarInfo(), in.readString());
+                break;
+            case TermTokenEncoder.EXPRESSION_CONTEXT:
+                final List<ExpressionContext> expressionContexts = readGrammar().getExpressionContexts();
+                rc = expressionContexts.get(in.readIndex(expressionContexts.size()));
+                break;
+            case TermTokenEncoder.EXPRESSION_CONTEXT_LITERAL:
+                final DefinitionContext hostContext = readStructure(DefinitionContext.class);
+                final GrammarInfo expressionGrammar = readGrammarInfo();
+                final String context = in.readString();
+                rc = new ExpressionContext(hostContext, expressionGrammar, context, in.readInt() == 0 ? null : 0);
+                break;
+            case TermTokenEncoder.DEFINITION_INFO:
+                final DefinitionContext definitionContext = readStructure(DefinitionContext.class);
+                final String name = in.readString();
+                rc = new DefinitionInfo(definitionContext, name, in.readLocation());
+                break;
+            case TermTokenEncoder.PROPERTY_NAME:
+                rc = new PropertyName(in.readString());
+                break;
+            case TermTokenEncoder.OBJECT_NAME:
+                final String namespace = in.readString();
+                rc = new ObjectName(namespace, in.readString());
+                break;
+            case TermTokenEncoder.LOADED_GRAMMAR:
+                final CompiledGrammar resolvedGrammar = readGrammar();
+                final CompiledGrammar usedGrammar = readGrammar();
+                final DefinitionContext usedContext = readStructure(DefinitionContext.class);
+                final ResourceRequest request = readRequest();
+                rc = new LoadedGrammarInfo(new ResolvedObject<>(request, Collections.emptyList(),
+                        resolvedGrammar.getDescriptor(), resolvedGrammar), usedGrammar, usedContext);
+                break;
+            default:
+                throw new IOException("Unknown structure type " + type + " for " + in.getSystemId());
+        }
+        structures.add(rc);
+        return rc;
+    }
+
+    /**
+     * @return the read grammar information
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    private GrammarInfo readGrammarInfo() throws IOException {
+        final String uri = in.readString();
+        final String name = in.readString();
+        return new GrammarInfo(uri, name, in.readString());
+    }
+
+    /**
+     * @return the read resource request
+     * @throws IOException if the stream is truncated or corrupted
+     */
+    private ResourceRequest readRequest() throws IOException {
+        final String name = in.readString();
+        final String version = in.readString();
+        final String sourceUrl = in.readString();
+        final String contextUrl = in.readString();
+        return new ResourceRequest(name == null ? null : new GrammarId(name, version), sourceUrl, contextUrl);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.streams;
+
+import net.sf.etl.parsers.DefinitionContext;
+import net.sf.etl.parsers.DefinitionInfo;
+import net.sf.etl.parsers.ExpressionContext;
+import net.sf.etl.parsers.GrammarId;
+import net.sf.etl.parsers.GrammarInfo;
+import net.sf.etl.parsers.LoadedGrammarInfo;
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.ParserException;
+import net.sf.etl.parsers.PropertyName;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import net.sf.etl.parsers.resource.ResourceRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary encoder for {@link TermToken} streams. The stream starts with the table of grammars used
+ * by the source, and the structure identifiers of the tokens refer to contexts by index in these grammars.
+ * Other structure identifiers are written on the first occurrence and are referenced by index later.
+ * The stream is read by {@link TermTokenDecoder}.
+ */
+final class TermTokenEncoder {
+    /**
+     * The magic number of the format ("ETLT").
+     */
+    static final int MAGIC = 0x45544C54;
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+    /**
+     * The structure tag for null.
+     */
+    static final int STRUCTURE_NULL = 0;
+    /**
+     * The structure tag for the new structure.
+     */
+    static final int STRUCTURE_NEW = 1;
+    /**
+     * The first structure reference tag.
+     */
+    static final int STRUCTURE_REFERENCE = 2;
+    /**
+     * The structure type: {@link DefinitionContext} from the grammar.
+     */
+    static final int DEFINITION_CONTEXT = 0;
+    /**
+     * The structure type: {@link DefinitionContext} that is not found in grammars.
+     */
+    static final int DEFINITION_CONTEXT_LITERAL = 1;
+    /**
+     * The structure type: {@link ExpressionContext} from the grammar.
+     */
+    static final int EXPRESSION_CONTEXT = 2;
+    /**
+     * The structure type: {@link ExpressionContext} that is not found in grammars.
+     */
+    static final int EXPRESSION_CONTEXT_LITERAL = 3;
+    /**
+     * The structure type: {@link DefinitionInfo}.
+     */
+    static final int DEFINITION_INFO = 4;
+    /**
+     * The structure type: {@link PropertyName}.
+     */
+    static final int PROPERTY_NAME = 5;
+    /**
+     * The structure type: {@link ObjectName}.
+     */
+    static final int OBJECT_NAME = 6;
+    /**
+     * The structure type: {@link LoadedGrammarInfo}.
+     */
+    static final int LOADED_GRAMMAR = 7;
+    /**
+     * The token flag: the phrase token is present.
+     */
+    static final int HAS_TOKEN = 1;
+    /**
+     * The token flag: the start position is present.
+     */
+    static final int HAS_START = 2;
+    /**
+     * The token flag: the end position is present.
+     */
+    static final int HAS_END = 4;
+    /**
+     * The output.
+     */
+    private final BinaryTokenWriter out;
+    /**
+     * The grammar indexes.
+     */
+    private final Map<CompiledGrammar, Integer> grammars = new IdentityHashMap<>(); // NOPMD
+    /**
+     * The statement contexts to grammar index and context index.
+     */
+    private final Map<DefinitionContext, int[]> statementContexts = new HashMap<>(); // NOPMD
+    /**
+     * The expression contexts to grammar index and context index.
+     */
+    private final Map<ExpressionContext, int[]> expressionContexts = new HashMap<>(); // NOPMD
+    /**
+     * The already written structures.
+     */
+    private final Map<Object, Integer> structures = new HashMap<>(); // NOPMD
+
+    /**
+     * The constructor. It writes the header with grammar table.
+     *
+     * @param systemId     the system id of the source
+     * @param grammars     the grammars used by the source
+     * @param fingerprints the fingerprints of the grammars
+     */
+    TermTokenEncoder(final String systemId, final List<CompiledGrammar> grammars,
+                     final List<String> fingerprints) {
+        this.out = new BinaryTokenWriter(MAGIC, VERSION, systemId);
+        out.writeInt(grammars.size());
+        for (int i = 0; i < grammars.size(); i++) {
+            final CompiledGrammar grammar = grammars.get(i);
+            this.grammars.put(grammar, i);
+            out.writeString(grammar.getDescriptor().getSystemId());
+            out.writeString(fingerprints.get(i));
+            final List<DefinitionContext> statements = grammar.getStatementContexts();
+            for (int j = 0; j < statements.size(); j++) {
+                statementContexts.putIfAbsent(statements.get(j), new int[]{i, j});
+            }
+            final List<ExpressionContext> expressions = grammar.getExpressionContexts();
+            for (int j = 0; j < expressions.size(); j++) {
+                expressionContexts.putIfAbsent(expressions.get(j), new int[]{i, j});
+            }
+        }
+    }
+
+    /**
+     * Collect grammars used by the token stream.
+     *
+     * @param tokens the tokens
+     * @return the distinct grammars in order of occurrence
+     */
+    static List<CompiledGrammar> grammars(final List<TermToken> tokens) {
+        final Map<CompiledGrammar, Boolean> rc = new IdentityHashMap<>(); // NOPMD
+        final List<CompiledGrammar> list = new ArrayList<>();
+        for (final TermToken token : tokens) {
+            if (token.kind() == Terms.GRAMMAR_IS_LOADED) {
+                final LoadedGrammarInfo info = token.loadedGrammar();
+                for (final CompiledGrammar grammar : List.of(info.resolvedGrammar().getObject(),
+                        info.usedGrammar())) {
+                    if (rc.put(grammar, Boolean.TRUE) == null) {
+                        list.add(grammar);
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Write the token.
+     *
+     * @param token the token
+     */
+    void write(final TermToken token) {
+        out.writeInt(token.kind().ordinal());
+        out.writeInt(token.role() == null ? 0 : token.role().ordinal() + 1);
+        writeStructure(token.getStructureId());
+        final int flags = (token.hasPhraseToken() ? HAS_TOKEN : 0)
+                | (token.start() != null ? HAS_START : 0)
+                | (token.end() != null ? HAS_END : 0);
+        out.writeInt(flags);
+        if (token.hasPhraseToken()) {
+            PhraseTokenCodec.write(out, token.token());
+        }
+        if (token.start() != null) {
+            out.writePosition(token.start());
+        }
+        if (token.end() != null) {
+            out.writePosition(token.end());
+        }
+        out.writeLocation(token.definedAt());
+        out.writeErrors(token.errorInfo());
+    }
+
+    /**
+     * Write structure identifier.
+     *
+     * @param structure the structure
+     */
+    private void writeStructure(final Object structure) {
+        if (structure == null) {
+            out.writeInt(STRUCTURE_NULL);
+            return;
+        }
+        final Integer index = structures.get(structure);
+        if (index != null) {
+            out.writeInt(STRUCTURE_REFERENCE + index);
+            return;
+        }
+        out.writeInt(STRUCTURE_NEW);
+        if (structure instanceof DefinitionContext context) {
+            final int[] location = statementContexts.get(context);
+            if (location == null) {
+                out.writeInt(DEFINITION_CONTEXT_LITERAL);
+                writeGrammarInfo(context.grammar());
+                out.writeString(context.context());
+            } else {
+                out.writeInt(DEFINITION_CONTEXT);
+                out.writeInt(location[0]);
+                out.writeInt(location[1]);
+            }
+        } else if (structure instanceof ExpressionContext context) {
+            final int[] location = expressionContexts.get(context);
+            if (location == null) {
+                out.writeInt(EXPRESSION_CONTEXT_LITERAL);
+                writeStructure(context.hostContext());
+                writeGrammarInfo(context.expressionGrammar());
+                out.writeString(context.context());
+                out.writeInt(context.precedenceLevel() == Integer.MAX_VALUE ? 0 : 1);
+            } else {
+                out.writeInt(EXPRESSION_CONTEXT);
+                out.writeInt(location[0]);
+                out.writeInt(location[1]);
+            }
+        } else if (structure instanceof DefinitionInfo info) {
+            out.writeInt(DEFINITION_INFO);
+            writeStructure(info.context());
+            out.writeString(info.name());
+            out.writeLocation(info.location());
+        } else if (structure instanceof PropertyName name) {
+            out.writeInt(PROPERTY_NAME);
+            out.writeString(name.name());
+        } else if (structure instanceof ObjectName name) {
+            out.writeInt(OBJECT_NAME);
+            out.writeString(name.namespace());
+            out.writeString(name.name());
+        } else if (structure instanceof LoadedGrammarInfo info) {
+            out.writeInt(LOADED_GRAMMAR);
+            out.writeInt(grammars.get(info.resolvedGrammar().getObject()));
+            out.writeInt(grammars.get(info.usedGrammar()));
+            writeStructure(info.usedContext());
+            writeRequest(info.resolvedGrammar().getRequest());
+        } else {
+            throw new ParserException("Unsupported structure identifier: " + structure);
+        }
+        structures.put(structure, structures.size());
+    }
+
+    /**
+     * Write grammar information.
+     *
+     * @param info the information
+     */
+    private void writeGrammarInfo(final GrammarInfo info) {
+        out.writeString(info.uri());
+        out.writeString(info.name());
+        out.writeString(info.version());
+    }
+
+    /**
+     * Write the resource request.
+     *
+     * @param request the request
+     */
+    private void writeRequest(final ResourceRequest request) {
+        final GrammarId grammarId = request.grammarId();
+        out.writeString(grammarId == null ? null : grammarId.name());
+        out.writeString(grammarId == null ? null : grammarId.version());
+        out.writeString(request.sourceUrl());
+        out.writeString(request.contextUrl());
+    }
+
+    /**
+     * @return the written data
+     */
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+}
@@ -33,9 +33,13 @@ import net.sf.etl.parsers.event.Cell;
 import net.sf.etl.parsers.event.ParserState;
 import net.sf.etl.parsers.event.tree.ObjectFactory;
 import net.sf.etl.parsers.event.tree.ObjectFactoryTreeParser;
+import net.sf.etl.parsers.event.tree.ParallelTreeParser;
 import net.sf.etl.parsers.event.tree.TokenCollector;
 import net.sf.etl.parsers.event.tree.TreeParser;
 
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 /**
  * The tree reader.
  *
@@ -45,7 +49,7 @@ public class TreeParserReader<B> extends AbstractReaderImpl<B> {
     /**
      * The reader.
      */
-    private final TermParserReader termParserReader;
+    private final AbstractReader<TermToken> termParserReader;
     /**
      * The tree parser.
      */
@@ -62,15 +66,42 @@ public class TreeParserReader<B> extends AbstractReaderImpl<B> {
     /**
      * The constructor.
      *
-     * @param termParserReader the term parser reader
+     * @param termParserReader the term parser reader (or other source of term tokens)
      * @param objectFactory    the object factory
      */
-    public TreeParserReader(final TermParserReader termParserReader,
+    public TreeParserReader(final AbstractReader<TermToken> termParserReader,
                             final ObjectFactory<B, ?, ?, ?> objectFactory) {
         this.termParserReader = termParserReader;
         this.treeParser = ObjectFactoryTreeParser.make(objectFactory, termParserReader.getSystemId());
     }
 
+    /**
+     * The constructor for the reader that builds top-level objects in parallel.
+     *
+     * @param termParserReader the term parser reader (or other source of term tokens)
+     * @param objectFactories  the supplier of object factories, it is invoked once per worker thread
+     * @param executor         the executor used to build objects
+     * @param maxPending       the maximum amount of top-level objects that are built at the same time
+     * @see ParallelTreeParser
+     */
+    public TreeParserReader(final AbstractReader<TermToken> termParserReader,
+                            final Supplier<? extends ObjectFactory<B, ?, ?, ?>> objectFactories,
+                            final Executor executor, final int maxPending) {
+        this(termParserReader, new ParallelTreeParser<>(objectFactories, executor, maxPending,
+                termParserReader.getSystemId()));
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param termParserReader the term parser reader (or other source of term tokens)
+     * @param treeParser       the tree parser
+     */
+    public TreeParserReader(final AbstractReader<TermToken> termParserReader, final TreeParser<B> treeParser) {
+        this.termParserReader = termParserReader;
+        this.treeParser = treeParser;
+    }
+
     @Override
     protected final boolean doAdvance() {
         while (true) {
@@ -0,0 +1,139 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.lexer;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.SymbolTable;
+import net.sf.etl.parsers.TermParserConfiguration;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.parsers.Token;
+import net.sf.etl.parsers.Tokens;
+import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import net.sf.etl.parsers.event.impl.LexerImpl;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * The test for interning of token texts.
+ */
+public class InternedTextTest extends LexerTestCase {
+    /**
+     * Read identifiers from text.
+     *
+     * @param text the text
+     * @return the identifier tokens
+     */
+    private List<Token> identifiers(final String text) {
+        final List<Token> rc = new ArrayList<>();
+        input = text;
+        consumed = text.length();
+        buffer = CharBuffer.wrap(text);
+        lexer.start("unknown:text", TextPos.START);
+        Token t;
+        while ((t = next()) != null) {
+            if (t.kind() == Tokens.IDENTIFIER) {
+                rc.add(t);
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * Test that texts are shared only if interning is enabled.
+     */
+    @Test
+    public void testLexer() {
+        final String text = "abc + abc + " + "x".repeat(SymbolTable.MAX_LENGTH + 1) + " - "
+                + "x".repeat(SymbolTable.MAX_LENGTH + 1);
+        lexer = new LexerImpl(new DefaultTermParserConfiguration(8, StandardCharsets.UTF_8, false, false, true));
+        final List<Token> interned = identifiers(text);
+        assertEquals(4, interned.size());
+        assertSame(interned.get(0).text(), interned.get(1).text());
+        assertNotSame(interned.get(2).text(), interned.get(3).text());
+        assertEquals(interned.get(2).text(), interned.get(3).text());
+        lexer = new LexerImpl(new DefaultTermParserConfiguration(8, StandardCharsets.UTF_8, false, false, false));
+        final List<Token> plain = identifiers(text);
+        assertNotSame(plain.get(0).text(), plain.get(1).text());
+    }
+
+    /**
+     * Test that texts are not shared by default.
+     */
+    @Test
+    public void testDefaultSymbolTable() {
+        lexer = new LexerImpl(new TermParserConfiguration() {
+            @Override
+            public int getTabSize(final String systemId) {
+                return 8;
+            }
+
+            @Override
+            public CompiledGrammar getCachedGrammar(final String systemId) {
+                return null;
+            }
+
+            @Override
+            public void cacheGrammar(final CompiledGrammar grammar) {
+                // do nothing
+            }
+
+            @Override
+            public Charset getEncoding(final String systemId) {
+                return StandardCharsets.UTF_8;
+            }
+        });
+        final List<Token> plain = identifiers("abc + abc");
+        assertEquals(2, plain.size());
+        assertNotSame(plain.get(0).text(), plain.get(1).text());
+    }
+
+    /**
+     * Test the table growth.
+     */
+    @Test
+    public void testTable() {
+        final SymbolTable table = new SymbolTable();
+        final List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            strings.add(table.intern(new StringBuilder("s").append(i)));
+        }
+        assertEquals(5000, table.size());
+        for (int i = 0; i < 5000; i++) {
+            assertSame(strings.get(i), table.intern("s" + i));
+        }
+        assertEquals("", table.intern(""));
+        assertEquals(5001, table.size());
+    }
+}
@@ -25,15 +25,22 @@
 
 package net.sf.etl.parsers.event.lexer;
 
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
 import net.sf.etl.parsers.TextPos;
 import net.sf.etl.parsers.Token;
 import net.sf.etl.parsers.Tokens;
 import net.sf.etl.parsers.characters.Whitespaces;
+import net.sf.etl.parsers.event.impl.LexerImpl;
 import org.junit.jupiter.api.Test;
 
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Test for spaces and comments
@@ -102,4 +109,52 @@ public class SpacesAndCommentsTest extends LexerTestCase {
         single("/* text # /*\n* /  //\r\n ///\n\r aaa */", Tokens.BLOCK_COMMENT);
     }
 
+    /**
+     * test long runs of ASCII characters mixed with other characters
+     */
+    @Test
+    public void testLongRuns() {
+        final String banner = "*".repeat(100) + " banner é \t" + "=".repeat(100);
+        single("/*" + banner + "\n" + banner + "*/", Tokens.BLOCK_COMMENT);
+        single("//" + banner, Tokens.LINE_COMMENT);
+        sequenceText("//" + banner + "\r\n///" + banner + "\n",
+                "//" + banner, "\r\n", "///" + banner, "\n");
+        final Token t = single(" \t".repeat(50) + "  ", Tokens.WHITESPACE);
+        assertEquals(new TextPos(1, 403, 102), t.end());
+        single("a_1".repeat(50) + "é" + "b".repeat(50), Tokens.IDENTIFIER);
+    }
+
+    /**
+     * test that the text of whitespaces and comments could be skipped
+     */
+    @Test
+    public void testSkippedText() {
+        final String text = " \t /* a\n é */ // b\n#! c\n/// d\n//\n///\n\tid /**/";
+        final List<Token> expected = new ArrayList<>();
+        start(text);
+        while (next() != null) {
+            expected.add(current);
+        }
+        lexer = new LexerImpl(new DefaultTermParserConfiguration(8, StandardCharsets.UTF_8, false, true));
+        lexer.start("unknown:text", TextPos.START);
+        buffer = CharBuffer.wrap(text);
+        for (final Token e : expected) {
+            final Token t = next();
+            assertEquals(e.kind(), t.kind());
+            assertEquals(e.start(), t.start());
+            assertEquals(e.end(), t.end());
+            switch (e.kind()) {
+                case WHITESPACE:
+                case LINE_COMMENT:
+                case BLOCK_COMMENT:
+                    assertEquals("", t.text());
+                    break;
+                default:
+                    assertEquals(e.text(), t.text());
+                    break;
+            }
+        }
+        assertNull(next());
+    }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.ParserException;
+import org.junit.jupiter.api.Test;
+
+import java.beans.BeanInfo;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The test for shared binding plans.
+ */
+public class BindingPlanTest {
+    @Test
+    public void beanPlan() throws Throwable {
+        final BindingPlan plan = BindingPlan.get(Bean.class);
+        assertSame(plan, BindingPlan.get(Bean.class));
+        final Bean bean = (Bean) plan.newInstance();
+        final PropertyBinding count = plan.property("Count");
+        assertSame(count, plan.property("count"));
+        assertSame(count.descriptor(), plan.beanInfo().getPropertyDescriptors()[1]);
+        count.set(bean, 42);
+        assertEquals(42, bean.getCount());
+        assertEquals(42, count.get(bean));
+        assertNull(plan.property("missing"));
+    }
+
+    @Test
+    public void fieldPlan() throws Throwable {
+        final BindingPlan plan = BindingPlan.get(Node.class);
+        final Node node = (Node) plan.newInstance();
+        final FieldBinding name = plan.field("Name");
+        assertSame(name, plan.field("Name"));
+        name.set(node, "test");
+        assertEquals("test", node.name);
+        assertSame(node.children, plan.field("children").get(node));
+        assertThrows(IllegalAccessException.class, () -> plan.field("children").set(node, new ArrayList<>()));
+        assertThrows(NoSuchFieldException.class, () -> plan.field("missing"));
+        assertThrows(NoSuchMethodException.class, () -> BindingPlan.get(Integer.class).newInstance());
+    }
+
+    @Test
+    public void fieldFactory() {
+        final FieldObjectFactory<Object> factory = new FieldObjectFactory<>(getClass().getClassLoader());
+        final ObjectName name = new ObjectName("test", "Node");
+        final Node node = (Node) factory.createInstance(Node.class, name);
+        final FieldBinding nameField = factory.getPropertyMetaObject(node, Node.class, "Name");
+        assertSame(nameField, factory.getPropertyMetaObject(node, Node.class, "name"));
+        factory.setToFeature(node, nameField, "test");
+        assertEquals("test", node.name);
+        final FieldBinding children = factory.getPropertyMetaObject(node, Node.class, "children");
+        assertSame(node.children, factory.startListCollection(node, Node.class, children));
+        assertThrows(ParserException.class, () -> factory.setToFeature(node, children, new ArrayList<>()));
+        assertThrows(ClassCastException.class, () -> factory.setToFeature(node, nameField, 1));
+        assertThrows(StackOverflowError.class, () -> factory.createInstance(Failing.class, name));
+    }
+
+    @Test
+    public void beansFactory() {
+        final BeansObjectFactory factory = new BeansObjectFactory(getClass().getClassLoader());
+        final Bean bean = new Bean();
+        final BeanInfo info = factory.getBeanInfo(Bean.class);
+        final PropertyBinding count = factory.getPropertyMetaObject(bean, info, "Count");
+        assertSame(count, factory.getPropertyMetaObject(bean, info, "count"));
+        factory.setToFeature(bean, count, 42);
+        assertEquals(42, bean.getCount());
+        assertThrows(ParserException.class, () -> factory.getPropertyMetaObject(bean, info, "missing"));
+    }
+
+    /**
+     * The test bean.
+     */
+    public static final class Bean {
+        /**
+         * The count.
+         */
+        private int count;
+
+        /**
+         * @return the count
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @param count the count
+         */
+        public void setCount(final int count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * The class which constructor fails with error.
+     */
+    public static final class Failing {
+        /**
+         * The constructor.
+         */
+        public Failing() {
+            throw new StackOverflowError("test");
+        }
+    }
+
+    /**
+     * The test node.
+     */
+    public static final class Node {
+        /**
+         * The name.
+         */
+        public String name;
+        /**
+         * The children.
+         */
+        public final List<Node> children = new ArrayList<>();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import net.sf.etl.parsers.streams.TreeParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for the compact position policy.
+ */
+public class PositionPolicyOffsetsTest {
+    /**
+     * Test resolution with explicit positions.
+     */
+    @Test
+    public void testExplicitPositions() {
+        check(false);
+    }
+
+    /**
+     * Test resolution with compact positions.
+     */
+    @Test
+    public void testCompactPositions() {
+        check(true);
+    }
+
+    /**
+     * Parse the source with offsets and positions policies, and check that offsets are resolved
+     * to the same positions.
+     *
+     * @param compact true if compact positions are used
+     */
+    private void check(final boolean compact) {
+        final ObjectFactory.PositionPolicyOffsets offsets = ObjectFactory.PositionPolicyOffsets.get();
+        final List<Map<String, Object>> withOffsets = parse(compact, offsets);
+        final List<Map<String, Object>> withPositions = parse(compact, ObjectFactory.PositionPolicyPositions.get());
+        assertEquals(withPositions.size(), withOffsets.size());
+        assertTrue(withOffsets.size() > 10);
+        for (int i = 0; i < withOffsets.size(); i++) {
+            final Map<String, Object> o = withOffsets.get(i);
+            final Map<String, Object> p = withPositions.get(i);
+            assertEquals(p.get("start"), offsets.position((Long) o.get("startOffset")));
+            assertEquals(p.get("end"), offsets.position((Long) o.get("endOffset")));
+            assertEquals(((TextPos) p.get("start")).offset(), o.get("startOffset"));
+        }
+    }
+
+    /**
+     * Parse the test source.
+     *
+     * @param compact true if compact positions are used
+     * @param policy  the position policy
+     * @return all created objects in the order of creation
+     */
+    private List<Map<String, Object>> parse(final boolean compact, final ObjectFactory.PositionPolicy policy) {
+        final URL url = PositionPolicyOffsetsTest.class.getResource("/net/sf/etl/parsers/term/imports/Test.i.etl");
+        assertNotNull(url);
+        final MapObjectFactory factory = new MapObjectFactory();
+        factory.setPosPolicy(policy);
+        final TermParserReader termParser = new TermParserReader(new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(8, StandardCharsets.UTF_8, compact),
+                getClass().getClassLoader()), url);
+        try {
+            final TreeParserReader<Map<String, Object>> parser = new TreeParserReader<>(termParser, factory);
+            while (parser.advance()) {
+                assertNotNull(parser.current());
+            }
+        } finally {
+            termParser.close();
+        }
+        return factory.created;
+    }
+
+    /**
+     * The factory that creates maps.
+     */
+    private static final class MapObjectFactory
+            extends ObjectFactory<Map<String, Object>, String, ObjectName, List<Object>> {
+        /**
+         * The created objects.
+         */
+        private final List<Map<String, Object>> created = new ArrayList<>();
+
+        /**
+         * The constructor.
+         */
+        private MapObjectFactory() {
+            ignoreNamespace(StandardGrammars.DOCTYPE_NS);
+        }
+
+        @Override
+        protected Class<?> getFeatureType(final String feature) {
+            return String.class;
+        }
+
+        @Override
+        public void setToFeature(final Map<String, Object> rc, final String f, final Object v) {
+            rc.put(f, v);
+        }
+
+        @Override
+        public void addToFeature(final Map<String, Object> rc, final String f, final List<Object> holder,
+                                 final Object v) {
+            holder.add(v);
+        }
+
+        @Override
+        public List<Object> startListCollection(final Map<String, Object> rc, final ObjectName metaObject,
+                                                final String f) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void endListCollection(final Map<String, Object> rc, final ObjectName metaObject, final String f,
+                                      final List<Object> holder) {
+            rc.put(f, holder);
+        }
+
+        @Override
+        public String getPropertyMetaObject(final Map<String, Object> rc, final ObjectName metaObject,
+                                            final String name) {
+            return name;
+        }
+
+        @Override
+        protected ObjectName getMetaObject(final ObjectName name) {
+            return name;
+        }
+
+        @Override
+        protected Map<String, Object> createInstance(final ObjectName metaObject, final ObjectName name) {
+            final Map<String, Object> rc = new HashMap<>();
+            created.add(rc);
+            return rc;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.event.tree;
+
+import net.sf.etl.parsers.ParserException;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.parsers.Token;
+import net.sf.etl.parsers.TokenKey;
+import net.sf.etl.parsers.Tokens;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The test for value converters compiled for features.
+ */
+public class ValueConvertersTest {
+    @Test
+    public void converters() {
+        final FieldObjectFactory<Node> factory = new FieldObjectFactory<>(getClass().getClassLoader());
+        final Node node = new Node();
+        final FieldBinding kind = factory.getPropertyMetaObject(node, Node.class, "Kind");
+        final FieldBinding kinds = factory.getPropertyMetaObject(node, Node.class, "kinds");
+        final FieldBinding count = factory.getPropertyMetaObject(node, Node.class, "count");
+        final FieldBinding ratio = factory.getPropertyMetaObject(node, Node.class, "ratio");
+        final FieldBinding name = factory.getPropertyMetaObject(node, Node.class, "name");
+        final FieldBinding token = factory.getPropertyMetaObject(node, Node.class, "token");
+        assertSame(Kind.SECOND, factory.parseValue(kind, token("second")));
+        assertSame(Kind.FIRST, factory.parseValue(kind, token("First")));
+        assertSame(Kind.SECOND, factory.parseValue(kinds, token("SECOND")));
+        assertThrows(ParserException.class, () -> factory.parseValue(kind, token("third")));
+        assertEquals(42, factory.parseValue(count, token("42")));
+        assertEquals(0.5, factory.parseValue(ratio, token("0.5")));
+        assertEquals("text", factory.parseValue(name, token("text")));
+        final Token t = token("value");
+        assertSame(t, factory.parseValue(token, t));
+    }
+
+    /**
+     * Create a token.
+     *
+     * @param text the token text
+     * @return the token
+     */
+    private static Token token(final String text) {
+        return new Token(TokenKey.simple(Tokens.IDENTIFIER), text, TextPos.START, TextPos.START, null);
+    }
+
+    /**
+     * The test enumeration.
+     */
+    public enum Kind {
+        /**
+         * The first value.
+         */
+        FIRST,
+        /**
+         * The second value.
+         */
+        SECOND
+    }
+
+    /**
+     * The test node.
+     */
+    public static final class Node {
+        /**
+         * The kind.
+         */
+        public Kind kind;
+        /**
+         * The kinds.
+         */
+        public final List<Kind> kinds = new ArrayList<>();
+        /**
+         * The count.
+         */
+        public int count;
+        /**
+         * The ratio.
+         */
+        public Double ratio;
+        /**
+         * The name.
+         */
+        public String name;
+        /**
+         * The token.
+         */
+        public Token token;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.streams.AsyncGrammarResolver;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for {@link AsyncGrammarResolver}.
+ */
+public class AsyncGrammarResolverTest {
+    /**
+     * Parse the source and collect tokens.
+     *
+     * @param configuration the configuration
+     * @param resolver      the asynchronous resolver (null for default blocking resolver)
+     * @param resource      the resource to parse
+     * @return the parsed tokens
+     */
+    private static List<TermToken> parse(final DefaultTermReaderConfiguration configuration,
+                                         final AsyncGrammarResolver resolver, final URL resource) {
+        final List<TermToken> rc = new ArrayList<>();
+        final TermParserReader parser = new TermParserReader(configuration, resource);
+        try {
+            if (resolver != null) {
+                parser.setResolver(termParser -> resolver.resolve(termParser).orTimeout(10, TimeUnit.SECONDS).join());
+            }
+            while (parser.advance()) {
+                rc.add(parser.current());
+                if (parser.current().kind() == Terms.EOF) {
+                    break;
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return rc;
+    }
+
+    /**
+     * Check that the asynchronous resolution produces the same grammar as the blocking one.
+     */
+    @Test
+    public void sameAsBlocking() {
+        final URL resource = AsyncGrammarResolverTest.class.getResource("imports/Test.i.etl");
+        assertNotNull(resource);
+        final List<TermToken> expected = parse(new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(4, StandardCharsets.UTF_8),
+                AsyncGrammarResolverTest.class.getClassLoader()), null, resource);
+        final DefaultTermParserConfiguration parserConfiguration =
+                new DefaultTermParserConfiguration(4, StandardCharsets.UTF_8);
+        final DefaultTermReaderConfiguration configuration = new DefaultTermReaderConfiguration(
+                parserConfiguration, AsyncGrammarResolverTest.class.getClassLoader());
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final AsyncGrammarResolver resolver = new AsyncGrammarResolver(configuration, executor);
+            final List<TermToken> actual = parse(configuration, resolver, resource);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                final TermToken e = expected.get(i);
+                final TermToken a = actual.get(i);
+                assertEquals(e.kind(), a.kind());
+                assertEquals(e.start(), a.start());
+                assertEquals(e.end(), a.end());
+                assertEquals(e.errorInfo(), a.errorInfo());
+            }
+            assertTrue(parserConfiguration.getCachedResourceIds().stream()
+                    .anyMatch(id -> parserConfiguration.getCachedGrammar(id) != null));
+            assertEquals(expected.size(), parse(configuration, resolver, resource).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The test checks that compact positions are the same as explicit positions.
+ */
+public class CompactPositionsTest {
+    /**
+     * Parse text and collect tokens.
+     *
+     * @param text             the text to parse
+     * @param compactPositions if true, compact positions are used
+     * @return the parsed tokens
+     */
+    private static List<TermToken> parse(final String text, final boolean compactPositions) {
+        final DefaultTermReaderConfiguration configuration = new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(4, StandardCharsets.UTF_8, compactPositions),
+                CompactPositionsTest.class.getClassLoader());
+        final List<TermToken> rc = new ArrayList<>();
+        final TermParserReader parser = new TermParserReader(configuration, new StringReader(text), "none:test");
+        try {
+            while (parser.advance()) {
+                rc.add(parser.current());
+                if (parser.current().kind() == Terms.EOF) {
+                    break;
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return rc;
+    }
+
+    @Test
+    public void testGrammar() throws IOException {
+        final URL resource = StandardGrammars.getGrammarResource(CompactPositionsTest.class.getClassLoader(),
+                StandardGrammars.ETL_GRAMMAR_ID);
+        assertNotNull(resource);
+        final String grammar;
+        try (InputStream in = resource.openStream()) {
+            grammar = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        final String text = grammar.replace("    ", "\t") + "\r\n\t/* 😀\t*/ \t // 😀\n\t\r\t";
+        final List<TermToken> explicit = parse(text, false);
+        final List<TermToken> compact = parse(text, true);
+        assertEquals(explicit.size(), compact.size());
+        for (int i = 0; i < explicit.size(); i++) {
+            final TermToken e = explicit.get(i);
+            final TermToken c = compact.get(i);
+            assertEquals(e.kind(), c.kind());
+            assertNull(e.textIndex());
+            if (c.hasPhraseToken()) {
+                assertNotNull(c.textIndex());
+            }
+            assertEquals(e.start(), c.start(), () -> "Start of " + e);
+            assertEquals(e.end(), c.end(), () -> "End of " + e);
+            assertEquals(e.start().offset(), c.startOffset());
+            assertEquals(e.end().offset(), c.endOffset());
+        }
+    }
+}
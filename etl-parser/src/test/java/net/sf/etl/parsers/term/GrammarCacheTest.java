@@ -0,0 +1,113 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.GrammarId;
+import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.resource.ResolvedObject;
+import net.sf.etl.parsers.resource.ResourceRequest;
+import net.sf.etl.parsers.streams.CachingGrammarLocator;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.GrammarClasspathLocator;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for grammar caches.
+ */
+public class GrammarCacheTest {
+    /**
+     * Check that grammars are cached and expired when the resource changes.
+     */
+    @Test
+    public void expireResource() {
+        final DefaultTermParserConfiguration parserConfiguration =
+                new DefaultTermParserConfiguration(4, StandardCharsets.UTF_8);
+        final DefaultTermReaderConfiguration configuration = new DefaultTermReaderConfiguration(
+                parserConfiguration, GrammarCacheTest.class.getClassLoader());
+        final URL resource = GrammarCacheTest.class.getResource("imports/Test.i.etl");
+        assertNotNull(resource);
+        final TermParserReader parser = new TermParserReader(configuration, resource);
+        try {
+            while (parser.advance()) {
+                if (parser.current().kind() == Terms.EOF) {
+                    break;
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        assertFalse(parserConfiguration.getCachedResourceIds().isEmpty());
+        final String cachedId = parserConfiguration.getCachedResourceIds().stream()
+                .filter(id -> parserConfiguration.getCachedGrammar(id) != null).findFirst().orElse(null);
+        assertNotNull(cachedId);
+        assertTrue(parserConfiguration.expireResource(cachedId) > 0);
+        assertNull(parserConfiguration.getCachedGrammar(cachedId));
+        assertEquals(0, parserConfiguration.expireResource("file:///nonexistent.g.etl"));
+    }
+
+    /**
+     * Check that failed grammar resolutions are remembered.
+     */
+    @Test
+    public void negativeCache() {
+        final AtomicInteger calls = new AtomicInteger();
+        final GrammarClasspathLocator classpath = new GrammarClasspathLocator(GrammarCacheTest.class.getClassLoader());
+        final CachingGrammarLocator locator = new CachingGrammarLocator(request -> {
+            calls.incrementAndGet();
+            return classpath.resolve(request);
+        });
+        final GrammarId missing = new GrammarId("test.Missing", "1.0");
+        for (int i = 0; i < 3; i++) {
+            final ResolvedObject<String> result = locator.resolve(
+                    new ResourceRequest(missing, "file:///source" + i + ".test", null));
+            assertNull(result.getObject());
+            assertEquals("file:///source" + i + ".test", result.getRequest().sourceUrl());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, locator.getCurrentSize());
+        assertNotNull(locator.resolve(new ResourceRequest(StandardGrammars.ETL_GRAMMAR_ID, null, null)).getObject());
+        assertEquals(1, locator.getCurrentSize());
+        locator.clear();
+        assertNull(locator.resolve(new ResourceRequest(missing, null, null)).getObject());
+        assertEquals(3, calls.get());
+        final CachingGrammarLocator disabled = new CachingGrammarLocator(classpath, 0, 10);
+        disabled.resolve(new ResourceRequest(missing, null, null));
+        assertEquals(0, disabled.getCurrentSize());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.LoadedGrammarInfo;
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for object models gathered from the grammar.
+ */
+public class ObjectModelTest {
+    /**
+     * namespace used by main grammar
+     */
+    private static final String MAIN_NS = "http://etl.sf.net/2006/samples/imports/Main/0.1";
+    /**
+     * namespace used by expression grammar
+     */
+    private static final String EXPRESSION_NS = "http://etl.sf.net/2006/samples/imports/Expression/0.1";
+
+    /**
+     * Test the model of the grammar with imports.
+     */
+    @Test
+    public void testModel() {
+        final URL url = getClass().getResource("imports/Test.i.etl");
+        assertNotNull(url);
+        final TermParserReader termParser = new TermParserReader(url);
+        LoadedGrammarInfo info = null;
+        try {
+            while (info == null && termParser.advance()) {
+                if (termParser.current().kind() == Terms.GRAMMAR_IS_LOADED) {
+                    info = termParser.current().loadedGrammar();
+                }
+            }
+        } finally {
+            termParser.close();
+        }
+        assertNotNull(info);
+        final Map<ObjectName, ObjectModel> models = new HashMap<>();
+        collect(info.usedGrammar(), new HashSet<>(), models);
+        final ObjectModel let = models.get(new ObjectName(MAIN_NS, "LetStatement"));
+        assertNotNull(let);
+        final ObjectModel.PropertyModel name = property(let, "Name");
+        assertFalse(name.list());
+        assertTrue(name.values());
+        assertTrue(property(let, "Value").expressions());
+        final ObjectModel plus = models.get(new ObjectName(EXPRESSION_NS, "PlusOp"));
+        assertTrue(property(plus, "Summands").list());
+        assertTrue(property(models.get(new ObjectName(EXPRESSION_NS, "MinusOp")), "Minuend").expressions());
+        final ObjectModel block = models.get(new ObjectName(EXPRESSION_NS, "BlockExpression"));
+        assertTrue(property(block, "Content").list());
+        assertTrue(property(block, "Content").expressions());
+    }
+
+    /**
+     * Find property.
+     *
+     * @param model the object model
+     * @param name  the property name
+     * @return the property
+     */
+    private static ObjectModel.PropertyModel property(final ObjectModel model, final String name) {
+        for (final ObjectModel.PropertyModel p : model.properties()) {
+            if (p.name().equals(name)) {
+                return p;
+            }
+        }
+        throw new AssertionError("Property " + name + " is not found in " + model);
+    }
+
+    /**
+     * Collect models from the grammar and the grammars it depends on.
+     *
+     * @param grammar the grammar
+     * @param visited the system identifiers of visited grammars
+     * @param models  the collected models
+     */
+    private static void collect(final CompiledGrammar grammar, final Set<String> visited,
+                                final Map<ObjectName, ObjectModel> models) {
+        if (!visited.add(grammar.getDescriptor().getSystemId())) {
+            return;
+        }
+        for (final ObjectModel m : grammar.getObjectModels()) {
+            models.putIfAbsent(m.name(), m);
+        }
+        for (final CompiledGrammar other : grammar.getOtherGrammars()) {
+            collect(other, visited, models);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.event.tree.BeansObjectFactory;
+import net.sf.etl.parsers.event.tree.ObjectFactory;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import net.sf.etl.parsers.streams.TreeParserReader;
+import net.sf.etl.parsers.term.beans.BlockExpression;
+import net.sf.etl.parsers.term.beans.Expression;
+import net.sf.etl.parsers.term.beans.ExpressionStatement;
+import net.sf.etl.parsers.term.beans.IntegerLiteral;
+import net.sf.etl.parsers.term.beans.LetStatement;
+import net.sf.etl.parsers.term.beans.PlusOp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The test for building top-level objects in parallel.
+ */
+public class ParallelTreeTest {
+    /**
+     * namespace used by main grammar
+     */
+    private static final String MAIN_NS = "http://etl.sf.net/2006/samples/imports/Main/0.1";
+    /**
+     * The amount of statements.
+     */
+    private static final int COUNT = 300;
+
+    /**
+     * Create the factory.
+     *
+     * @return the factory
+     */
+    private static BeansObjectFactory createFactory() {
+        final BeansObjectFactory rc = new BeansObjectFactory(ParallelTreeTest.class.getClassLoader());
+        rc.setPosPolicy(ObjectFactory.PositionPolicyPositions.get());
+        rc.ignoreNamespace(StandardGrammars.DOCTYPE_NS);
+        rc.mapNamespaceToPackage("http://etl.sf.net/2006/samples/imports/Expression/0.1",
+                Expression.class.getPackage().getName());
+        rc.mapNameToClass(MAIN_NS, "LetStatement", LetStatement.class);
+        rc.mapNameToClass(MAIN_NS, "ExpressionStatement", ExpressionStatement.class);
+        return rc;
+    }
+
+    /**
+     * Test that the objects are returned in the source order.
+     *
+     * @param dir the temporary directory
+     * @throws IOException in case of IO problem
+     */
+    @Test
+    public void testOrder(@TempDir final Path dir) throws IOException {
+        checkOrder(dir, false);
+    }
+
+    /**
+     * Test that the objects are built correctly when the tokens use compact positions.
+     *
+     * @param dir the temporary directory
+     * @throws IOException in case of IO problem
+     */
+    @Test
+    public void testCompactPositions(@TempDir final Path dir) throws IOException {
+        checkOrder(dir, true);
+    }
+
+    /**
+     * Parse statements in parallel and check that the objects are returned in the source order.
+     *
+     * @param dir              the temporary directory
+     * @param compactPositions if true, compact positions are used
+     * @throws IOException in case of IO problem
+     */
+    private static void checkOrder(final Path dir, final boolean compactPositions) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        text.append("doctype test.imports.MainGrammar \"0.1\" context = Statements;\n");
+        for (int i = 0; i < COUNT; i++) {
+            text.append("let v").append(i).append(" = ").append(i).append(";\n");
+            text.append("v").append(i).append(" + {let c = ").append(i).append("; c;};\n");
+        }
+        final Path file = dir.resolve("Parallel.i.etl");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Object> statements = new ArrayList<>();
+        final DefaultTermReaderConfiguration configuration = new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(4, StandardCharsets.UTF_8, compactPositions),
+                ParallelTreeTest.class.getClassLoader());
+        final TermParserReader termParser = new TermParserReader(configuration, file.toUri().toURL());
+        try {
+            final TreeParserReader<Object> parser = new TreeParserReader<>(termParser,
+                    ParallelTreeTest::createFactory, executor, 16);
+            while (parser.advance()) {
+                statements.add(parser.current());
+            }
+            assertFalse(parser.hadErrors());
+        } finally {
+            termParser.close();
+            executor.shutdown();
+        }
+        assertEquals(COUNT * 2, statements.size());
+        for (int i = 0; i < COUNT; i++) {
+            final LetStatement let = (LetStatement) statements.get(i * 2);
+            assertEquals("v" + i, let.getName());
+            assertEquals(i, ((IntegerLiteral) let.getValue()).getValue());
+            assertEquals("let v" + i + " = " + i, let.statementText());
+            assertEquals(2 + i * 2, let.getStart().line());
+            assertEquals(1, let.getStart().column());
+            assertEquals(2 + i * 2, let.getEnd().line());
+            final PlusOp plus = (PlusOp) ((ExpressionStatement) statements.get(i * 2 + 1)).getValue();
+            final LetStatement nested = (LetStatement) ((BlockExpression) plus.getSummands()[1]).getContent()[0];
+            assertEquals(i, ((IntegerLiteral) nested.getValue()).getValue());
+        }
+    }
+}
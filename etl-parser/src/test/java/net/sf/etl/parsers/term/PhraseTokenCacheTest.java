@@ -0,0 +1,177 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.PhraseToken;
+import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.streams.AbstractReader;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.PhraseTokenCache;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The test checks that term parser over cached phrase tokens produces the same result as normal parsing.
+ */
+public class PhraseTokenCacheTest {
+    /**
+     * The size of the entry header (the magic number and the version as variable length integers).
+     */
+    static final int HEADER_SIZE = 6;
+    /**
+     * The temporary directory.
+     */
+    @TempDir
+    Path temp;
+
+    /**
+     * Create configuration.
+     *
+     * @param compactPositions if true, compact positions are used
+     * @return the configuration
+     */
+    private static DefaultTermReaderConfiguration configuration(final boolean compactPositions) {
+        return new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(4, StandardCharsets.UTF_8, compactPositions),
+                PhraseTokenCacheTest.class.getClassLoader());
+    }
+
+    /**
+     * Parse and collect tokens.
+     *
+     * @param parser the parser
+     * @return the parsed tokens
+     */
+    private static List<String> parse(final TermParserReader parser) {
+        final List<String> rc = new ArrayList<>();
+        try {
+            while (parser.advance()) {
+                final TermToken current = parser.current();
+                rc.add(current + " " + current.start() + "-" + current.end() + " " + current.errorInfo());
+                if (current.kind() == Terms.EOF) {
+                    break;
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return rc;
+    }
+
+    /**
+     * Parse the text using the cache.
+     *
+     * @param cache            the cache
+     * @param text             the text
+     * @param compactPositions if true, compact positions are used
+     * @return the parsed tokens
+     */
+    private static List<String> parseCached(final PhraseTokenCache cache, final String text,
+                                            final boolean compactPositions) {
+        final DefaultTermReaderConfiguration configuration = configuration(compactPositions);
+        final AbstractReader<PhraseToken> phrases = cache.open(configuration, text, "none:test");
+        return parse(new TermParserReader(configuration, phrases));
+    }
+
+    /**
+     * @return the count of the cache entries
+     * @throws IOException if listing failed
+     */
+    private long entries() throws IOException {
+        if (!Files.isDirectory(temp)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(temp)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testGrammar() throws IOException {
+        final URL resource = StandardGrammars.getGrammarResource(PhraseTokenCacheTest.class.getClassLoader(),
+                StandardGrammars.ETL_GRAMMAR_ID);
+        assertNotNull(resource);
+        final String grammar;
+        try (InputStream in = resource.openStream()) {
+            grammar = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        final String text = grammar.replace("    ", "\t") + "\r\n\t/* 😀\t*/ \t // 😀\n\t\r\t \"😀 unterminated";
+        final List<String> expected = parse(new TermParserReader(configuration(false), new StringReader(text),
+                "none:test"));
+        final PhraseTokenCache cache = new PhraseTokenCache(temp);
+        assertEquals(expected, parseCached(cache, text, false));
+        assertEquals(1, entries());
+        assertEquals(expected, parseCached(cache, text, false));
+        assertEquals(expected, parseCached(cache, text, true));
+        assertEquals(1, entries());
+        parseCached(cache, text + "\n", false);
+        assertEquals(2, entries());
+    }
+
+    @Test
+    public void testCorrupted() throws IOException {
+        final String text = "doctype \"Hello\";\nhello world;\n";
+        final List<String> expected = parse(new TermParserReader(configuration(false), new StringReader(text),
+                "none:test"));
+        final PhraseTokenCache cache = new PhraseTokenCache(temp);
+        assertEquals(expected, parseCached(cache, text, false));
+        final Path entry;
+        try (Stream<Path> files = Files.list(temp)) {
+            entry = files.findFirst().orElseThrow();
+        }
+        final byte[] data = Files.readAllBytes(entry);
+        // the header is kept, and the rest is replaced with invalid token kinds
+        final byte[] corrupted = data.clone();
+        Arrays.fill(corrupted, HEADER_SIZE, corrupted.length, (byte) 0x7F);
+        Files.write(entry, corrupted);
+        assertEquals(expected, parseCached(cache, text, false));
+        assertArrayEquals(data, Files.readAllBytes(entry));
+        Files.write(entry, Arrays.copyOf(data, data.length - 1));
+        assertEquals(expected, parseCached(cache, text, true));
+        Files.write(entry, new byte[]{1, 2, 3});
+        assertEquals(expected, parseCached(cache, text, false));
+        assertEquals(1, entries());
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.StandardGrammars;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.parsers.event.tree.ObjectFactory;
+import net.sf.etl.parsers.event.tree.RecordObjectFactory;
+import net.sf.etl.parsers.streams.TermParserReader;
+import net.sf.etl.parsers.streams.TreeParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.beans.ConstructorProperties;
+import java.net.URL;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The test for the factory of immutable objects.
+ */
+public class RecordsTest {
+    /**
+     * namespace used by main grammar
+     */
+    private static final String MAIN_NS = "http://etl.sf.net/2006/samples/imports/Main/0.1";
+    /**
+     * namespace used by expression grammar
+     */
+    private static final String EXPRESSION_NS = "http://etl.sf.net/2006/samples/imports/Expression/0.1";
+
+    /**
+     * Test parsing to records
+     */
+    @Test
+    public void testRecords() {
+        final URL url = getClass().getResource("imports/Test.i.etl");
+        assertNotNull(url);
+        final TermParserReader termParser = new TermParserReader(url);
+        try {
+            termParser.advance();
+            final TreeParserReader<Object> parser = new TreeParserReader<>(termParser, createFactory());
+            parser.setErrorTokenHandler((TermToken token) -> fail("Errors from parser are not expected: " + token));
+            // let a = 5;
+            assertTrue(parser.advance());
+            final LetStatement letA = (LetStatement) parser.current();
+            assertEquals("a", letA.name());
+            assertEquals(5, ((IntegerLiteral) letA.value()).value());
+            assertEquals(new TextPos(4, 1, 88), letA.start());
+            assertNotNull(letA.end());
+            // let b = a;
+            assertTrue(parser.advance());
+            final LetStatement letB = (LetStatement) parser.current();
+            assertEquals("a", ((Identifier) letB.value()).getName());
+            // a + b / 2 + {let c = 3; c × {a-b+1;}; };
+            assertTrue(parser.advance());
+            final ExpressionStatement statement = (ExpressionStatement) parser.current();
+            final PlusOp plus = (PlusOp) statement.value();
+            assertEquals(2, plus.summands().size());
+            assertThrows(UnsupportedOperationException.class, () -> plus.summands().clear());
+            final DivideOp divide = (DivideOp) ((PlusOp) plus.summands().get(0)).summands().get(1);
+            assertEquals("b", ((Identifier) divide.dividend()).getName());
+            final BlockExpression block = (BlockExpression) plus.summands().get(1);
+            assertEquals(2, block.content().length);
+            assertEquals("c", ((LetStatement) block.content()[0]).name());
+            final MultiplyOp multiply = (MultiplyOp) ((ExpressionStatement) block.content()[1]).value();
+            final BlockExpression nested = (BlockExpression) multiply.multipliers().get(1);
+            final PlusOp nestedPlus = (PlusOp) ((ExpressionStatement) nested.content()[0]).value();
+            final MinusOp minus = (MinusOp) nestedPlus.summands().get(0);
+            assertEquals("a", ((Identifier) minus.minuend()).getName());
+            assertNotNull(((Identifier) minus.minuend()).getEnd());
+            assertFalse(parser.advance());
+            assertFalse(parser.hadErrors());
+        } finally {
+            termParser.close();
+        }
+    }
+
+    /**
+     * @return the object factory
+     */
+    private RecordObjectFactory createFactory() {
+        final RecordObjectFactory rc = new RecordObjectFactory(getClass().getClassLoader());
+        rc.setPosPolicy(ObjectFactory.PositionPolicyPositions.get());
+        rc.ignoreNamespace(StandardGrammars.DOCTYPE_NS);
+        rc.mapNameToClass(MAIN_NS, "LetStatement", LetStatement.class);
+        rc.mapNameToClass(MAIN_NS, "ExpressionStatement", ExpressionStatement.class);
+        rc.mapNameToClass(EXPRESSION_NS, "ExpressionStatement", ExpressionStatement.class);
+        rc.mapNameToClass(EXPRESSION_NS, "LetStatement", LetStatement.class);
+        rc.mapNameToClass(EXPRESSION_NS, "IntegerLiteral", IntegerLiteral.class);
+        rc.mapNameToClass(EXPRESSION_NS, "Identifier", Identifier.class);
+        rc.mapNameToClass(EXPRESSION_NS, "PlusOp", PlusOp.class);
+        rc.mapNameToClass(EXPRESSION_NS, "MinusOp", MinusOp.class);
+        rc.mapNameToClass(EXPRESSION_NS, "MultiplyOp", MultiplyOp.class);
+        rc.mapNameToClass(EXPRESSION_NS, "DivideOp", DivideOp.class);
+        rc.mapNameToClass(EXPRESSION_NS, "BlockExpression", BlockExpression.class);
+        return rc;
+    }
+
+    /**
+     * The let statement.
+     *
+     * @param name  the name
+     * @param value the value
+     * @param start the start position
+     * @param end   the end position
+     */
+    public record LetStatement(String name, Object value, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The expression statement.
+     *
+     * @param value the value
+     * @param start the start position
+     * @param end   the end position
+     */
+    public record ExpressionStatement(Object value, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The integer literal.
+     *
+     * @param value the value
+     * @param start the start position
+     * @param end   the end position
+     */
+    public record IntegerLiteral(int value, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The plus operation.
+     *
+     * @param summands the summands
+     * @param start    the start position
+     * @param end      the end position
+     */
+    public record PlusOp(List<Object> summands, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The minus operation.
+     *
+     * @param minuend    the minuend
+     * @param subtrahend the subtrahend
+     * @param start      the start position
+     * @param end        the end position
+     */
+    public record MinusOp(Object minuend, Object subtrahend, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The multiply operation.
+     *
+     * @param multipliers the multipliers
+     * @param start       the start position
+     * @param end         the end position
+     */
+    public record MultiplyOp(List<Object> multipliers, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The divide operation.
+     *
+     * @param dividend the dividend
+     * @param divisor  the divisor
+     * @param start    the start position
+     * @param end      the end position
+     */
+    public record DivideOp(Object dividend, Object divisor, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The block expression.
+     *
+     * @param content the content
+     * @param start   the start position
+     * @param end     the end position
+     */
+    public record BlockExpression(Object[] content, TextPos start, TextPos end) {
+    }
+
+    /**
+     * The identifier, it is an immutable class.
+     */
+    public static final class Identifier {
+        /**
+         * The name.
+         */
+        private final String name;
+        /**
+         * The end position.
+         */
+        private final TextPos end;
+
+        /**
+         * The constructor.
+         *
+         * @param name  the name
+         * @param start the start position (ignored)
+         * @param end   the end position
+         */
+        @ConstructorProperties({"name", "start", "end"})
+        public Identifier(final String name, final TextPos start, final TextPos end) {
+            this.name = name;
+            this.end = end;
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the end position
+         */
+        public TextPos getEnd() {
+            return end;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.SyntaxRole;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.Tokens;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for suppression of ignorable, control, and structural tokens.
+ */
+public class SuppressedTokensTest {
+    /**
+     * The suppressed kinds.
+     */
+    private static final Set<Terms> KINDS = EnumSet.of(Terms.IGNORABLE, Terms.CONTROL, Terms.STRUCTURAL);
+    /**
+     * The lexical tokens for which the text is skipped.
+     */
+    private static final Set<Tokens> SKIPPED_TEXT = EnumSet.of(Tokens.WHITESPACE, Tokens.LINE_COMMENT,
+            Tokens.BLOCK_COMMENT);
+
+    /**
+     * Parse the resource.
+     *
+     * @param url      the resource
+     * @param suppress if true, tokens are suppressed
+     * @return the parsed tokens
+     */
+    private static List<TermToken> parse(final URL url, final boolean suppress) {
+        final DefaultTermReaderConfiguration configuration = new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(8, StandardCharsets.UTF_8, false, suppress),
+                SuppressedTokensTest.class.getClassLoader());
+        final TermParserReader parser = new TermParserReader(configuration, url);
+        if (suppress) {
+            parser.setSuppressedTokens(KINDS, EnumSet.complementOf(EnumSet.of(SyntaxRole.DOCUMENTATION)));
+        }
+        final List<TermToken> rc = new ArrayList<>();
+        try {
+            while (parser.advance()) {
+                rc.add(parser.current());
+                if (parser.current().kind() == Terms.EOF) {
+                    break;
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return rc;
+    }
+
+    /**
+     * Describe token. The text of whitespaces and comments is not included, since it is skipped by lexer.
+     *
+     * @param token the token
+     * @return the description
+     */
+    private static String describe(final TermToken token) {
+        final String structure = token.kind() == Terms.GRAMMAR_IS_LOADED
+                ? token.loadedGrammar().usedGrammar().getDescriptor().getSystemId()
+                : String.valueOf(token.getStructureId());
+        final String text = token.hasLexicalToken() && !SKIPPED_TEXT.contains(token.token().token().kind())
+                ? token.token().token().text() : "";
+        return token.kind() + " " + token.role() + " " + structure + " " + token.start() + "-" + token.end()
+                + " " + text + " " + token.errorInfo();
+    }
+
+    /**
+     * Check the resource.
+     *
+     * @param resource the resource name
+     */
+    private static void check(final String resource) {
+        final URL url = SuppressedTokensTest.class.getResource(resource);
+        assertNotNull(url);
+        final List<String> expected = new ArrayList<>();
+        int suppressedCount = 0;
+        for (final TermToken token : parse(url, false)) {
+            if (KINDS.contains(token.kind()) && token.role() != SyntaxRole.DOCUMENTATION && !token.hasAnyErrors()) {
+                suppressedCount++;
+            } else {
+                expected.add(describe(token));
+            }
+        }
+        assertTrue(suppressedCount > 0);
+        final List<String> actual = new ArrayList<>();
+        for (final TermToken token : parse(url, true)) {
+            actual.add(describe(token));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSuppression() {
+        check("hello/HelloWorld.ej.etl");
+        check("imports/Test.i.etl");
+        check("broken/Broken.t.etl");
+        check("/META-INF/etl/grammars/test/Choice.g.etl");
+    }
+
+    @Test
+    public void testInvalidKind() {
+        final TermParserReader parser = new TermParserReader(
+                SuppressedTokensTest.class.getResource("hello/HelloWorld.ej.etl"));
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> parser.setSuppressedTokens(EnumSet.of(Terms.VALUE), EnumSet.allOf(SyntaxRole.class)));
+        } finally {
+            parser.close();
+        }
+    }
+}
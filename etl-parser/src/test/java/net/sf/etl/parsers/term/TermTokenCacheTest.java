@@ -0,0 +1,183 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.sf.etl.parsers.term;
+
+import net.sf.etl.parsers.DefaultTermParserConfiguration;
+import net.sf.etl.parsers.LoadedGrammarInfo;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.streams.AbstractReader;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import net.sf.etl.parsers.streams.TermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermTokenCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The test checks that replayed term token streams are the same as parsed ones.
+ */
+public class TermTokenCacheTest {
+    /**
+     * The temporary directory.
+     */
+    @TempDir
+    Path temp;
+
+    /**
+     * Read tokens and describe them.
+     *
+     * @param reader the reader
+     * @return the token descriptions
+     */
+    private static List<String> read(final AbstractReader<TermToken> reader) {
+        final List<String> rc = new ArrayList<>();
+        try {
+            while (reader.advance()) {
+                final TermToken current = reader.current();
+                final Object structure;
+                if (current.kind() == Terms.GRAMMAR_IS_LOADED) {
+                    final LoadedGrammarInfo info = current.loadedGrammar();
+                    structure = info.usedGrammar().getDescriptor().getSystemId() + " " + info.usedContext()
+                            + " " + info.resolvedGrammar().getRequest();
+                } else {
+                    structure = current.getStructureId();
+                }
+                rc.add(current.kind() + " " + current.role() + " " + structure + " " + current.token()
+                        + " " + current.start() + "-" + current.end() + " " + current.definedAt()
+                        + " " + current.errorInfo());
+                if (current.kind() == Terms.EOF) {
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return rc;
+    }
+
+    /**
+     * Check the resource.
+     *
+     * @param cache    the cache
+     * @param resource the resource name
+     */
+    private void check(final TermTokenCache cache, final String resource) {
+        final URL url = TermTokenCacheTest.class.getResource(resource);
+        assertNotNull(url);
+        final TermReaderConfiguration compact = new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(8, StandardCharsets.UTF_8, true),
+                TermTokenCacheTest.class.getClassLoader());
+        final List<String> expected = read(new TermParserReader(DefaultTermReaderConfiguration.INSTANCE, url));
+        final AbstractReader<TermToken> recording = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+        assertEquals(expected, read(recording));
+        final AbstractReader<TermToken> replay = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+        assertNotEquals(recording.getClass(), replay.getClass());
+        assertEquals(expected, read(replay));
+        assertEquals(expected, read(cache.open(compact, url)));
+    }
+
+    @Test
+    public void testReplay() {
+        final TermTokenCache cache = new TermTokenCache(temp);
+        check(cache, "hello/HelloWorld.ej.etl");
+        check(cache, "imports/Test.i.etl");
+        check(cache, "broken/Broken.t.etl");
+        check(cache, "/META-INF/etl/grammars/test/Choice.g.etl");
+    }
+
+    @Test
+    public void testReplayInNewProcess() {
+        final URL url = TermTokenCacheTest.class.getResource("hello/HelloWorld.ej.etl");
+        assertNotNull(url);
+        final List<String> expected = read(new TermParserReader(DefaultTermReaderConfiguration.INSTANCE, url));
+        final AbstractReader<TermToken> recording = new TermTokenCache(temp)
+                .open(DefaultTermReaderConfiguration.INSTANCE, url);
+        assertEquals(expected, read(recording));
+        // the new cache instance and the new configuration do not have loaded grammars, as in a new process
+        final TermReaderConfiguration fresh = new DefaultTermReaderConfiguration(
+                new DefaultTermParserConfiguration(), TermTokenCacheTest.class.getClassLoader());
+        final AbstractReader<TermToken> replay = new TermTokenCache(temp).open(fresh, url);
+        assertNotEquals(recording.getClass(), replay.getClass());
+        assertEquals(expected, read(replay));
+    }
+
+    @Test
+    public void testCorrupted() throws IOException {
+        final URL url = TermTokenCacheTest.class.getResource("hello/HelloWorld.ej.etl");
+        assertNotNull(url);
+        final List<String> expected = read(new TermParserReader(DefaultTermReaderConfiguration.INSTANCE, url));
+        final TermTokenCache cache = new TermTokenCache(temp);
+        final AbstractReader<TermToken> recording = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+        assertEquals(expected, read(recording));
+        final List<Path> entries;
+        try (Stream<Path> files = Files.list(temp)) {
+            entries = files.collect(Collectors.toList());
+        }
+        assertFalse(entries.isEmpty());
+        for (final Path entry : entries) {
+            final byte[] data = Files.readAllBytes(entry);
+            // the header is kept, and the rest is replaced with invalid indexes
+            final byte[] corrupted = data.clone();
+            Arrays.fill(corrupted, PhraseTokenCacheTest.HEADER_SIZE, corrupted.length, (byte) 0x7F);
+            Files.write(entry, corrupted);
+            AbstractReader<TermToken> reader = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+            assertEquals(recording.getClass(), reader.getClass());
+            assertEquals(expected, read(reader));
+            // the grammar count is replaced with a negative varint
+            final byte[] negative = data.clone();
+            System.arraycopy(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}, 0,
+                    negative, PhraseTokenCacheTest.HEADER_SIZE, 5);
+            Files.write(entry, negative);
+            reader = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+            assertEquals(recording.getClass(), reader.getClass());
+            assertEquals(expected, read(reader));
+            Files.write(entry, Arrays.copyOf(data, data.length / 2));
+            reader = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+            assertEquals(recording.getClass(), reader.getClass());
+            assertEquals(expected, read(reader));
+            // the entry is rewritten after the source is parsed again
+            reader = cache.open(DefaultTermReaderConfiguration.INSTANCE, url);
+            assertNotEquals(recording.getClass(), reader.getClass());
+            assertEquals(expected, read(reader));
+        }
+    }
+}
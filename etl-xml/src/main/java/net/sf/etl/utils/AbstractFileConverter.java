@@ -32,8 +32,11 @@ import net.sf.etl.parsers.streams.PhraseParserReader;
 import net.sf.etl.parsers.streams.TermParserReader;
 import net.sf.etl.parsers.streams.TermReaderConfiguration;
 import net.sf.etl.xml_catalog.blocking.BlockingCatalog;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProvider;
 import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
 import net.sf.etl.xml_catalog.blocking.provider.CatalogRuntimeProvider;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogSnapshot;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.PosixParser;
@@ -41,7 +44,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
@@ -135,11 +141,10 @@ public abstract class AbstractFileConverter<C extends AbstractFileConverter.Base
      */
     protected final void initConfiguration() {
         final ClassLoader classloader = config.getClassloader();
-        final CatalogRuntimeProvider provider = CatalogProviders.createDefaultCatalogProvider(
-                CatalogProviders.DEFAULT_ROOT_REQUEST, classloader,
-                true, config.isUserCatalogEnabled(), config.isSystemCatalogEnabled(), config.getCatalogPaths());
+        final CatalogProvider provider = config.createCatalogProvider();
+        final CatalogResolutionCache cache = new CatalogResolutionCache();
         catalog = new BlockingCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST,
-                CatalogProviders.createCachedCatalog(provider));
+                CatalogProviders.createCachedCatalog(provider, cache), null, cache);
         configuration = new DefaultTermReaderConfiguration(new DefaultTermParserConfiguration(
                 config.getTabSize(), config.getCharset()), classloader);
         Thread.currentThread().setContextClassLoader(classloader);
@@ -320,6 +325,10 @@ public abstract class AbstractFileConverter<C extends AbstractFileConverter.Base
          * Option for suppressing user catalog.
          */
         private static final String SUPPRESS_USER_CATALOG = "suppress-user-catalog";
+        /**
+         * Option for the precompiled catalog snapshot.
+         */
+        private static final String CATALOG_SNAPSHOT = "catalog-snapshot";
         /**
          * The command line.
          */
@@ -356,6 +365,8 @@ public abstract class AbstractFileConverter<C extends AbstractFileConverter.Base
                             + "and class loading if needed.")
                     .addOption(null, SUPPRESS_SYSTEM_CATALOG, false, "suppress usage of system catalog.")
                     .addOption(null, SUPPRESS_USER_CATALOG, false, "suppress usage of user catalog.")
+                    .addOption(null, CATALOG_SNAPSHOT, true, "the precompiled catalog snapshot to use if it exists "
+                            + "(see catalog-snapshot command).")
                     .addOption(null, FILE_ENCODING, true, "the file encoding (default: " + DEFAULT_FILE_ENCODING + ")")
                     .addOption(null, TAB_SIZE, true, "the tab size (default: " + DEFAULT_FILE_ENCODING + ")")
                     .addOption("i", "input", true, "input file list or '-' in the case of stdin.")
@@ -410,6 +421,39 @@ public abstract class AbstractFileConverter<C extends AbstractFileConverter.Base
             return !commandLine.hasOption(SUPPRESS_USER_CATALOG);
         }
 
+        /**
+         * @return the catalog snapshot file or null
+         */
+        public final File getCatalogSnapshot() {
+            final String value = commandLine.getOptionValue(CATALOG_SNAPSHOT);
+            return value == null ? null : new File(value);
+        }
+
+        /**
+         * @return the runtime catalog provider for the configuration (without snapshot)
+         */
+        public final CatalogRuntimeProvider createRuntimeCatalogProvider() {
+            return CatalogProviders.createDefaultCatalogProvider(CatalogProviders.DEFAULT_ROOT_REQUEST,
+                    getClassloader(), true, isUserCatalogEnabled(), isSystemCatalogEnabled(), getCatalogPaths());
+        }
+
+        /**
+         * @return the catalog provider for the configuration, it uses catalog snapshot if it is available
+         */
+        public final CatalogProvider createCatalogProvider() {
+            final CatalogRuntimeProvider provider = createRuntimeCatalogProvider();
+            final File snapshotFile = getCatalogSnapshot();
+            if (snapshotFile == null || !snapshotFile.isFile()) {
+                return provider;
+            }
+            try (InputStream in = new FileInputStream(snapshotFile)) {
+                return CatalogSnapshot.read(in).createProvider(provider);
+            } catch (IOException ex) {
+                LOG.warn("The catalog snapshot could not be read, ignoring it: " + snapshotFile, ex);
+                return provider;
+            }
+        }
+
         /**
          * @return the input files
          */
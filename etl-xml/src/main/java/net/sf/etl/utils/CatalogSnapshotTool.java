@@ -0,0 +1,96 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils;
+
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogSnapshot;
+import net.sf.etl.xml_catalog.event.DefaultCatalogContext;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.PosixParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * The tool that writes precompiled catalog snapshot for the catalog options. The snapshot could be later
+ * specified for other commands with <code>--catalog-snapshot</code> option.
+ */
+public final class CatalogSnapshotTool {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogSnapshotTool.class);
+
+    /**
+     * The private constructor for utility class.
+     */
+    private CatalogSnapshotTool() {
+        // do nothing
+    }
+
+    /**
+     * The application entry point.
+     *
+     * @param args the application arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            run(args);
+        } catch (Throwable t) { // NOPMD
+            LOG.error("Processing failed", t);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Create snapshot.
+     *
+     * @param args the application arguments
+     * @throws Exception if there is a problem
+     */
+    public static void run(final String... args) throws Exception {
+        final CommandLine commandLine = new PosixParser().parse(
+                AbstractFileConverter.BaseConfig.getBaseOptions(), args, false);
+        final AbstractFileConverter.BaseConfig config = new AbstractFileConverter.BaseConfig(commandLine);
+        final String output = config.getOutput();
+        if (output == null || "-".equals(output)) {
+            throw new InvalidOptionValueException("The output file for the snapshot must be specified");
+        }
+        final long start = System.nanoTime();
+        final CatalogSnapshot snapshot = CatalogSnapshot.build(config.createRuntimeCatalogProvider(),
+                DefaultCatalogContext.INSTANCE, CatalogProviders.DEFAULT_ROOT_REQUEST);
+        try (OutputStream out = new FileOutputStream(new File(output))) {
+            snapshot.write(out);
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Catalog snapshot with {} catalogs is written to {} in {} ms",
+                    snapshot.getSystemIds().size(), output, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -75,7 +75,7 @@ public abstract class ETL2AST<C extends ETL2AST.BaseASTConfig> extends AbstractF
             final Options options = BaseConfig.getBaseOptions();
             options.addOption("I", "ignore-namespace", true, "ignore all objects from specified namespace URL");
             options.addOption("p", "position-policy", true, "use the specified position policy "
-                    + "('location', 'positions' (default), 'expanded', or class name), or 'none'");
+                    + "('location', 'positions' (default), 'expanded', 'offsets', or class name), or 'none'");
             return options;
         }
 
@@ -99,6 +99,8 @@ public abstract class ETL2AST<C extends ETL2AST.BaseASTConfig> extends AbstractF
                 policy = ObjectFactory.PositionPolicyLocation.get();
             } else if ("expanded".equalsIgnoreCase(policyName)) {
                 policy = ObjectFactory.PositionPolicyExpanded.get();
+            } else if ("offsets".equalsIgnoreCase(policyName)) {
+                policy = ObjectFactory.PositionPolicyOffsets.get();
             } else if ("none".equalsIgnoreCase(policyName)) {
                 policy = ObjectFactory.PositionPolicyNone.get();
             } else {
@@ -0,0 +1,79 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The streaming AST format.
+ */
+public enum AstFormat {
+    /**
+     * The JSON format with a single top-level object per line.
+     */
+    JSON {
+        @Override
+        public AstWriter createWriter(final OutputStream output) {
+            return new JsonAstWriter(output);
+        }
+
+        @Override
+        public AstReader createReader(final InputStream input) {
+            return new JsonAstReader(input);
+        }
+    },
+    /**
+     * The binary format with length-prefixed records for the top-level objects.
+     */
+    BINARY {
+        @Override
+        public AstWriter createWriter(final OutputStream output) {
+            return new BinaryAstWriter(output);
+        }
+
+        @Override
+        public AstReader createReader(final InputStream input) {
+            return new BinaryAstReader(input);
+        }
+    };
+
+    /**
+     * Create writer.
+     *
+     * @param output the output stream
+     * @return the writer
+     */
+    public abstract AstWriter createWriter(OutputStream output);
+
+    /**
+     * Create reader.
+     *
+     * @param input the input stream
+     * @return the reader
+     */
+    public abstract AstReader createReader(InputStream input);
+}
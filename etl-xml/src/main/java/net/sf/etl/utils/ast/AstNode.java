@@ -0,0 +1,73 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The generic AST node read from the streaming formats. The property values are {@link String} for the
+ * value tokens, {@link AstNode} for the nested objects, and {@link java.util.List} of these for the list
+ * properties. The single-valued property keeps the last value if the source contained several values,
+ * just like the object factories do.
+ *
+ * @param name       the object name
+ * @param start      the start position
+ * @param end        the end position
+ * @param properties the properties in the order of the first occurrence
+ */
+public record AstNode(ObjectName name, TextPos start, TextPos end, Map<String, Object> properties) {
+    /**
+     * Get property value.
+     *
+     * @param property the property name
+     * @return the property value or null
+     */
+    public Object get(final String property) {
+        return properties.get(property);
+    }
+
+    /**
+     * Add the property value read from the stream. The list values are appended to the existing list, because
+     * the list property could be reported several times for the same object. The other values replace
+     * the previous value.
+     *
+     * @param properties the properties
+     * @param name       the property name
+     * @param value      the value
+     */
+    @SuppressWarnings("unchecked")
+    static void putProperty(final Map<String, Object> properties, final String name, final Object value) {
+        if (value instanceof List<?> values && properties.get(name) instanceof List<?> existing) {
+            ((List<Object>) existing).addAll(values);
+        } else {
+            properties.put(name, value);
+        }
+    }
+}
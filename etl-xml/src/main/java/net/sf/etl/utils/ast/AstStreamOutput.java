@@ -0,0 +1,258 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ErrorInfo;
+import net.sf.etl.parsers.TermToken;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.streams.TermParserReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The output that walks the term parser events and reports the objects, properties, and values to
+ * the {@link AstWriter}. The output itself does not build the AST, but the writers buffer each top-level object
+ * until it ends: the binary writer keeps the encoded record, and the JSON writer keeps the tree of the members.
+ * So the memory is bounded by the largest top-level object rather than by the whole source. The errors are logged
+ * and the objects from the ignored namespaces are skipped together with their content.
+ */
+public final class AstStreamOutput {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AstStreamOutput.class);
+    /**
+     * The writer.
+     */
+    private final AstWriter writer;
+    /**
+     * The ignored namespaces.
+     */
+    private final Set<String> ignoredNamespaces;
+    /**
+     * The parser.
+     */
+    private TermParserReader parser;
+    /**
+     * The last token checked for errors.
+     */
+    private TermToken lastErrors;
+
+    /**
+     * The constructor.
+     *
+     * @param writer            the writer
+     * @param ignoredNamespaces the namespaces of the objects to skip
+     */
+    public AstStreamOutput(final AstWriter writer, final Collection<String> ignoredNamespaces) {
+        this.writer = writer;
+        this.ignoredNamespaces = new HashSet<>(ignoredNamespaces);
+    }
+
+    /**
+     * Process all objects from the parser. The writer is flushed, but it is not closed.
+     *
+     * @param newParser the parser
+     * @throws IOException in case of IO problem
+     */
+    public void process(final TermParserReader newParser) throws IOException {
+        this.parser = newParser;
+        parser.advance();
+        loop:
+        while (true) {
+            checkErrors();
+            switch (parser.current().kind()) {
+                case OBJECT_START:
+                    processObject();
+                    break;
+                case EOF:
+                    break loop;
+                default:
+                    parser.advance();
+                    break;
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Process the object.
+     *
+     * @throws IOException in case of IO problem
+     */
+    private void processObject() throws IOException {
+        final TermToken token = parser.current();
+        if (ignoredNamespaces.contains(token.objectName().namespace())) {
+            skipObject();
+            return;
+        }
+        writer.startObject(token.objectName(), token.start());
+        parser.advance();
+        int extraStarts = 0;
+        loop:
+        while (true) {
+            checkErrors();
+            switch (parser.current().kind()) {
+                case OBJECT_START:
+                    LOG.error("Unexpected Object Start Event in " + parser.getSystemId() + " (Grammar BUG): "
+                            + parser.current());
+                    extraStarts++;
+                    parser.advance();
+                    break;
+                case EOF:
+                    writer.endObject(parser.current().start());
+                    return;
+                case OBJECT_END:
+                    if (extraStarts > 0) {
+                        extraStarts--;
+                        parser.advance();
+                        break;
+                    } else {
+                        break loop;
+                    }
+                case PROPERTY_START:
+                case LIST_PROPERTY_START:
+                    processProperty();
+                    break;
+                default:
+                    parser.advance();
+                    break;
+            }
+        }
+        writer.endObject(parser.current().end());
+        parser.advance();
+    }
+
+    /**
+     * Process the property.
+     *
+     * @throws IOException in case of IO problem
+     */
+    private void processProperty() throws IOException {
+        final TermToken token = parser.current();
+        writer.startProperty(token.propertyName().name(), token.kind() == Terms.LIST_PROPERTY_START);
+        parser.advance();
+        int extraStarts = 0;
+        loop:
+        while (true) {
+            checkErrors();
+            switch (parser.current().kind()) {
+                case PROPERTY_START:
+                case LIST_PROPERTY_START:
+                    LOG.error("Unexpected Property Start Event in " + parser.getSystemId() + " (Grammar BUG): "
+                            + parser.current());
+                    extraStarts++;
+                    parser.advance();
+                    break;
+                case EOF:
+                    writer.endProperty();
+                    return;
+                case OBJECT_START:
+                    processObject();
+                    break;
+                case VALUE:
+                    writer.value(parser.current().token().token().text());
+                    parser.advance();
+                    break;
+                case PROPERTY_END:
+                case LIST_PROPERTY_END:
+                    if (extraStarts > 0) {
+                        extraStarts--;
+                        parser.advance();
+                        break;
+                    } else {
+                        break loop;
+                    }
+                default:
+                    parser.advance();
+                    break;
+            }
+        }
+        writer.endProperty();
+        parser.advance();
+    }
+
+    /**
+     * Skip the object with nested objects.
+     */
+    private void skipObject() {
+        int count = 0;
+        while (true) {
+            checkErrors();
+            switch (parser.current().kind()) {
+                case OBJECT_START:
+                    count++;
+                    break;
+                case OBJECT_END:
+                    count--;
+                    if (count == 0) {
+                        parser.advance();
+                        return;
+                    }
+                    break;
+                case EOF:
+                    return;
+                default:
+                    break;
+            }
+            parser.advance();
+        }
+    }
+
+    /**
+     * Log errors for the current token.
+     */
+    private void checkErrors() {
+        final TermToken t = parser.current();
+        if (t != lastErrors) { // NOPMD
+            lastErrors = t;
+            logErrors(t.errorInfo());
+            if (t.hasPhraseToken()) {
+                logErrors(t.token().errorInfo());
+            }
+            if (t.hasLexicalToken()) {
+                logErrors(t.token().token().errorInfo());
+            }
+        }
+    }
+
+    /**
+     * Log errors.
+     *
+     * @param error the error
+     */
+    private void logErrors(final ErrorInfo error) {
+        for (ErrorInfo errorInfo = error; errorInfo != null; errorInfo = errorInfo.cause()) {
+            LOG.error(errorInfo.errorId() + ": " + errorInfo.location().toShortString() + ": "
+                    + errorInfo.message());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The streaming writer for the AST. The events are reported in the document order, and the nested objects
+ * are reported inside the property events. The objects outside of properties are the top-level objects.
+ */
+public interface AstWriter extends Closeable {
+    /**
+     * Start object.
+     *
+     * @param name  the object name
+     * @param start the start position
+     * @throws IOException in case of IO problem
+     */
+    void startObject(ObjectName name, TextPos start) throws IOException;
+
+    /**
+     * End object.
+     *
+     * @param end the end position
+     * @throws IOException in case of IO problem
+     */
+    void endObject(TextPos end) throws IOException;
+
+    /**
+     * Start property of the current object.
+     *
+     * @param name the property name
+     * @param list true if this is a list property
+     * @throws IOException in case of IO problem
+     */
+    void startProperty(String name, boolean list) throws IOException;
+
+    /**
+     * End the current property.
+     *
+     * @throws IOException in case of IO problem
+     */
+    void endProperty() throws IOException;
+
+    /**
+     * Write the value of the current property.
+     *
+     * @param text the token text
+     * @throws IOException in case of IO problem
+     */
+    void value(String text) throws IOException;
+
+    /**
+     * Flush the written data to the underlying stream.
+     *
+     * @throws IOException in case of IO problem
+     */
+    void flush() throws IOException;
+}
@@ -0,0 +1,276 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reader for the format written by {@link BinaryAstWriter}.
+ */
+final class BinaryAstReader implements AstReader {
+    /**
+     * The input.
+     */
+    private final DataInputStream in;
+    /**
+     * The string table of the current record.
+     */
+    private final List<String> strings = new ArrayList<>();
+    /**
+     * True if the header has been read.
+     */
+    private boolean headerRead;
+    /**
+     * The current record.
+     */
+    private byte[] data;
+    /**
+     * The position in the current record.
+     */
+    private int pos;
+
+    /**
+     * The constructor.
+     *
+     * @param input the input stream
+     */
+    BinaryAstReader(final InputStream input) {
+        this.in = new DataInputStream(new BufferedInputStream(input));
+    }
+
+    @Override
+    public AstNode read() throws IOException {
+        if (!headerRead) {
+            final byte[] magic = new byte[BinaryAstWriter.MAGIC.length];
+            try {
+                in.readFully(magic);
+            } catch (EOFException ex) {
+                throw new IOException("The stream is too short for the AST binary header", ex);
+            }
+            if (!Arrays.equals(magic, BinaryAstWriter.MAGIC)) {
+                throw new IOException("The stream does not start with the AST binary header");
+            }
+            headerRead = true;
+        }
+        long length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift >= Long.SIZE) {
+                throw new IOException("The record length is too long");
+            }
+            final int b = in.read();
+            if (b == -1) {
+                if (shift == 0) {
+                    return null;
+                }
+                throw new EOFException("The record length is truncated");
+            }
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid record length: " + length);
+        }
+        // the record is read in chunks, so a damaged length fails on the end of stream rather than on allocation
+        data = in.readNBytes((int) length);
+        if (data.length != length) {
+            throw new EOFException("The record is truncated");
+        }
+        pos = 0;
+        strings.clear();
+        if (readByte() != BinaryAstWriter.OBJECT_START) {
+            throw error("The object is expected");
+        }
+        final AstNode node = readObject();
+        if (pos != data.length) {
+            throw error("The end of record is expected");
+        }
+        return node;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Read object after the start tag.
+     *
+     * @return the object
+     * @throws IOException in case of format error
+     */
+    private AstNode readObject() throws IOException {
+        final String namespace = readString();
+        final String name = readString();
+        final TextPos start = readPosition();
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        while (true) {
+            final int tag = readByte();
+            switch (tag) {
+                case BinaryAstWriter.PROPERTY_START -> readProperty(properties, false);
+                case BinaryAstWriter.LIST_PROPERTY_START -> readProperty(properties, true);
+                case BinaryAstWriter.OBJECT_END -> {
+                    return new AstNode(new ObjectName(namespace, name), start, readPosition(), properties);
+                }
+                default -> throw error("Unexpected tag " + tag);
+            }
+        }
+    }
+
+    /**
+     * Read property after the start tag.
+     *
+     * @param properties the properties of the object
+     * @param list       true if this is a list property
+     * @throws IOException in case of format error
+     */
+    private void readProperty(final Map<String, Object> properties, final boolean list) throws IOException {
+        final String name = readString();
+        final List<Object> values = list ? new ArrayList<>() : null;
+        while (true) {
+            final int tag = readByte();
+            final Object value;
+            switch (tag) {
+                case BinaryAstWriter.VALUE -> value = readString();
+                case BinaryAstWriter.OBJECT_START -> value = readObject();
+                case BinaryAstWriter.PROPERTY_END -> {
+                    if (list) {
+                        AstNode.putProperty(properties, name, values);
+                    }
+                    return;
+                }
+                default -> throw error("Unexpected tag " + tag);
+            }
+            if (list) {
+                values.add(value);
+            } else {
+                AstNode.putProperty(properties, name, value);
+            }
+        }
+    }
+
+    /**
+     * Read position.
+     *
+     * @return the position
+     * @throws IOException in case of format error
+     */
+    private TextPos readPosition() throws IOException {
+        final long line = unZigZag(readVarLong());
+        final long column = unZigZag(readVarLong());
+        final long offset = unZigZag(readVarLong());
+        return new TextPos((int) line, (int) column, offset);
+    }
+
+    /**
+     * Read string.
+     *
+     * @return the string
+     * @throws IOException in case of format error
+     */
+    private String readString() throws IOException {
+        final long ref = readVarLong();
+        if (ref == 0) {
+            final long length = readVarLong();
+            if (length < 0 || length > data.length - pos) {
+                throw error("The string is truncated");
+            }
+            final String text = new String(data, pos, (int) length, StandardCharsets.UTF_8);
+            pos += (int) length;
+            strings.add(text);
+            return text;
+        }
+        if (ref < 0 || ref > strings.size()) {
+            throw error("Invalid string reference " + ref);
+        }
+        return strings.get((int) ref - 1);
+    }
+
+    /**
+     * Read unsigned variable-length integer.
+     *
+     * @return the value
+     * @throws IOException in case of format error
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw error("The number is too long");
+    }
+
+    /**
+     * Read byte.
+     *
+     * @return the unsigned byte value
+     * @throws IOException if the record is truncated
+     */
+    private int readByte() throws IOException {
+        if (pos >= data.length) {
+            throw error("The record is truncated");
+        }
+        return data[pos++] & 0xFF;
+    }
+
+    /**
+     * Create format error.
+     *
+     * @param message the message
+     * @return the exception
+     */
+    private IOException error(final String message) {
+        return new IOException(message + " at " + pos);
+    }
+
+    /**
+     * Zig-zag decode the value.
+     *
+     * @param value the encoded value
+     * @return the decoded value
+     */
+    private static long unZigZag(final long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * The writer for the binary format. The stream starts with the {@link #MAGIC} header, and then each top-level
+ * object is written as a record prefixed by its length, so the records could be skipped or dispatched without
+ * decoding. The numbers are written as unsigned variable-length integers, and the positions are zig-zag
+ * encoded.
+ * </p>
+ * <p>
+ * The strings are written as the reference to the string table of the record. The reference zero means that
+ * the length and UTF-8 bytes of the new string follow, and the string is added to the table. Other references
+ * point to the previously added strings, so the repeated names are written only once per record.
+ * </p>
+ */
+final class BinaryAstWriter implements AstWriter {
+    /**
+     * The format header.
+     */
+    static final byte[] MAGIC = {'E', 'T', 'L', 'A', 1};
+    /**
+     * The object start tag followed by namespace, name, and start position.
+     */
+    static final int OBJECT_START = 1;
+    /**
+     * The object end tag followed by the end position.
+     */
+    static final int OBJECT_END = 2;
+    /**
+     * The property start tag followed by the name.
+     */
+    static final int PROPERTY_START = 3;
+    /**
+     * The list property start tag followed by the name.
+     */
+    static final int LIST_PROPERTY_START = 4;
+    /**
+     * The property end tag.
+     */
+    static final int PROPERTY_END = 5;
+    /**
+     * The value tag followed by the text.
+     */
+    static final int VALUE = 6;
+    /**
+     * The buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The output.
+     */
+    private final OutputStream out;
+    /**
+     * The current record.
+     */
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(BUFFER_SIZE);
+    /**
+     * The string table of the current record.
+     */
+    private final Map<String, Integer> strings = new HashMap<>(); // NOPMD
+    /**
+     * The object depth.
+     */
+    private int depth;
+    /**
+     * True if the header has been written.
+     */
+    private boolean headerWritten;
+
+    /**
+     * The constructor.
+     *
+     * @param output the output stream
+     */
+    BinaryAstWriter(final OutputStream output) {
+        this.out = new BufferedOutputStream(output, BUFFER_SIZE);
+    }
+
+    /**
+     * Write unsigned variable-length integer.
+     *
+     * @param out   the output
+     * @param value the value
+     * @throws IOException in case of IO problem
+     */
+    static void writeVarLong(final OutputStream out, final long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    @Override
+    public void startObject(final ObjectName name, final TextPos start) throws IOException {
+        if (depth == 0) {
+            record.reset();
+            strings.clear();
+        }
+        depth++;
+        record.write(OBJECT_START);
+        string(name.namespace());
+        string(name.name());
+        position(start);
+    }
+
+    @Override
+    public void endObject(final TextPos end) throws IOException {
+        record.write(OBJECT_END);
+        position(end);
+        depth--;
+        if (depth == 0) {
+            header();
+            writeVarLong(out, record.size());
+            record.writeTo(out);
+        }
+    }
+
+    @Override
+    public void startProperty(final String name, final boolean list) throws IOException {
+        record.write(list ? LIST_PROPERTY_START : PROPERTY_START);
+        string(name);
+    }
+
+    @Override
+    public void endProperty() {
+        record.write(PROPERTY_END);
+    }
+
+    @Override
+    public void value(final String text) throws IOException {
+        record.write(VALUE);
+        string(text);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        header();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        header();
+        out.close();
+    }
+
+    /**
+     * Write the header if it has not been written yet.
+     *
+     * @throws IOException in case of IO problem
+     */
+    private void header() throws IOException {
+        if (!headerWritten) {
+            headerWritten = true;
+            out.write(MAGIC);
+        }
+    }
+
+    /**
+     * Write position.
+     *
+     * @param pos the position
+     * @throws IOException in case of IO problem
+     */
+    private void position(final TextPos pos) throws IOException {
+        writeVarLong(record, zigZag(pos.line()));
+        writeVarLong(record, zigZag(pos.column()));
+        writeVarLong(record, zigZag(pos.offset()));
+    }
+
+    /**
+     * Write string.
+     *
+     * @param text the text
+     * @throws IOException in case of IO problem
+     */
+    private void string(final String text) throws IOException {
+        final Integer ref = strings.get(text);
+        if (ref != null) {
+            writeVarLong(record, ref + 1L);
+        } else {
+            strings.put(text, strings.size());
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(record, 0);
+            writeVarLong(record, bytes.length);
+            record.write(bytes);
+        }
+    }
+
+    /**
+     * Zig-zag encode the value.
+     *
+     * @param value the value
+     * @return the encoded value
+     */
+    private static long zigZag(final long value) {
+        return value << 1 ^ value >> 63;
+    }
+}
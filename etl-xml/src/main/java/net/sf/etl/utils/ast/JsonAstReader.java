@@ -0,0 +1,317 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reader for the format written by {@link JsonAstWriter}. Only the subset of JSON produced by the writer
+ * is supported.
+ */
+final class JsonAstReader implements AstReader {
+    /**
+     * The input.
+     */
+    private final BufferedReader in;
+    /**
+     * The current line.
+     */
+    private String line;
+    /**
+     * The position in the line.
+     */
+    private int pos;
+
+    /**
+     * The constructor.
+     *
+     * @param input the input stream
+     */
+    JsonAstReader(final InputStream input) {
+        this.in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public AstNode read() throws IOException {
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        pos = 0;
+        final AstNode node = readObject();
+        skipSpaces();
+        if (pos != line.length()) {
+            throw error("The end of line is expected");
+        }
+        return node;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Read object.
+     *
+     * @return the object
+     * @throws IOException in case of format error
+     */
+    private AstNode readObject() throws IOException {
+        expect('{');
+        String namespace = null;
+        String name = null;
+        TextPos start = null;
+        TextPos end = null;
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        skipSpaces();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                skipSpaces();
+                final String key = readString();
+                expect(':');
+                switch (key) {
+                    case "$ns" -> namespace = readString();
+                    case "$name" -> name = readString();
+                    case "$start" -> start = readPosition();
+                    case "$end" -> end = readPosition();
+                    default -> AstNode.putProperty(properties, key, readValue());
+                }
+                skipSpaces();
+                final char c = next();
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    throw error("The ',' or '}' is expected");
+                }
+            }
+        }
+        if (namespace == null || name == null) {
+            throw error("The object name is missing");
+        }
+        return new AstNode(new ObjectName(namespace, name), start, end, properties);
+    }
+
+    /**
+     * Read property value.
+     *
+     * @return the value
+     * @throws IOException in case of format error
+     */
+    private Object readValue() throws IOException {
+        skipSpaces();
+        return switch (peek()) {
+            case '"' -> readString();
+            case '{' -> readObject();
+            case '[' -> readList();
+            default -> throw error("The value is expected");
+        };
+    }
+
+    /**
+     * Read list.
+     *
+     * @return the list
+     * @throws IOException in case of format error
+     */
+    private List<Object> readList() throws IOException {
+        expect('[');
+        final List<Object> list = new ArrayList<>();
+        skipSpaces();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            list.add(readValue());
+            skipSpaces();
+            final char c = next();
+            if (c == ']') {
+                return list;
+            } else if (c != ',') {
+                throw error("The ',' or ']' is expected");
+            }
+        }
+    }
+
+    /**
+     * Read position.
+     *
+     * @return the position
+     * @throws IOException in case of format error
+     */
+    private TextPos readPosition() throws IOException {
+        expect('[');
+        final long l = readNumber();
+        expect(',');
+        final long c = readNumber();
+        expect(',');
+        final long o = readNumber();
+        expect(']');
+        return new TextPos((int) l, (int) c, o);
+    }
+
+    /**
+     * Read integer number.
+     *
+     * @return the number
+     * @throws IOException in case of format error
+     */
+    private long readNumber() throws IOException {
+        skipSpaces();
+        final int start = pos;
+        if (peek() == '-') {
+            pos++;
+        }
+        while (pos < line.length() && Character.isDigit(line.charAt(pos))) {
+            pos++;
+        }
+        try {
+            return Long.parseLong(line, start, pos, 10);
+        } catch (NumberFormatException ex) {
+            throw error("The number is expected");
+        }
+    }
+
+    /**
+     * Read string.
+     *
+     * @return the string
+     * @throws IOException in case of format error
+     */
+    private String readString() throws IOException {
+        expect('"');
+        final int start = pos;
+        while (pos < line.length()) {
+            final char c = line.charAt(pos);
+            if (c == '"') {
+                return line.substring(start, pos++);
+            } else if (c == '\\') {
+                break;
+            }
+            pos++;
+        }
+        final StringBuilder b = new StringBuilder().append(line, start, pos);
+        while (true) {
+            final char c = next();
+            if (c == '"') {
+                return b.toString();
+            } else if (c != '\\') {
+                b.append(c);
+                continue;
+            }
+            final char e = next();
+            switch (e) {
+                case '"', '\\', '/' -> b.append(e);
+                case 'b' -> b.append('\b');
+                case 'f' -> b.append('\f');
+                case 'n' -> b.append('\n');
+                case 'r' -> b.append('\r');
+                case 't' -> b.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > line.length()) {
+                        throw error("The unicode escape is truncated");
+                    }
+                    try {
+                        b.append((char) Integer.parseInt(line, pos, pos + 4, 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Invalid unicode escape");
+                    }
+                    pos += 4;
+                }
+                default -> throw error("Invalid escape");
+            }
+        }
+    }
+
+    /**
+     * Skip spaces.
+     */
+    private void skipSpaces() {
+        while (pos < line.length() && line.charAt(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    /**
+     * @return the current character or zero at the end of the line
+     */
+    private char peek() {
+        return pos < line.length() ? line.charAt(pos) : 0;
+    }
+
+    /**
+     * Get the next character.
+     *
+     * @return the character
+     * @throws IOException if the end of line is reached
+     */
+    private char next() throws IOException {
+        if (pos >= line.length()) {
+            throw error("Unexpected end of line");
+        }
+        return line.charAt(pos++);
+    }
+
+    /**
+     * Check the next character after spaces.
+     *
+     * @param c the expected character
+     * @throws IOException if other character is found
+     */
+    private void expect(final char c) throws IOException {
+        skipSpaces();
+        if (peek() != c) {
+            throw error("The '" + c + "' is expected");
+        }
+        pos++;
+    }
+
+    /**
+     * Create format error.
+     *
+     * @param message the message
+     * @return the exception
+     */
+    private IOException error(final String message) {
+        return new IOException(message + " at " + pos + ": " + line);
+    }
+}
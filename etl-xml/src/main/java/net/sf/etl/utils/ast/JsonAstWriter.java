@@ -0,0 +1,286 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The writer for the JSON format. Each top-level object is written as a single line. The object name and
+ * positions are written as "$ns", "$name", "$start", and "$end" members, where the positions are arrays of
+ * line, column, and offset. The properties are written as members with string, object, or array values.
+ * The top-level object is buffered until it ends, so each member is written once even if the property is
+ * reported several times: the list segments are merged into one array, and the last value of the single-valued
+ * property wins.
+ */
+final class JsonAstWriter implements AstWriter {
+    /**
+     * The buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The hex digits.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * The output.
+     */
+    private final Writer out;
+    /**
+     * The open objects.
+     */
+    private final List<JsonObject> objects = new ArrayList<>();
+    /**
+     * The open properties.
+     */
+    private final List<Member> properties = new ArrayList<>();
+
+    /**
+     * The constructor.
+     *
+     * @param output the output stream
+     */
+    JsonAstWriter(final OutputStream output) {
+        this.out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void startObject(final ObjectName name, final TextPos start) {
+        final JsonObject object = new JsonObject(name, start);
+        if (!objects.isEmpty()) {
+            addValue(object);
+        }
+        objects.add(object);
+    }
+
+    @Override
+    public void endObject(final TextPos end) throws IOException {
+        final JsonObject object = objects.remove(objects.size() - 1);
+        object.end = end;
+        if (objects.isEmpty()) {
+            object(object);
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public void startProperty(final String name, final boolean list) {
+        properties.add(objects.get(objects.size() - 1).members.computeIfAbsent(name, n -> new Member(list)));
+    }
+
+    @Override
+    public void endProperty() {
+        properties.remove(properties.size() - 1);
+    }
+
+    @Override
+    public void value(final String text) {
+        addValue(text);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Add the value to the current property. The previous value of the single-valued property is replaced.
+     *
+     * @param value the value ({@link String} or {@link JsonObject})
+     */
+    private void addValue(final Object value) {
+        final Member property = properties.get(properties.size() - 1);
+        if (!property.list) {
+            property.values.clear();
+        }
+        property.values.add(value);
+    }
+
+    /**
+     * Write the object.
+     *
+     * @param object the object
+     * @throws IOException in case of IO problem
+     */
+    private void object(final JsonObject object) throws IOException {
+        out.write("{\"$ns\":");
+        string(object.name.namespace());
+        out.write(",\"$name\":");
+        string(object.name.name());
+        out.write(",\"$start\":");
+        position(object.start);
+        for (final Map.Entry<String, Member> e : object.members.entrySet()) {
+            final Member member = e.getValue();
+            if (!member.list && member.values.isEmpty()) {
+                continue;
+            }
+            out.write(',');
+            string(e.getKey());
+            out.write(':');
+            if (member.list) {
+                out.write('[');
+            }
+            for (int i = 0; i < member.values.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                final Object value = member.values.get(i);
+                if (value instanceof JsonObject o) {
+                    object(o);
+                } else {
+                    string((String) value);
+                }
+            }
+            if (member.list) {
+                out.write(']');
+            }
+        }
+        out.write(",\"$end\":");
+        position(object.end);
+        out.write('}');
+    }
+
+    /**
+     * Write position.
+     *
+     * @param pos the position
+     * @throws IOException in case of IO problem
+     */
+    private void position(final TextPos pos) throws IOException {
+        out.write('[');
+        out.write(Integer.toString(pos.line()));
+        out.write(',');
+        out.write(Integer.toString(pos.column()));
+        out.write(',');
+        out.write(Long.toString(pos.offset()));
+        out.write(']');
+    }
+
+    /**
+     * Write the string literal.
+     *
+     * @param text the text
+     * @throws IOException in case of IO problem
+     */
+    private void string(final String text) throws IOException {
+        out.write('"');
+        int start = 0;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < ' ' || c == '"' || c == '\\') {
+                out.write(text, start, i - start);
+                start = i + 1;
+                switch (c) {
+                    case '"' -> out.write("\\\"");
+                    case '\\' -> out.write("\\\\");
+                    case '\n' -> out.write("\\n");
+                    case '\r' -> out.write("\\r");
+                    case '\t' -> out.write("\\t");
+                    default -> {
+                        out.write("\\u00");
+                        out.write(HEX[c >> 4]);
+                        out.write(HEX[c & 0xF]);
+                    }
+                }
+            }
+        }
+        out.write(text, start, length - start);
+        out.write('"');
+    }
+
+    /**
+     * The buffered object.
+     */
+    private static final class JsonObject {
+        /**
+         * The object name.
+         */
+        private final ObjectName name;
+        /**
+         * The start position.
+         */
+        private final TextPos start;
+        /**
+         * The members by property name in the order of the first occurrence.
+         */
+        private final Map<String, Member> members = new LinkedHashMap<>();
+        /**
+         * The end position.
+         */
+        private TextPos end;
+
+        /**
+         * The constructor.
+         *
+         * @param name  the object name
+         * @param start the start position
+         */
+        private JsonObject(final ObjectName name, final TextPos start) {
+            this.name = name;
+            this.start = start;
+        }
+    }
+
+    /**
+     * The buffered member of the object.
+     */
+    private static final class Member {
+        /**
+         * True if the property is a list.
+         */
+        private final boolean list;
+        /**
+         * The values ({@link String} or {@link JsonObject}).
+         */
+        private final List<Object> values = new ArrayList<>();
+
+        /**
+         * The constructor.
+         *
+         * @param list true if the property is a list
+         */
+        private Member(final boolean list) {
+            this.list = list;
+        }
+    }
+}
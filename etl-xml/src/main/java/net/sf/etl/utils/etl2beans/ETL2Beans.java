@@ -29,6 +29,9 @@ import net.sf.etl.parsers.event.tree.BeansObjectFactory;
 import net.sf.etl.parsers.streams.TermParserReader;
 import net.sf.etl.parsers.streams.TreeParserReader;
 import net.sf.etl.utils.ETL2AST;
+import net.sf.etl.utils.ast.AstFormat;
+import net.sf.etl.utils.ast.AstStreamOutput;
+import net.sf.etl.utils.ast.AstWriter;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
 import org.slf4j.Logger;
@@ -78,6 +81,16 @@ public final class ETL2Beans extends ETL2AST<ETL2BeansConfig> {
     @Override
     protected void processContent(final OutputStream stream, final TermParserReader p)
             throws Exception {
+        final AstFormat astFormat = getConfig().getAstFormat();
+        if (astFormat != null) {
+            final AstWriter writer = astFormat.createWriter(stream);
+            try {
+                new AstStreamOutput(writer, getConfig().getIgnoredNamespaces()).process(p);
+            } finally {
+                writer.close();
+            }
+            return;
+        }
         final BeansObjectFactory bp = new BeansObjectFactory(getConfig().getClassloader());
         configureStandardOptions(bp);
         for (final Entry<String, String> e : getConfig().getPackageMap().entrySet()) {
@@ -26,12 +26,14 @@
 package net.sf.etl.utils.etl2beans;
 
 import net.sf.etl.utils.ETL2AST;
+import net.sf.etl.utils.ast.AstFormat;
 import net.sf.etl.utils.InvalidOptionValueException;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -58,6 +60,9 @@ public final class ETL2BeansConfig extends ETL2AST.BaseASTConfig {
     public static Options getBeansOptions() {
         final Options options = getAstOptions();
         options.addOption("m", "map", true, "map from namespace uri to package name <ns>=<package name>");
+        options.addOption("F", "ast-format", true, "the output format: 'xml' (default) for beans encoded with "
+                + "XMLEncoder, or 'json' and 'binary' for the generic AST written directly from the parser "
+                + "(the package map and position policy are not used)");
         return options;
     }
 
@@ -83,4 +88,19 @@ public final class ETL2BeansConfig extends ETL2AST.BaseASTConfig {
         }
         return packageMap;
     }
+
+    /**
+     * @return the streaming AST format, or null if the beans are encoded with XMLEncoder
+     */
+    public AstFormat getAstFormat() {
+        final String format = getCommandLine().getOptionValue('F');
+        if (format == null || "xml".equalsIgnoreCase(format)) {
+            return null;
+        }
+        try {
+            return AstFormat.valueOf(format.toUpperCase(Locale.US));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidOptionValueException("Unknown AST format: " + format, ex);
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.etl2java;
+
+import net.sf.etl.parsers.LoadedGrammarInfo;
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.Terms;
+import net.sf.etl.parsers.event.grammar.CompiledGrammar;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
+import net.sf.etl.parsers.streams.TermParserReader;
+import net.sf.etl.utils.AbstractFileConverter;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class generates Java model classes and a typed object factory for the grammar used by the source.
+ * The generated factory is used with {@link net.sf.etl.parsers.streams.TreeParserReader} instead of
+ * reflection based factories.
+ */
+public final class ETL2Java extends AbstractFileConverter<ETL2JavaConfig> {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ETL2Java.class);
+
+    /**
+     * Application entry point.
+     *
+     * @param args application arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            new ETL2Java().start(args);
+        } catch (final Exception ex) { // NOPMD
+            LOG.error("Execution failed", ex);
+        }
+    }
+
+    /**
+     * Collect object models from the grammar and grammars referenced from it.
+     *
+     * @param grammar the grammar
+     * @param visited the system identifiers of visited grammars
+     * @param models  the collected models
+     */
+    private static void collectModels(final CompiledGrammar grammar, final Set<String> visited,
+                                      final Map<ObjectName, ObjectModel> models) {
+        if (!visited.add(grammar.getDescriptor().getSystemId())) {
+            return;
+        }
+        for (final ObjectModel model : grammar.getObjectModels()) {
+            models.putIfAbsent(model.name(), model);
+        }
+        for (final CompiledGrammar other : grammar.getOtherGrammars()) {
+            collectModels(other, visited, models);
+        }
+    }
+
+    @Override
+    protected ETL2JavaConfig parseConfig(final CommandLine commandLine) {
+        return new ETL2JavaConfig(commandLine);
+    }
+
+    @Override
+    protected Options getOptions() {
+        return ETL2JavaConfig.getJavaOptions();
+    }
+
+    @Override
+    protected void processContent(final OutputStream stream, final TermParserReader p) throws Exception {
+        LoadedGrammarInfo info = null;
+        do {
+            if (p.current().kind() == Terms.GRAMMAR_IS_LOADED) {
+                info = p.current().loadedGrammar();
+            }
+        } while (info == null && p.current().kind() != Terms.EOF && p.advance());
+        if (info == null) {
+            throw new IllegalStateException("The grammar is not loaded for the source: " + p.getSystemId());
+        }
+        final Map<ObjectName, ObjectModel> models = new LinkedHashMap<>();
+        collectModels(info.usedGrammar(), new HashSet<>(), models);
+        final Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        out.write(new JavaModelGenerator(getConfig().getClassName(), models.values()).generate());
+        out.flush();
+    }
+}
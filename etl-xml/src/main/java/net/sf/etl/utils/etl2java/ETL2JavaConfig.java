@@ -0,0 +1,65 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.etl2java;
+
+import net.sf.etl.utils.AbstractFileConverter;
+import net.sf.etl.utils.InvalidOptionValueException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+
+/**
+ * The configuration.
+ */
+public final class ETL2JavaConfig extends AbstractFileConverter.BaseConfig {
+    /**
+     * The constructor.
+     *
+     * @param commandLine the command line
+     */
+    public ETL2JavaConfig(final CommandLine commandLine) {
+        super(commandLine);
+    }
+
+    /**
+     * @return the options
+     */
+    public static Options getJavaOptions() {
+        final Options options = getBaseOptions();
+        options.addOption("n", "class-name", true, "the fully qualified name of the generated class");
+        return options;
+    }
+
+    /**
+     * @return the fully qualified name of the generated class
+     */
+    public String getClassName() {
+        final String name = getCommandLine().getOptionValue('n');
+        if (name == null || name.isBlank()) {
+            throw new InvalidOptionValueException("The class name must be specified with option -n");
+        }
+        return name.trim();
+    }
+}
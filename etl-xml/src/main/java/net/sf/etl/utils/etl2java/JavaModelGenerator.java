@@ -0,0 +1,642 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.etl2java;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
+
+import javax.lang.model.SourceVersion;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The generator of the Java source for the object models. The generated source contains a single outer class
+ * with a nested class for each object, enumerations of object types and properties, and a factory that uses
+ * switch based dispatch over these enumerations. The factory resolves object and property names by text only
+ * for the first occurrence of each name instance reported by the grammar, and then it uses identity caches.
+ */
+final class JavaModelGenerator {
+    /**
+     * The name of the base node class.
+     */
+    private static final String NODE = "Node";
+    /**
+     * The name of the location property.
+     */
+    private static final String LOCATION = "location";
+    /**
+     * The package name (might be empty).
+     */
+    private final String packageName;
+    /**
+     * The simple name of the generated class.
+     */
+    private final String className;
+    /**
+     * The generated types.
+     */
+    private final List<TypeInfo> types = new ArrayList<>();
+    /**
+     * The types by object name.
+     */
+    private final Map<ObjectName, TypeInfo> typesByName = new HashMap<>(); // NOPMD
+    /**
+     * The generated source.
+     */
+    private final StringBuilder out = new StringBuilder();
+
+    /**
+     * The constructor.
+     *
+     * @param qualifiedName the fully qualified name of the generated class
+     * @param models        the object models
+     */
+    JavaModelGenerator(final String qualifiedName, final Collection<ObjectModel> models) {
+        if (!SourceVersion.isName(qualifiedName)) {
+            throw new IllegalArgumentException("Invalid class name: " + qualifiedName);
+        }
+        final int p = qualifiedName.lastIndexOf('.');
+        this.packageName = p == -1 ? "" : qualifiedName.substring(0, p);
+        this.className = qualifiedName.substring(p + 1);
+        final Set<String> usedNames = new HashSet<>();
+        usedNames.add(className);
+        usedNames.add(NODE);
+        usedNames.add("Type");
+        usedNames.add("Property");
+        usedNames.add("Factory");
+        final Set<String> usedConstants = new HashSet<>();
+        usedConstants.add("LOCATION");
+        final Set<String> usedTypeConstants = new HashSet<>();
+        for (final ObjectModel model : models) {
+            final String javaName = unique(usedNames, capitalize(identifier(model.name().name())));
+            final TypeInfo type = new TypeInfo(model, javaName, unique(usedTypeConstants, constant(javaName)));
+            types.add(type);
+            typesByName.put(model.name(), type);
+        }
+        for (final TypeInfo type : types) {
+            final String typeConstant = type.constant;
+            final Set<String> usedFields = new HashSet<>();
+            usedFields.add(LOCATION);
+            for (final ObjectModel.PropertyModel property : type.model.properties()) {
+                String field = decapitalize(identifier(property.name()));
+                if (SourceVersion.isKeyword(field)) {
+                    field += "_";
+                }
+                field = unique(usedFields, field);
+                type.properties.add(new PropertyInfo(property, field,
+                        unique(usedConstants, typeConstant + "_" + constant(field)), elementType(property)));
+            }
+        }
+    }
+
+    /**
+     * Convert text to Java identifier.
+     *
+     * @param text the text
+     * @return the identifier
+     */
+    private static String identifier(final String text) {
+        final StringBuilder rc = new StringBuilder(text.length() + 1);
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            rc.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (rc.length() == 0 || !Character.isJavaIdentifierStart(rc.charAt(0))) {
+            rc.insert(0, '_');
+        }
+        return rc.toString();
+    }
+
+    /**
+     * Capitalize the identifier.
+     *
+     * @param text the identifier
+     * @return the capitalized identifier
+     */
+    private static String capitalize(final String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    /**
+     * Decapitalize the identifier.
+     *
+     * @param text the identifier
+     * @return the decapitalized identifier
+     */
+    private static String decapitalize(final String text) {
+        return Character.toLowerCase(text.charAt(0)) + text.substring(1);
+    }
+
+    /**
+     * Convert the camel case identifier to the constant name.
+     *
+     * @param text the identifier
+     * @return the constant name
+     */
+    private static String constant(final String text) {
+        final StringBuilder rc = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(text.charAt(i - 1))
+                    && text.charAt(i - 1) != '_') {
+                rc.append('_');
+            }
+            rc.append(c);
+        }
+        return rc.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Make the name unique by adding a numeric suffix if needed.
+     *
+     * @param used the used names
+     * @param name the name
+     * @return the unique name
+     */
+    private static String unique(final Set<String> used, final String name) {
+        String rc = name;
+        int i = 2;
+        while (!used.add(rc)) {
+            rc = name + i++;
+        }
+        return rc;
+    }
+
+    /**
+     * Get the Java type of the property value (element type for the list properties).
+     *
+     * @param property the property
+     * @return the type name
+     */
+    private String elementType(final ObjectModel.PropertyModel property) {
+        final boolean hasObjects = property.expressions() || !property.objects().isEmpty();
+        if (!hasObjects) {
+            return "String";
+        } else if (property.values()) {
+            return "Object";
+        } else if (!property.expressions() && property.objects().size() == 1
+                && typesByName.containsKey(property.objects().get(0))) {
+            return typesByName.get(property.objects().get(0)).javaName;
+        } else {
+            return NODE;
+        }
+    }
+
+    /**
+     * Escape the string for the Java string literal.
+     *
+     * @param text the text
+     * @return the literal
+     */
+    private static String literal(final String text) {
+        final StringBuilder rc = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                rc.append('\\').append(c);
+            } else if (c < ' ' || c > '~') {
+                rc.append("\\u%04x".formatted((int) c));
+            } else {
+                rc.append(c);
+            }
+        }
+        return rc.append('"').toString();
+    }
+
+    /**
+     * Append the line.
+     *
+     * @param indent the indentation level
+     * @param line   the line
+     */
+    private void line(final int indent, final String line) {
+        out.append("    ".repeat(indent)).append(line).append('\n');
+    }
+
+    /**
+     * Generate the source.
+     *
+     * @return the generated source
+     */
+    String generate() {
+        if (!packageName.isEmpty()) {
+            line(0, "package " + packageName + ";");
+            out.append('\n');
+        }
+        line(0, "import net.sf.etl.parsers.ObjectName;");
+        line(0, "import net.sf.etl.parsers.PropertyName;");
+        line(0, "import net.sf.etl.parsers.SourceLocation;");
+        line(0, "import net.sf.etl.parsers.StandardGrammars;");
+        line(0, "import net.sf.etl.parsers.event.tree.ObjectFactory;");
+        out.append('\n');
+        line(0, "import java.util.ArrayList;");
+        line(0, "import java.util.EnumMap;");
+        line(0, "import java.util.HashMap;");
+        line(0, "import java.util.IdentityHashMap;");
+        line(0, "import java.util.List;");
+        line(0, "import java.util.Map;");
+        out.append('\n');
+        line(0, "/**");
+        line(0, " * The model classes and the object factory generated from the grammar. Do not edit.");
+        line(0, " */");
+        line(0, "public final class " + className + " {");
+        line(1, "/**");
+        line(1, " * The private constructor.");
+        line(1, " */");
+        line(1, "private " + className + "() {");
+        line(1, "}");
+        out.append('\n');
+        generateNodes();
+        generateTypes();
+        generateProperties();
+        generateFactory();
+        line(0, "}");
+        return out.toString();
+    }
+
+    /**
+     * Generate node classes.
+     */
+    private void generateNodes() {
+        line(1, "/**");
+        line(1, " * The base class for nodes.");
+        line(1, " */");
+        line(1, "public abstract static class " + NODE + " {");
+        line(2, "/**");
+        line(2, " * The source location.");
+        line(2, " */");
+        line(2, "public SourceLocation " + LOCATION + ";");
+        line(1, "}");
+        for (final TypeInfo type : types) {
+            out.append('\n');
+            line(1, "/**");
+            line(1, " * The object {@code " + type.model.name().name() + "} from {@code "
+                    + type.model.name().namespace() + "}.");
+            line(1, " */");
+            line(1, "public static final class " + type.javaName + " extends " + NODE + " {");
+            for (final PropertyInfo property : type.properties) {
+                line(2, "/**");
+                line(2, " * The property {@code " + property.model.name() + "}.");
+                line(2, " */");
+                if (property.model.list()) {
+                    line(2, "public final List<" + property.type + "> " + property.field
+                            + " = new ArrayList<>();");
+                } else {
+                    line(2, "public " + property.type + " " + property.field + ";");
+                }
+            }
+            line(1, "}");
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Generate type enumeration.
+     */
+    private void generateTypes() {
+        line(1, "/**");
+        line(1, " * The object types.");
+        line(1, " */");
+        line(1, "public enum Type {");
+        for (final TypeInfo type : types) {
+            line(2, "/**");
+            line(2, " * The type for {@link " + type.javaName + "}.");
+            line(2, " */");
+            line(2, type.constant + "(new ObjectName(" + literal(type.model.name().namespace()) + ", "
+                    + literal(type.model.name().name()) + ")),");
+        }
+        line(2, ";");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * The object name.");
+        line(2, " */");
+        line(2, "private final ObjectName objectName;");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * The constructor.");
+        line(2, " *");
+        line(2, " * @param objectName the object name");
+        line(2, " */");
+        line(2, "Type(final ObjectName objectName) {");
+        line(3, "this.objectName = objectName;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * @return the object name");
+        line(2, " */");
+        line(2, "public ObjectName objectName() {");
+        line(3, "return objectName;");
+        line(2, "}");
+        line(1, "}");
+        out.append('\n');
+    }
+
+    /**
+     * Generate property enumeration.
+     */
+    private void generateProperties() {
+        line(1, "/**");
+        line(1, " * The properties.");
+        line(1, " */");
+        line(1, "public enum Property {");
+        line(2, "/**");
+        line(2, " * The location property of all nodes.");
+        line(2, " */");
+        line(2, "LOCATION(null, " + literal(LOCATION) + ", SourceLocation.class),");
+        for (final TypeInfo type : types) {
+            for (final PropertyInfo property : type.properties) {
+                line(2, "/**");
+                line(2, " * The property {@link " + type.javaName + "#" + property.field + "}.");
+                line(2, " */");
+                line(2, property.constant + "(Type." + type.constant + ", "
+                        + literal(property.model.name()) + ", " + property.type + ".class),");
+            }
+        }
+        line(2, ";");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * The owner type (null for the properties of all nodes).");
+        line(2, " */");
+        line(2, "private final Type owner;");
+        line(2, "/**");
+        line(2, " * The property name in the grammar.");
+        line(2, " */");
+        line(2, "private final String propertyName;");
+        line(2, "/**");
+        line(2, " * The type of the values (element type for the list properties).");
+        line(2, " */");
+        line(2, "private final Class<?> valueType;");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * The constructor.");
+        line(2, " *");
+        line(2, " * @param owner        the owner type");
+        line(2, " * @param propertyName the property name");
+        line(2, " * @param valueType    the type of the values");
+        line(2, " */");
+        line(2, "Property(final Type owner, final String propertyName, final Class<?> valueType) {");
+        line(3, "this.owner = owner;");
+        line(3, "this.propertyName = propertyName;");
+        line(3, "this.valueType = valueType;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * @return the owner type (null for the properties of all nodes)");
+        line(2, " */");
+        line(2, "public Type owner() {");
+        line(3, "return owner;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * @return the property name in the grammar");
+        line(2, " */");
+        line(2, "public String propertyName() {");
+        line(3, "return propertyName;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * @return the type of the values");
+        line(2, " */");
+        line(2, "public Class<?> valueType() {");
+        line(3, "return valueType;");
+        line(2, "}");
+        line(1, "}");
+        out.append('\n');
+    }
+
+    /**
+     * Generate the factory.
+     */
+    private void generateFactory() { // NOPMD
+        line(1, "/**");
+        line(1, " * The object factory. The list values are added directly to the node lists, so the holder");
+        line(1, " * object is not used. The factory uses the location position policy by default. The names");
+        line(1, " * reported by the grammar are resolved by text once, and then they are cached by identity.");
+        line(1, " * The factory is not thread safe.");
+        line(1, " */");
+        line(1, "public static final class Factory extends ObjectFactory<" + NODE + ", Property, Type, Object> {");
+        line(2, "/**");
+        line(2, " * The maximum amount of cached name instances for each cache.");
+        line(2, " */");
+        line(2, "private static final int MAX_CACHED_NAMES = 4096;");
+        line(2, "/**");
+        line(2, " * The types by object name.");
+        line(2, " */");
+        line(2, "private static final Map<ObjectName, Type> TYPES = new HashMap<>();");
+        line(2, "/**");
+        line(2, " * The properties by type and name.");
+        line(2, " */");
+        line(2, "private static final Map<Type, Map<String, Property>> PROPERTIES = new EnumMap<>(Type.class);");
+        out.append('\n');
+        line(2, "static {");
+        line(3, "for (final Type type : Type.values()) {");
+        line(4, "TYPES.put(type.objectName(), type);");
+        line(4, "PROPERTIES.put(type, new HashMap<>());");
+        line(3, "}");
+        line(3, "for (final Property property : Property.values()) {");
+        line(4, "if (property.owner() != null) {");
+        line(5, "PROPERTIES.get(property.owner()).put(property.propertyName(), property);");
+        line(4, "}");
+        line(3, "}");
+        line(2, "}");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * The types by object name instance.");
+        line(2, " */");
+        line(2, "private final Map<ObjectName, Type> typeCache = new IdentityHashMap<>();");
+        line(2, "/**");
+        line(2, " * The properties by type and property name instance.");
+        line(2, " */");
+        line(2, "private final Map<Type, Map<PropertyName, Property>> propertyCache = new EnumMap<>(Type.class);");
+        out.append('\n');
+        line(2, "/**");
+        line(2, " * The constructor.");
+        line(2, " */");
+        line(2, "public Factory() {");
+        line(3, "setPosPolicy(PositionPolicyLocation.get());");
+        line(3, "ignoreNamespace(StandardGrammars.DOCTYPE_NS);");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "protected Class<?> getFeatureType(final Property feature) {");
+        line(3, "return feature.valueType();");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "public void setToFeature(final " + NODE + " rc, final Property f, final Object v) {");
+        line(3, "switch (f) {");
+        line(4, "case LOCATION -> rc." + LOCATION + " = (SourceLocation) v;");
+        for (final TypeInfo type : types) {
+            for (final PropertyInfo property : type.properties) {
+                if (!property.model.list()) {
+                    line(4, "case " + property.constant + " -> ((" + type.javaName + ") rc)." + property.field
+                            + " = (" + property.type + ") v;");
+                }
+            }
+        }
+        line(4, "default -> throw new IllegalArgumentException(\"The property is a list property: \" + f);");
+        line(3, "}");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "public void addToFeature(final " + NODE + " rc, final Property f, final Object holder, "
+                + "final Object v) {");
+        line(3, "switch (f) {");
+        for (final TypeInfo type : types) {
+            for (final PropertyInfo property : type.properties) {
+                if (property.model.list()) {
+                    line(4, "case " + property.constant + " -> ((" + type.javaName + ") rc)." + property.field
+                            + ".add((" + property.type + ") v);");
+                }
+            }
+        }
+        line(4, "default -> throw new IllegalArgumentException(\"The property is not a list property: \" + f);");
+        line(3, "}");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "public Object startListCollection(final " + NODE + " rc, final Type metaObject, final Property f) {");
+        line(3, "return null;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "public void endListCollection(final " + NODE + " rc, final Type metaObject, final Property f,");
+        line(2, "                              final Object holder) {");
+        line(3, "// the values are already added to the list");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "public Property getPropertyMetaObject(final " + NODE + " rc, final Type metaObject, "
+                + "final String name) {");
+        line(3, "final Property property = PROPERTIES.get(metaObject).get(name);");
+        line(3, "if (property != null) {");
+        line(4, "return property;");
+        line(3, "}");
+        line(3, "if (" + literal(LOCATION) + ".equals(name)) {");
+        line(4, "return Property.LOCATION;");
+        line(3, "}");
+        line(3, "throw new IllegalArgumentException(\"Unknown property \" + name + \" in \" + metaObject);");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "protected Property getPropertyMetaObject(final " + NODE + " rc, final Type metaObject, "
+                + "final PropertyName name) {");
+        line(3, "final Map<PropertyName, Property> cache = propertyCache.computeIfAbsent(metaObject,");
+        line(5, "t -> new IdentityHashMap<>());");
+        line(3, "Property property = cache.get(name);");
+        line(3, "if (property == null) {");
+        line(4, "property = getPropertyMetaObject(rc, metaObject, name.name());");
+        line(4, "if (cache.size() >= MAX_CACHED_NAMES) {");
+        line(5, "cache.clear();");
+        line(4, "}");
+        line(4, "cache.put(name, property);");
+        line(3, "}");
+        line(3, "return property;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "protected Type getMetaObject(final ObjectName name) {");
+        line(3, "Type rc = typeCache.get(name);");
+        line(3, "if (rc == null) {");
+        line(4, "rc = TYPES.get(name);");
+        line(4, "if (rc == null) {");
+        line(5, "throw new IllegalArgumentException(\"Unknown object: \" + name);");
+        line(4, "}");
+        line(4, "if (typeCache.size() >= MAX_CACHED_NAMES) {");
+        line(5, "typeCache.clear();");
+        line(4, "}");
+        line(4, "typeCache.put(name, rc);");
+        line(3, "}");
+        line(3, "return rc;");
+        line(2, "}");
+        out.append('\n');
+        line(2, "@Override");
+        line(2, "protected " + NODE + " createInstance(final Type metaObject, final ObjectName name) {");
+        if (types.isEmpty()) {
+            line(3, "throw new IllegalArgumentException(\"Unknown object: \" + name);");
+        } else {
+            line(3, "return switch (metaObject) {");
+            for (final TypeInfo type : types) {
+                line(4, "case " + type.constant + " -> new " + type.javaName + "();");
+            }
+            line(3, "};");
+        }
+        line(2, "}");
+        line(1, "}");
+    }
+
+    /**
+     * The information about generated type.
+     */
+    private static final class TypeInfo {
+        /**
+         * The object model.
+         */
+        private final ObjectModel model;
+        /**
+         * The Java name.
+         */
+        private final String javaName;
+        /**
+         * The enumeration constant name.
+         */
+        private final String constant;
+        /**
+         * The properties.
+         */
+        private final List<PropertyInfo> properties = new ArrayList<>();
+
+        /**
+         * The constructor.
+         *
+         * @param model    the object model
+         * @param javaName the java name
+         * @param constant the enumeration constant name
+         */
+        private TypeInfo(final ObjectModel model, final String javaName, final String constant) {
+            this.model = model;
+            this.javaName = javaName;
+            this.constant = constant;
+        }
+    }
+
+    /**
+     * The information about generated property.
+     *
+     * @param model    the property model
+     * @param field    the field name
+     * @param constant the enumeration constant name
+     * @param type     the Java type of the value (element type for the list properties)
+     */
+    private record PropertyInfo(ObjectModel.PropertyModel model, String field, String constant, String type) {
+    }
+}
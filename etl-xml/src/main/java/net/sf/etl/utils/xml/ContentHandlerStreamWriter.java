@@ -0,0 +1,487 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.xml;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The stream writer that reports events to SAX content handler. It is used to pipe XML outputs directly into
+ * the XSLT {@link javax.xml.transform.sax.TransformerHandler} without serializing the document to text.
+ * The start tag is reported when the next event arrives, so attributes and namespace declarations could be added
+ * after the start element call as in usual stream writers. Comments, CDATA sections, document type declarations,
+ * and entity references are reported only if the handler is also {@link LexicalHandler}, otherwise they are
+ * ignored (the CDATA text is still reported as characters). The internal subset of the document type declaration
+ * is not reported.
+ */
+final class ContentHandlerStreamWriter implements XMLStreamWriter {
+    /**
+     * The pattern for the document type declaration. The groups are the root element name, the public id
+     * in double or single quotes, and the system id in double or single quotes.
+     */
+    private static final Pattern DOCTYPE = Pattern.compile("<!DOCTYPE\\s+([^\\s\\[>]+)(?:\\s+(?:PUBLIC\\s+"
+            + "(?:\"([^\"]*)\"|'([^']*)')|SYSTEM)\\s+(?:\"([^\"]*)\"|'([^']*)'))?.*", Pattern.DOTALL);
+    /**
+     * The content handler.
+     */
+    private final ContentHandler handler;
+    /**
+     * The lexical handler (null if lexical events are not reported).
+     */
+    private final LexicalHandler lexicalHandler;
+    /**
+     * The namespace context.
+     */
+    private final NamespaceSupport namespaces = new NamespaceSupport();
+    /**
+     * The open elements.
+     */
+    private final List<Element> elements = new ArrayList<>();
+    /**
+     * The started element whose start tag is not yet reported.
+     */
+    private Element pending;
+    /**
+     * The namespace context set by user.
+     */
+    private NamespaceContext namespaceContext;
+
+    /**
+     * The constructor.
+     *
+     * @param handler the content handler
+     */
+    ContentHandlerStreamWriter(final ContentHandler handler) {
+        this.handler = handler;
+        this.lexicalHandler = handler instanceof LexicalHandler l ? l : null;
+    }
+
+    /**
+     * Get qualified name.
+     *
+     * @param prefix    the prefix
+     * @param localName the local name
+     * @return the qualified name
+     */
+    private static String qName(final String prefix, final String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * Report the start tag of the pending element.
+     *
+     * @throws XMLStreamException in case of handler problem
+     */
+    private void flushPending() throws XMLStreamException {
+        if (pending == null) {
+            return;
+        }
+        final Element e = pending;
+        pending = null;
+        try {
+            for (final String prefix : e.declaredPrefixes) {
+                handler.startPrefixMapping(prefix, namespaces.getURI(prefix));
+            }
+            handler.startElement(e.namespace, e.localName, e.qName, e.attributes);
+            if (e.empty) {
+                endElement(e);
+            } else {
+                elements.add(e);
+            }
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    /**
+     * Report end of the element.
+     *
+     * @param e the element
+     * @throws SAXException in case of handler problem
+     */
+    private void endElement(final Element e) throws SAXException {
+        handler.endElement(e.namespace, e.localName, e.qName);
+        for (final String prefix : e.declaredPrefixes) {
+            handler.endPrefixMapping(prefix);
+        }
+        namespaces.popContext();
+    }
+
+    /**
+     * Start the element.
+     *
+     * @param prefix    the prefix
+     * @param localName the local name
+     * @param namespace the namespace
+     * @param empty     true if the element is empty
+     * @throws XMLStreamException in case of handler problem
+     */
+    private void start(final String prefix, final String localName, final String namespace, final boolean empty)
+            throws XMLStreamException {
+        flushPending();
+        namespaces.pushContext();
+        pending = new Element(namespace == null ? "" : namespace, localName, qName(prefix, localName), empty);
+    }
+
+    /**
+     * @return the pending element
+     * @throws XMLStreamException if there is no pending element
+     */
+    private Element pendingElement() throws XMLStreamException {
+        if (pending == null) {
+            throw new XMLStreamException("Attributes and namespaces could be written only after start element");
+        }
+        return pending;
+    }
+
+    @Override
+    public void writeStartElement(final String localName) throws XMLStreamException {
+        start(null, localName, namespaces.getURI(""), false);
+    }
+
+    @Override
+    public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        start(getPrefix(namespaceURI), localName, namespaceURI, false);
+    }
+
+    @Override
+    public void writeStartElement(final String prefix, final String localName, final String namespaceURI)
+            throws XMLStreamException {
+        start(prefix, localName, namespaceURI, false);
+    }
+
+    @Override
+    public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        start(getPrefix(namespaceURI), localName, namespaceURI, true);
+    }
+
+    @Override
+    public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI)
+            throws XMLStreamException {
+        start(prefix, localName, namespaceURI, true);
+    }
+
+    @Override
+    public void writeEmptyElement(final String localName) throws XMLStreamException {
+        start(null, localName, namespaces.getURI(""), true);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        flushPending();
+        if (elements.isEmpty()) {
+            throw new XMLStreamException("There is no open element");
+        }
+        try {
+            endElement(elements.remove(elements.size() - 1));
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        flushPending();
+        while (!elements.isEmpty()) {
+            writeEndElement();
+        }
+        try {
+            handler.endDocument();
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+
+    @Override
+    public void flush() {
+        // events are reported immediately
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+        pendingElement().attributes.addAttribute("", localName, localName, "CDATA", value);
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName,
+                               final String value) throws XMLStreamException {
+        pendingElement().attributes.addAttribute(namespaceURI, localName, qName(prefix, localName), "CDATA",
+                value);
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String value)
+            throws XMLStreamException {
+        writeAttribute(getPrefix(namespaceURI), namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+        final String p = prefix == null || XMLConstants.XMLNS_ATTRIBUTE.equals(prefix) ? "" : prefix;
+        pendingElement().declaredPrefixes.add(p);
+        namespaces.declarePrefix(p, namespaceURI);
+    }
+
+    @Override
+    public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+        writeNamespace("", namespaceURI);
+    }
+
+    @Override
+    public void writeComment(final String data) throws XMLStreamException {
+        flushPending();
+        if (lexicalHandler != null) {
+            try {
+                lexicalHandler.comment(data.toCharArray(), 0, data.length());
+            } catch (SAXException ex) {
+                throw new XMLStreamException(ex);
+            }
+        }
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target) throws XMLStreamException {
+        final String text = target.strip();
+        final int p = text.indexOf(' ');
+        writeProcessingInstruction(p == -1 ? text : text.substring(0, p), p == -1 ? "" : text.substring(p + 1));
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+        flushPending();
+        try {
+            handler.processingInstruction(target, data);
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void writeCData(final String data) throws XMLStreamException {
+        flushPending();
+        if (lexicalHandler == null) {
+            writeCharacters(data);
+            return;
+        }
+        try {
+            lexicalHandler.startCDATA();
+            writeCharacters(data);
+            lexicalHandler.endCDATA();
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void writeDTD(final String dtd) throws XMLStreamException {
+        if (lexicalHandler == null) {
+            return;
+        }
+        final Matcher m = DOCTYPE.matcher(dtd.strip());
+        if (!m.matches()) {
+            throw new XMLStreamException("Invalid document type declaration: " + dtd);
+        }
+        final String publicId = m.group(2) != null ? m.group(2) : m.group(3);
+        final String systemId = m.group(4) != null ? m.group(4) : m.group(5);
+        try {
+            lexicalHandler.startDTD(m.group(1), publicId, systemId);
+            lexicalHandler.endDTD();
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void writeEntityRef(final String name) throws XMLStreamException {
+        flushPending();
+        if (lexicalHandler == null) {
+            return;
+        }
+        try {
+            lexicalHandler.startEntity(name);
+            lexicalHandler.endEntity(name);
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        try {
+            handler.startDocument();
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void writeStartDocument(final String version) throws XMLStreamException {
+        writeStartDocument();
+    }
+
+    @Override
+    public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+        writeStartDocument();
+    }
+
+    @Override
+    public void writeCharacters(final String text) throws XMLStreamException {
+        writeCharacters(text.toCharArray(), 0, text.length());
+    }
+
+    @Override
+    public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+        flushPending();
+        try {
+            handler.characters(text, start, len);
+        } catch (SAXException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public String getPrefix(final String uri) {
+        if (namespaceContext != null) {
+            final String prefix = namespaceContext.getPrefix(uri);
+            if (prefix != null) {
+                return prefix;
+            }
+        }
+        if (uri == null || uri.isEmpty()) {
+            return "";
+        }
+        if (uri.equals(namespaces.getURI(""))) {
+            return "";
+        }
+        return namespaces.getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(final String prefix, final String uri) {
+        namespaces.declarePrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(final String uri) {
+        namespaces.declarePrefix("", uri);
+    }
+
+    @Override
+    public void setNamespaceContext(final NamespaceContext context) {
+        this.namespaceContext = context;
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(final String prefix) {
+                final String uri = namespaces.getURI(prefix);
+                return uri == null ? XMLConstants.NULL_NS_URI : uri;
+            }
+
+            @Override
+            public String getPrefix(final String namespaceURI) {
+                return ContentHandlerStreamWriter.this.getPrefix(namespaceURI);
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(final String namespaceURI) {
+                final String prefix = getPrefix(namespaceURI);
+                return prefix == null ? Collections.emptyIterator() : List.of(prefix).iterator();
+            }
+        };
+    }
+
+    @Override
+    public Object getProperty(final String name) {
+        throw new IllegalArgumentException("The property is not supported: " + name);
+    }
+
+    /**
+     * The element information.
+     */
+    private static final class Element {
+        /**
+         * The namespace URI.
+         */
+        private final String namespace;
+        /**
+         * The local name.
+         */
+        private final String localName;
+        /**
+         * The qualified name.
+         */
+        private final String qName;
+        /**
+         * True if the element is empty.
+         */
+        private final boolean empty;
+        /**
+         * The attributes.
+         */
+        private final AttributesImpl attributes = new AttributesImpl();
+        /**
+         * The prefixes declared on the element.
+         */
+        private final List<String> declaredPrefixes = new ArrayList<>(1);
+
+        /**
+         * The constructor.
+         *
+         * @param namespace the namespace URI
+         * @param localName the local name
+         * @param qName     the qualified name
+         * @param empty     true if the element is empty
+         */
+        private Element(final String namespace, final String localName, final String qName, final boolean empty) {
+            this.namespace = namespace;
+            this.localName = localName;
+            this.qName = qName;
+            this.empty = empty;
+        }
+    }
+}
@@ -35,14 +35,12 @@ import org.slf4j.LoggerFactory;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.Templates;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import java.io.File;
 import java.io.OutputStream;
-import java.io.StringReader;
-import java.io.StringWriter;
 
 /**
  * Converter from ETL source to different XML presentations.
@@ -58,6 +56,10 @@ public final class ETL2XML extends AbstractFileConverter<ETL2XMLConfig> {
      * the instance of transformer.
      */
     private Templates templates;
+    /**
+     * The transformer factory used to create templates.
+     */
+    private SAXTransformerFactory transformerFactory;
 
     /**
      * The constructor.
@@ -98,14 +100,13 @@ public final class ETL2XML extends AbstractFileConverter<ETL2XMLConfig> {
 
         if (OutputFormat.TREE == outputKind) {
             final TreeOutput out = new TreeOutput();
+            out.setDirectWriter(getConfig().isDirectWriter());
             out.process(p, stream);
         } else if (OutputFormat.XMI == outputKind) {
             final XMLOutput out = new XMIOutput(getConfig().isAvoidAttributes());
+            out.setDirectWriter(getConfig().isDirectWriter());
             out.process(p, stream);
         } else if (OutputFormat.HTML == outputKind || OutputFormat.TEXT == outputKind) {
-            final StringWriter sw = new StringWriter();
-            final XMLOutput out = new PresentationOutput(null, null);
-            out.process(p, sw);
             // resolve stylesheets for the resolver
             if (templates == null) {
                 final String styleFileName = getConfig().getStyle();
@@ -121,13 +122,21 @@ public final class ETL2XML extends AbstractFileConverter<ETL2XMLConfig> {
                 }
                 final Source source = resolver.resolve(transform, null);
                 final TransformerFactory tf = TransformerFactory.newInstance();
+                if (!tf.getFeature(SAXTransformerFactory.FEATURE)) {
+                    throw new IllegalStateException("The transformer factory does not support SAX: " + tf);
+                }
                 tf.setURIResolver(resolver);
+                transformerFactory = (SAXTransformerFactory) tf;
                 templates = tf.newTemplates(source);
             }
-            final Transformer t = templates.newTransformer();
-            t.transform(new StreamSource(new StringReader(sw.toString())), new StreamResult(stream));
+            // the presentation events are piped directly into the transformation
+            final TransformerHandler handler = transformerFactory.newTransformerHandler(templates);
+            handler.setResult(new StreamResult(stream));
+            final XMLOutput out = new PresentationOutput(null, null);
+            out.process(p, handler);
         } else if (OutputFormat.PRESENTATION == outputKind) {
             final XMLOutput out = new PresentationOutput(getConfig().getStyle(), getConfig().getStyleType());
+            out.setDirectWriter(getConfig().isDirectWriter());
             out.process(p, stream);
         } else {
             throw new InvalidOptionValueException("The format " + outputKind + " is not yet supported.");
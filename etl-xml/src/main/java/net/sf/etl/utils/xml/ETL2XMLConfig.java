@@ -54,6 +54,8 @@ public final class ETL2XMLConfig extends AbstractFileConverter.BaseConfig {
         options.addOption("s", "style", true, "style file name");
         options.addOption("T", "style-type", true, "style media type");
         options.addOption("a", "avoid-attributes", false, "avoid usage of xml attributes in xmi output.");
+        options.addOption("w", "direct-writer", false,
+                "use direct UTF-8 writer for 'presentation', 'xmi', and 'tree' formats.");
         return options;
     }
 
@@ -84,4 +86,11 @@ public final class ETL2XMLConfig extends AbstractFileConverter.BaseConfig {
     public boolean isAvoidAttributes() {
         return getCommandLine().hasOption('a');
     }
+
+    /**
+     * @return true if the direct UTF-8 writer should be used
+     */
+    public boolean isDirectWriter() {
+        return getCommandLine().hasOption('w');
+    }
 }
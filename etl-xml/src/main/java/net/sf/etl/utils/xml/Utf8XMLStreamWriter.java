@@ -0,0 +1,540 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.xml;
+
+import org.xml.sax.helpers.NamespaceSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The stream writer that writes UTF-8 encoded XML directly to the byte buffer. The element, attribute, and
+ * namespace names are encoded once and cached, and the text that consists of ASCII characters is escaped and
+ * copied to the buffer without intermediate objects. The writer produces the same text as the default
+ * JDK writer in non-repairing mode, but it does not check well-formedness of the output. The XML declaration
+ * is written only if {@link #writeStartDocument()} is invoked, and the underlying stream is not closed
+ * by {@link #close()}.
+ */
+final class Utf8XMLStreamWriter implements XMLStreamWriter {
+    /**
+     * The buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The maximum amount of bytes produced by the single char.
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+    /**
+     * The output stream.
+     */
+    private final OutputStream out;
+    /**
+     * The output buffer.
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    /**
+     * The encoded names.
+     */
+    private final Map<String, byte[]> names = new HashMap<>(); // NOPMD
+    /**
+     * The names of open elements.
+     */
+    private final List<byte[]> elements = new ArrayList<>();
+    /**
+     * The namespace context.
+     */
+    private final NamespaceSupport namespaces = new NamespaceSupport();
+    /**
+     * The position in the buffer.
+     */
+    private int position;
+    /**
+     * True if the start tag is not yet closed.
+     */
+    private boolean startTagOpen;
+    /**
+     * True if the open start tag is for empty element.
+     */
+    private boolean emptyElement;
+    /**
+     * The namespace context set by user.
+     */
+    private NamespaceContext namespaceContext;
+
+    /**
+     * The constructor.
+     *
+     * @param out the output stream
+     */
+    Utf8XMLStreamWriter(final OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Get encoded name.
+     *
+     * @param prefix    the prefix
+     * @param localName the local name
+     * @return the encoded qualified name
+     */
+    private byte[] name(final String prefix, final String localName) {
+        final String qName = prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+        return names.computeIfAbsent(qName, n -> n.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ensure that buffer has space.
+     *
+     * @param size the required space
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void ensure(final int size) throws XMLStreamException {
+        if (position + size > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Write buffer to the stream.
+     *
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void flushBuffer() throws XMLStreamException {
+        try {
+            out.write(buffer, 0, position);
+            position = 0;
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    /**
+     * Write byte.
+     *
+     * @param b the byte
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void write(final int b) throws XMLStreamException {
+        ensure(1);
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Write bytes.
+     *
+     * @param bytes the bytes
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void write(final byte[] bytes) throws XMLStreamException {
+        if (bytes.length > buffer.length) {
+            flushBuffer();
+            try {
+                out.write(bytes);
+            } catch (IOException ex) {
+                throw new XMLStreamException(ex);
+            }
+            return;
+        }
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Write ASCII string without escaping.
+     *
+     * @param text the text
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void writeRaw(final String text) throws XMLStreamException {
+        writeText(text, 0, text.length(), false, false);
+    }
+
+    /**
+     * Write the text.
+     *
+     * @param text      the text
+     * @param start     the start index
+     * @param end       the end index
+     * @param escape    if true, markup characters are escaped
+     * @param attribute if true, quotes are escaped too
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void writeText(final CharSequence text, final int start, final int end, final boolean escape,
+                           final boolean attribute) throws XMLStreamException {
+        final byte[] b = buffer;
+        for (int i = start; i < end; i++) {
+            if (position + MAX_CHAR_BYTES > b.length) {
+                flushBuffer();
+            }
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                if (escape && (c == '<' || c == '>' || c == '&' || attribute && c == '"')) {
+                    escape(c);
+                } else {
+                    b[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                b[position++] = (byte) (0xC0 | c >> 6);
+                b[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, text.charAt(++i));
+                b[position++] = (byte) (0xF0 | cp >> 18);
+                b[position++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                b[position++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                b[position++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                b[position++] = '?';
+            } else {
+                b[position++] = (byte) (0xE0 | c >> 12);
+                b[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                b[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * Write escaped character.
+     *
+     * @param c the character
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void escape(final char c) throws XMLStreamException {
+        switch (c) {
+            case '<' -> writeRaw("&lt;");
+            case '>' -> writeRaw("&gt;");
+            case '&' -> writeRaw("&amp;");
+            case '"' -> writeRaw("&quot;");
+            default -> write(c);
+        }
+    }
+
+    /**
+     * Close the start tag if it is open.
+     *
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void closeStartTag() throws XMLStreamException {
+        if (startTagOpen) {
+            startTagOpen = false;
+            if (emptyElement) {
+                emptyElement = false;
+                write('/');
+                write('>');
+                namespaces.popContext();
+            } else {
+                write('>');
+            }
+        }
+    }
+
+    /**
+     * Start the element.
+     *
+     * @param prefix    the prefix
+     * @param localName the local name
+     * @param empty     true if the element is empty
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void start(final String prefix, final String localName, final boolean empty) throws XMLStreamException {
+        closeStartTag();
+        namespaces.pushContext();
+        final byte[] name = name(prefix, localName);
+        write('<');
+        write(name);
+        if (!empty) {
+            elements.add(name);
+        }
+        startTagOpen = true;
+        emptyElement = empty;
+    }
+
+    @Override
+    public void writeStartElement(final String localName) throws XMLStreamException {
+        start(null, localName, false);
+    }
+
+    @Override
+    public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        start(getPrefix(namespaceURI), localName, false);
+    }
+
+    @Override
+    public void writeStartElement(final String prefix, final String localName, final String namespaceURI)
+            throws XMLStreamException {
+        start(prefix, localName, false);
+    }
+
+    @Override
+    public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        start(getPrefix(namespaceURI), localName, true);
+    }
+
+    @Override
+    public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI)
+            throws XMLStreamException {
+        start(prefix, localName, true);
+    }
+
+    @Override
+    public void writeEmptyElement(final String localName) throws XMLStreamException {
+        start(null, localName, true);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        closeStartTag();
+        if (elements.isEmpty()) {
+            throw new XMLStreamException("There is no open element");
+        }
+        final byte[] name = elements.remove(elements.size() - 1);
+        write('<');
+        write('/');
+        write(name);
+        write('>');
+        namespaces.popContext();
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        closeStartTag();
+        while (!elements.isEmpty()) {
+            writeEndElement();
+        }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        flush();
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        flushBuffer();
+        try {
+            out.flush();
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    /**
+     * Write attribute with encoded name.
+     *
+     * @param name  the encoded name
+     * @param value the value
+     * @throws XMLStreamException in case of IO problem
+     */
+    private void attribute(final byte[] name, final String value) throws XMLStreamException {
+        if (!startTagOpen) {
+            throw new XMLStreamException("Attributes and namespaces could be written only after start element");
+        }
+        write(' ');
+        write(name);
+        write('=');
+        write('"');
+        writeText(value, 0, value.length(), true, true);
+        write('"');
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+        attribute(name(null, localName), value);
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName,
+                               final String value) throws XMLStreamException {
+        attribute(name(prefix, localName), value);
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String value)
+            throws XMLStreamException {
+        attribute(name(getPrefix(namespaceURI), localName), value);
+    }
+
+    @Override
+    public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+        if (prefix == null || prefix.isEmpty() || XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+            writeDefaultNamespace(namespaceURI);
+            return;
+        }
+        namespaces.declarePrefix(prefix, namespaceURI);
+        attribute(name(XMLConstants.XMLNS_ATTRIBUTE, prefix), namespaceURI);
+    }
+
+    @Override
+    public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+        namespaces.declarePrefix("", namespaceURI);
+        attribute(name(null, XMLConstants.XMLNS_ATTRIBUTE), namespaceURI);
+    }
+
+    @Override
+    public void writeComment(final String data) throws XMLStreamException {
+        closeStartTag();
+        writeRaw("<!--");
+        writeText(data, 0, data.length(), false, false);
+        writeRaw("-->");
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target) throws XMLStreamException {
+        closeStartTag();
+        writeRaw("<?");
+        writeText(target, 0, target.length(), false, false);
+        writeRaw("?>");
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+        closeStartTag();
+        writeRaw("<?");
+        writeText(target, 0, target.length(), false, false);
+        write(' ');
+        writeText(data, 0, data.length(), false, false);
+        writeRaw("?>");
+    }
+
+    @Override
+    public void writeCData(final String data) throws XMLStreamException {
+        closeStartTag();
+        writeRaw("<![CDATA[");
+        writeText(data, 0, data.length(), false, false);
+        writeRaw("]]>");
+    }
+
+    @Override
+    public void writeDTD(final String dtd) throws XMLStreamException {
+        writeText(dtd, 0, dtd.length(), false, false);
+    }
+
+    @Override
+    public void writeEntityRef(final String name) throws XMLStreamException {
+        closeStartTag();
+        write('&');
+        writeText(name, 0, name.length(), false, false);
+        write(';');
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        writeStartDocument("1.0");
+    }
+
+    @Override
+    public void writeStartDocument(final String version) throws XMLStreamException {
+        writeRaw("<?xml version=\"" + version + "\"?>");
+    }
+
+    @Override
+    public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+        if (!StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding)) {
+            throw new XMLStreamException("Only UTF-8 encoding is supported: " + encoding);
+        }
+        writeRaw("<?xml version=\"" + version + "\" encoding=\"" + encoding + "\"?>");
+    }
+
+    @Override
+    public void writeCharacters(final String text) throws XMLStreamException {
+        closeStartTag();
+        writeText(text, 0, text.length(), true, false);
+    }
+
+    @Override
+    public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+        closeStartTag();
+        writeText(CharBuffer.wrap(text), start, start + len, true, false);
+    }
+
+    @Override
+    public String getPrefix(final String uri) {
+        if (namespaceContext != null) {
+            final String prefix = namespaceContext.getPrefix(uri);
+            if (prefix != null) {
+                return prefix;
+            }
+        }
+        if (uri == null || uri.isEmpty() || uri.equals(namespaces.getURI(""))) {
+            return "";
+        }
+        return namespaces.getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(final String prefix, final String uri) {
+        namespaces.declarePrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(final String uri) {
+        namespaces.declarePrefix("", uri);
+    }
+
+    @Override
+    public void setNamespaceContext(final NamespaceContext context) {
+        this.namespaceContext = context;
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(final String prefix) {
+                final String uri = namespaces.getURI(prefix);
+                return uri == null ? XMLConstants.NULL_NS_URI : uri;
+            }
+
+            @Override
+            public String getPrefix(final String namespaceURI) {
+                return Utf8XMLStreamWriter.this.getPrefix(namespaceURI);
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(final String namespaceURI) {
+                final String prefix = getPrefix(namespaceURI);
+                return prefix == null ? Collections.emptyIterator() : List.of(prefix).iterator();
+            }
+        };
+    }
+
+    @Override
+    public Object getProperty(final String name) {
+        throw new IllegalArgumentException("The property is not supported: " + name);
+    }
+}
@@ -27,6 +27,7 @@ package net.sf.etl.utils.xml;
 import net.sf.etl.parsers.streams.TermParserReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -95,6 +96,21 @@ public abstract class XMLOutput {
      * The map from namespace to prefix name.
      */
     private final Map<String, String> prefixes = new HashMap<>(); // NOPMD
+    /**
+     * If true, the direct UTF-8 writer is used for the output streams instead of the default StAX writer.
+     */
+    private boolean directWriter;
+
+    /**
+     * Select the writer used for the output streams. The direct writer encodes the text to UTF-8 without
+     * intermediate character streams and caches the encoded names. It produces the same text as the default
+     * StAX writer, but it does not check well-formedness of the output.
+     *
+     * @param directWriter if true, the direct UTF-8 writer is used
+     */
+    public final void setDirectWriter(final boolean directWriter) {
+        this.directWriter = directWriter;
+    }
 
     /**
      * Start processing input and generating output.
@@ -107,6 +123,16 @@ public abstract class XMLOutput {
         // TODO refactor to use constructors
         try {
             this.parser = newParser;
+            if (directWriter) {
+                try {
+                    this.out = new Utf8XMLStreamWriter(output);
+                    process();
+                    out.flush();
+                } finally {
+                    output.close();
+                }
+                return;
+            }
             final XMLOutputFactory factory = XMLOutputFactory.newInstance();
             final Writer w = new OutputStreamWriter(output, StandardCharsets.UTF_8);
             try {
@@ -138,6 +164,25 @@ public abstract class XMLOutput {
         }
     }
 
+    /**
+     * Start processing input and report the output as SAX events. The document start and end events are
+     * reported as well, so the handler could be used as the source for the XSLT transformation.
+     *
+     * @param newParser parser to use
+     * @param handler   the content handler for the output
+     */
+    public final void process(final TermParserReader newParser, final ContentHandler handler) {
+        try {
+            this.parser = newParser;
+            this.out = new ContentHandlerStreamWriter(handler);
+            out.writeStartDocument();
+            process();
+            out.writeEndDocument();
+        } catch (final Exception ex) { // NOPMD
+            LOG.error("Processing failed: " + parser.getSystemId(), ex);
+        }
+    }
+
     /**
      * Generate prefix by namespace.
      *
@@ -0,0 +1,255 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.ast;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.TextPos;
+import net.sf.etl.utils.ConverterTestBase;
+import net.sf.etl.utils.etl2beans.ETL2Beans;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for the streaming AST formats.
+ */
+public class AstFormatTest extends ConverterTestBase {
+    /**
+     * The test namespace.
+     */
+    private static final String NS = "urn:test";
+
+    /**
+     * Read all objects.
+     *
+     * @param format the format
+     * @param data   the data
+     * @return the objects
+     * @throws IOException in case of IO problem
+     */
+    private static List<AstNode> readAll(final AstFormat format, final byte[] data) throws IOException {
+        final List<AstNode> nodes = new ArrayList<>();
+        try (AstReader reader = format.createReader(new ByteArrayInputStream(data))) {
+            for (AstNode node = reader.read(); node != null; node = reader.read()) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final String text = "a \"quoted\" \\ text\n\twith \u0001 control, é, and 😀";
+        for (final AstFormat format : AstFormat.values()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (AstWriter writer = format.createWriter(out)) {
+                writer.startObject(new ObjectName(NS, "Root"), new TextPos(1, 1, 0));
+                writer.startProperty("name", false);
+                writer.value(text);
+                writer.endProperty();
+                writer.startProperty("items", true);
+                writer.value("a");
+                writer.endProperty();
+                writer.startProperty("items", true);
+                writer.startObject(new ObjectName(NS, "Item"), new TextPos(2, 1, 10));
+                writer.endObject(new TextPos(2, 5, 14));
+                writer.value("a");
+                writer.endProperty();
+                writer.startProperty("empty", true);
+                writer.endProperty();
+                writer.endObject(new TextPos(3, 1, 20));
+                writer.startObject(new ObjectName(NS, "Second"), new TextPos(3, 1, 20));
+                writer.endObject(new TextPos(3, 2, 21));
+            }
+            final List<AstNode> nodes = readAll(format, out.toByteArray());
+            assertEquals(2, nodes.size(), format.name());
+            final AstNode root = nodes.get(0);
+            assertEquals(new ObjectName(NS, "Root"), root.name());
+            assertEquals(new TextPos(3, 1, 20), root.end());
+            assertEquals(text, root.get("name"));
+            final List<?> items = (List<?>) root.get("items");
+            assertEquals(3, items.size());
+            assertEquals(new ObjectName(NS, "Item"), ((AstNode) items.get(1)).name());
+            assertEquals(List.of(), root.get("empty"));
+            assertNull(root.get("missing"));
+            assertEquals(new ObjectName(NS, "Second"), nodes.get(1).name());
+        }
+    }
+
+    /**
+     * Create binary stream with a single record.
+     *
+     * @param length the record length bytes
+     * @param record the record bytes
+     * @return the stream data
+     */
+    private static byte[] binary(final byte[] length, final byte... record) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(BinaryAstWriter.MAGIC);
+        out.writeBytes(length);
+        out.writeBytes(record);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void binaryDamaged() {
+        // the ten-byte variable-length integer that is decoded to -1
+        final byte[] negative = {-1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+        assertThrows(IOException.class, () -> readAll(AstFormat.BINARY, binary(negative)));
+        final byte[] reference = new byte[negative.length + 1];
+        reference[0] = BinaryAstWriter.OBJECT_START;
+        System.arraycopy(negative, 0, reference, 1, negative.length);
+        assertThrows(IOException.class, () -> readAll(AstFormat.BINARY,
+                binary(new byte[]{(byte) reference.length}, reference)));
+        final byte[] length = new byte[negative.length + 2];
+        length[0] = BinaryAstWriter.OBJECT_START;
+        System.arraycopy(negative, 0, length, 2, negative.length);
+        assertThrows(IOException.class, () -> readAll(AstFormat.BINARY,
+                binary(new byte[]{(byte) length.length}, length)));
+        assertThrows(IOException.class, () -> readAll(AstFormat.BINARY, binary(new byte[]{-1, -1, -1, 7})));
+    }
+
+    /**
+     * Read the JSON value with the standard parser.
+     *
+     * @param parser the parser positioned at the first token of the value
+     * @return the value
+     * @throws IOException in case of IO or duplicate member problem
+     */
+    private static Object readJson(final JsonParser parser) throws IOException {
+        final JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            final Map<String, Object> rc = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.currentName();
+                parser.nextToken();
+                rc.put(name, readJson(parser));
+            }
+            return rc;
+        } else if (token == JsonToken.START_ARRAY) {
+            final List<Object> rc = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                rc.add(readJson(parser));
+            }
+            return rc;
+        } else {
+            return parser.getText();
+        }
+    }
+
+    @Test
+    public void jsonRoundTrip() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (AstWriter writer = AstFormat.JSON.createWriter(out)) {
+            writer.startObject(new ObjectName(NS, "Root"), new TextPos(1, 1, 0));
+            writer.startProperty("items", true);
+            writer.value("a");
+            writer.endProperty();
+            writer.startProperty("name", false);
+            writer.value("first");
+            writer.endProperty();
+            writer.startProperty("items", true);
+            writer.startObject(new ObjectName(NS, "Item"), new TextPos(2, 1, 10));
+            writer.startProperty("name", false);
+            writer.value("item");
+            writer.endProperty();
+            writer.endObject(new TextPos(2, 5, 14));
+            writer.endProperty();
+            writer.startProperty("name", false);
+            writer.value("last");
+            writer.endProperty();
+            writer.startProperty("items", true);
+            writer.value("b");
+            writer.endProperty();
+            writer.endObject(new TextPos(3, 1, 20));
+        }
+        final JsonFactory factory = JsonFactory.builder().enable(
+                StreamReadFeature.STRICT_DUPLICATE_DETECTION).build();
+        try (JsonParser parser = factory.createParser(out.toString(StandardCharsets.UTF_8))) {
+            parser.nextToken();
+            final Map<?, ?> root = (Map<?, ?>) readJson(parser);
+            assertNull(parser.nextToken());
+            assertEquals(List.of("$ns", "$name", "$start", "items", "name", "$end"), List.copyOf(root.keySet()));
+            assertEquals("last", root.get("name"));
+            final List<?> items = (List<?>) root.get("items");
+            assertEquals(3, items.size());
+            assertEquals("a", items.get(0));
+            assertEquals("item", ((Map<?, ?>) items.get(1)).get("name"));
+            assertEquals("b", items.get(2));
+        }
+        final AstNode root = readAll(AstFormat.JSON, out.toByteArray()).get(0);
+        assertEquals("last", root.get("name"));
+        assertEquals(3, ((List<?>) root.get("items")).size());
+    }
+
+    @Test
+    public void convertGrammars() throws IOException {
+        final String moduleDir = getModuleBaseDirectory();
+        final File[] dirs = new File[AstFormat.values().length];
+        for (final AstFormat format : AstFormat.values()) {
+            final String name = format.name().toLowerCase(Locale.US);
+            dirs[format.ordinal()] = new File(moduleDir + "/target/temp/output/ast-" + name);
+            ETL2Beans.main(new String[]{
+                    "-F", name,
+                    "-i", moduleDir + "/../etl-parser/src/main/resources/META-INF/etl/grammars/ETL/*.g.etl",
+                    "--output", dirs[format.ordinal()] + "/*.g.etl.ast",
+            });
+        }
+        final String[] list = dirs[0].list();
+        assertNotNull(list);
+        assertTrue(list.length > 0);
+        for (final String file : list) {
+            final List<List<AstNode>> results = new ArrayList<>();
+            for (final AstFormat format : AstFormat.values()) {
+                try (FileInputStream in = new FileInputStream(new File(dirs[format.ordinal()], file))) {
+                    results.add(readAll(format, in.readAllBytes()));
+                }
+            }
+            assertTrue(results.get(0).size() > 1, file);
+            assertEquals(results.get(0), results.get(1), file);
+        }
+    }
+}
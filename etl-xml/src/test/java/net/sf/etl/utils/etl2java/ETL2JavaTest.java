@@ -0,0 +1,161 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.etl2java;
+
+import net.sf.etl.parsers.ObjectName;
+import net.sf.etl.parsers.SourceLocation;
+import net.sf.etl.parsers.event.grammar.ObjectModel;
+import net.sf.etl.parsers.event.tree.ObjectFactory;
+import net.sf.etl.parsers.streams.DefaultTermReaderConfiguration;
+import net.sf.etl.parsers.streams.TermParserReader;
+import net.sf.etl.parsers.streams.TreeParserReader;
+import net.sf.etl.utils.ConverterTestBase;
+import net.sf.etl.utils.ETLProcessor;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for ETL2Java that generates the model, compiles it, and parses the source with the generated factory.
+ */
+public class ETL2JavaTest extends ConverterTestBase {
+    /**
+     * Test generation and usage of the model.
+     *
+     * @throws Exception in case of problem
+     */
+    @Test
+    public void testGenerated() throws Exception {
+        final String moduleDir = getModuleBaseDirectory();
+        final File outputDir = new File(moduleDir, "target/temp/output/java");
+        final File source = new File(outputDir, "test/ImportsModel.java");
+        final File parserTestClasses = new File(moduleDir, "../etl-parser/target/test-classes");
+        final File sample = new File(moduleDir,
+                "../etl-parser/src/test/resources/net/sf/etl/parsers/term/imports/Test.i.etl");
+        assertTrue(source.getParentFile().mkdirs() || source.getParentFile().isDirectory());
+        ETLProcessor.main(new String[]{
+                "java",
+                "-n", "test.ImportsModel",
+                "-c", parserTestClasses.getPath(),
+                "-i", sample.getPath(),
+                "--output", source.getPath(),
+        });
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler);
+        final File parserClasses = new File(ObjectFactory.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI());
+        assertEquals(0, compiler.run(null, null, null, "-d", outputDir.getPath(),
+                "-classpath", parserClasses.getPath(), source.getPath()));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{outputDir.toURI().toURL(),
+                parserTestClasses.toURI().toURL()}, getClass().getClassLoader())) {
+            final ObjectFactory<?, ?, ?, ?> factory = (ObjectFactory<?, ?, ?, ?>) loader
+                    .loadClass("test.ImportsModel$Factory").getConstructor().newInstance();
+            final List<Object> statements = new ArrayList<>();
+            final TermParserReader termParser = new TermParserReader(new DefaultTermReaderConfiguration(loader),
+                    sample.toURI().toURL());
+            try {
+                @SuppressWarnings({"unchecked", "rawtypes"}) final TreeParserReader<Object> treeParser =
+                        new TreeParserReader<>(termParser, (ObjectFactory) factory);
+                while (treeParser.advance()) {
+                    statements.add(treeParser.current());
+                }
+            } finally {
+                termParser.close();
+            }
+            final List<String> names = new ArrayList<>();
+            for (final Object statement : statements) {
+                names.add(statement.getClass().getSimpleName());
+            }
+            assertEquals(List.of("LetStatement", "LetStatement", "ExpressionStatement"), names);
+            final Object let = statements.get(0);
+            assertEquals("a", let.getClass().getField("name").get(let));
+            final Field location = let.getClass().getField("location");
+            assertTrue(location.get(let) instanceof SourceLocation);
+            final Object value = statements.get(2).getClass().getField("value").get(statements.get(2));
+            assertEquals("PlusOp", value.getClass().getSimpleName());
+            assertEquals(2, ((List<?>) value.getClass().getField("summands").get(value)).size());
+        }
+    }
+
+    /**
+     * Test that the object names that differ only in the separators produce distinct constants, and that
+     * the properties with mixed values and objects are typed as objects.
+     *
+     * @throws Exception in case of problem
+     */
+    @Test
+    public void testNameCollisions() throws Exception {
+        final File outputDir = new File(getModuleBaseDirectory(), "target/temp/output/collisions");
+        final File source = new File(outputDir, "test/CollisionModel.java");
+        assertTrue(source.getParentFile().mkdirs() || source.getParentFile().isDirectory());
+        final ObjectName fooBar = new ObjectName("urn:test", "FooBar");
+        final ObjectName fooUnderscoreBar = new ObjectName("urn:test", "Foo_bar");
+        final ObjectModel.PropertyModel value = new ObjectModel.PropertyModel("value", false, List.of(fooBar),
+                true, false);
+        Files.writeString(source.toPath(), new JavaModelGenerator("test.CollisionModel", List.of(
+                new ObjectModel(fooBar, List.of(value)),
+                new ObjectModel(fooUnderscoreBar, List.of(value)))).generate(), StandardCharsets.UTF_8);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler);
+        final File parserClasses = new File(ObjectFactory.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI());
+        assertEquals(0, compiler.run(null, null, null, "-d", outputDir.getPath(),
+                "-classpath", parserClasses.getPath(), source.getPath()));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{outputDir.toURI().toURL()},
+                getClass().getClassLoader())) {
+            final Class<?> type = loader.loadClass("test.CollisionModel$Type");
+            final Object[] types = type.getEnumConstants();
+            assertEquals(2, types.length);
+            assertNotEquals(types[0].toString(), types[1].toString());
+            assertEquals(fooBar, type.getMethod("objectName").invoke(types[0]));
+            assertEquals(fooUnderscoreBar, type.getMethod("objectName").invoke(types[1]));
+            final Class<?> property = loader.loadClass("test.CollisionModel$Property");
+            final List<Object> owners = new ArrayList<>();
+            for (final Object p : property.getEnumConstants()) {
+                final Object owner = property.getMethod("owner").invoke(p);
+                if (owner != null) {
+                    owners.add(owner);
+                    assertEquals(Object.class, property.getMethod("valueType").invoke(p));
+                }
+            }
+            assertEquals(List.of(types), owners);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.utils.xml;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.ext.DefaultHandler2;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The test that compares the SAX events reported by {@link ContentHandlerStreamWriter} with the events
+ * of the parsed output of the standard {@link XMLStreamWriter}.
+ */
+public class ContentHandlerStreamWriterTest {
+    /**
+     * The namespace of the test document.
+     */
+    private static final String NS = "urn:test";
+
+    /**
+     * Write the test document.
+     *
+     * @param out the writer
+     * @throws XMLStreamException in case of problem
+     */
+    private static void write(final XMLStreamWriter out) throws XMLStreamException {
+        out.writeStartDocument();
+        out.writeDTD("<!DOCTYPE t:root PUBLIC \"-//Test//EN\" 'test.dtd' [<!ENTITY empty \"\">]>");
+        out.writeStartElement("t", "root", NS);
+        out.writeNamespace("t", NS);
+        out.writeAttribute("a", "1");
+        out.writeComment(" comment ");
+        out.writeStartElement("t", "item", NS);
+        out.writeCharacters("a + b");
+        out.writeEntityRef("empty");
+        out.writeCData("c & d");
+        out.writeEndElement();
+        out.writeProcessingInstruction("pi", "data");
+        out.writeEmptyElement("t", "empty", NS);
+        out.writeEndElement();
+        out.writeEndDocument();
+    }
+
+    /**
+     * Test that the reported events are the same as events of the parsed text.
+     *
+     * @throws Exception in case of problem
+     */
+    @Test
+    public void testEvents() throws Exception {
+        final StringWriter text = new StringWriter();
+        final XMLStreamWriter textWriter = XMLOutputFactory.newFactory().createXMLStreamWriter(text);
+        write(textWriter);
+        textWriter.close();
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        final SAXParser parser = factory.newSAXParser();
+        final Recorder parsed = new Recorder();
+        parser.setProperty("http://xml.org/sax/properties/lexical-handler", parsed);
+        parser.parse(new InputSource(new StringReader(text.toString())), parsed);
+        final Recorder reported = new Recorder();
+        write(new ContentHandlerStreamWriter(reported));
+        assertEquals(parsed.events, reported.events);
+    }
+
+    /**
+     * The handler that records events. The adjacent character events are merged.
+     */
+    private static final class Recorder extends DefaultHandler2 {
+        /**
+         * The recorded events.
+         */
+        private final List<String> events = new ArrayList<>();
+        /**
+         * The pending characters.
+         */
+        private final StringBuilder characters = new StringBuilder();
+
+        /**
+         * Record the event.
+         *
+         * @param event the event
+         */
+        private void record(final String event) {
+            if (characters.length() > 0) {
+                events.add("characters " + characters);
+                characters.setLength(0);
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void startDocument() {
+            record("startDocument");
+        }
+
+        @Override
+        public void endDocument() {
+            record("endDocument");
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            record("startPrefixMapping " + prefix + "=" + uri);
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) {
+            record("endPrefixMapping " + prefix);
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+                                 final Attributes attributes) {
+            final StringBuilder event = new StringBuilder("startElement {").append(uri).append('}')
+                    .append(localName).append(' ').append(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                event.append(" {").append(attributes.getURI(i)).append('}').append(attributes.getLocalName(i))
+                        .append('=').append(attributes.getValue(i));
+            }
+            record(event.toString());
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            record("endElement {" + uri + "}" + localName + " " + qName);
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            characters.append(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            record("processingInstruction " + target + " " + data);
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) {
+            record("startDTD " + name + " " + publicId + " " + systemId);
+        }
+
+        @Override
+        public void endDTD() {
+            record("endDTD");
+        }
+
+        @Override
+        public void startEntity(final String name) {
+            record("startEntity " + name);
+        }
+
+        @Override
+        public void endEntity(final String name) {
+            record("endEntity " + name);
+        }
+
+        @Override
+        public void startCDATA() {
+            record("startCDATA");
+        }
+
+        @Override
+        public void endCDATA() {
+            record("endCDATA");
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) {
+            record("comment " + new String(ch, start, length));
+        }
+    }
+}
@@ -24,12 +24,20 @@
  */
 package net.sf.etl.utils.xml;
 
+import net.sf.etl.utils.CatalogSnapshotTool;
 import net.sf.etl.utils.ConverterTestBase;
 import net.sf.etl.utils.ETLProcessor;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogSnapshot;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -97,4 +105,47 @@ public class ETL2XMLTest extends ConverterTestBase {
                 "--output", moduleDir + "/target/temp/output/formatted-grammars/*.g.etl.t.xml",
         });
     }
+
+    @Test
+    public void directWriterProducesSameOutput() throws IOException {
+        final String moduleDir = getModuleBaseDirectory();
+        for (final String format : new String[]{"xmi", "presentation", "tree"}) {
+            final String stax = moduleDir + "/target/temp/output/stax-writer/" + format;
+            final String direct = moduleDir + "/target/temp/output/direct-writer/" + format;
+            final String input = moduleDir + "/../etl-parser/src/main/resources/META-INF/etl/grammars/ETL/*.g.etl";
+            ETL2XML.main(new String[]{"-f", format, "-i", input, "--output", stax + "/*.g.etl.xml"});
+            ETL2XML.main(new String[]{"-f", format, "-w", "-i", input, "--output", direct + "/*.g.etl.xml"});
+            final String[] list = new File(stax).list();
+            assertNotNull(list);
+            assertTrue(list.length > 0);
+            for (final String name : list) {
+                assertArrayEquals(Files.readAllBytes(new File(stax, name).toPath()),
+                        Files.readAllBytes(new File(direct, name).toPath()), format + ": " + name);
+            }
+        }
+    }
+
+    @Test
+    public void catalogSnapshotProducesSameOutput() throws Exception {
+        final String moduleDir = getModuleBaseDirectory();
+        final String snapshotFile = moduleDir + "/target/temp/output/catalog.snapshot";
+        CatalogSnapshotTool.run("--suppress-user-catalog", "--suppress-system-catalog", "-o", snapshotFile);
+        try (InputStream in = new FileInputStream(snapshotFile)) {
+            assertFalse(CatalogSnapshot.read(in).getSystemIds().isEmpty());
+        }
+        final String input = moduleDir + "/../etl-parser/src/main/resources/META-INF/etl/grammars/ETL/*.g.etl";
+        final String live = moduleDir + "/target/temp/output/live-catalog";
+        final String snapshot = moduleDir + "/target/temp/output/snapshot-catalog";
+        ETL2XML.main(new String[]{"-f", "html", "--suppress-user-catalog", "--suppress-system-catalog",
+                "-i", input, "--output", live + "/*.g.etl.html"});
+        ETL2XML.main(new String[]{"-f", "html", "--suppress-user-catalog", "--suppress-system-catalog",
+                "--catalog-snapshot", snapshotFile, "-i", input, "--output", snapshot + "/*.g.etl.html"});
+        final String[] list = new File(live).list();
+        assertNotNull(list);
+        assertTrue(list.length > 0);
+        for (final String name : list) {
+            assertArrayEquals(Files.readAllBytes(new File(live, name).toPath()),
+                    Files.readAllBytes(new File(snapshot, name).toPath()), name);
+        }
+    }
 }
@@ -0,0 +1,343 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.async;
+
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
+import net.sf.etl.xml_catalog.event.CatalogContext;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.DefaultCatalogContext;
+import net.sf.etl.xml_catalog.event.engine.CatalogEngine;
+import net.sf.etl.xml_catalog.event.engine.CatalogEngineStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * The asynchronous catalog. It is the counterpart of {@link net.sf.etl.xml_catalog.blocking.BlockingCatalog} that
+ * drives {@link CatalogEngine} using {@link AsyncCatalogProvider}. When the engine needs a catalog, the resolution
+ * is suspended until the provider completes the load, so no thread waits for the pending catalogs.
+ * </p>
+ * <p>
+ * The object itself is immutable, so it is safe to share. The resolution continues in the thread that completes
+ * the provider future, so the providers should complete them in the appropriate executor.
+ * </p>
+ */
+public final class AsyncCatalog {
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncCatalog.class);
+    /**
+     * The start catalog resource.
+     */
+    private final CatalogRequest startCatalog;
+    /**
+     * The catalog provider.
+     */
+    private final AsyncCatalogProvider catalogProvider;
+    /**
+     * The catalog settings.
+     */
+    private final CatalogContext catalogContext;
+    /**
+     * The cache for resolution results (nullable).
+     */
+    private final CatalogResolutionCache resultCache;
+
+    /**
+     * The the constructor.
+     *
+     * @param startCatalog    the start catalog
+     * @param catalogProvider the provider for catalogs
+     * @param catalogContext  the catalog settings
+     * @param resultCache     the cache for resolution results, it should be the same cache that is used by
+     *                        the catalog provider, so results are expired together with catalogs (nullable)
+     */
+    public AsyncCatalog(final CatalogRequest startCatalog, final AsyncCatalogProvider catalogProvider,
+                        final CatalogContext catalogContext, final CatalogResolutionCache resultCache) {
+        this.startCatalog = startCatalog;
+        this.catalogProvider = catalogProvider;
+        this.catalogContext = catalogContext != null ? catalogContext : DefaultCatalogContext.INSTANCE;
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * The the constructor.
+     *
+     * @param startCatalog    the start catalog
+     * @param catalogProvider the provider for catalogs
+     */
+    public AsyncCatalog(final CatalogRequest startCatalog, final AsyncCatalogProvider catalogProvider) {
+        this(startCatalog, catalogProvider, null, null);
+    }
+
+    /**
+     * @return get start catalog
+     */
+    public CatalogRequest getStartCatalog() {
+        return startCatalog;
+    }
+
+    /**
+     * @return the catalog provider
+     */
+    public AsyncCatalogProvider getCatalogProvider() {
+        return catalogProvider;
+    }
+
+    /**
+     * @return the current prefer public settings provider
+     */
+    public CatalogContext getCurrentSettings() {
+        return catalogContext;
+    }
+
+    /**
+     * @return the result cache (nullable)
+     */
+    public CatalogResolutionCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @return the current value of prefersPublic attribute
+     */
+    public boolean prefersPublic() {
+        try {
+            return catalogContext.prefersPublic();
+        } catch (Throwable t) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Failed to evaluate preferPublic", t);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Perform catalog resolution for entity.
+     *
+     * @param publicId the public id
+     * @param systemId the system id
+     * @param baseUri  the base URI for system id
+     * @return the future for resolution results
+     */
+    public CompletableFuture<CatalogResult> resolveEntity(final String publicId, final String systemId,
+                                                          final String baseUri) {
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.entityKey(startCatalog, preferPublic, publicId, systemId, baseUri),
+                e -> e.startResolveEntity(startCatalog, publicId, systemId, baseUri, preferPublic));
+    }
+
+    /**
+     * Perform catalog resolution for URI.
+     *
+     * @param uri     the URI to resolve
+     * @param nature  the uri nature (RDDL) (nullable)
+     * @param purpose the uri purpose (RDDL) (nullable)
+     * @param baseUri the base uri
+     * @return the future for resolution results
+     */
+    public CompletableFuture<CatalogResult> resolveUri(final String uri, final String nature, // NOPMD
+                                                       final String purpose, final String baseUri) {
+        return resolve(CatalogResolutionCache.uriKey(startCatalog, uri, nature, purpose, baseUri),
+                e -> e.startResolveURI(startCatalog, uri, nature, purpose, baseUri));
+    }
+
+    /**
+     * Perform catalog resolution for doctype.
+     *
+     * @param name     the name to resolve
+     * @param publicId the public id
+     * @param systemId the system id
+     * @param baseUri  the base uri
+     * @return the future for resolution results
+     */
+    public CompletableFuture<CatalogResult> resolveDoctype(final String name, final String publicId, // NOPMD
+                                                           final String systemId, final String baseUri) {
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.doctypeKey(startCatalog, preferPublic, name, publicId, systemId,
+                        baseUri),
+                e -> e.startDoctype(startCatalog, name, publicId, systemId, baseUri, preferPublic));
+    }
+
+    /**
+     * Perform catalog resolution for notation.
+     *
+     * @param name     the name to resolve
+     * @param publicId the public id
+     * @param systemId the system id
+     * @param baseUri  the base uri
+     * @return the future for resolution results
+     */
+    public CompletableFuture<CatalogResult> resolveNotation(final String name, final String publicId, // NOPMD
+                                                            final String systemId, final String baseUri) {
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.notationKey(startCatalog, preferPublic, name, publicId, systemId,
+                        baseUri),
+                e -> e.startNotation(startCatalog, name, publicId, systemId, baseUri, preferPublic));
+    }
+
+    /**
+     * Resolve resource.
+     *
+     * @param uri      the resource namespace
+     * @param nature   the nature
+     * @param purpose  the purpose
+     * @param publicId the public id
+     * @param systemId the system id
+     * @param baseUri  the base URI to use
+     * @return the future for resolution result
+     */
+    public CompletableFuture<CatalogResult> resolveResource(final String uri, final String nature, // NOPMD
+                                                            final String purpose, final String publicId,
+                                                            final String systemId, final String baseUri) {
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.resourceKey(startCatalog, preferPublic, uri, nature, purpose,
+                        publicId, systemId, baseUri),
+                e -> e.startResource(startCatalog, uri, nature, purpose, publicId, systemId, baseUri, preferPublic));
+    }
+
+    /**
+     * Perform resolution using the result cache if it is available.
+     *
+     * @param key     the result key created by {@link CatalogResolutionCache}
+     * @param starter the action that starts the engine
+     * @return the future for resolution result
+     */
+    private CompletableFuture<CatalogResult> resolve(final Object key, final Consumer<CatalogEngine> starter) {
+        final CatalogResolutionCache cache = resultCache;
+        long generation = 0;
+        if (cache != null) {
+            final CatalogResult cached = cache.getResult(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            generation = cache.getGeneration();
+        }
+        final CatalogEngine catalogEngine = new CatalogEngine();
+        starter.accept(catalogEngine);
+        final Resolution resolution = new Resolution(catalogEngine);
+        resolution.load(startCatalog);
+        if (cache == null) {
+            return resolution.result;
+        }
+        final long startedGeneration = generation;
+        return resolution.result.thenApply(result -> {
+            cache.cacheResult(key, result, startedGeneration);
+            return result;
+        });
+    }
+
+    /**
+     * The single resolution process.
+     */
+    private final class Resolution {
+        /**
+         * The engine.
+         */
+        private final CatalogEngine catalogEngine;
+        /**
+         * The result of the resolution.
+         */
+        private final CompletableFuture<CatalogResult> result = new CompletableFuture<>();
+
+        /**
+         * The constructor.
+         *
+         * @param catalogEngine the engine
+         */
+        private Resolution(final CatalogEngine catalogEngine) {
+            this.catalogEngine = catalogEngine;
+        }
+
+        /**
+         * Load catalogs starting from the specified one. The catalogs that are already loaded are processed
+         * in the loop, so the stack does not grow with the amount of the visited catalogs.
+         *
+         * @param request the catalog request
+         */
+        private void load(final CatalogRequest request) {
+            CatalogRequest current = request;
+            while (current != null) {
+                final CompletableFuture<CatalogResolutionEvent> event;
+                try {
+                    event = catalogProvider.getCatalog(catalogContext, current);
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                    return;
+                }
+                if (!event.isDone()) {
+                    event.whenComplete((loaded, problem) -> {
+                        if (problem != null) {
+                            result.completeExceptionally(AsyncCatalogProviders.unwrap(problem));
+                        } else {
+                            load(process(loaded));
+                        }
+                    });
+                    return;
+                }
+                try {
+                    current = process(event.join());
+                } catch (Throwable t) {
+                    result.completeExceptionally(AsyncCatalogProviders.unwrap(t));
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Process the loaded catalog.
+         *
+         * @param event the loaded catalog
+         * @return the next catalog to load or null if the resolution has finished
+         */
+        private CatalogRequest process(final CatalogResolutionEvent event) {
+            try {
+                catalogEngine.resolve(event);
+                final CatalogEngineStatus status = catalogEngine.process();
+                switch (status) {
+                    case NOT_STARTED:
+                        throw new IllegalStateException("The engine must have been started");
+                    case CATALOG_NEEDED:
+                        return catalogEngine.getCatalogRequest();
+                    case RESULT_AVAILABLE:
+                        result.complete(catalogEngine.result());
+                        return null;
+                    default:
+                        throw new IllegalStateException("Unknown status: " + status);
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.async;
+
+import net.sf.etl.xml_catalog.event.CatalogContext;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The asynchronous provider for the catalog.
+ */
+public interface AsyncCatalogProvider {
+    /**
+     * Get catalog. The failures to load the catalog should be reported using the problem of the event rather
+     * than by the exceptional completion of the future.
+     *
+     * @param catalogContext the catalog context
+     * @param request        the request to resolve
+     * @return the future for the catalog resolution result
+     */
+    CompletableFuture<CatalogResolutionEvent> getCatalog(CatalogContext catalogContext, CatalogRequest request);
+}
@@ -0,0 +1,133 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.async;
+
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProvider;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
+import net.sf.etl.xml_catalog.event.CatalogFile;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
+import net.sf.etl.xml_catalog.util.URIUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * The utilities for asynchronous catalog providers.
+ */
+public final class AsyncCatalogProviders {
+    /**
+     * Private constructor for utility class.
+     */
+    private AsyncCatalogProviders() {
+        // do nothing
+    }
+
+    /**
+     * Adapt the blocking provider. The blocking provider is invoked using the executor, so it is suitable
+     * for the providers that do I/O. The providers that do not block (for example, cached or synthetic
+     * catalogs) could be adapted with {@link Runnable#run()} as the executor.
+     *
+     * @param provider the blocking provider
+     * @param executor the executor for the blocking provider
+     * @return the asynchronous provider
+     */
+    public static AsyncCatalogProvider fromBlocking(final CatalogProvider provider, final Executor executor) {
+        return (catalogContext, request) -> CompletableFuture.supplyAsync(
+                () -> provider.getCatalog(catalogContext, request), executor);
+    }
+
+    /**
+     * Create the provider that reads catalogs with the <code>file:</code> scheme using
+     * {@link java.nio.channels.AsynchronousFileChannel}, so no thread is blocked while the file is read.
+     * The other catalogs are requested from the fallback provider.
+     *
+     * @param executor the executor used to parse the loaded files
+     * @param fallback the provider for other catalogs
+     * @return the provider
+     */
+    public static AsyncCatalogProvider createFileProvider(final Executor executor,
+                                                          final AsyncCatalogProvider fallback) {
+        return (catalogContext, request) -> {
+            final File file = "file".equals(request.getScheme()) ? URIUtil.toLocalFile(request.getSystemId()) : null;
+            if (file == null) {
+                return fallback.getCatalog(catalogContext, request);
+            }
+            // the version is taken before reading, so the concurrent changes are detected by the next check
+            final String version = URIUtil.fileVersion(file);
+            return AsyncFileReader.read(file.toPath()).handleAsync((content, problem) -> {
+                if (problem != null) {
+                    return CatalogProviders.catalogLoaded(catalogContext, request, null, unwrap(problem));
+                }
+                final CatalogFile catalogFile;
+                try {
+                    catalogFile = CatalogFile.fromStream(request.getSystemId(), version,
+                            CatalogResourceUsage.NONE, new ByteArrayInputStream(content));
+                } catch (Throwable t) {
+                    return CatalogProviders.catalogLoaded(catalogContext, request, null, t);
+                }
+                return CatalogProviders.catalogLoaded(catalogContext, request, catalogFile, null);
+            }, executor);
+        };
+    }
+
+    /**
+     * The cached catalog provider.
+     *
+     * @param source the source provider
+     * @param cache  the cache to use
+     * @return the cached catalog provider
+     */
+    public static AsyncCatalogProvider createCachedCatalog(final AsyncCatalogProvider source,
+                                                           final CatalogResolutionCache cache) {
+        return (catalogContext, request) -> {
+            final CatalogResolutionEvent event = cache.getFile(request);
+            if (event != null) {
+                return CompletableFuture.completedFuture(event);
+            }
+            return source.getCatalog(catalogContext, request).thenApply(loaded -> {
+                if (loaded != null) {
+                    cache.cacheFile(loaded);
+                }
+                return loaded;
+            });
+        };
+    }
+
+    /**
+     * Unwrap the completion exception.
+     *
+     * @param problem the problem
+     * @return the unwrapped problem
+     */
+    static Throwable unwrap(final Throwable problem) {
+        return problem instanceof CompletionException && problem.getCause() != null ? problem.getCause() : problem;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The reader of the file content that uses {@link AsynchronousFileChannel}. The same class exists in the
+ * <code>net.sf.etl.parsers.streams</code> package, because the modules do not depend on each other, so the fixes
+ * should be applied to both copies.
+ */
+final class AsyncFileReader implements CompletionHandler<Integer, Void> {
+    /**
+     * The maximum supported file size.
+     */
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 16;
+    /**
+     * The minimum buffer size.
+     */
+    private static final int MIN_BUFFER_SIZE = 1024;
+    /**
+     * The channel to read.
+     */
+    private final AsynchronousFileChannel channel;
+    /**
+     * The result.
+     */
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    /**
+     * The buffer with the content read so far.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The constructor.
+     *
+     * @param channel the channel
+     */
+    private AsyncFileReader(final AsynchronousFileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Read the file content.
+     *
+     * @param path the file path
+     * @return the future for the file content
+     */
+    static CompletableFuture<byte[]> read(final Path path) {
+        final AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        final AsyncFileReader reader = new AsyncFileReader(channel);
+        reader.start();
+        return reader.result;
+    }
+
+    /**
+     * Allocate the buffer basing on the file size and start reading.
+     */
+    private void start() {
+        final long size;
+        try {
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            failed(e, null);
+            return;
+        }
+        // one extra byte, so the end of the file is detected without growing the buffer
+        buffer = ByteBuffer.allocate((int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_SIZE, size + 1)));
+        readNext();
+    }
+
+    /**
+     * Start reading the next part of the file.
+     */
+    private void readNext() {
+        if (!buffer.hasRemaining()) {
+            if (buffer.capacity() >= MAX_SIZE) {
+                failed(new IOException("The file is too large"), null);
+                return;
+            }
+            final ByteBuffer newBuffer = ByteBuffer.allocate((int) Math.min(MAX_SIZE, buffer.capacity() * 2L));
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+        try {
+            channel.read(buffer, buffer.position(), null, this);
+        } catch (RuntimeException e) {
+            failed(e, null);
+        }
+    }
+
+    @Override
+    public void completed(final Integer count, final Void attachment) {
+        if (count < 0) {
+            close();
+            result.complete(Arrays.copyOf(buffer.array(), buffer.position()));
+        } else {
+            readNext();
+        }
+    }
+
+    @Override
+    public void failed(final Throwable problem, final Void attachment) {
+        close();
+        result.completeExceptionally(problem);
+    }
+
+    /**
+     * Close the channel.
+     */
+    private void close() {
+        try {
+            channel.close();
+        } catch (IOException e) { // NOPMD
+            // ignore, the content is already read or the read has failed
+        }
+    }
+}
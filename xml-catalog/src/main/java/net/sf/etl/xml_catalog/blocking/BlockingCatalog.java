@@ -27,16 +27,30 @@ package net.sf.etl.xml_catalog.blocking;
 
 import net.sf.etl.xml_catalog.blocking.provider.CatalogProvider;
 import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
 import net.sf.etl.xml_catalog.event.CatalogContext;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
 import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.CatalogResultTrace;
 import net.sf.etl.xml_catalog.event.DefaultCatalogContext;
 import net.sf.etl.xml_catalog.event.engine.CatalogEngine;
 import net.sf.etl.xml_catalog.event.engine.CatalogEngineStatus;
+import net.sf.etl.xml_catalog.metrics.CatalogMetricsListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
 /**
  * <p>
  * The catalog instance, it is usually created only once for some catalog scope, and then it is
@@ -64,6 +78,53 @@ public final class BlockingCatalog {
      * The method that returns the current value of prefer public value, in case when it taken from settings.
      */
     private final CatalogContext catalogContext;
+    /**
+     * The cache for resolution results (nullable).
+     */
+    private final CatalogResolutionCache resultCache;
+    /**
+     * The executor used to load upcoming catalogs in advance (nullable).
+     */
+    private final Executor prefetchExecutor;
+    /**
+     * The listener for resolution metrics (nullable).
+     */
+    private final CatalogMetricsListener metricsListener;
+
+    /**
+     * The the constructor.
+     *
+     * @param startCatalog     the start catalog
+     * @param catalogProvider  the provider for catalogs
+     * @param catalogContext   the catalog settings
+     * @param resultCache      the cache for resolution results (nullable)
+     * @param prefetchExecutor the executor for loading catalogs in advance (nullable)
+     * @param metricsListener  the listener for resolution metrics (nullable)
+     */
+    private BlockingCatalog(final CatalogRequest startCatalog, final CatalogProvider catalogProvider, // NOPMD
+                            final CatalogContext catalogContext, final CatalogResolutionCache resultCache,
+                            final Executor prefetchExecutor, final CatalogMetricsListener metricsListener) {
+        this.startCatalog = startCatalog;
+        this.catalogProvider = catalogProvider;
+        this.catalogContext = catalogContext != null ? catalogContext : DefaultCatalogContext.INSTANCE;
+        this.resultCache = resultCache;
+        this.prefetchExecutor = prefetchExecutor;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * The the constructor.
+     *
+     * @param startCatalog    the start catalog
+     * @param catalogProvider the provider for catalogs
+     * @param catalogContext  the catalog settings
+     * @param resultCache     the cache for resolution results, it should be the same cache that is used by
+     *                        the catalog provider, so results are expired together with catalogs (nullable)
+     */
+    public BlockingCatalog(final CatalogRequest startCatalog, final CatalogProvider catalogProvider,
+                           final CatalogContext catalogContext, final CatalogResolutionCache resultCache) {
+        this(startCatalog, catalogProvider, catalogContext, resultCache, null, null);
+    }
 
     /**
      * The the constructor.
@@ -74,9 +135,7 @@ public final class BlockingCatalog {
      */
     public BlockingCatalog(final CatalogRequest startCatalog, final CatalogProvider catalogProvider,
                            final CatalogContext catalogContext) {
-        this.startCatalog = startCatalog;
-        this.catalogProvider = catalogProvider;
-        this.catalogContext = catalogContext != null ? catalogContext : DefaultCatalogContext.INSTANCE;
+        this(startCatalog, catalogProvider, catalogContext, null);
     }
 
     /**
@@ -134,6 +193,13 @@ public final class BlockingCatalog {
         return catalogContext;
     }
 
+    /**
+     * @return the result cache (nullable)
+     */
+    public CatalogResolutionCache getResultCache() {
+        return resultCache;
+    }
+
     /**
      * Get copy of the catalog with new provider.
      *
@@ -141,7 +207,42 @@ public final class BlockingCatalog {
      * @return the catalog settings
      */
     public BlockingCatalog withOtherProvider(final CatalogProvider newProvider) {
-        return new BlockingCatalog(getStartCatalog(), newProvider, getCurrentSettings());
+        return new BlockingCatalog(getStartCatalog(), newProvider, getCurrentSettings(), resultCache,
+                prefetchExecutor, metricsListener);
+    }
+
+    /**
+     * Get copy of the catalog that loads the catalogs in advance. When the catalog engine knows which catalogs
+     * it will need next (next catalogs and delegates), they are loaded concurrently using the specified executor,
+     * while the resolution still processes them in the order required by the specification. The provider must be
+     * thread-safe in that case.
+     *
+     * @param executor the executor to use, or null to disable loading in advance
+     * @return the catalog
+     */
+    public BlockingCatalog withPrefetch(final Executor executor) {
+        return new BlockingCatalog(getStartCatalog(), getCatalogProvider(), getCurrentSettings(), resultCache,
+                executor, metricsListener);
+    }
+
+    /**
+     * Get copy of the catalog that reports resolution metrics. The cache and the provider metrics are reported
+     * by {@link CatalogResolutionCache} and
+     * {@link net.sf.etl.xml_catalog.blocking.provider.CatalogRuntimeProvider} themselves.
+     *
+     * @param listener the listener, or null to disable reporting
+     * @return the catalog
+     */
+    public BlockingCatalog withMetrics(final CatalogMetricsListener listener) {
+        return new BlockingCatalog(getStartCatalog(), getCatalogProvider(), getCurrentSettings(), resultCache,
+                prefetchExecutor, listener);
+    }
+
+    /**
+     * @return the listener for resolution metrics (nullable)
+     */
+    public CatalogMetricsListener getMetricsListener() {
+        return metricsListener;
     }
 
     /**
@@ -167,9 +268,9 @@ public final class BlockingCatalog {
      * @return resolution results
      */
     public CatalogResult resolveEntity(final String publicId, final String systemId, final String baseUri) {
-        final CatalogEngine catalogEngine = new CatalogEngine();
-        catalogEngine.startResolveEntity(startCatalog, publicId, systemId, baseUri, prefersPublic());
-        return resolve(catalogEngine);
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.entityKey(startCatalog, preferPublic, publicId, systemId, baseUri),
+                e -> e.startResolveEntity(startCatalog, publicId, systemId, baseUri, preferPublic));
     }
 
     /**
@@ -183,9 +284,8 @@ public final class BlockingCatalog {
      */
     public CatalogResult resolveUri(final String uri, final String nature, final String purpose, // NOPMD
                                     final String baseUri) {
-        final CatalogEngine catalogEngine = new CatalogEngine();
-        catalogEngine.startResolveURI(startCatalog, uri, nature, purpose, baseUri);
-        return resolve(catalogEngine);
+        return resolve(CatalogResolutionCache.uriKey(startCatalog, uri, nature, purpose, baseUri),
+                e -> e.startResolveURI(startCatalog, uri, nature, purpose, baseUri));
     }
 
     /**
@@ -199,9 +299,10 @@ public final class BlockingCatalog {
      */
     public CatalogResult resolveDoctype(final String name, final String publicId, final String systemId, // NOPMD
                                         final String baseUri) {
-        final CatalogEngine catalogEngine = new CatalogEngine();
-        catalogEngine.startDoctype(startCatalog, name, publicId, systemId, baseUri, prefersPublic());
-        return resolve(catalogEngine);
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.doctypeKey(startCatalog, preferPublic, name, publicId, systemId,
+                        baseUri),
+                e -> e.startDoctype(startCatalog, name, publicId, systemId, baseUri, preferPublic));
     }
 
     /**
@@ -215,9 +316,10 @@ public final class BlockingCatalog {
      */
     public CatalogResult resolveNotation(final String name, final String publicId, final String systemId, // NOPMD
                                          final String baseUri) {
-        final CatalogEngine catalogEngine = new CatalogEngine();
-        catalogEngine.startNotation(startCatalog, name, publicId, systemId, baseUri, prefersPublic());
-        return resolve(catalogEngine);
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.notationKey(startCatalog, preferPublic, name, publicId, systemId,
+                        baseUri),
+                e -> e.startNotation(startCatalog, name, publicId, systemId, baseUri, preferPublic));
     }
 
     /**
@@ -233,9 +335,49 @@ public final class BlockingCatalog {
      */
     public CatalogResult resolveResource(final String uri, final String nature, final String purpose, // NOPMD
                                          final String publicId, final String systemId, final String baseUri) {
+        final boolean preferPublic = prefersPublic();
+        return resolve(CatalogResolutionCache.resourceKey(startCatalog, preferPublic, uri, nature, purpose,
+                        publicId, systemId, baseUri),
+                e -> e.startResource(startCatalog, uri, nature, purpose, publicId, systemId, baseUri, preferPublic));
+    }
+
+    /**
+     * Perform resolution using the result cache if it is available.
+     *
+     * @param key     the result key created by {@link CatalogResolutionCache}
+     * @param starter the action that starts the engine
+     * @return the resolution result
+     */
+    private CatalogResult resolve(final Object key, final Consumer<CatalogEngine> starter) {
+        final CatalogMetricsListener listener = metricsListener;
+        final long start = listener == null ? 0 : System.nanoTime();
+        final CatalogResolutionCache cache = resultCache;
+        long generation = 0;
+        if (cache != null) {
+            final CatalogResult cached = cache.getResult(key);
+            if (cached != null) {
+                if (listener != null) {
+                    listener.resolutionFinished(cached, System.nanoTime() - start, 0, 0, true);
+                }
+                return cached;
+            }
+            generation = cache.getGeneration();
+        }
         final CatalogEngine catalogEngine = new CatalogEngine();
-        catalogEngine.startResource(startCatalog, uri, nature, purpose, publicId, systemId, baseUri, prefersPublic());
-        return resolve(catalogEngine);
+        starter.accept(catalogEngine);
+        final CatalogResult result = resolve(catalogEngine);
+        if (cache != null) {
+            cache.cacheResult(key, result, generation);
+        }
+        if (listener != null) {
+            int visited = 0;
+            for (CatalogResultTrace t = result.getTrace(); t != null; t = t.getPrevious()) {
+                visited++;
+            }
+            listener.resolutionFinished(result, System.nanoTime() - start, visited,
+                    catalogEngine.getDelegationDepth(), false);
+        }
+        return result;
     }
 
     /**
@@ -245,21 +387,167 @@ public final class BlockingCatalog {
      * @return the resolution result
      */
     private CatalogResult resolve(final CatalogEngine catalogEngine) {
-        CatalogRequest catalogRequest = startCatalog;
-        while (true) {
-            final CatalogResolutionEvent resolutionEvent = catalogProvider.getCatalog(catalogContext, catalogRequest);
-            catalogEngine.resolve(resolutionEvent);
-            final CatalogEngineStatus status = catalogEngine.process();
-            switch (status) {
-                case NOT_STARTED:
-                    throw new IllegalStateException("The engine must have been started");
-                case CATALOG_NEEDED:
-                    catalogRequest = catalogEngine.getCatalogRequest();
-                    continue;
-                case RESULT_AVAILABLE:
-                    return catalogEngine.result();
-                default:
-                    throw new IllegalStateException("Unknown status: " + status);
+        final Prefetch prefetch = prefetchExecutor == null ? null : new Prefetch();
+        try {
+            CatalogRequest catalogRequest = startCatalog;
+            while (true) {
+                final CatalogResolutionEvent resolutionEvent = prefetch == null
+                        ? catalogProvider.getCatalog(catalogContext, catalogRequest)
+                        : prefetch.get(catalogRequest);
+                catalogEngine.resolve(resolutionEvent);
+                final CatalogEngineStatus status = catalogEngine.process();
+                switch (status) {
+                    case NOT_STARTED:
+                        throw new IllegalStateException("The engine must have been started");
+                    case CATALOG_NEEDED:
+                        catalogRequest = catalogEngine.getCatalogRequest();
+                        if (prefetch != null) {
+                            prefetch.start(catalogEngine.getUpcomingCatalogRequests());
+                        }
+                        continue;
+                    case RESULT_AVAILABLE:
+                        return catalogEngine.result();
+                    default:
+                        throw new IllegalStateException("Unknown status: " + status);
+                }
+            }
+        } finally {
+            if (prefetch != null) {
+                prefetch.cancel();
+            }
+        }
+    }
+
+    /**
+     * The catalogs that are being loaded in advance during a single resolution.
+     */
+    private final class Prefetch {
+        /**
+         * The loads by system id.
+         */
+        private final Map<String, Load> loads = new ConcurrentHashMap<>(); // NOPMD
+        /**
+         * True if resolution has finished, and no new loads should be started.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Start loading the catalogs.
+         *
+         * @param requests the requests
+         */
+        private void start(final List<CatalogRequest> requests) {
+            for (final CatalogRequest request : requests) {
+                load(request);
+            }
+        }
+
+        /**
+         * Start loading the catalog if it is not being loaded yet.
+         *
+         * @param request the request
+         * @return the load
+         */
+        private Load load(final CatalogRequest request) {
+            Load load = loads.get(request.getSystemId());
+            if (load == null) {
+                final Load created = new Load(request);
+                load = loads.putIfAbsent(request.getSystemId(), created);
+                if (load == null) {
+                    load = created;
+                    if (!cancelled) {
+                        try {
+                            prefetchExecutor.execute(created);
+                        } catch (RejectedExecutionException ex) {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Catalog prefetch rejected: " + request, ex);
+                            }
+                        }
+                    }
+                }
+            }
+            return load;
+        }
+
+        /**
+         * Get the catalog. If the catalog is not yet being loaded, it is loaded in the current thread.
+         *
+         * @param request the request
+         * @return the resolution event
+         */
+        private CatalogResolutionEvent get(final CatalogRequest request) {
+            final Load load = load(request);
+            load.run();
+            final CatalogResolutionEvent event;
+            try {
+                event = load.result.join();
+            } catch (CompletionException | CancellationException ex) {
+                // repeat in the current thread to report the problem in the same way as without prefetch
+                return catalogProvider.getCatalog(catalogContext, request);
+            }
+            if (event.getRequest() == request) { // NOPMD
+                return event;
+            }
+            return new CatalogResolutionEvent(request, event.getFile(), event.getProblem(),
+                    event.getResolutionHistory());
+        }
+
+        /**
+         * Cancel loads that have not been started yet.
+         */
+        private void cancel() {
+            cancelled = true;
+            for (final Load load : loads.values()) {
+                if (load.started.compareAndSet(false, true)) {
+                    load.result.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * The single catalog load. It is executed either by executor or by the resolution thread, whichever
+         * comes first.
+         */
+        private final class Load implements Runnable {
+            /**
+             * The request.
+             */
+            private final CatalogRequest request;
+            /**
+             * True if the load has been started.
+             */
+            private final AtomicBoolean started = new AtomicBoolean();
+            /**
+             * The load result.
+             */
+            private final CompletableFuture<CatalogResolutionEvent> result = new CompletableFuture<>();
+
+            /**
+             * The constructor.
+             *
+             * @param request the request
+             */
+            private Load(final CatalogRequest request) {
+                this.request = request;
+            }
+
+            @Override
+            public void run() {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                final CatalogResolutionEvent event;
+                try {
+                    event = catalogProvider.getCatalog(catalogContext, request);
+                } catch (Throwable t) { // NOPMD
+                    result.completeExceptionally(t);
+                    return;
+                }
+                result.complete(event);
+                if (event.getFile() != null && !cancelled) {
+                    // next catalogs will be needed right after this catalog, if it does not resolve the request
+                    start(event.getFile().getNextCatalogs());
+                }
             }
         }
     }
@@ -25,7 +25,7 @@
 
 /**
  * The blocking catalog API. It contains simple catalog providers that resolve synchronously.
- * This catalog API is usually sufficient for the command line applications. Asynchronous API will
- * be provided in another project later.
+ * This catalog API is usually sufficient for the command line applications. The asynchronous API is provided
+ * by {@link net.sf.etl.xml_catalog.async.AsyncCatalog}.
  */
 package net.sf.etl.xml_catalog.blocking;
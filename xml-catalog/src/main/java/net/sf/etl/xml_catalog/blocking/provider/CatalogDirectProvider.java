@@ -30,9 +30,9 @@ import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
 import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
-import org.w3c.dom.Document;
 
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.net.URL;
 import java.util.Collections;
 
 /**
@@ -44,15 +44,11 @@ public final class CatalogDirectProvider implements CatalogProvider {
         final CatalogFile catalogFile;
         try {
             // TODO add next scope resolvers and collect resource references
-            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setNamespaceAware(true);
-            documentBuilderFactory.setCoalescing(true);
-            documentBuilderFactory.setIgnoringComments(true);
-            documentBuilderFactory.setIgnoringElementContentWhitespace(true);
-            final Document document = documentBuilderFactory.newDocumentBuilder().parse(request.getSystemId());
-            // TODO version from file or http
-            catalogFile = CatalogFile.fromDom(request.getSystemId(), System.currentTimeMillis(),
-                    Collections.<CatalogResourceUsage>emptyList(), document);
+            try (InputStream input = new URL(request.getSystemId()).openStream()) {
+                // TODO version from file or http
+                catalogFile = CatalogFile.fromStream(request.getSystemId(), System.currentTimeMillis(),
+                        Collections.<CatalogResourceUsage>emptyList(), input);
+            }
         } catch (Throwable problem) {
             return CatalogProviders.catalogLoaded(catalogContext, request, null, problem);
         }
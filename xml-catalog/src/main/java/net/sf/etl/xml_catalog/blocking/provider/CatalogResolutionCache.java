@@ -28,18 +28,41 @@ package net.sf.etl.xml_catalog.blocking.provider;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
 import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.CatalogResultTrace;
+import net.sf.etl.xml_catalog.metrics.CatalogMetricsListener;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
+ * <p>
  * The catalog cache by system id. Note it does not track dependencies between catalogs.
  * Only dependencies of the catalog itself.
+ * </p>
+ * <p>
+ * The cache also keeps the final resolution results by the request key. The result depends on all catalogs
+ * from its trace, so it is expired together with any of them. The lookups do not take locks, and the eviction
+ * is approximately LRU: the entries with the oldest access time are evicted in batches when the cache
+ * overflows. The updates of the cache are serialized. The result keys are created by the static methods of this
+ * class, so the blocking and the asynchronous catalogs use the same keys and could share the cache.
+ * </p>
+ * <p>
+ * The failures (catalog files that could not be loaded and requests that were not resolved) are cached as well, so
+ * many sources referring to the same missing resource do not walk the catalogs again. Since a missing file
+ * might appear later without any change to the tracked dependencies, the failures expire after
+ * {@link #getNegativeTtl()} milliseconds.
+ * </p>
  */
 public final class CatalogResolutionCache {
     /**
@@ -47,26 +70,83 @@ public final class CatalogResolutionCache {
      */
     public static final int DEFAULT_CACHE_SIZE = 256;
     /**
-     * The cache size.
+     * The maximum size of the result cache.
+     */
+    public static final int DEFAULT_RESULT_CACHE_SIZE = 4096;
+    /**
+     * The default time-to-live of the cached failures in milliseconds.
+     */
+    public static final long DEFAULT_NEGATIVE_TTL = 30_000L;
+    /**
+     * The part of the cache that is evicted at once on overflow.
+     */
+    private static final int EVICTION_FRACTION = 8;
+    /**
+     * The cached files.
+     */
+    private final Map<String, Cached<CatalogResolutionEvent>> cache = new ConcurrentHashMap<>(); // NOPMD
+    /**
+     * The cached results.
      */
-    private final Map<String, CatalogResolutionEvent> cache = // NOPMD
-            new LinkedHashMap<>(DEFAULT_CACHE_SIZE);
+    private final Map<Object, Cached<CatalogResult>> results = new ConcurrentHashMap<>(); // NOPMD
     /**
-     * The dependencies in the cache.
+     * The dependencies in the cache (guarded by {@link #lock}).
      */
     private final Map<String, Set<String>> dependencies = new HashMap<>(); // NOPMD
+    /**
+     * The dependencies of the results on catalogs (guarded by {@link #lock}).
+     */
+    private final Map<String, Set<Object>> resultDependencies = new HashMap<>(); // NOPMD
+    /**
+     * The lock for updates.
+     */
+    private final Object lock = new Object();
     /**
      * The cache size.
      */
-    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private volatile int cacheSize = DEFAULT_CACHE_SIZE;
+    /**
+     * The result cache size.
+     */
+    private volatile int resultCacheSize = DEFAULT_RESULT_CACHE_SIZE;
+    /**
+     * The time-to-live of the cached failures in milliseconds.
+     */
+    private volatile long negativeTtl = DEFAULT_NEGATIVE_TTL;
+    /**
+     * The listener for cache hits and misses (nullable).
+     */
+    private volatile CatalogMetricsListener metricsListener;
+    /**
+     * The generation of the cache, it is incremented on each expiration.
+     */
+    private volatile long generation;
+    /**
+     * The clock used for time-to-live and access times ({@link System#nanoTime()} compatible).
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * The constructor.
+     */
+    public CatalogResolutionCache() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * The constructor with the custom clock. It is mostly useful for tests.
+     *
+     * @param nanoTime the clock that returns time in nanoseconds like {@link System#nanoTime()}
+     */
+    public CatalogResolutionCache(final LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
 
     /**
      * @return the cache size
      */
     public int getCacheSize() {
-        synchronized (cache) {
-            return cacheSize;
-        }
+        return cacheSize;
     }
 
     /**
@@ -75,27 +155,138 @@ public final class CatalogResolutionCache {
      * @param cacheSize new cache size
      */
     public void setCacheSize(final int cacheSize) {
-        synchronized (cache) {
+        synchronized (lock) {
             this.cacheSize = cacheSize;
             if (cacheSize < 1) {
-                dependencies.clear();
-                cache.clear();
+                clear();
             } else {
-                int size = cache.size();
-                for (final Iterator<String> i = cache.keySet().iterator(); i.hasNext() && size > cacheSize; size--) {
-                    i.next();
-                    i.remove();
+                for (final String systemId : oldest(cache, cacheSize, false)) {
+                    expireFile(systemId);
                 }
             }
         }
     }
 
+    /**
+     * @return the result cache size
+     */
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    /**
+     * Set result cache size.
+     *
+     * @param resultCacheSize new result cache size, zero disables the result cache
+     */
+    public void setResultCacheSize(final int resultCacheSize) {
+        synchronized (lock) {
+            this.resultCacheSize = resultCacheSize;
+            for (final Object key : oldest(results, Math.max(resultCacheSize, 0), false)) {
+                expireResult(key);
+            }
+        }
+    }
+
+    /**
+     * @return the time-to-live of the cached failures in milliseconds
+     */
+    public long getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    /**
+     * Set the time-to-live of the cached failures. The failures that are already cached keep their deadlines.
+     *
+     * @param negativeTtl the time-to-live in milliseconds, zero or negative value disables caching of failures
+     */
+    public void setNegativeTtl(final long negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * @return the listener for cache hits and misses (nullable)
+     */
+    public CatalogMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Set the listener for cache hits and misses.
+     *
+     * @param metricsListener the listener (nullable)
+     */
+    public void setMetricsListener(final CatalogMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     /**
      * @return the current amount of entries in the cache
      */
     public int getCurrentSize() {
-        synchronized (cache) {
-            return cache.size();
+        return cache.size();
+    }
+
+    /**
+     * @return the current amount of results in the cache
+     */
+    public int getCurrentResultSize() {
+        return results.size();
+    }
+
+    /**
+     * @return the cache generation, it changes when something is expired from the cache
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get system ids of the resources that affect the cache content. These are the cached catalogs, resources used
+     * to load them, and catalogs used by the cached results. Expiring these system ids with
+     * {@link #expireFile(String)} removes the affected entries.
+     *
+     * @return the system ids
+     */
+    public Set<String> getDependencySystemIds() {
+        synchronized (lock) {
+            final Set<String> systemIds = new HashSet<>(cache.keySet());
+            systemIds.addAll(dependencies.keySet());
+            systemIds.addAll(resultDependencies.keySet());
+            return systemIds;
+        }
+    }
+
+    /**
+     * Get system ids of the resources that affect the cache content (see {@link #getDependencySystemIds()})
+     * together with the time when the oldest entry that depends on the resource has been cached. The time
+     * allows checking whether the resource has been changed after it was used.
+     *
+     * @return the cache times ({@link System#currentTimeMillis()} based) by system id
+     */
+    public Map<String, Long> getDependencyCacheTimes() {
+        synchronized (lock) {
+            final Map<String, Long> times = new HashMap<>(); // NOPMD
+            for (final Map.Entry<String, Cached<CatalogResolutionEvent>> e : cache.entrySet()) {
+                times.merge(e.getKey(), e.getValue().cacheTime, Math::min);
+            }
+            for (final Map.Entry<String, Set<String>> e : dependencies.entrySet()) {
+                for (final String systemId : e.getValue()) {
+                    final Cached<CatalogResolutionEvent> cached = cache.get(systemId);
+                    if (cached != null) {
+                        times.merge(e.getKey(), cached.cacheTime, Math::min);
+                    }
+                }
+            }
+            for (final Map.Entry<String, Set<Object>> e : resultDependencies.entrySet()) {
+                for (final Object key : e.getValue()) {
+                    final Cached<CatalogResult> cached = results.get(key);
+                    if (cached != null) {
+                        times.merge(e.getKey(), cached.cacheTime, Math::min);
+                    }
+                }
+            }
+            return times;
         }
     }
 
@@ -106,15 +297,41 @@ public final class CatalogResolutionCache {
      * @return the file in cache or null
      */
     public CatalogResolutionEvent getFile(final CatalogRequest request) {
-        synchronized (cache) {
-            final CatalogResolutionEvent event = cache.remove(request.getSystemId());
-            if (event != null) {
-                // add as last
-                cache.put(request.getSystemId(), event);
+        final CatalogResolutionEvent event = lookupFile(request);
+        final CatalogMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.fileCacheAccess(request, event != null);
+        }
+        return event;
+    }
+
+    /**
+     * Get file from the cache.
+     *
+     * @param request the request for the catalog
+     * @return the file in cache or null
+     */
+    private CatalogResolutionEvent lookupFile(final CatalogRequest request) {
+        final Cached<CatalogResolutionEvent> cached = cache.get(request.getSystemId());
+        if (cached == null) {
+            return null;
+        }
+        final long now = nanoTime.getAsLong();
+        if (cached.isExpired(now)) {
+            synchronized (lock) {
+                if (cache.get(request.getSystemId()) == cached) {
+                    expireFile(request.getSystemId());
+                }
             }
-            return event == null ? null : new CatalogResolutionEvent(
-                    request, event.getFile(), event.getProblem(), event.getResolutionHistory());
+            return null;
         }
+        cached.touch(now);
+        final CatalogResolutionEvent event = cached.value;
+        if (request.equals(event.getRequest())
+                && Objects.equals(request.getRequestLocation(), event.getRequest().getRequestLocation())) {
+            return event;
+        }
+        return new CatalogResolutionEvent(request, event.getFile(), event.getProblem(), event.getResolutionHistory());
     }
 
     /**
@@ -123,18 +340,189 @@ public final class CatalogResolutionCache {
      * @param event the file event to cache
      */
     public void cacheFile(final CatalogResolutionEvent event) {
-        synchronized (cache) {
-            if (cache.size() >= cacheSize && !cache.isEmpty()) {
-                expireFile(cache.entrySet().iterator().next().getKey());
-            }
-            if (cacheSize > 0) {
-                final String systemId = event.getRequest().getSystemId();
-                cache.put(systemId, new CatalogResolutionEvent(null, event.getFile(), event.getProblem(),
-                        event.getResolutionHistory()));
-                if (event.getFile() != null) {
-                    registerForUsedResources(systemId, event.getFile().getUsedResources());
+        synchronized (lock) {
+            if (cacheSize < 1) {
+                return;
+            }
+            final long ttl = event.getFile() == null ? negativeTtl : Long.MAX_VALUE;
+            if (ttl <= 0) {
+                return;
+            }
+            final String systemId = event.getRequest().getSystemId();
+            if (cache.containsKey(systemId)) {
+                expireFile(systemId);
+            } else {
+                for (final String id : oldest(cache, cacheSize - 1, true)) {
+                    expireFile(id);
                 }
-                registerForUsedResources(systemId, event.getResolutionHistory());
+            }
+            cache.put(systemId, new Cached<>(event, null, ttl, nanoTime.getAsLong()));
+            if (event.getFile() != null) {
+                registerForUsedResources(systemId, event.getFile().getUsedResources());
+            }
+            registerForUsedResources(systemId, event.getResolutionHistory());
+        }
+    }
+
+    /**
+     * Create the result key for the entity resolution.
+     *
+     * @param startCatalog the start catalog
+     * @param preferPublic the prefer public mode
+     * @param publicId     the public id
+     * @param systemId     the system id
+     * @param baseUri      the base URI
+     * @return the key for {@link #getResult(Object)} and {@link #cacheResult(Object, CatalogResult, long)}
+     */
+    public static Object entityKey(final CatalogRequest startCatalog, final boolean preferPublic,
+                                   final String publicId, final String systemId, final String baseUri) {
+        return Arrays.asList(startCatalog, "entity", preferPublic, publicId, systemId, baseUri);
+    }
+
+    /**
+     * Create the result key for the URI resolution.
+     *
+     * @param startCatalog the start catalog
+     * @param uri          the URI
+     * @param nature       the nature
+     * @param purpose      the purpose
+     * @param baseUri      the base URI
+     * @return the key for {@link #getResult(Object)} and {@link #cacheResult(Object, CatalogResult, long)}
+     */
+    public static Object uriKey(final CatalogRequest startCatalog, final String uri, final String nature,
+                                final String purpose, final String baseUri) {
+        return Arrays.asList(startCatalog, "uri", uri, nature, purpose, baseUri);
+    }
+
+    /**
+     * Create the result key for the doctype resolution.
+     *
+     * @param startCatalog the start catalog
+     * @param preferPublic the prefer public mode
+     * @param name         the name
+     * @param publicId     the public id
+     * @param systemId     the system id
+     * @param baseUri      the base URI
+     * @return the key for {@link #getResult(Object)} and {@link #cacheResult(Object, CatalogResult, long)}
+     */
+    public static Object doctypeKey(final CatalogRequest startCatalog, final boolean preferPublic, // NOPMD
+                                    final String name, final String publicId, final String systemId,
+                                    final String baseUri) {
+        return Arrays.asList(startCatalog, "doctype", preferPublic, name, publicId, systemId, baseUri);
+    }
+
+    /**
+     * Create the result key for the notation resolution.
+     *
+     * @param startCatalog the start catalog
+     * @param preferPublic the prefer public mode
+     * @param name         the name
+     * @param publicId     the public id
+     * @param systemId     the system id
+     * @param baseUri      the base URI
+     * @return the key for {@link #getResult(Object)} and {@link #cacheResult(Object, CatalogResult, long)}
+     */
+    public static Object notationKey(final CatalogRequest startCatalog, final boolean preferPublic, // NOPMD
+                                     final String name, final String publicId, final String systemId,
+                                     final String baseUri) {
+        return Arrays.asList(startCatalog, "notation", preferPublic, name, publicId, systemId, baseUri);
+    }
+
+    /**
+     * Create the result key for the resource resolution.
+     *
+     * @param startCatalog the start catalog
+     * @param preferPublic the prefer public mode
+     * @param uri          the resource namespace
+     * @param nature       the nature
+     * @param purpose      the purpose
+     * @param publicId     the public id
+     * @param systemId     the system id
+     * @param baseUri      the base URI
+     * @return the key for {@link #getResult(Object)} and {@link #cacheResult(Object, CatalogResult, long)}
+     */
+    public static Object resourceKey(final CatalogRequest startCatalog, final boolean preferPublic, // NOPMD
+                                     final String uri, final String nature, final String purpose,
+                                     final String publicId, final String systemId, final String baseUri) {
+        return Arrays.asList(startCatalog, "resource", preferPublic, uri, nature, purpose, publicId, systemId,
+                baseUri);
+    }
+
+    /**
+     * Get result from the cache.
+     *
+     * @param key the request key
+     * @return the cached result or null
+     */
+    public CatalogResult getResult(final Object key) {
+        final CatalogResult result = lookupResult(key);
+        final CatalogMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.resultCacheAccess(result != null);
+        }
+        return result;
+    }
+
+    /**
+     * Get result from the cache.
+     *
+     * @param key the request key
+     * @return the cached result or null
+     */
+    private CatalogResult lookupResult(final Object key) {
+        final Cached<CatalogResult> cached = results.get(key);
+        if (cached == null) {
+            return null;
+        }
+        final long now = nanoTime.getAsLong();
+        if (cached.isExpired(now)) {
+            synchronized (lock) {
+                if (results.get(key) == cached) {
+                    expireResult(key);
+                }
+            }
+            return null;
+        }
+        cached.touch(now);
+        return cached.value;
+    }
+
+    /**
+     * Cache the resolution result. The result is not cached if something has been expired since the resolution
+     * started, because the result might have been computed from the expired catalogs.
+     *
+     * @param key               the request key
+     * @param result            the result
+     * @param startedGeneration the value of {@link #getGeneration()} before the resolution
+     */
+    public void cacheResult(final Object key, final CatalogResult result, final long startedGeneration) {
+        synchronized (lock) {
+            if (resultCacheSize < 1 || startedGeneration != generation) {
+                return;
+            }
+            final long ttl = result.isResolved() ? Long.MAX_VALUE : negativeTtl;
+            if (ttl <= 0) {
+                return;
+            }
+            if (results.containsKey(key)) {
+                expireResult(key);
+            } else {
+                for (final Object k : oldest(results, resultCacheSize - 1, true)) {
+                    expireResult(k);
+                }
+            }
+            final Set<String> catalogs = new LinkedHashSet<>();
+            for (CatalogResultTrace t = result.getTrace(); t != null; t = t.getPrevious()) {
+                catalogs.add(t.getCatalogRequest().getSystemId());
+                if (t.getResolutionResources() != null) {
+                    for (final CatalogResourceUsage usage : t.getResolutionResources()) {
+                        catalogs.add(usage.getSystemId());
+                    }
+                }
+            }
+            results.put(key, new Cached<>(result, new ArrayList<>(catalogs), ttl, nanoTime.getAsLong()));
+            for (final String systemId : catalogs) {
+                resultDependencies.computeIfAbsent(systemId, k -> new HashSet<>()).add(key); // NOPMD
             }
         }
     }
@@ -153,19 +541,27 @@ public final class CatalogResolutionCache {
     }
 
     /**
-     * Expire the file from the cache.
+     * Expire the file from the cache. The results that depend on the file are expired as well.
      *
      * @param systemId the system id
      */
     public void expireFile(final String systemId) {
-        synchronized (cache) {
-            final CatalogResolutionEvent event = cache.remove(systemId);
-            if (event != null) {
+        synchronized (lock) {
+            generation++;
+            final Cached<CatalogResolutionEvent> cached = cache.remove(systemId);
+            if (cached != null) {
+                final CatalogResolutionEvent event = cached.value;
                 clearResourceUsage(systemId, event.getResolutionHistory());
                 if (event.getFile() != null) {
                     clearResourceUsage(systemId, event.getFile().getUsedResources());
                 }
             }
+            final Set<Object> keys = resultDependencies.remove(systemId);
+            if (keys != null) {
+                for (final Object key : keys.toArray()) {
+                    expireResult(key);
+                }
+            }
             final Set<String> systemIds = dependencies.remove(systemId);
             if (systemIds != null) {
                 for (final String id : systemIds.toArray(new String[systemIds.size()])) { // NOPMD
@@ -175,6 +571,26 @@ public final class CatalogResolutionCache {
         }
     }
 
+    /**
+     * Expire the result (must be called under lock).
+     *
+     * @param key the result key
+     */
+    private void expireResult(final Object key) {
+        final Cached<CatalogResult> cached = results.remove(key);
+        if (cached != null) {
+            for (final String systemId : cached.catalogs) {
+                final Set<Object> keys = resultDependencies.get(systemId);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        resultDependencies.remove(systemId);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Clear resource usage.
      *
@@ -197,9 +613,100 @@ public final class CatalogResolutionCache {
      * Clear the cache.
      */
     public void clear() {
-        synchronized (cache) {
+        synchronized (lock) {
+            generation++;
             dependencies.clear();
+            resultDependencies.clear();
             cache.clear();
+            results.clear();
+        }
+    }
+
+    /**
+     * Select the least recently used keys to evict.
+     *
+     * @param map   the map
+     * @param limit the maximum amount of entries to keep
+     * @param batch if true, some extra entries are selected, so the next additions will not need eviction
+     * @param <K>   the key type
+     * @param <V>   the cached value type
+     * @return the keys to evict
+     */
+    private static <K, V extends Cached<?>> List<K> oldest(final Map<K, V> map, final int limit,
+                                                           final boolean batch) {
+        final int size = map.size();
+        if (size <= limit) {
+            return List.of();
+        }
+        final int count = Math.min(size, size - limit + (batch ? limit / EVICTION_FRACTION : 0));
+        final List<Map.Entry<K, V>> entries = new ArrayList<>(map.entrySet());
+        entries.sort(Comparator.comparingLong(e -> ((Cached<?>) e.getValue()).lastAccess));
+        final List<K> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(entries.get(i).getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * The cached value.
+     *
+     * @param <T> the value type
+     */
+    private static final class Cached<T> {
+        /**
+         * The value.
+         */
+        private final T value;
+        /**
+         * The catalogs the result depends on (null for files).
+         */
+        private final List<String> catalogs;
+        /**
+         * The time when the value expires (cache clock based, {@link Long#MAX_VALUE} if never).
+         */
+        private final long deadline;
+        /**
+         * The last access time (cache clock based).
+         */
+        private volatile long lastAccess;
+        /**
+         * The time when the value has been cached ({@link System#currentTimeMillis()} based).
+         */
+        private final long cacheTime = System.currentTimeMillis();
+
+        /**
+         * The constructor.
+         *
+         * @param value    the value
+         * @param catalogs the catalogs the value depends on
+         * @param ttl      the time-to-live in milliseconds ({@link Long#MAX_VALUE} if the value does not expire)
+         * @param now      the current time
+         */
+        private Cached(final T value, final List<String> catalogs, final long ttl, final long now) {
+            this.value = value;
+            this.catalogs = catalogs;
+            this.lastAccess = now;
+            this.deadline = ttl == Long.MAX_VALUE ? Long.MAX_VALUE : now + ttl * 1_000_000L;
+        }
+
+        /**
+         * Check if the value is expired.
+         *
+         * @param now the current time
+         * @return true if the value is expired
+         */
+        private boolean isExpired(final long now) {
+            return deadline != Long.MAX_VALUE && now - deadline > 0;
+        }
+
+        /**
+         * Update access time.
+         *
+         * @param now the current time
+         */
+        private void touch(final long now) {
+            lastAccess = now;
         }
     }
 }
@@ -31,10 +31,12 @@ import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
 import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
+import net.sf.etl.xml_catalog.metrics.CatalogMetricsListener;
 import net.sf.etl.xml_catalog.util.BinaryKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URL;
 import java.security.SecureRandom;
@@ -44,7 +46,6 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
-import java.util.WeakHashMap;
 
 /**
  * The runtime resolver for the catalog.
@@ -63,25 +64,22 @@ public final class CatalogRuntimeProvider implements CatalogProvider {
      */
     private static final Logger LOG = LoggerFactory.getLogger(CatalogRuntimeProvider.class);
     /**
-     * The lock for synthetic catalogs.
+     * The lock for registry updates.
      */
-    private final Object syntheticCatalogsLock = new Object();
+    private final Object registryLock = new Object();
     /**
-     * The synthetic catalogs generated by the provider.
-     * // TODO should it be named flywieght catalogs?
+     * The current registry. The registry is immutable, the updates replace it with a modified copy under
+     * {@link #registryLock}, so {@link #getCatalog(CatalogContext, CatalogRequest)} does not take locks.
      */
-    private final WeakHashMap<CatalogRequest, CatalogProvider> syntheticCatalogs
-            = new WeakHashMap<>();
-    /**
-     * The handlers for the catalogs by URI schema.
-     * TODO more flexible mechanism that allows multiple registrations for the single schema (like JDBC DriverManager)
-     */
-    private final Map<String, CatalogProvider> schemaCatalogProviders = // NOPMD
-            new HashMap<>();
+    private volatile Registry registry = new Registry(Map.of(), Map.of());
     /**
      * The next provider.
      */
     private final CatalogProvider nextProvider;
+    /**
+     * The listener for catalog load times (nullable).
+     */
+    private volatile CatalogMetricsListener metricsListener;
 
     /**
      * The default constructor that uses {@link CatalogDirectProvider} as the next provider.
@@ -99,21 +97,55 @@ public final class CatalogRuntimeProvider implements CatalogProvider {
         this.nextProvider = nextProvider;
     }
 
+    /**
+     * @return the listener for catalog load times (nullable)
+     */
+    public CatalogMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Set the listener for catalog load times. The loads are reported by the URI scheme of the catalog, including
+     * synthetic catalogs and catalogs loaded by the next provider.
+     *
+     * @param metricsListener the listener (nullable)
+     */
+    public void setMetricsListener(final CatalogMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     @Override
     public CatalogResolutionEvent getCatalog(final CatalogContext catalogContext, final CatalogRequest request) {
-        final CatalogProvider catalogFileCreator;
-        CatalogProvider schemaFileCreator;
-        synchronized (syntheticCatalogsLock) {
-            catalogFileCreator = syntheticCatalogs.get(request);
-            try {
-                schemaFileCreator = schemaCatalogProviders.get(new URI(request.getSystemId()).getScheme());
-            } catch (Throwable t) {
-                schemaFileCreator = null;
-            }
+        final CatalogMetricsListener listener = metricsListener;
+        if (listener == null) {
+            return load(catalogContext, request);
+        }
+        final long start = System.nanoTime();
+        CatalogResolutionEvent event = null;
+        try {
+            event = load(catalogContext, request);
+            return event;
+        } finally {
+            listener.catalogLoaded(request, request.getScheme(), System.nanoTime() - start,
+                    event == null || event.getFile() == null);
         }
-        if (catalogFileCreator != null) {
-            return catalogFileCreator.getCatalog(catalogContext, request);
+    }
+
+    /**
+     * Load catalog using the registered providers.
+     *
+     * @param catalogContext the catalog context
+     * @param request        the request to resolve
+     * @return the catalog resolution result
+     */
+    private CatalogResolutionEvent load(final CatalogContext catalogContext, final CatalogRequest request) {
+        final Registry current = registry;
+        final SyntheticCatalog synthetic = current.syntheticCatalogs.get(request.getSystemId());
+        if (synthetic != null && synthetic.request.get() != null) {
+            return synthetic.provider.getCatalog(catalogContext, request);
         }
+        final String scheme = request.getScheme();
+        final CatalogProvider schemaFileCreator = scheme == null ? null : current.schemaCatalogProviders.get(scheme);
         if (schemaFileCreator != null) {
             return schemaFileCreator.getCatalog(catalogContext, request);
         }
@@ -159,8 +191,10 @@ public final class CatalogRuntimeProvider implements CatalogProvider {
      */
     public CatalogRequest registerSyntheticCatalogProvider(final CatalogRequest request,
                                                            final CatalogProvider catalogFileCreator) {
-        synchronized (syntheticCatalogsLock) {
-            syntheticCatalogs.put(request, catalogFileCreator);
+        synchronized (registryLock) {
+            final Map<String, SyntheticCatalog> synthetic = liveSyntheticCatalogs(registry);
+            synthetic.put(request.getSystemId(), new SyntheticCatalog(request, catalogFileCreator));
+            registry = new Registry(synthetic, registry.schemaCatalogProviders);
         }
         return request;
     }
@@ -273,8 +307,10 @@ public final class CatalogRuntimeProvider implements CatalogProvider {
      * @param provider the provider
      */
     public void registerSchema(final String schema, final CatalogProvider provider) {
-        synchronized (syntheticCatalogs) {
-            schemaCatalogProviders.put(schema, provider);
+        synchronized (registryLock) {
+            final Map<String, CatalogProvider> schemas = new HashMap<>(registry.schemaCatalogProviders); // NOPMD
+            schemas.put(schema, provider);
+            registry = new Registry(liveSyntheticCatalogs(registry), schemas);
         }
     }
 
@@ -285,10 +321,12 @@ public final class CatalogRuntimeProvider implements CatalogProvider {
      * @param provider the provider
      */
     public void removeSchema(final String schema, final CatalogProvider provider) {
-        synchronized (syntheticCatalogs) {
-            final CatalogProvider expected = schemaCatalogProviders.get(schema);
+        synchronized (registryLock) {
+            final CatalogProvider expected = registry.schemaCatalogProviders.get(schema);
             if (expected == provider) { // NOPMD
-                schemaCatalogProviders.remove(schema);
+                final Map<String, CatalogProvider> schemas = new HashMap<>(registry.schemaCatalogProviders); // NOPMD
+                schemas.remove(schema);
+                registry = new Registry(liveSyntheticCatalogs(registry), schemas);
             }
         }
     }
@@ -315,6 +353,77 @@ public final class CatalogRuntimeProvider implements CatalogProvider {
         }
     }
 
+    /**
+     * Copy synthetic catalogs whose requests are still referenced.
+     *
+     * @param current the current registry
+     * @return the mutable copy of the synthetic catalogs
+     */
+    private static Map<String, SyntheticCatalog> liveSyntheticCatalogs(final Registry current) {
+        final Map<String, SyntheticCatalog> rc = new HashMap<>(); // NOPMD
+        for (final Map.Entry<String, SyntheticCatalog> e : current.syntheticCatalogs.entrySet()) {
+            if (e.getValue().request.get() != null) {
+                rc.put(e.getKey(), e.getValue());
+            }
+        }
+        return rc;
+    }
+
+    /**
+     * The immutable snapshot of the registered providers.
+     */
+    private static final class Registry {
+        /**
+         * The synthetic catalogs generated by the provider by system id.
+         * // TODO should it be named flywieght catalogs?
+         */
+        private final Map<String, SyntheticCatalog> syntheticCatalogs;
+        /**
+         * The handlers for the catalogs by URI schema.
+         * TODO more flexible mechanism that allows multiple registrations for the single schema
+         * (like JDBC DriverManager)
+         */
+        private final Map<String, CatalogProvider> schemaCatalogProviders;
+
+        /**
+         * The constructor.
+         *
+         * @param syntheticCatalogs      the synthetic catalogs
+         * @param schemaCatalogProviders the providers by schema
+         */
+        private Registry(final Map<String, SyntheticCatalog> syntheticCatalogs,
+                         final Map<String, CatalogProvider> schemaCatalogProviders) {
+            this.syntheticCatalogs = Map.copyOf(syntheticCatalogs);
+            this.schemaCatalogProviders = Map.copyOf(schemaCatalogProviders);
+        }
+    }
+
+    /**
+     * The registered synthetic catalog. The request is weakly referenced, so the catalog stops to be resolved
+     * when the request returned from the registration is garbage collected.
+     */
+    private static final class SyntheticCatalog {
+        /**
+         * The registered request.
+         */
+        private final WeakReference<CatalogRequest> request;
+        /**
+         * The catalog provider.
+         */
+        private final CatalogProvider provider;
+
+        /**
+         * The constructor.
+         *
+         * @param request  the registered request
+         * @param provider the catalog provider
+         */
+        private SyntheticCatalog(final CatalogRequest request, final CatalogProvider provider) {
+            this.request = new WeakReference<>(request);
+            this.provider = provider;
+        }
+    }
+
     // TODO resolution filters  (catalog result caching)
     // TODO schema handlers that handle the failure and go for the next handler for the schema
 }
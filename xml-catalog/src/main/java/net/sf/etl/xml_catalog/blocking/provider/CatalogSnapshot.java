@@ -0,0 +1,358 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.blocking.provider;
+
+import net.sf.etl.xml_catalog.event.CatalogContext;
+import net.sf.etl.xml_catalog.event.CatalogFile;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
+import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.CatalogReferenceEntry;
+import net.sf.etl.xml_catalog.event.entries.GroupEntry;
+import net.sf.etl.xml_catalog.util.URIUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>
+ * The precompiled snapshot of the catalog graph. The snapshot contains parsed entries of all catalog files that are
+ * reachable from the root catalog through next catalog and delegate entries. It could be saved to the binary file
+ * and loaded on the next start, so catalog files do not need to be parsed again.
+ * </p>
+ * <p>
+ * Only catalogs that are backed by local files (including entries of local jar files) are stored in the snapshot.
+ * Each stored catalog records the version of its source file as {@link CatalogResourceUsage}, and the stored catalog
+ * is used only if the source is not changed. Other catalogs (for example, synthetic catalogs that list classpath
+ * or directory content) are always loaded by the fallback provider, so new catalogs are still discovered.
+ * </p>
+ */
+public final class CatalogSnapshot {
+    /**
+     * The role of the catalog source in the resource usage.
+     */
+    public static final String SOURCE_ROLE = "catalog-snapshot-source";
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogSnapshot.class);
+    /**
+     * The file magic.
+     */
+    private static final int MAGIC = 0x45544C53;
+    /**
+     * The format version.
+     */
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * The stored catalogs by system id.
+     */
+    private final Map<String, StoredCatalog> catalogs;
+
+    /**
+     * The constructor.
+     *
+     * @param catalogs the stored catalogs
+     */
+    private CatalogSnapshot(final Map<String, StoredCatalog> catalogs) {
+        this.catalogs = catalogs;
+    }
+
+    /**
+     * Build the snapshot by loading all catalogs reachable from the root catalog.
+     *
+     * @param provider       the provider to use
+     * @param catalogContext the catalog context
+     * @param root           the root catalog request
+     * @return the snapshot
+     */
+    public static CatalogSnapshot build(final CatalogProvider provider, final CatalogContext catalogContext,
+                                        final CatalogRequest root) {
+        final Map<String, StoredCatalog> catalogs = new LinkedHashMap<>();
+        final Set<String> visited = new HashSet<>();
+        final ArrayDeque<CatalogRequest> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            final CatalogRequest request = queue.removeFirst();
+            if (!visited.add(request.getSystemId())) {
+                continue;
+            }
+            final CatalogResolutionEvent event = provider.getCatalog(catalogContext, request);
+            final CatalogFile file = event == null ? null : event.getFile();
+            if (file == null) {
+                continue;
+            }
+            final List<CatalogResourceUsage> sources = sources(request.getSystemId());
+            if (sources != null) {
+                catalogs.put(request.getSystemId(), new StoredCatalog(request.getSystemId(), sources,
+                        CatalogSnapshotFormat.encode(file.getRootEntry())));
+            }
+            addReferences(queue, file.getRootEntry());
+        }
+        return new CatalogSnapshot(catalogs);
+    }
+
+    /**
+     * Add catalogs referenced from the group to the queue.
+     *
+     * @param queue the queue
+     * @param group the group
+     */
+    private static void addReferences(final ArrayDeque<CatalogRequest> queue, final GroupEntry group) {
+        for (final CatalogEntry entry : group.getEntries()) {
+            if (entry instanceof GroupEntry) {
+                addReferences(queue, (GroupEntry) entry);
+            } else if (entry instanceof CatalogReferenceEntry) {
+                queue.addLast(((CatalogReferenceEntry) entry).toCatalogRequest());
+            }
+        }
+    }
+
+    /**
+     * Get source resources for the catalog with their current versions.
+     *
+     * @param systemId the catalog system id
+     * @return the source resources, or null if the catalog is not backed by a local file
+     */
+    private static List<CatalogResourceUsage> sources(final String systemId) {
+        final File file = URIUtil.toLocalFile(systemId);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        return Collections.singletonList(new CatalogResourceUsage(SOURCE_ROLE, file.toURI().toString(),
+                URIUtil.fileVersion(file)));
+    }
+
+    /**
+     * Read the snapshot.
+     *
+     * @param input the input stream
+     * @return the snapshot
+     * @throws IOException if the snapshot could not be read, or it is truncated or damaged
+     */
+    public static CatalogSnapshot read(final InputStream input) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        final int formatVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalog snapshot version: " + formatVersion);
+        }
+        final int count = CatalogSnapshotFormat.readVarint(in);
+        final Map<String, StoredCatalog> catalogs = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            final String systemId = in.readUTF();
+            final int sourceCount = CatalogSnapshotFormat.readVarint(in);
+            final List<CatalogResourceUsage> sources = new ArrayList<>();
+            for (int j = 0; j < sourceCount; j++) {
+                sources.add(new CatalogResourceUsage(in.readUTF(), in.readUTF(), in.readUTF())); // NOPMD
+            }
+            final int length = CatalogSnapshotFormat.readVarint(in);
+            // the data is read in chunks, so a damaged length fails on the end of stream rather than on allocation
+            final byte[] data = in.readNBytes(length);
+            if (data.length != length) {
+                throw new EOFException("The catalog snapshot is truncated: " + systemId);
+            }
+            catalogs.put(systemId, new StoredCatalog(systemId, sources, data)); // NOPMD
+        }
+        return new CatalogSnapshot(catalogs);
+    }
+
+    /**
+     * Write the snapshot.
+     *
+     * @param output the output stream (it is flushed, but not closed)
+     * @throws IOException if the snapshot could not be written
+     */
+    public void write(final OutputStream output) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        CatalogSnapshotFormat.writeVarint(out, catalogs.size());
+        for (final StoredCatalog catalog : catalogs.values()) {
+            out.writeUTF(catalog.systemId);
+            CatalogSnapshotFormat.writeVarint(out, catalog.sources.size());
+            for (final CatalogResourceUsage source : catalog.sources) {
+                out.writeUTF(source.getRole());
+                out.writeUTF(source.getSystemId());
+                out.writeUTF(String.valueOf(source.getVersion()));
+            }
+            CatalogSnapshotFormat.writeVarint(out, catalog.data.length);
+            out.write(catalog.data);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the system ids of stored catalogs
+     */
+    public Set<String> getSystemIds() {
+        return Collections.unmodifiableSet(catalogs.keySet());
+    }
+
+    /**
+     * Create provider that uses the snapshot.
+     *
+     * @param fallback the provider for catalogs that are not stored in the snapshot or changed since the snapshot
+     *                 has been created
+     * @return the catalog provider
+     */
+    public CatalogProvider createProvider(final CatalogProvider fallback) {
+        return (catalogContext, request) -> {
+            final StoredCatalog catalog = catalogs.get(request.getSystemId());
+            final CatalogFile file = catalog == null ? null : catalog.getFile();
+            if (file == null) {
+                return fallback.getCatalog(catalogContext, request);
+            }
+            return CatalogProviders.catalogLoaded(catalogContext, request, file, null, CatalogResourceUsage.NONE);
+        };
+    }
+
+    /**
+     * The catalog stored in the snapshot.
+     */
+    private static final class StoredCatalog {
+        /**
+         * The catalog system id.
+         */
+        private final String systemId;
+        /**
+         * The source resources with versions at the moment of snapshot creation.
+         */
+        private final List<CatalogResourceUsage> sources;
+        /**
+         * The encoded catalog entries.
+         */
+        private final byte[] data;
+        /**
+         * True if the source has been changed since the snapshot creation, or the data is damaged.
+         */
+        private volatile boolean outdated;
+        /**
+         * The decoded catalog file (null if it is not decoded yet).
+         */
+        private volatile CatalogFile file;
+
+        /**
+         * The constructor.
+         *
+         * @param systemId the system id
+         * @param sources  the sources
+         * @param data     the encoded entries
+         */
+        private StoredCatalog(final String systemId, final List<CatalogResourceUsage> sources, final byte[] data) {
+            this.systemId = systemId;
+            this.sources = sources;
+            this.data = data;
+        }
+
+        /**
+         * Get the catalog file. The sources are checked on each access, and the entries are decoded on the first
+         * access. Once the sources are changed, the stored catalog is dropped.
+         *
+         * @return the catalog file or null if the snapshot is outdated for this catalog
+         */
+        private CatalogFile getFile() {
+            if (outdated) {
+                return null;
+            }
+            if (!isSourceUnchanged()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("The catalog snapshot is outdated for " + systemId);
+                }
+                outdated = true;
+                file = null;
+                return null;
+            }
+            CatalogFile rc = file;
+            if (rc == null) {
+                synchronized (this) {
+                    rc = file;
+                    if (rc == null && !outdated) {
+                        rc = decode();
+                        if (rc == null) {
+                            outdated = true;
+                        } else {
+                            file = rc;
+                        }
+                    }
+                }
+            }
+            return rc;
+        }
+
+        /**
+         * @return true if the sources have the same versions as at the moment of snapshot creation
+         */
+        private boolean isSourceUnchanged() {
+            for (final CatalogResourceUsage source : sources) {
+                final File sourceFile = URIUtil.toLocalFile(source.getSystemId());
+                if (sourceFile == null || !sourceFile.isFile()
+                        || !Objects.equals(URIUtil.fileVersion(sourceFile), source.getVersion())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Decode the catalog.
+         *
+         * @return the catalog file or null if the data is damaged
+         */
+        private CatalogFile decode() {
+            try {
+                return new CatalogFile(systemId, sources.isEmpty() ? null : sources.get(0).getVersion(), sources,
+                        CatalogSnapshotFormat.decode(data));
+            } catch (Exception e) { // NOPMD
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("The catalog snapshot is damaged for " + systemId, e);
+                }
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,575 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.blocking.provider;
+
+import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.DelegatePublicEntry;
+import net.sf.etl.xml_catalog.event.entries.DelegateSystemEntry;
+import net.sf.etl.xml_catalog.event.entries.DelegateUriEntry;
+import net.sf.etl.xml_catalog.event.entries.GroupEntry;
+import net.sf.etl.xml_catalog.event.entries.NextCatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.PublicEntry;
+import net.sf.etl.xml_catalog.event.entries.RewriteSystemEntry;
+import net.sf.etl.xml_catalog.event.entries.RewriteUriEntry;
+import net.sf.etl.xml_catalog.event.entries.SystemEntry;
+import net.sf.etl.xml_catalog.event.entries.SystemSuffixEntry;
+import net.sf.etl.xml_catalog.event.entries.UriEntry;
+import net.sf.etl.xml_catalog.event.entries.UriSuffixEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DTDDeclEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DoctypeEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DocumentEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.EntityEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.LinkTypeEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.NamedEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.NotationEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.SGMLDeclEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary encoding of catalog entries used by {@link CatalogSnapshot}. Each catalog file is encoded separately,
+ * and strings are written only once per file, the next occurrences are written as references.
+ */
+final class CatalogSnapshotFormat {
+    /**
+     * The group entry tag.
+     */
+    private static final int GROUP = 1;
+    /**
+     * The public entry tag.
+     */
+    private static final int PUBLIC = 2;
+    /**
+     * The system entry tag.
+     */
+    private static final int SYSTEM = 3;
+    /**
+     * The rewrite system entry tag.
+     */
+    private static final int REWRITE_SYSTEM = 4;
+    /**
+     * The system suffix entry tag.
+     */
+    private static final int SYSTEM_SUFFIX = 5;
+    /**
+     * The delegate public entry tag.
+     */
+    private static final int DELEGATE_PUBLIC = 6;
+    /**
+     * The delegate system entry tag.
+     */
+    private static final int DELEGATE_SYSTEM = 7;
+    /**
+     * The uri entry tag.
+     */
+    private static final int URI_ENTRY = 8;
+    /**
+     * The rewrite uri entry tag.
+     */
+    private static final int REWRITE_URI = 9;
+    /**
+     * The uri suffix entry tag.
+     */
+    private static final int URI_SUFFIX = 10;
+    /**
+     * The delegate uri entry tag.
+     */
+    private static final int DELEGATE_URI = 11;
+    /**
+     * The next catalog entry tag.
+     */
+    private static final int NEXT_CATALOG = 12;
+    /**
+     * The TR9401 doctype entry tag.
+     */
+    private static final int DOCTYPE = 13;
+    /**
+     * The TR9401 document entry tag.
+     */
+    private static final int DOCUMENT = 14;
+    /**
+     * The TR9401 dtddecl entry tag.
+     */
+    private static final int DTDDECL = 15;
+    /**
+     * The TR9401 entity entry tag.
+     */
+    private static final int ENTITY = 16;
+    /**
+     * The TR9401 linktype entry tag.
+     */
+    private static final int LINKTYPE = 17;
+    /**
+     * The TR9401 notation entry tag.
+     */
+    private static final int NOTATION = 18;
+    /**
+     * The TR9401 sgmldecl entry tag.
+     */
+    private static final int SGMLDECL = 19;
+    /**
+     * The null string reference.
+     */
+    private static final int NULL_STRING = 0;
+    /**
+     * The new string reference, it is followed by string text.
+     */
+    private static final int NEW_STRING = 1;
+    /**
+     * The offset of references to already written strings.
+     */
+    private static final int STRING_OFFSET = 2;
+    /**
+     * The prefer value is not specified.
+     */
+    private static final int PREFER_UNSPECIFIED = 0;
+    /**
+     * The prefer public value.
+     */
+    private static final int PREFER_PUBLIC = 1;
+    /**
+     * The prefer system value.
+     */
+    private static final int PREFER_SYSTEM = 2;
+    /**
+     * The bits in varint byte.
+     */
+    private static final int VARINT_BITS = 7;
+    /**
+     * The mask for varint value bits.
+     */
+    private static final int VARINT_MASK = 0x7F;
+    /**
+     * The varint continuation flag.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Private constructor for utility class.
+     */
+    private CatalogSnapshotFormat() {
+        // do nothing
+    }
+
+    /**
+     * Encode the root entry.
+     *
+     * @param root the root entry
+     * @return the encoded bytes
+     */
+    static byte[] encode(final GroupEntry root) {
+        final Encoder encoder = new Encoder();
+        try {
+            encoder.entry(root);
+            encoder.out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("[BUG] Writing to memory failed", e);
+        }
+        return encoder.bytes.toByteArray();
+    }
+
+    /**
+     * Decode the root entry.
+     *
+     * @param data the encoded bytes
+     * @return the root entry
+     * @throws IOException if data is malformed
+     */
+    static GroupEntry decode(final byte[] data) throws IOException {
+        final CatalogEntry entry = new Decoder(data).entry();
+        if (!(entry instanceof GroupEntry)) {
+            throw new IOException("The root entry must be a group: " + entry);
+        }
+        return (GroupEntry) entry;
+    }
+
+    /**
+     * Write unsigned varint.
+     *
+     * @param out   the output
+     * @param value the value
+     * @throws IOException if write fails
+     */
+    static void writeVarint(final DataOutputStream out, final int value) throws IOException {
+        int v = value;
+        while ((v & ~VARINT_MASK) != 0) {
+            out.writeByte(v & VARINT_MASK | VARINT_MORE);
+            v >>>= VARINT_BITS;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * Read unsigned varint.
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if read fails or the value does not fit into non-negative integer
+     */
+    static int readVarint(final DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            final int b = in.readUnsignedByte();
+            value |= (b & VARINT_MASK) << shift;
+            if ((b & VARINT_MORE) == 0) {
+                if (value < 0) {
+                    throw new IOException("Malformed varint: " + value);
+                }
+                return value;
+            }
+            shift += VARINT_BITS;
+            if (shift > Integer.SIZE) {
+                throw new IOException("Malformed varint");
+            }
+        }
+    }
+
+    /**
+     * The entry encoder.
+     */
+    private static final class Encoder {
+        /**
+         * The bytes.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        /**
+         * The output.
+         */
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        /**
+         * The already written strings.
+         */
+        private final Map<String, Integer> strings = new HashMap<>(); // NOPMD
+
+        /**
+         * Write string.
+         *
+         * @param value the value
+         * @throws IOException if write fails
+         */
+        private void string(final String value) throws IOException {
+            if (value == null) {
+                writeVarint(out, NULL_STRING);
+                return;
+            }
+            final Integer ref = strings.get(value);
+            if (ref != null) {
+                writeVarint(out, ref + STRING_OFFSET);
+            } else {
+                strings.put(value, strings.size());
+                writeVarint(out, NEW_STRING);
+                out.writeUTF(value);
+            }
+        }
+
+        /**
+         * Write URI.
+         *
+         * @param value the value
+         * @throws IOException if write fails
+         */
+        private void uri(final URI value) throws IOException {
+            string(value == null ? null : value.toString());
+        }
+
+        /**
+         * Write entry header.
+         *
+         * @param tag   the tag
+         * @param entry the entry
+         * @throws IOException if write fails
+         */
+        private void header(final int tag, final CatalogEntry entry) throws IOException {
+            out.writeByte(tag);
+            string(entry.getId());
+            uri(entry.getBase());
+        }
+
+        /**
+         * Write entry.
+         *
+         * @param entry the entry
+         * @throws IOException if write fails
+         */
+        private void entry(final CatalogEntry entry) throws IOException { // NOPMD
+            if (entry instanceof GroupEntry) {
+                final GroupEntry e = (GroupEntry) entry;
+                header(GROUP, e);
+                final Boolean prefer = e.getPreferPublic();
+                out.writeByte(prefer == null ? PREFER_UNSPECIFIED : prefer ? PREFER_PUBLIC : PREFER_SYSTEM);
+                writeVarint(out, e.getEntries().size());
+                for (final CatalogEntry child : e.getEntries()) {
+                    entry(child);
+                }
+            } else if (entry instanceof PublicEntry) {
+                final PublicEntry e = (PublicEntry) entry;
+                header(PUBLIC, e);
+                uri(e.getUri());
+                string(e.getPublicId());
+            } else if (entry instanceof SystemEntry) {
+                final SystemEntry e = (SystemEntry) entry;
+                header(SYSTEM, e);
+                uri(e.getUri());
+                string(e.getSystemId());
+            } else if (entry instanceof RewriteSystemEntry) {
+                final RewriteSystemEntry e = (RewriteSystemEntry) entry;
+                header(REWRITE_SYSTEM, e);
+                string(e.getSystemIdStartString());
+                string(e.getRewritePrefix());
+            } else if (entry instanceof SystemSuffixEntry) {
+                final SystemSuffixEntry e = (SystemSuffixEntry) entry;
+                header(SYSTEM_SUFFIX, e);
+                uri(e.getUri());
+                string(e.getSystemIdSuffix());
+            } else if (entry instanceof DelegatePublicEntry) {
+                final DelegatePublicEntry e = (DelegatePublicEntry) entry;
+                header(DELEGATE_PUBLIC, e);
+                uri(e.getCatalog());
+                string(e.getPublicIdStartString());
+            } else if (entry instanceof DelegateSystemEntry) {
+                final DelegateSystemEntry e = (DelegateSystemEntry) entry;
+                header(DELEGATE_SYSTEM, e);
+                uri(e.getCatalog());
+                string(e.getSystemIdStartString());
+            } else if (entry instanceof UriEntry) {
+                final UriEntry e = (UriEntry) entry;
+                header(URI_ENTRY, e);
+                uri(e.getUri());
+                string(e.getPurpose());
+                string(e.getNature());
+                string(e.getName());
+            } else if (entry instanceof RewriteUriEntry) {
+                final RewriteUriEntry e = (RewriteUriEntry) entry;
+                header(REWRITE_URI, e);
+                string(e.getPurpose());
+                string(e.getNature());
+                string(e.getUriStartString());
+                string(e.getRewritePrefix());
+            } else if (entry instanceof UriSuffixEntry) {
+                final UriSuffixEntry e = (UriSuffixEntry) entry;
+                header(URI_SUFFIX, e);
+                uri(e.getUri());
+                string(e.getPurpose());
+                string(e.getNature());
+                string(e.getUriSuffix());
+            } else if (entry instanceof DelegateUriEntry) {
+                final DelegateUriEntry e = (DelegateUriEntry) entry;
+                header(DELEGATE_URI, e);
+                uri(e.getCatalog());
+                string(e.getPurpose());
+                string(e.getNature());
+                string(e.getUriStartString());
+            } else if (entry instanceof NextCatalogEntry) {
+                final NextCatalogEntry e = (NextCatalogEntry) entry;
+                header(NEXT_CATALOG, e);
+                uri(e.getCatalog());
+            } else if (entry instanceof DoctypeEntry) {
+                named(DOCTYPE, (DoctypeEntry) entry);
+            } else if (entry instanceof EntityEntry) {
+                named(ENTITY, (EntityEntry) entry);
+            } else if (entry instanceof LinkTypeEntry) {
+                named(LINKTYPE, (LinkTypeEntry) entry);
+            } else if (entry instanceof NotationEntry) {
+                named(NOTATION, (NotationEntry) entry);
+            } else if (entry instanceof DTDDeclEntry) {
+                final DTDDeclEntry e = (DTDDeclEntry) entry;
+                header(DTDDECL, e);
+                uri(e.getUri());
+                string(e.getPublicId());
+            } else if (entry instanceof DocumentEntry) {
+                final DocumentEntry e = (DocumentEntry) entry;
+                header(DOCUMENT, e);
+                uri(e.getUri());
+            } else if (entry instanceof SGMLDeclEntry) {
+                final SGMLDeclEntry e = (SGMLDeclEntry) entry;
+                header(SGMLDECL, e);
+                uri(e.getUri());
+            } else {
+                throw new IllegalArgumentException("Unsupported entry type: " + entry.getClass().getName());
+            }
+        }
+
+        /**
+         * Write TR9401 named entry.
+         *
+         * @param tag   the tag
+         * @param entry the entry
+         * @throws IOException if write fails
+         */
+        private void named(final int tag, final NamedEntry entry) throws IOException {
+            header(tag, entry);
+            uri(entry.getUri());
+            string(entry.getName());
+        }
+    }
+
+    /**
+     * The entry decoder.
+     */
+    private static final class Decoder {
+        /**
+         * The input.
+         */
+        private final DataInputStream in;
+        /**
+         * The already read strings.
+         */
+        private final List<String> strings = new ArrayList<>();
+        /**
+         * The already parsed URIs by string reference.
+         */
+        private final Map<String, URI> uris = new HashMap<>(); // NOPMD
+
+        /**
+         * The constructor.
+         *
+         * @param data the data
+         */
+        private Decoder(final byte[] data) {
+            this.in = new DataInputStream(new ByteArrayInputStream(data));
+        }
+
+        /**
+         * Read string.
+         *
+         * @return the string
+         * @throws IOException if read fails
+         */
+        private String string() throws IOException {
+            final int ref = readVarint(in);
+            if (ref == NULL_STRING) {
+                return null;
+            }
+            if (ref == NEW_STRING) {
+                final String value = in.readUTF();
+                strings.add(value);
+                return value;
+            }
+            final int index = ref - STRING_OFFSET;
+            if (index >= strings.size()) {
+                throw new IOException("Invalid string reference: " + ref);
+            }
+            return strings.get(index);
+        }
+
+        /**
+         * Read URI.
+         *
+         * @return the URI
+         * @throws IOException if read fails
+         */
+        private URI uri() throws IOException {
+            final String value = string();
+            if (value == null) {
+                return null;
+            }
+            URI uri = uris.get(value);
+            if (uri == null) {
+                try {
+                    uri = URI.create(value);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid URI: " + value, e);
+                }
+                uris.put(value, uri);
+            }
+            return uri;
+        }
+
+        /**
+         * Read entry.
+         *
+         * @return the entry
+         * @throws IOException if read fails
+         */
+        private CatalogEntry entry() throws IOException { // NOPMD
+            final int tag = in.readUnsignedByte();
+            final String id = string();
+            final URI base = uri();
+            switch (tag) {
+                case GROUP:
+                    final int prefer = in.readUnsignedByte();
+                    final int n = readVarint(in);
+                    if (n > in.available()) {
+                        throw new IOException("Invalid entry count: " + n);
+                    }
+                    final List<CatalogEntry> entries = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) {
+                        entries.add(entry());
+                    }
+                    return new GroupEntry(id, base, entries,
+                            prefer == PREFER_UNSPECIFIED ? null : prefer == PREFER_PUBLIC);
+                case PUBLIC:
+                    return new PublicEntry(id, base, uri(), string());
+                case SYSTEM:
+                    return new SystemEntry(id, base, uri(), string());
+                case REWRITE_SYSTEM:
+                    return new RewriteSystemEntry(id, base, string(), string());
+                case SYSTEM_SUFFIX:
+                    return new SystemSuffixEntry(id, base, uri(), string());
+                case DELEGATE_PUBLIC:
+                    return new DelegatePublicEntry(id, base, uri(), string());
+                case DELEGATE_SYSTEM:
+                    return new DelegateSystemEntry(id, base, uri(), string());
+                case URI_ENTRY:
+                    return new UriEntry(id, base, uri(), string(), string(), string());
+                case REWRITE_URI:
+                    return new RewriteUriEntry(id, base, string(), string(), string(), string());
+                case URI_SUFFIX:
+                    return new UriSuffixEntry(id, base, uri(), string(), string(), string());
+                case DELEGATE_URI:
+                    return new DelegateUriEntry(id, base, uri(), string(), string(), string());
+                case NEXT_CATALOG:
+                    return new NextCatalogEntry(id, base, uri());
+                case DOCTYPE:
+                    return new DoctypeEntry(id, base, uri(), string());
+                case DOCUMENT:
+                    return new DocumentEntry(id, base, uri());
+                case DTDDECL:
+                    return new DTDDeclEntry(id, base, uri(), string());
+                case ENTITY:
+                    return new EntityEntry(id, base, uri(), string());
+                case LINKTYPE:
+                    return new LinkTypeEntry(id, base, uri(), string());
+                case NOTATION:
+                    return new NotationEntry(id, base, uri(), string());
+                case SGMLDECL:
+                    return new SGMLDeclEntry(id, base, uri());
+                default:
+                    throw new IOException("Unknown entry tag: " + tag);
+            }
+        }
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.blocking.provider;
+
+import net.sf.etl.xml_catalog.util.URIUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * The invalidator that watches local files used by caches, and expires the cache entries when the files change.
+ * The caches report system ids of the resources they depend on (see
+ * {@link CatalogResolutionCache#getDependencySystemIds()}), and the invalidator watches directories of the
+ * resources backed by local files (including jar files). When a file is changed, only the entries that depend on
+ * it are expired.
+ * </p>
+ * <p>
+ * The dependencies are rechecked by the background thread each poll interval, so resources cached after
+ * the watch started are watched as well. The resources might change after they were cached, but before their
+ * directory is registered, so the resources are re-validated on registration: the entries are expired if the
+ * resource modification time is not older than the cache time. If the watch thread fails, the failure is logged,
+ * and the thread is restarted on the next {@code watch(...)} call. The restarted thread registers and re-validates
+ * all directories again, because the change events might have been lost.
+ * </p>
+ */
+public final class FileChangeInvalidator implements Closeable {
+    /**
+     * The default poll interval in milliseconds.
+     */
+    public static final long DEFAULT_POLL_INTERVAL = 1000;
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(FileChangeInvalidator.class);
+    /**
+     * The coarsest modification time granularity of supported file systems in milliseconds (FAT).
+     */
+    private static final long MODIFICATION_TIME_GRANULARITY = 2000;
+    /**
+     * The watched caches.
+     */
+    private final List<Target> targets = new CopyOnWriteArrayList<>();
+    /**
+     * The watch keys by directory (accessed only by the watch thread).
+     */
+    private final Map<Path, WatchKey> watchedDirectories = new HashMap<>(); // NOPMD
+    /**
+     * The watch service.
+     */
+    private final WatchService watchService;
+    /**
+     * The poll interval in milliseconds.
+     */
+    private final long pollInterval;
+    /**
+     * The lock for the thread management.
+     */
+    private final Object lock = new Object();
+    /**
+     * The watch thread (guarded by the lock).
+     */
+    private Thread thread;
+    /**
+     * The listener for the registered directories.
+     */
+    private volatile Consumer<Path> registrationListener;
+    /**
+     * True if the invalidator is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The constructor with default poll interval.
+     *
+     * @throws IOException if the watch service could not be created
+     */
+    public FileChangeInvalidator() throws IOException {
+        this(DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param pollInterval the interval in milliseconds for rechecking the dependencies
+     * @throws IOException if the watch service could not be created
+     */
+    public FileChangeInvalidator(final long pollInterval) throws IOException {
+        this.pollInterval = pollInterval;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Set the listener that is invoked by the watch thread after the directory has been registered and
+     * the resources in it have been re-validated. Later changes in the directory are reported by the watch service.
+     *
+     * @param registrationListener the listener or null
+     */
+    public void setRegistrationListener(final Consumer<Path> registrationListener) {
+        this.registrationListener = registrationListener;
+    }
+
+    /**
+     * @return true if the watch thread is running
+     */
+    public boolean isWatching() {
+        synchronized (lock) {
+            return thread != null && thread.isAlive();
+        }
+    }
+
+    /**
+     * Watch the catalog cache.
+     *
+     * @param cache the cache to watch
+     */
+    public void watch(final CatalogResolutionCache cache) {
+        watchCacheTimes(cache::getDependencyCacheTimes, cache::expireFile);
+    }
+
+    /**
+     * Watch generic cache. The cache times are not known, so the entries cached before the directory has been
+     * registered are always expired on registration.
+     *
+     * @param systemIds the supplier for the system ids of resources the cache currently depends on
+     * @param expire    the action that expires the entries that depend on the resource
+     */
+    public void watch(final Supplier<? extends Collection<String>> systemIds, final Consumer<String> expire) {
+        watchCacheTimes(() -> systemIds.get().stream().collect(
+                Collectors.toMap(id -> id, id -> Long.MIN_VALUE, (a, b) -> a)), expire);
+    }
+
+    /**
+     * Watch generic cache.
+     *
+     * @param cacheTimes the supplier for the system ids of resources the cache currently depends on, mapped
+     *                   to the time ({@link System#currentTimeMillis()} based) when the oldest entry that depends
+     *                   on the resource has been cached
+     * @param expire     the action that expires the entries that depend on the resource
+     */
+    public void watchCacheTimes(final Supplier<? extends Map<String, Long>> cacheTimes,
+                                final Consumer<String> expire) {
+        if (closed) {
+            throw new IllegalStateException("The invalidator is closed");
+        }
+        targets.add(new Target(cacheTimes, expire));
+        synchronized (lock) {
+            if (thread == null || !thread.isAlive()) {
+                if (thread != null) {
+                    LOG.warn("Restarting the file watch thread");
+                }
+                thread = new Thread(this::run, "xml-catalog-file-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+    }
+
+    /**
+     * The watch loop.
+     */
+    private void run() {
+        try {
+            // the previous thread might have failed, so its directories are registered and re-validated again
+            for (final WatchKey key : watchedDirectories.values()) {
+                key.cancel();
+            }
+            watchedDirectories.clear();
+            while (!closed) {
+                try {
+                    poll();
+                } catch (ClosedWatchServiceException ex) {
+                    throw ex;
+                } catch (RuntimeException ex) {
+                    LOG.error("The file watch iteration failed", ex);
+                    Thread.sleep(pollInterval);
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            // the invalidator is closed
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Error ex) { // NOPMD
+            LOG.error("The file watch thread failed, it will be restarted on the next watch call", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Update the watched directories, and process the change events.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private void poll() throws InterruptedException {
+        updateWatchedDirectories();
+        WatchKey key = watchService.poll(pollInterval, TimeUnit.MILLISECONDS);
+        if (key != null) {
+            // the entries might have been cached since the last update
+            updateWatchedDirectories();
+        }
+        while (key != null) {
+            processKey(key);
+            key = watchService.poll();
+        }
+    }
+
+    /**
+     * Update the paths mapping, and watch new directories.
+     */
+    private void updateWatchedDirectories() {
+        final Set<Path> directories = new HashSet<>();
+        for (final Target target : targets) {
+            target.update(directories);
+        }
+        final List<Path> registered = new ArrayList<>();
+        for (final Path directory : directories) {
+            if (!watchedDirectories.containsKey(directory)) {
+                try {
+                    watchedDirectories.put(directory, directory.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY));
+                    registered.add(directory);
+                } catch (IOException ex) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("The directory could not be watched: " + directory, ex);
+                    }
+                }
+            }
+        }
+        if (!registered.isEmpty()) {
+            // the entries might have been cached after the dependencies were collected, but before the registration
+            for (final Target target : targets) {
+                target.update(new HashSet<>());
+            }
+            final Consumer<Path> listener = registrationListener;
+            for (final Path directory : registered) {
+                for (final Target target : targets) {
+                    target.revalidateDirectory(directory);
+                }
+                if (listener != null) {
+                    listener.accept(directory);
+                }
+            }
+        }
+        final Iterator<Map.Entry<Path, WatchKey>> i = watchedDirectories.entrySet().iterator();
+        while (i.hasNext()) {
+            final Map.Entry<Path, WatchKey> e = i.next();
+            if (!directories.contains(e.getKey())) {
+                e.getValue().cancel();
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Process the watch key.
+     *
+     * @param key the key
+     */
+    private void processKey(final WatchKey key) {
+        final Path directory = (Path) key.watchable();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                for (final Target target : targets) {
+                    target.expireDirectory(directory);
+                }
+            } else {
+                final Path changed = directory.resolve((Path) event.context());
+                for (final Target target : targets) {
+                    target.expire(changed);
+                    if (event.kind() != StandardWatchEventKinds.ENTRY_MODIFY) {
+                        // the directory listing is changed
+                        target.expire(directory);
+                    }
+                }
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(directory);
+        }
+    }
+
+    /**
+     * The watched cache.
+     */
+    private static final class Target {
+        /**
+         * The supplier of the system ids with cache times.
+         */
+        private final Supplier<? extends Map<String, Long>> cacheTimes;
+        /**
+         * The expire action.
+         */
+        private final Consumer<String> expire;
+        /**
+         * The system ids by local path (accessed only by the watch thread).
+         */
+        private final Map<Path, Set<String>> paths = new HashMap<>(); // NOPMD
+        /**
+         * The oldest cache time by local path (accessed only by the watch thread).
+         */
+        private final Map<Path, Long> times = new HashMap<>(); // NOPMD
+
+        /**
+         * The constructor.
+         *
+         * @param cacheTimes the supplier of the system ids with cache times
+         * @param expire     the expire action
+         */
+        private Target(final Supplier<? extends Map<String, Long>> cacheTimes, final Consumer<String> expire) {
+            this.cacheTimes = cacheTimes;
+            this.expire = expire;
+        }
+
+        /**
+         * Update the mapping from paths to system ids.
+         *
+         * @param directories the directories to watch
+         */
+        private void update(final Set<Path> directories) {
+            paths.clear();
+            times.clear();
+            final Map<String, Long> current;
+            try {
+                current = cacheTimes.get();
+            } catch (RuntimeException ex) {
+                LOG.error("Failed to get the dependencies", ex);
+                return;
+            }
+            for (final Map.Entry<String, Long> e : current.entrySet()) {
+                final String systemId = e.getKey();
+                final File file = URIUtil.toLocalFile(systemId);
+                if (file == null) {
+                    continue;
+                }
+                final Path path = file.toPath().toAbsolutePath().normalize();
+                paths.computeIfAbsent(path, k -> new HashSet<>()).add(systemId); // NOPMD
+                times.merge(path, e.getValue(), Math::min);
+                if (Files.isDirectory(path)) {
+                    directories.add(path);
+                } else if (path.getParent() != null && Files.isDirectory(path.getParent())) {
+                    directories.add(path.getParent());
+                }
+            }
+        }
+
+        /**
+         * Expire the system ids for the path.
+         *
+         * @param path the changed path
+         */
+        private void expire(final Path path) {
+            times.remove(path);
+            final Set<String> ids = paths.remove(path);
+            if (ids != null) {
+                for (final String systemId : ids) {
+                    expireSystemId(systemId);
+                }
+            }
+        }
+
+        /**
+         * Expire the system ids in the directory whose resources have been modified after they were cached.
+         * The modification time granularity is taken into account, so the resources modified close to the cache
+         * time are considered changed.
+         *
+         * @param directory the registered directory
+         */
+        private void revalidateDirectory(final Path directory) {
+            final List<Path> changed = new ArrayList<>();
+            for (final Map.Entry<Path, Long> e : times.entrySet()) {
+                final Path path = e.getKey();
+                if (directory.equals(path) || directory.equals(path.getParent())) {
+                    final long modified;
+                    try {
+                        modified = Files.getLastModifiedTime(path).toMillis();
+                    } catch (IOException ex) {
+                        // the resource is deleted or is not accessible
+                        changed.add(path);
+                        continue;
+                    }
+                    if (modified + MODIFICATION_TIME_GRANULARITY >= e.getValue()) {
+                        changed.add(path);
+                    }
+                }
+            }
+            for (final Path path : changed) {
+                expire(path);
+            }
+        }
+
+        /**
+         * Expire all system ids in the directory.
+         *
+         * @param directory the directory
+         */
+        private void expireDirectory(final Path directory) {
+            final Iterator<Map.Entry<Path, Set<String>>> i = paths.entrySet().iterator();
+            while (i.hasNext()) {
+                final Map.Entry<Path, Set<String>> e = i.next();
+                if (directory.equals(e.getKey()) || directory.equals(e.getKey().getParent())) {
+                    i.remove();
+                    times.remove(e.getKey());
+                    for (final String systemId : e.getValue()) {
+                        expireSystemId(systemId);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Expire the system id.
+         *
+         * @param systemId the system id
+         */
+        private void expireSystemId(final String systemId) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("The resource is changed: " + systemId);
+            }
+            try {
+                expire.accept(systemId);
+            } catch (RuntimeException ex) {
+                LOG.error("Failed to expire " + systemId, ex);
+            }
+        }
+    }
+}
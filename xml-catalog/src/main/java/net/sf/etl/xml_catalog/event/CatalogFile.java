@@ -26,11 +26,15 @@
 package net.sf.etl.xml_catalog.event;
 
 import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.CatalogEntryIndex;
 import net.sf.etl.xml_catalog.event.entries.DomParser;
 import net.sf.etl.xml_catalog.event.entries.GroupEntry;
 import net.sf.etl.xml_catalog.event.entries.NextCatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.StaxParser;
 import org.w3c.dom.Document;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -62,6 +66,10 @@ public final class CatalogFile {
      * The next catalogs.
      */
     private final List<CatalogRequest> nextCatalogs;
+    /**
+     * The lookup index for the entries.
+     */
+    private final CatalogEntryIndex index;
 
 
     /**
@@ -79,6 +87,7 @@ public final class CatalogFile {
         this.rootEntry = rootEntry;
         this.usedResources = Collections.unmodifiableList(new ArrayList<CatalogResourceUsage>(usedResources));
         this.nextCatalogs = Collections.unmodifiableList(getNextCatalogs(rootEntry, new ArrayList<CatalogRequest>()));
+        this.index = new CatalogEntryIndex(rootEntry);
     }
 
     /**
@@ -115,6 +124,22 @@ public final class CatalogFile {
         return new CatalogFile(systemId, version, usedResources, DomParser.parse(document));
     }
 
+    /**
+     * Create a catalog file from the stream. The entries are created directly from StAX events.
+     *
+     * @param systemId      the system id of catalog file
+     * @param version       the version of catalog file
+     * @param usedResources the resources used by the catalog (the list is copied)
+     * @param input         the input stream with the catalog
+     * @return the created catalog file
+     * @throws XMLStreamException if the catalog could not be parsed
+     */
+    public static CatalogFile fromStream(final String systemId, final Object version,
+                                         final List<CatalogResourceUsage> usedResources,
+                                         final InputStream input) throws XMLStreamException {
+        return new CatalogFile(systemId, version, usedResources, StaxParser.parse(systemId, input));
+    }
+
 
     /**
      * Create a catalog file from URI list.
@@ -198,6 +223,13 @@ public final class CatalogFile {
         return rootEntry;
     }
 
+    /**
+     * @return the lookup index for the entries of this catalog
+     */
+    public CatalogEntryIndex getIndex() {
+        return index;
+    }
+
     /**
      * @return the next catalogs for this catalog, this is either evaluated basing on DOM tree or even hardcoded
      */
@@ -26,6 +26,7 @@
 package net.sf.etl.xml_catalog.event;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Objects;
 
@@ -33,6 +34,10 @@ import java.util.Objects;
  * The request for the catalog file. The catalog requests could be invalid, in that case they might be ignored.
  */
 public final class CatalogRequest {
+    /**
+     * The marker for the system id without a valid scheme.
+     */
+    private static final String NO_SCHEME = new String(""); // NOPMD
     /**
      * The system id for the request.
      */
@@ -41,6 +46,11 @@ public final class CatalogRequest {
      * The request location that requested the catalog.
      */
     private final String requestLocation;
+    /**
+     * The cached URI scheme of the system id ({@link #NO_SCHEME} if there is no valid scheme, null if not
+     * computed yet). The field is computed racily, since the computation is idempotent.
+     */
+    private String scheme;
 
     /**
      * The constructor.
@@ -88,6 +98,25 @@ public final class CatalogRequest {
         return systemId;
     }
 
+    /**
+     * @return the URI scheme of the system id, or null if the system id is not a valid URI or it has no scheme
+     */
+    public String getScheme() {
+        String rc = scheme;
+        if (rc == null) {
+            try {
+                rc = systemId == null ? null : new URI(systemId).getScheme();
+            } catch (URISyntaxException e) {
+                rc = null;
+            }
+            if (rc == null) {
+                rc = NO_SCHEME;
+            }
+            scheme = rc;
+        }
+        return rc == NO_SCHEME ? null : rc; // NOPMD
+    }
+
     /**
      * @return the request location in the catalog file that requested this catalog (might be null)
      */
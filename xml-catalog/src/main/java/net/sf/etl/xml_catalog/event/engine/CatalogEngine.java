@@ -98,6 +98,10 @@ public final class CatalogEngine {
      * The current warning.
      */
     private CatalogResultTrace.Warning warning;
+    /**
+     * The amount of delegations that happened during the resolution.
+     */
+    private int delegationDepth;
 
     /**
      * Start processing new catalog request.
@@ -260,6 +264,32 @@ public final class CatalogEngine {
         return currentRequest;
     }
 
+    /**
+     * Get the catalogs that are already known to be processed after the current one, if the resolution does not
+     * complete before them. The list could be used to start loading these catalogs in advance. Note that
+     * the list might change after processing the current catalog (for example, with delegation or with
+     * next catalogs of the current catalog).
+     *
+     * @return the upcoming catalog requests in the order of processing
+     */
+    public List<CatalogRequest> getUpcomingCatalogRequests() {
+        final List<CatalogRequest> requests = new ArrayList<>();
+        for (int i = requestStack.size() - 1; i >= 0; i--) {
+            final CatalogRequest request = requestStack.get(i);
+            if (!processedCatalogs.contains(request.getSystemId())) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * @return the amount of delegations that happened during the resolution so far
+     */
+    public int getDelegationDepth() {
+        return delegationDepth;
+    }
+
     /**
      * Resolve with resolution event.
      *
@@ -382,6 +412,9 @@ public final class CatalogEngine {
      * @param requests the requests
      */
     private void startDelegation(final List<CatalogRequest> requests) {
+        if (!requests.isEmpty()) {
+            delegationDepth++;
+        }
         requestStack.clear();
         addCatalogsToStack(requests);
         finishCurrent(null);
@@ -463,7 +496,7 @@ public final class CatalogEngine {
          * @return if processor has done something and work on this step should stopped
          */
         protected final boolean parseNode(final ResolutionStep process, final CatalogFile file) {
-            process.resolve(file.getRootEntry());
+            process.resolve(file);
             final URI uri = process.getResolvedUri();
             if (uri != null) {
                 setResult(uri.toASCIIString(), process.getResolvedEntry().getId());
@@ -25,7 +25,9 @@
 
 package net.sf.etl.xml_catalog.event.engine.impl.step;
 
+import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.CatalogEntryIndex;
 import net.sf.etl.xml_catalog.event.entries.CatalogReferenceEntry;
 import net.sf.etl.xml_catalog.event.entries.DelegatePublicEntry;
 import net.sf.etl.xml_catalog.event.entries.DelegateSystemEntry;
@@ -35,6 +37,8 @@ import net.sf.etl.xml_catalog.event.entries.RewriteSystemEntry;
 import net.sf.etl.xml_catalog.event.entries.SystemEntry;
 import net.sf.etl.xml_catalog.event.entries.SystemSuffixEntry;
 
+import java.net.URI;
+import java.util.List;
 import java.util.NavigableMap;
 
 
@@ -98,8 +102,7 @@ public final class EntityResolutionStep extends ResolutionStep {
         if (resolvedSystem != null) {
             setResolved(resolvedSystem, resolvedSystem.getUri());
         } else if (rewriteSystem != null) {
-            final String suffix = systemId.substring(rewriteSystem.getSystemIdStartString().length());
-            setResolved(rewriteSystem, rewriteSystem.getBase().resolve(rewriteSystem.getRewritePrefix() + suffix));
+            setResolved(rewriteSystem, rewrite(rewriteSystem));
         } else if (systemSuffix != null) {
             setResolved(systemSuffix, systemSuffix.getUri());
         } else if (resolvedPublic != null) {
@@ -116,6 +119,62 @@ public final class EntityResolutionStep extends ResolutionStep {
         }
     }
 
+    @Override
+    public void resolve(final CatalogFile file) {
+        final CatalogEntryIndex index = file.getIndex();
+        if (systemId != null) {
+            resolvedSystem = index.findSystem(systemId);
+            if (resolvedSystem != null) {
+                setResolved(resolvedSystem, resolvedSystem.getUri());
+                return;
+            }
+            rewriteSystem = index.findRewriteSystem(systemId);
+            if (rewriteSystem != null) {
+                setResolved(rewriteSystem, rewrite(rewriteSystem));
+                return;
+            }
+            systemSuffix = index.findSystemSuffix(systemId);
+            if (systemSuffix != null) {
+                setResolved(systemSuffix, systemSuffix.getUri());
+                return;
+            }
+        }
+        if (publicId != null) {
+            resolvedPublic = index.findPublic(publicId, defaultPreferPublic, systemId != null);
+            if (resolvedPublic != null) {
+                setResolved(resolvedPublic, resolvedPublic.getUri());
+                return;
+            }
+        }
+        if (systemId != null) {
+            final List<DelegateSystemEntry> delegates = index.findDelegateSystems(systemId);
+            if (!delegates.isEmpty()) {
+                publicId = null;
+                setResolvedDelegates(getDelegates(delegates));
+                return;
+            }
+        }
+        if (publicId != null) {
+            final List<DelegatePublicEntry> delegates =
+                    index.findDelegatePublics(publicId, defaultPreferPublic, systemId != null);
+            if (!delegates.isEmpty()) {
+                systemId = null;
+                setResolvedDelegates(getDelegates(delegates));
+            }
+        }
+    }
+
+    /**
+     * Rewrite the system id.
+     *
+     * @param entry the rewrite entry
+     * @return the rewritten URI
+     */
+    private URI rewrite(final RewriteSystemEntry entry) {
+        final String suffix = systemId.substring(entry.getSystemIdStartString().length());
+        return entry.getBase().resolve(entry.getRewritePrefix() + suffix);
+    }
+
     /**
      * @return the public id
      */
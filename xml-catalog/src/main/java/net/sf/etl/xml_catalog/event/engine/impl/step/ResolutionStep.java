@@ -25,6 +25,7 @@
 
 package net.sf.etl.xml_catalog.event.engine.impl.step;
 
+import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.engine.impl.util.ReverseLengthComparator;
 import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
@@ -155,6 +156,23 @@ public abstract class ResolutionStep {
         return rc;
     }
 
+    /**
+     * Get delegates from the list.
+     *
+     * @param delegates the delegates ordered from the longest prefix to the shortest one
+     * @return the array of delegate URIs
+     */
+    public static List<CatalogRequest> getDelegates(final List<? extends CatalogReferenceEntry> delegates) {
+        if (delegates.isEmpty()) {
+            return null;
+        }
+        final ArrayList<CatalogRequest> rc = new ArrayList<>(delegates.size());
+        for (final CatalogReferenceEntry e : delegates) {
+            rc.add(catalogRequest(e));
+        }
+        return rc;
+    }
+
     /**
      * Get catalog request from element.
      *
@@ -173,6 +191,14 @@ public abstract class ResolutionStep {
      */
     public abstract void resolve(CatalogEntry entry);
 
+    /**
+     * Process the catalog file using its lookup index. The result is the same as for processing
+     * the root entry of the file, but the entries are not scanned.
+     *
+     * @param file the catalog file
+     */
+    public abstract void resolve(CatalogFile file);
+
     /**
      * @return the resolved delegates.
      */
@@ -25,6 +25,7 @@
 
 package net.sf.etl.xml_catalog.event.engine.impl.step;
 
+import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
 import net.sf.etl.xml_catalog.event.entries.GroupEntry;
 import net.sf.etl.xml_catalog.event.entries.UriReferenceEntry;
@@ -122,4 +123,12 @@ public final class TR9401ResolutionStep extends ResolutionStep {
             setResolved(resolved, resolved.getUri());
         }
     }
+
+    @Override
+    public void resolve(final CatalogFile file) {
+        resolved = file.getIndex().findTR9401(type, name, mustPreferPublic, defaultPreferPublic);
+        if (resolved != null) {
+            setResolved(resolved, resolved.getUri());
+        }
+    }
 }
@@ -25,7 +25,9 @@
 
 package net.sf.etl.xml_catalog.event.engine.impl.step;
 
+import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.CatalogEntryIndex;
 import net.sf.etl.xml_catalog.event.entries.CatalogReferenceEntry;
 import net.sf.etl.xml_catalog.event.entries.DelegateUriEntry;
 import net.sf.etl.xml_catalog.event.entries.GroupEntry;
@@ -34,6 +36,7 @@ import net.sf.etl.xml_catalog.event.entries.UriEntry;
 import net.sf.etl.xml_catalog.event.entries.UriResolutionEntry;
 import net.sf.etl.xml_catalog.event.entries.UriSuffixEntry;
 
+import java.net.URI;
 import java.util.NavigableMap;
 
 /**
@@ -107,8 +110,7 @@ public final class URIResolutionStep extends ResolutionStep {
             return;
         }
         if (rewrite != null) {
-            final String uriSuffix = uri.substring(rewrite.getUriStartString().length());
-            setResolved(rewrite, rewrite.getBase().resolve(rewrite.getRewritePrefix() + uriSuffix));
+            setResolved(rewrite, rewrite(rewrite));
             return;
         }
         if (suffix != null) {
@@ -120,6 +122,38 @@ public final class URIResolutionStep extends ResolutionStep {
         }
     }
 
+    @Override
+    public void resolve(final CatalogFile file) {
+        final CatalogEntryIndex index = file.getIndex();
+        resolved = index.findUri(uri, nature, purpose);
+        if (resolved != null) {
+            setResolved(resolved, resolved.getUri());
+            return;
+        }
+        rewrite = index.findRewriteUri(uri, nature, purpose);
+        if (rewrite != null) {
+            setResolved(rewrite, rewrite(rewrite));
+            return;
+        }
+        suffix = index.findUriSuffix(uri, nature, purpose);
+        if (suffix != null) {
+            setResolved(suffix, suffix.getUri());
+            return;
+        }
+        setResolvedDelegates(getDelegates(index.findDelegateUris(uri, nature, purpose)));
+    }
+
+    /**
+     * Rewrite the URI.
+     *
+     * @param entry the rewrite entry
+     * @return the rewritten URI
+     */
+    private URI rewrite(final RewriteUriEntry entry) {
+        final String uriSuffix = uri.substring(entry.getUriStartString().length());
+        return entry.getBase().resolve(entry.getRewritePrefix() + uriSuffix);
+    }
+
     /**
      * Process the entry.
      *
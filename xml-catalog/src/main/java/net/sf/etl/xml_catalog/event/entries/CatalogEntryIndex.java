@@ -0,0 +1,485 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.event.entries;
+
+import net.sf.etl.xml_catalog.event.entries.tr9401.DTDDeclEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.NamedEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * The lookup index for the entries of the single catalog file. The index is created together with the catalog
+ * file and it is never modified after that, so it could be shared between threads. The exact entries are
+ * indexed with hash maps, the prefix entries (rewrite and delegate) are indexed with prefix tries, and the suffix
+ * entries are indexed with tries over the reversed strings.
+ * </p>
+ * <p>
+ * The lookup methods return the same entries as the document-order scan of the catalog: the first matching
+ * entry for the exact matches, the first entry with the longest matching string for the rewrite and suffix
+ * entries, and the first entry for each matching prefix for the delegate entries. The prefer attribute of the
+ * enclosing groups is recorded for each entry, so the entries that depend on it are filtered at the lookup time
+ * when the default value is known.
+ * </p>
+ */
+public final class CatalogEntryIndex {
+    /**
+     * The uri entries by name.
+     */
+    private final Map<String, List<Item<UriEntry>>> uris = new HashMap<>(); // NOPMD
+    /**
+     * The rewrite uri entries by the start string.
+     */
+    private final PrefixTrie<Item<RewriteUriEntry>> rewriteUris = new PrefixTrie<>();
+    /**
+     * The uri suffix entries by the reversed suffix.
+     */
+    private final PrefixTrie<Item<UriSuffixEntry>> uriSuffixes = new PrefixTrie<>();
+    /**
+     * The delegate uri entries by the start string.
+     */
+    private final PrefixTrie<Item<DelegateUriEntry>> delegateUris = new PrefixTrie<>();
+    /**
+     * The system entries by system id.
+     */
+    private final Map<String, List<Item<SystemEntry>>> systems = new HashMap<>(); // NOPMD
+    /**
+     * The rewrite system entries by the start string.
+     */
+    private final PrefixTrie<Item<RewriteSystemEntry>> rewriteSystems = new PrefixTrie<>();
+    /**
+     * The system suffix entries by the reversed suffix.
+     */
+    private final PrefixTrie<Item<SystemSuffixEntry>> systemSuffixes = new PrefixTrie<>();
+    /**
+     * The delegate system entries by the start string.
+     */
+    private final PrefixTrie<Item<DelegateSystemEntry>> delegateSystems = new PrefixTrie<>();
+    /**
+     * The public entries by public id.
+     */
+    private final Map<String, List<Item<PublicEntry>>> publics = new HashMap<>(); // NOPMD
+    /**
+     * The delegate public entries by the start string.
+     */
+    private final PrefixTrie<Item<DelegatePublicEntry>> delegatePublics = new PrefixTrie<>();
+    /**
+     * The unnamed TR9401 entries by type.
+     */
+    private final Map<Class<?>, List<Item<UriReferenceEntry>>> typed = new HashMap<>(); // NOPMD
+    /**
+     * The named TR9401 entries by type and name (public id for dtddecl entries).
+     */
+    private final Map<Class<?>, Map<String, List<Item<UriReferenceEntry>>>> named = new HashMap<>(); // NOPMD
+
+    /**
+     * The constructor.
+     *
+     * @param rootEntry the root entry of the catalog
+     */
+    public CatalogEntryIndex(final GroupEntry rootEntry) {
+        add(rootEntry, null);
+    }
+
+    /**
+     * Add entry to the index.
+     *
+     * @param entry        the entry
+     * @param preferPublic the prefer value from the enclosing groups (null if not set)
+     */
+    private void add(final CatalogEntry entry, final Boolean preferPublic) { // NOPMD
+        if (entry instanceof GroupEntry) {
+            final GroupEntry e = (GroupEntry) entry;
+            final Boolean childPreferPublic = e.getPreferPublic() == null ? preferPublic : e.getPreferPublic();
+            for (final CatalogEntry child : e.getEntries()) {
+                add(child, childPreferPublic);
+            }
+        } else if (entry instanceof UriEntry) {
+            final UriEntry e = (UriEntry) entry;
+            add(uris, e.getName(), new Item<>(e, preferPublic));
+        } else if (entry instanceof RewriteUriEntry) {
+            final RewriteUriEntry e = (RewriteUriEntry) entry;
+            add(rewriteUris, e.getUriStartString(), false, new Item<>(e, preferPublic));
+        } else if (entry instanceof UriSuffixEntry) {
+            final UriSuffixEntry e = (UriSuffixEntry) entry;
+            add(uriSuffixes, e.getUriSuffix(), true, new Item<>(e, preferPublic));
+        } else if (entry instanceof DelegateUriEntry) {
+            final DelegateUriEntry e = (DelegateUriEntry) entry;
+            add(delegateUris, e.getUriStartString(), false, new Item<>(e, preferPublic));
+        } else if (entry instanceof SystemEntry) {
+            final SystemEntry e = (SystemEntry) entry;
+            add(systems, e.getSystemId(), new Item<>(e, preferPublic));
+        } else if (entry instanceof RewriteSystemEntry) {
+            final RewriteSystemEntry e = (RewriteSystemEntry) entry;
+            add(rewriteSystems, e.getSystemIdStartString(), false, new Item<>(e, preferPublic));
+        } else if (entry instanceof SystemSuffixEntry) {
+            final SystemSuffixEntry e = (SystemSuffixEntry) entry;
+            add(systemSuffixes, e.getSystemIdSuffix(), true, new Item<>(e, preferPublic));
+        } else if (entry instanceof DelegateSystemEntry) {
+            final DelegateSystemEntry e = (DelegateSystemEntry) entry;
+            add(delegateSystems, e.getSystemIdStartString(), false, new Item<>(e, preferPublic));
+        } else if (entry instanceof PublicEntry) {
+            final PublicEntry e = (PublicEntry) entry;
+            add(publics, e.getPublicId(), new Item<>(e, preferPublic));
+        } else if (entry instanceof DelegatePublicEntry) {
+            final DelegatePublicEntry e = (DelegatePublicEntry) entry;
+            add(delegatePublics, e.getPublicIdStartString(), false, new Item<>(e, preferPublic));
+        } else if (entry instanceof DTDDeclEntry) {
+            final DTDDeclEntry e = (DTDDeclEntry) entry;
+            add(named.computeIfAbsent(e.getClass(), k -> new HashMap<>()), e.getPublicId(),
+                    new Item<UriReferenceEntry>(e, preferPublic));
+        } else if (entry instanceof NamedEntry) {
+            final NamedEntry e = (NamedEntry) entry;
+            add(named.computeIfAbsent(e.getClass(), k -> new HashMap<>()), e.getName(),
+                    new Item<UriReferenceEntry>(e, preferPublic));
+        } else if (entry instanceof UriReferenceEntry) {
+            typed.computeIfAbsent(entry.getClass(), k -> new ArrayList<>())
+                    .add(new Item<>((UriReferenceEntry) entry, preferPublic));
+        }
+    }
+
+    /**
+     * Add item to the map.
+     *
+     * @param map  the map
+     * @param key  the key (items with null keys are never matched, so they are skipped)
+     * @param item the item
+     * @param <T>  the entry type
+     */
+    private static <T extends CatalogEntry> void add(final Map<String, List<Item<T>>> map, final String key,
+                                                     final Item<T> item) {
+        if (key != null) {
+            map.computeIfAbsent(key, k -> new ArrayList<>(1)).add(item);
+        }
+    }
+
+    /**
+     * Add item to the trie.
+     *
+     * @param trie    the trie
+     * @param key     the key (items with null keys are never matched, so they are skipped)
+     * @param reverse true if the key is a suffix
+     * @param item    the item
+     * @param <T>     the entry type
+     */
+    private static <T extends CatalogEntry> void add(final PrefixTrie<Item<T>> trie, final String key,
+                                                     final boolean reverse, final Item<T> item) {
+        if (key != null) {
+            trie.add(key, reverse, item);
+        }
+    }
+
+    /**
+     * Find the first matching item.
+     *
+     * @param items  the items (might be null)
+     * @param filter the filter
+     * @param <T>    the entry type
+     * @return the entry or null
+     */
+    private static <T extends CatalogEntry> T first(final List<Item<T>> items, final Predicate<Item<?>> filter) {
+        if (items != null) {
+            for (final Item<T> item : items) {
+                if (filter.test(item)) {
+                    return item.entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the first matching entry with the longest key that is a prefix (or suffix) of the value.
+     *
+     * @param trie    the trie
+     * @param value   the value to match
+     * @param reverse true if the trie contains suffixes
+     * @param filter  the filter
+     * @param <T>     the entry type
+     * @return the entry or null
+     */
+    private static <T extends CatalogEntry> T longest(final PrefixTrie<Item<T>> trie, final String value,
+                                                      final boolean reverse, final Predicate<Item<?>> filter) {
+        T result = null;
+        final int length = value.length();
+        PrefixTrie<Item<T>> node = trie;
+        for (int i = 0; node != null; i++) {
+            final T entry = first(node.values(), filter);
+            if (entry != null) {
+                result = entry;
+            }
+            if (i == length) {
+                break;
+            }
+            node = node.child(value.charAt(reverse ? length - 1 - i : i));
+        }
+        return result;
+    }
+
+    /**
+     * Find the first matching entry for each key that is a prefix of the value.
+     *
+     * @param trie   the trie
+     * @param value  the value to match
+     * @param filter the filter
+     * @param <T>    the entry type
+     * @return the entries ordered from the longest prefix to the shortest one
+     */
+    private static <T extends CatalogEntry> List<T> all(final PrefixTrie<Item<T>> trie, final String value,
+                                                        final Predicate<Item<?>> filter) {
+        List<T> result = null;
+        final int length = value.length();
+        PrefixTrie<Item<T>> node = trie;
+        for (int i = 0; node != null; i++) {
+            final T entry = first(node.values(), filter);
+            if (entry != null) {
+                if (result == null) {
+                    result = new ArrayList<>();
+                }
+                result.add(entry);
+            }
+            if (i == length) {
+                break;
+            }
+            node = node.child(value.charAt(i));
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Create filter for uri entries.
+     *
+     * @param nature  the requested nature (null matches any)
+     * @param purpose the requested purpose (null matches any)
+     * @return the filter
+     */
+    private static Predicate<Item<?>> uriFilter(final String nature, final String purpose) {
+        if (nature == null && purpose == null) {
+            return item -> true;
+        }
+        return item -> {
+            final UriResolutionEntry e = (UriResolutionEntry) item.entry;
+            return (nature == null || nature.equals(e.getNature()))
+                    && (purpose == null || purpose.equals(e.getPurpose()));
+        };
+    }
+
+    /**
+     * Create filter for public entries.
+     *
+     * @param defaultPreferPublic the default prefer value
+     * @param systemIdSpecified   if true, only entries in the prefer public context match
+     * @return the filter
+     */
+    private static Predicate<Item<?>> publicFilter(final boolean defaultPreferPublic,
+                                                   final boolean systemIdSpecified) {
+        if (!systemIdSpecified) {
+            return item -> true;
+        }
+        return item -> item.isPreferPublic(defaultPreferPublic);
+    }
+
+    /**
+     * Find uri entry.
+     *
+     * @param uri     the uri
+     * @param nature  the nature (null matches any)
+     * @param purpose the purpose (null matches any)
+     * @return the first matching entry or null
+     */
+    public UriEntry findUri(final String uri, final String nature, final String purpose) {
+        return first(uris.get(uri), uriFilter(nature, purpose));
+    }
+
+    /**
+     * Find rewrite uri entry.
+     *
+     * @param uri     the uri
+     * @param nature  the nature (null matches any)
+     * @param purpose the purpose (null matches any)
+     * @return the entry with the longest matching start string or null
+     */
+    public RewriteUriEntry findRewriteUri(final String uri, final String nature, final String purpose) {
+        return longest(rewriteUris, uri, false, uriFilter(nature, purpose));
+    }
+
+    /**
+     * Find uri suffix entry.
+     *
+     * @param uri     the uri
+     * @param nature  the nature (null matches any)
+     * @param purpose the purpose (null matches any)
+     * @return the entry with the longest matching suffix or null
+     */
+    public UriSuffixEntry findUriSuffix(final String uri, final String nature, final String purpose) {
+        return longest(uriSuffixes, uri, true, uriFilter(nature, purpose));
+    }
+
+    /**
+     * Find delegate uri entries.
+     *
+     * @param uri     the uri
+     * @param nature  the nature (null matches any)
+     * @param purpose the purpose (null matches any)
+     * @return the entries ordered from the longest start string to the shortest one
+     */
+    public List<DelegateUriEntry> findDelegateUris(final String uri, final String nature, final String purpose) {
+        return all(delegateUris, uri, uriFilter(nature, purpose));
+    }
+
+    /**
+     * Find system entry.
+     *
+     * @param systemId the system id
+     * @return the first matching entry or null
+     */
+    public SystemEntry findSystem(final String systemId) {
+        return first(systems.get(systemId), item -> true);
+    }
+
+    /**
+     * Find rewrite system entry.
+     *
+     * @param systemId the system id
+     * @return the entry with the longest matching start string or null
+     */
+    public RewriteSystemEntry findRewriteSystem(final String systemId) {
+        return longest(rewriteSystems, systemId, false, item -> true);
+    }
+
+    /**
+     * Find system suffix entry.
+     *
+     * @param systemId the system id
+     * @return the entry with the longest matching suffix or null
+     */
+    public SystemSuffixEntry findSystemSuffix(final String systemId) {
+        return longest(systemSuffixes, systemId, true, item -> true);
+    }
+
+    /**
+     * Find delegate system entries.
+     *
+     * @param systemId the system id
+     * @return the entries ordered from the longest start string to the shortest one
+     */
+    public List<DelegateSystemEntry> findDelegateSystems(final String systemId) {
+        return all(delegateSystems, systemId, item -> true);
+    }
+
+    /**
+     * Find public entry.
+     *
+     * @param publicId            the public id
+     * @param defaultPreferPublic the default prefer value
+     * @param systemIdSpecified   if true, only entries in the prefer public context match
+     * @return the first matching entry or null
+     */
+    public PublicEntry findPublic(final String publicId, final boolean defaultPreferPublic,
+                                  final boolean systemIdSpecified) {
+        return first(publics.get(publicId), publicFilter(defaultPreferPublic, systemIdSpecified));
+    }
+
+    /**
+     * Find delegate public entries.
+     *
+     * @param publicId            the public id
+     * @param defaultPreferPublic the default prefer value
+     * @param systemIdSpecified   if true, only entries in the prefer public context match
+     * @return the entries ordered from the longest start string to the shortest one
+     */
+    public List<DelegatePublicEntry> findDelegatePublics(final String publicId, final boolean defaultPreferPublic,
+                                                         final boolean systemIdSpecified) {
+        return all(delegatePublics, publicId, publicFilter(defaultPreferPublic, systemIdSpecified));
+    }
+
+    /**
+     * Find TR9401 entry.
+     *
+     * @param type                the entry type
+     * @param name                the entry name (public id for dtddecl, ignored for unnamed entries)
+     * @param mustPreferPublic    if true, dtddecl entries match only in the prefer public context
+     * @param defaultPreferPublic the default prefer value
+     * @return the first matching entry or null
+     */
+    public UriReferenceEntry findTR9401(final Class<?> type, final String name, final boolean mustPreferPublic,
+                                        final boolean defaultPreferPublic) {
+        final Map<String, List<Item<UriReferenceEntry>>> byName = named.get(type);
+        if (byName != null) {
+            if (type == DTDDeclEntry.class && mustPreferPublic) {
+                return first(byName.get(name), item -> item.isPreferPublic(defaultPreferPublic));
+            }
+            return first(byName.get(name), item -> true);
+        }
+        return first(typed.get(type), item -> true);
+    }
+
+    /**
+     * The indexed entry.
+     *
+     * @param <T> the entry type
+     */
+    private static final class Item<T extends CatalogEntry> {
+        /**
+         * The entry.
+         */
+        private final T entry;
+        /**
+         * The prefer value from the enclosing groups (null if not set).
+         */
+        private final Boolean preferPublic;
+
+        /**
+         * The constructor.
+         *
+         * @param entry        the entry
+         * @param preferPublic the prefer value from the enclosing groups
+         */
+        private Item(final T entry, final Boolean preferPublic) {
+            this.entry = entry;
+            this.preferPublic = preferPublic;
+        }
+
+        /**
+         * Get effective prefer value.
+         *
+         * @param defaultPreferPublic the default value
+         * @return true if the entry is in the prefer public context
+         */
+        private boolean isPreferPublic(final boolean defaultPreferPublic) {
+            return preferPublic == null ? defaultPreferPublic : preferPublic;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.event.entries;
+
+import net.sf.etl.xml_catalog.event.engine.impl.util.DomUtil;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DTDDeclEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DoctypeEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DocumentEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.EntityEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.LinkTypeEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.NotationEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.SGMLDeclEntry;
+import net.sf.etl.xml_catalog.util.Namespaces;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * The factory for catalog entries that is shared by the DOM and StAX parsers.
+ */
+final class EntryFactory {
+    /**
+     * Private constructor for utility class.
+     */
+    private EntryFactory() {
+        // do nothing
+    }
+
+    /**
+     * Check if element is a group element.
+     *
+     * @param namespace the element namespace (null for no namespace)
+     * @param name      the element local name
+     * @return true if the element contains other entries
+     */
+    static boolean isGroup(final String namespace, final String name) {
+        return DomUtil.isCatalogNamespace(namespace) && ("catalog".equals(name) || "group".equals(name));
+    }
+
+    /**
+     * Check if element is a catalog root.
+     *
+     * @param namespace the element namespace (null for no namespace)
+     * @param name      the element local name
+     * @return true if the element is a root element of the catalog
+     */
+    static boolean isRoot(final String namespace, final String name) {
+        return DomUtil.isCatalogNamespace(namespace) && "catalog".equals(name);
+    }
+
+    /**
+     * Create the entry.
+     *
+     * @param namespace  the element namespace (null for no namespace)
+     * @param name       the element local name
+     * @param base       the element base URI
+     * @param attributes the element attributes
+     * @param entries    the nested entries (used only for groups)
+     * @return the entry or null if the element is not a known entry
+     */
+    static CatalogEntry create(final String namespace, final String name, final URI base, // NOPMD
+                               final Attributes attributes, final List<CatalogEntry> entries) {
+        final String id = attributes.get(null, "id", false);
+        if (DomUtil.isCatalogNamespace(namespace)) {
+            if ("catalog".equals(name) || "group".equals(name)) {
+                final String prefer = attributes.get(null, "prefer", false);
+                final Boolean preferPublic = prefer == null ? null : "public".equals(prefer);
+                return new GroupEntry(id, base, entries, preferPublic);
+            } else if ("public".equals(name)) {
+                return new PublicEntry(id, base, uri(attributes, base), required(attributes, "publicId"));
+            } else if ("system".equals(name)) {
+                return new SystemEntry(id, base, uri(attributes, base), required(attributes, "systemId"));
+            } else if ("rewriteSystem".equals(name)) {
+                return new RewriteSystemEntry(id, base, required(attributes, "systemIdStartString"),
+                        required(attributes, "rewritePrefix"));
+            } else if ("systemSuffix".equals(name)) {
+                return new SystemSuffixEntry(id, base, uri(attributes, base),
+                        required(attributes, "systemIdSuffix"));
+            } else if ("delegatePublic".equals(name)) {
+                return new DelegatePublicEntry(id, base, catalog(attributes, base),
+                        required(attributes, "publicIdStartString"));
+            } else if ("delegateSystem".equals(name)) {
+                return new DelegateSystemEntry(id, base, catalog(attributes, base),
+                        required(attributes, "systemIdStartString"));
+            } else if ("uri".equals(name)) {
+                return new UriEntry(id, base, uri(attributes, base), purpose(attributes), nature(attributes),
+                        attributes.get(null, "name", false));
+            } else if ("rewriteURI".equals(name)) {
+                return new RewriteUriEntry(id, base, purpose(attributes), nature(attributes),
+                        required(attributes, "uriStartString"), required(attributes, "rewritePrefix"));
+            } else if ("uriSuffix".equals(name)) {
+                return new UriSuffixEntry(id, base, uri(attributes, base), purpose(attributes), nature(attributes),
+                        required(attributes, "uriSuffix"));
+            } else if ("delegateURI".equals(name)) {
+                return new DelegateUriEntry(id, base, catalog(attributes, base), purpose(attributes),
+                        nature(attributes), required(attributes, "uriStartString"));
+            } else if ("nextCatalog".equals(name)) {
+                return new NextCatalogEntry(id, base, catalog(attributes, base));
+            }
+        }
+        if (DomUtil.isTR9401Namespace(namespace)) {
+            final String entryName = attributes.get(null, "name", false);
+            if ("doctype".equals(name)) {
+                return new DoctypeEntry(id, base, uri(attributes, base), entryName);
+            } else if ("document".equals(name)) {
+                return new DocumentEntry(id, base, uri(attributes, base));
+            } else if ("dtddecl".equals(name)) {
+                return new DTDDeclEntry(id, base, uri(attributes, base), required(attributes, "publicId"));
+            } else if ("entity".equals(name)) {
+                return new EntityEntry(id, base, uri(attributes, base), entryName);
+            } else if ("linktype".equals(name)) {
+                return new LinkTypeEntry(id, base, uri(attributes, base), entryName);
+            } else if ("notation".equals(name)) {
+                return new NotationEntry(id, base, uri(attributes, base), entryName);
+            } else if ("sgmldecl".equals(name)) {
+                return new SGMLDeclEntry(id, base, uri(attributes, base));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the attribute that is required by the schema (the empty value is allowed).
+     *
+     * @param attributes the attributes
+     * @param name       the attribute name
+     * @return the attribute value
+     */
+    private static String required(final Attributes attributes, final String name) {
+        return attributes.get(null, name, true);
+    }
+
+    /**
+     * Get purpose of the element.
+     *
+     * @param attributes the attributes
+     * @return the purpose
+     */
+    private static String purpose(final Attributes attributes) {
+        return attributes.get(Namespaces.RDDL, "purpose", true);
+    }
+
+    /**
+     * Get nature of element.
+     *
+     * @param attributes the attributes
+     * @return the nature
+     */
+    private static String nature(final Attributes attributes) {
+        return attributes.get(Namespaces.RDDL, "nature", true);
+    }
+
+    /**
+     * Get uri to which this element is pointing.
+     *
+     * @param attributes the attributes
+     * @param base       the base
+     * @return the URI
+     */
+    private static URI uri(final Attributes attributes, final URI base) {
+        return base.resolve(required(attributes, "uri"));
+    }
+
+    /**
+     * Get catalog to which this element is pointing.
+     *
+     * @param attributes the attributes
+     * @param base       the base
+     * @return the result URI
+     */
+    private static URI catalog(final Attributes attributes, final URI base) {
+        return base.resolve(required(attributes, "catalog"));
+    }
+
+    /**
+     * The attributes of the element.
+     */
+    interface Attributes {
+        /**
+         * Get attribute value.
+         *
+         * @param namespace  the namespace of attribute (null for no namespace)
+         * @param name       the local name of attribute
+         * @param allowEmpty allow empty attribute value (if false, the empty value is the same as attribute
+         *                   is not specified)
+         * @return the trimmed value of attribute or null
+         */
+        String get(String namespace, String name, boolean allowEmpty);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.event.entries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The character trie used by {@link CatalogEntryIndex}. The children are kept in the sorted arrays, so the lookup
+ * of the child is a binary search over the characters that actually occur at the position. The trie is filled
+ * when the index is created, and it is never modified after that.
+ *
+ * @param <T> the value type
+ */
+final class PrefixTrie<T> {
+    /**
+     * The empty characters.
+     */
+    private static final char[] NO_CHARS = new char[0];
+    /**
+     * The empty children.
+     */
+    private static final PrefixTrie<?>[] NO_CHILDREN = new PrefixTrie<?>[0];
+    /**
+     * The characters of the children.
+     */
+    private char[] chars = NO_CHARS;
+    /**
+     * The children.
+     */
+    private PrefixTrie<T>[] children = noChildren();
+    /**
+     * The values in the order of addition (or null).
+     */
+    private List<T> values;
+
+    /**
+     * @param <T> the value type
+     * @return the empty children array
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> PrefixTrie<T>[] noChildren() {
+        return (PrefixTrie<T>[]) NO_CHILDREN;
+    }
+
+    /**
+     * Add value to the trie.
+     *
+     * @param key     the key
+     * @param reverse if true, the key is added starting from the last character
+     * @param value   the value
+     */
+    void add(final String key, final boolean reverse, final T value) {
+        PrefixTrie<T> node = this;
+        final int length = key.length();
+        for (int i = 0; i < length; i++) {
+            final char c = key.charAt(reverse ? length - 1 - i : i);
+            final int p = Arrays.binarySearch(node.chars, c);
+            if (p >= 0) {
+                node = node.children[p];
+            } else {
+                final int insert = -p - 1;
+                final PrefixTrie<T> child = new PrefixTrie<>();
+                final char[] newChars = new char[node.chars.length + 1];
+                final PrefixTrie<T>[] newChildren = Arrays.copyOf(node.children, node.children.length + 1);
+                System.arraycopy(node.chars, 0, newChars, 0, insert);
+                System.arraycopy(node.chars, insert, newChars, insert + 1, node.chars.length - insert);
+                System.arraycopy(node.children, insert, newChildren, insert + 1, node.children.length - insert);
+                newChars[insert] = c;
+                newChildren[insert] = child;
+                node.chars = newChars;
+                node.children = newChildren;
+                node = child;
+            }
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Get child node.
+     *
+     * @param c the character
+     * @return the child or null
+     */
+    PrefixTrie<T> child(final char c) {
+        final int p = Arrays.binarySearch(chars, c);
+        return p >= 0 ? children[p] : null;
+    }
+
+    /**
+     * @return the values of the node (or null)
+     */
+    List<T> values() {
+        return values;
+    }
+}
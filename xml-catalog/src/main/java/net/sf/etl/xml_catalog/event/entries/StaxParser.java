@@ -0,0 +1,210 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.event.entries;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The StAX parser for the catalog entries. It creates entries directly from the event stream, so the catalog
+ * document is never kept in the memory as a whole.
+ */
+public final class StaxParser {
+    /**
+     * The shared input factory. It is configured once, and then it is used only for creating readers.
+     */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    /**
+     * Private constructor for utility class.
+     */
+    private StaxParser() {
+        // do nothing
+    }
+
+    /**
+     * @return the configured input factory
+     */
+    private static XMLInputFactory createFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * Parse the catalog from the stream.
+     *
+     * @param systemId the system id of the catalog (it is used as a base URI)
+     * @param input    the input stream
+     * @return the parsed entries
+     * @throws XMLStreamException if there is a problem with parsing
+     */
+    public static GroupEntry parse(final String systemId, final InputStream input) throws XMLStreamException {
+        final XMLStreamReader reader = FACTORY.createXMLStreamReader(systemId, input);
+        try {
+            return parse(systemId, reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parse the catalog from the reader. The reader must be positioned before or at the root element.
+     *
+     * @param systemId the system id of the catalog (it is used as a base URI)
+     * @param reader   the reader
+     * @return the parsed entries
+     * @throws XMLStreamException if there is a problem with parsing
+     */
+    public static GroupEntry parse(final String systemId, final XMLStreamReader reader) throws XMLStreamException {
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            reader.next();
+        }
+        if (!EntryFactory.isRoot(namespace(reader.getNamespaceURI()), reader.getLocalName())) {
+            throw new IllegalArgumentException("Wrong root element " + reader.getName());
+        }
+        return (GroupEntry) parseElement(reader, URI.create(systemId));
+    }
+
+    /**
+     * Parse the element. On return, the reader is positioned at the end of the element.
+     *
+     * @param reader     the reader positioned at the start of the element
+     * @param parentBase the base URI of the parent element
+     * @return the catalog entry or null if element is not known
+     * @throws XMLStreamException if there is a problem with parsing
+     */
+    private static CatalogEntry parseElement(final XMLStreamReader reader, final URI parentBase)
+            throws XMLStreamException {
+        final String namespace = namespace(reader.getNamespaceURI());
+        final String name = reader.getLocalName();
+        final StaxAttributes attributes = new StaxAttributes(reader);
+        final String xmlBase = attributes.get(XMLConstants.XML_NS_URI, "base", true);
+        final URI base = xmlBase == null ? parentBase : parentBase.resolve(xmlBase);
+        List<CatalogEntry> entries = null;
+        if (EntryFactory.isGroup(namespace, name)) {
+            entries = new ArrayList<>();
+            while (true) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final CatalogEntry entry = parseElement(reader, base);
+                    if (entry != null) { // NOPMD
+                        entries.add(entry);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    break;
+                }
+            }
+        } else {
+            skipElement(reader);
+        }
+        return EntryFactory.create(namespace, name, base, attributes, entries);
+    }
+
+    /**
+     * Skip the content of the element.
+     *
+     * @param reader the reader positioned at the start of the element
+     * @throws XMLStreamException if there is a problem with parsing
+     */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Normalize namespace.
+     *
+     * @param namespace the namespace as reported by the reader
+     * @return the namespace, or null if there is no namespace
+     */
+    private static String namespace(final String namespace) {
+        return namespace == null || namespace.isEmpty() ? null : namespace;
+    }
+
+    /**
+     * The snapshot of the element attributes. It is needed because attributes are available only while the reader
+     * is positioned at the start of the element.
+     */
+    private static final class StaxAttributes implements EntryFactory.Attributes {
+        /**
+         * The attribute namespaces (null for no namespace).
+         */
+        private final String[] namespaces;
+        /**
+         * The attribute local names.
+         */
+        private final String[] names;
+        /**
+         * The attribute values.
+         */
+        private final String[] values;
+
+        /**
+         * The constructor.
+         *
+         * @param reader the reader positioned at the start of the element
+         */
+        private StaxAttributes(final XMLStreamReader reader) {
+            final int n = reader.getAttributeCount();
+            namespaces = new String[n];
+            names = new String[n];
+            values = new String[n];
+            for (int i = 0; i < n; i++) {
+                namespaces[i] = namespace(reader.getAttributeNamespace(i));
+                names[i] = reader.getAttributeLocalName(i);
+                values[i] = reader.getAttributeValue(i);
+            }
+        }
+
+        @Override
+        public String get(final String namespace, final String name, final boolean allowEmpty) {
+            for (int i = 0; i < names.length; i++) {
+                if (name.equals(names[i]) && (namespace == null ? namespaces[i] == null
+                        : namespace.equals(namespaces[i]))) {
+                    final String v = values[i].trim();
+                    return !allowEmpty && v.isEmpty() ? null : v;
+                }
+            }
+            return null;
+        }
+    }
+}
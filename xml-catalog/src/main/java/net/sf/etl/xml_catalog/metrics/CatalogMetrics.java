@@ -0,0 +1,322 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.metrics;
+
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * The listener that aggregates the catalog resolution metrics: the cache hits and misses, the catalog load times
+ * by URI scheme and by catalog, and the resolution times, the amount of consulted catalogs and the delegation depth
+ * per resolution. The load times by catalog allow to find the catalogs that slow down the resolution.
+ * </p>
+ * <p>
+ * The amount of tracked catalogs is limited, the catalogs that are loaded after the limit is reached are counted
+ * only by scheme.
+ * </p>
+ */
+public final class CatalogMetrics implements CatalogMetricsListener {
+    /**
+     * The default maximum amount of catalogs for which the load times are tracked.
+     */
+    public static final int DEFAULT_MAX_TRACKED_CATALOGS = 1024;
+    /**
+     * The scheme name used for system ids without a valid scheme.
+     */
+    public static final String NO_SCHEME = "";
+    /**
+     * The maximum amount of catalogs for which the load times are tracked.
+     */
+    private final int maxTrackedCatalogs;
+    /**
+     * The load statistics by scheme.
+     */
+    private final Map<String, LoadStatistics> schemes = new ConcurrentHashMap<>(); // NOPMD
+    /**
+     * The load statistics by catalog system id.
+     */
+    private final Map<String, LoadStatistics> catalogs = new ConcurrentHashMap<>(); // NOPMD
+    /**
+     * The file cache hits.
+     */
+    private final LongAdder fileCacheHits = new LongAdder();
+    /**
+     * The file cache misses.
+     */
+    private final LongAdder fileCacheMisses = new LongAdder();
+    /**
+     * The result cache hits.
+     */
+    private final LongAdder resultCacheHits = new LongAdder();
+    /**
+     * The result cache misses.
+     */
+    private final LongAdder resultCacheMisses = new LongAdder();
+    /**
+     * The amount of unresolved requests.
+     */
+    private final LongAdder unresolved = new LongAdder();
+    /**
+     * The resolution times in nanoseconds (including cached results).
+     */
+    private final Histogram resolutionTime = new Histogram();
+    /**
+     * The amount of catalogs consulted per resolution (excluding cached results).
+     */
+    private final Histogram catalogsVisited = new Histogram();
+    /**
+     * The delegation depth per resolution (excluding cached results).
+     */
+    private final Histogram delegationDepth = new Histogram();
+
+    /**
+     * The constructor.
+     *
+     * @param maxTrackedCatalogs the maximum amount of catalogs for which the load times are tracked
+     */
+    public CatalogMetrics(final int maxTrackedCatalogs) {
+        this.maxTrackedCatalogs = maxTrackedCatalogs;
+    }
+
+    /**
+     * The constructor with default limit on tracked catalogs.
+     */
+    public CatalogMetrics() {
+        this(DEFAULT_MAX_TRACKED_CATALOGS);
+    }
+
+    @Override
+    public void catalogLoaded(final CatalogRequest request, final String scheme, final long nanos,
+                              final boolean failed) {
+        schemes.computeIfAbsent(scheme == null ? NO_SCHEME : scheme, k -> new LoadStatistics()).record(nanos, failed);
+        final String systemId = request.getSystemId();
+        if (systemId != null) {
+            LoadStatistics statistics = catalogs.get(systemId);
+            if (statistics == null && catalogs.size() < maxTrackedCatalogs) {
+                statistics = catalogs.computeIfAbsent(systemId, k -> new LoadStatistics());
+            }
+            if (statistics != null) {
+                statistics.record(nanos, failed);
+            }
+        }
+    }
+
+    @Override
+    public void fileCacheAccess(final CatalogRequest request, final boolean hit) {
+        (hit ? fileCacheHits : fileCacheMisses).increment();
+    }
+
+    @Override
+    public void resultCacheAccess(final boolean hit) {
+        (hit ? resultCacheHits : resultCacheMisses).increment();
+    }
+
+    @Override
+    public void resolutionFinished(final CatalogResult result, final long nanos, final int visited,
+                                   final int depth, final boolean cached) {
+        resolutionTime.record(nanos);
+        if (!result.isResolved()) {
+            unresolved.increment();
+        }
+        if (!cached) {
+            catalogsVisited.record(visited);
+            delegationDepth.record(depth);
+        }
+    }
+
+    /**
+     * @return the schemes of the loaded catalogs
+     */
+    public Set<String> getSchemes() {
+        return new TreeSet<>(schemes.keySet());
+    }
+
+    /**
+     * Get load statistics for the scheme.
+     *
+     * @param scheme the scheme ({@link #NO_SCHEME} for the system ids without a valid scheme)
+     * @return the statistics or null if no catalogs were loaded for the scheme
+     */
+    public LoadStatistics getSchemeStatistics(final String scheme) {
+        return schemes.get(scheme);
+    }
+
+    /**
+     * Get load statistics for the catalog.
+     *
+     * @param systemId the catalog system id
+     * @return the statistics or null if the catalog is not tracked
+     */
+    public LoadStatistics getCatalogStatistics(final String systemId) {
+        return catalogs.get(systemId);
+    }
+
+    /**
+     * Get the tracked catalogs with the largest total load time.
+     *
+     * @param limit the maximum amount of catalogs to return
+     * @return the catalog system ids, the slowest first
+     */
+    public List<String> getSlowestCatalogs(final int limit) {
+        final List<Map.Entry<String, Long>> totals = new ArrayList<>();
+        for (final Map.Entry<String, LoadStatistics> e : catalogs.entrySet()) {
+            totals.add(Map.entry(e.getKey(), e.getValue().getLoadTime().getSum()));
+        }
+        totals.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        final List<String> rc = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, totals.size()); i++) {
+            rc.add(totals.get(i).getKey());
+        }
+        return rc;
+    }
+
+    /**
+     * @return the amount of file cache hits
+     */
+    public long getFileCacheHits() {
+        return fileCacheHits.sum();
+    }
+
+    /**
+     * @return the amount of file cache misses
+     */
+    public long getFileCacheMisses() {
+        return fileCacheMisses.sum();
+    }
+
+    /**
+     * @return the amount of result cache hits
+     */
+    public long getResultCacheHits() {
+        return resultCacheHits.sum();
+    }
+
+    /**
+     * @return the amount of result cache misses
+     */
+    public long getResultCacheMisses() {
+        return resultCacheMisses.sum();
+    }
+
+    /**
+     * @return the amount of unresolved requests
+     */
+    public long getUnresolved() {
+        return unresolved.sum();
+    }
+
+    /**
+     * @return the resolution times in nanoseconds (including cached results)
+     */
+    public Histogram getResolutionTime() {
+        return resolutionTime;
+    }
+
+    /**
+     * @return the amount of catalogs consulted per resolution (excluding cached results)
+     */
+    public Histogram getCatalogsVisited() {
+        return catalogsVisited;
+    }
+
+    /**
+     * @return the delegation depth per resolution (excluding cached results)
+     */
+    public Histogram getDelegationDepth() {
+        return delegationDepth;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder(64);
+        b.append("CatalogMetrics{fileCache=").append(getFileCacheHits()).append('/').append(getFileCacheMisses())
+                .append(", resultCache=").append(getResultCacheHits()).append('/').append(getResultCacheMisses())
+                .append(", resolutionTime=").append(resolutionTime)
+                .append(", catalogsVisited=").append(catalogsVisited)
+                .append(", delegationDepth=").append(delegationDepth);
+        for (final String scheme : getSchemes()) {
+            b.append(", load[").append(scheme).append("]=").append(schemes.get(scheme));
+        }
+        return b.append('}').toString();
+    }
+
+    /**
+     * The load statistics.
+     */
+    public static final class LoadStatistics {
+        /**
+         * The load times in nanoseconds.
+         */
+        private final Histogram loadTime = new Histogram();
+        /**
+         * The amount of failed loads.
+         */
+        private final LongAdder failures = new LongAdder();
+
+        /**
+         * Record the load.
+         *
+         * @param nanos  the load time
+         * @param failed true if the load failed
+         */
+        private void record(final long nanos, final boolean failed) {
+            loadTime.record(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        /**
+         * @return the load times in nanoseconds
+         */
+        public Histogram getLoadTime() {
+            return loadTime;
+        }
+
+        /**
+         * @return the amount of failed loads
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "LoadStatistics{loadTime=" + loadTime + ", failures=" + getFailures() + '}';
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.metrics;
+
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+
+/**
+ * The listener for catalog resolution metrics. The methods are invoked in the resolving threads, so
+ * the implementations must be thread-safe, fast, and must not throw exceptions.
+ */
+public interface CatalogMetricsListener {
+    /**
+     * This method is invoked when the catalog is loaded or created by the runtime provider.
+     *
+     * @param request the catalog request
+     * @param scheme  the URI scheme of the catalog (null if the system id has no valid scheme)
+     * @param nanos   the load time in nanoseconds
+     * @param failed  true if the catalog failed to load
+     */
+    void catalogLoaded(CatalogRequest request, String scheme, long nanos, boolean failed);
+
+    /**
+     * This method is invoked on each lookup of the catalog file in the cache.
+     *
+     * @param request the catalog request
+     * @param hit     true if the file was found in the cache
+     */
+    void fileCacheAccess(CatalogRequest request, boolean hit);
+
+    /**
+     * This method is invoked on each lookup of the resolution result in the cache.
+     *
+     * @param hit true if the result was found in the cache
+     */
+    void resultCacheAccess(boolean hit);
+
+    /**
+     * This method is invoked when the resolution is finished.
+     *
+     * @param result          the resolution result
+     * @param nanos           the resolution time in nanoseconds
+     * @param catalogsVisited the amount of catalogs consulted during the resolution (zero for cached results)
+     * @param delegationDepth the amount of delegations during the resolution (zero for cached results)
+     * @param cached          true if the result was taken from the cache
+     */
+    void resolutionFinished(CatalogResult result, long nanos, int catalogsVisited, int delegationDepth,
+                            boolean cached);
+}
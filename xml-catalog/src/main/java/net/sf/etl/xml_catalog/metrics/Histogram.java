@@ -0,0 +1,156 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The thread-safe histogram with power of two buckets. The bucket zero contains zero values, and the bucket
+ * {@code i} contains values from {@code 2^(i-1)} to {@code 2^i - 1}. The values are recorded without locks,
+ * so the values read during the concurrent updates might be slightly inconsistent.
+ */
+public final class Histogram {
+    /**
+     * The amount of buckets.
+     */
+    public static final int BUCKETS = Long.SIZE + 1;
+    /**
+     * The bucket counts.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    /**
+     * The amount of values.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * The sum of values.
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * The maximum value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record the value.
+     *
+     * @param value the value (negative values are recorded as zero)
+     */
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        buckets.incrementAndGet(bucket(v));
+        count.increment();
+        sum.add(v);
+        if (v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /**
+     * Get the bucket for the value.
+     *
+     * @param value the value
+     * @return the bucket index
+     */
+    private static int bucket(final long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * @return the amount of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the maximum recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean value, or zero if nothing is recorded
+     */
+    public double getMean() {
+        final long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * @return the counts by bucket
+     */
+    public long[] getBucketCounts() {
+        final long[] rc = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            rc[i] = buckets.get(i);
+        }
+        return rc;
+    }
+
+    /**
+     * Get the estimation of the quantile. The estimation is the upper bound of the bucket that contains
+     * the quantile, but not more than the maximum value.
+     *
+     * @param quantile the quantile (from 0 to 1)
+     * @return the estimated value, or zero if nothing is recorded
+     */
+    public long getQuantile(final double quantile) {
+        final long[] counts = getBucketCounts();
+        long total = 0;
+        for (final long c : counts) {
+            total += c;
+        }
+        final long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                if (i == 0) {
+                    return 0;
+                }
+                return i >= Long.SIZE - 1 ? getMax() : Math.min((1L << i) - 1, getMax());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + getCount() + ", mean=" + getMean() + ", p50=" + getQuantile(0.5)
+                + ", p99=" + getQuantile(0.99) + ", max=" + getMax() + '}';
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+
+/**
+ * The listener that records the metrics as JDK Flight Recorder events, so the catalog loads could be correlated
+ * with other activity in the recording. The events are committed only if they are enabled in the recording,
+ * the cache access events are disabled by default since they are very frequent. The listener could forward
+ * the reports to the other listener, for example, to {@link CatalogMetrics}.
+ */
+public final class JfrCatalogMetricsListener implements CatalogMetricsListener {
+    /**
+     * The event category.
+     */
+    private static final String CATEGORY = "XML Catalog";
+    /**
+     * The next listener (nullable).
+     */
+    private final CatalogMetricsListener next;
+
+    /**
+     * The constructor.
+     *
+     * @param next the listener to forward the reports to (nullable)
+     */
+    public JfrCatalogMetricsListener(final CatalogMetricsListener next) {
+        this.next = next;
+    }
+
+    /**
+     * The constructor that does not forward reports.
+     */
+    public JfrCatalogMetricsListener() {
+        this(null);
+    }
+
+    @Override
+    public void catalogLoaded(final CatalogRequest request, final String scheme, final long nanos,
+                              final boolean failed) {
+        final CatalogLoadEvent event = new CatalogLoadEvent();
+        if (event.isEnabled()) {
+            event.systemId = request.getSystemId();
+            event.scheme = scheme;
+            event.loadTime = nanos;
+            event.failed = failed;
+            event.commit();
+        }
+        if (next != null) {
+            next.catalogLoaded(request, scheme, nanos, failed);
+        }
+    }
+
+    @Override
+    public void fileCacheAccess(final CatalogRequest request, final boolean hit) {
+        final CacheAccessEvent event = new CacheAccessEvent();
+        if (event.isEnabled()) {
+            event.cache = "file";
+            event.key = request.getSystemId();
+            event.hit = hit;
+            event.commit();
+        }
+        if (next != null) {
+            next.fileCacheAccess(request, hit);
+        }
+    }
+
+    @Override
+    public void resultCacheAccess(final boolean hit) {
+        final CacheAccessEvent event = new CacheAccessEvent();
+        if (event.isEnabled()) {
+            event.cache = "result";
+            event.hit = hit;
+            event.commit();
+        }
+        if (next != null) {
+            next.resultCacheAccess(hit);
+        }
+    }
+
+    @Override
+    public void resolutionFinished(final CatalogResult result, final long nanos, final int catalogsVisited,
+                                   final int delegationDepth, final boolean cached) {
+        final ResolutionEvent event = new ResolutionEvent();
+        if (event.isEnabled()) {
+            event.resolution = result.getResolution();
+            event.resolved = result.isResolved();
+            event.resolutionTime = nanos;
+            event.catalogsVisited = catalogsVisited;
+            event.delegationDepth = delegationDepth;
+            event.cached = cached;
+            event.commit();
+        }
+        if (next != null) {
+            next.resolutionFinished(result, nanos, catalogsVisited, delegationDepth, cached);
+        }
+    }
+
+    /**
+     * The catalog load event.
+     */
+    @Name("net.sf.etl.xml_catalog.CatalogLoad")
+    @Label("Catalog Load")
+    @Category(CATEGORY)
+    static final class CatalogLoadEvent extends Event {
+        /**
+         * The catalog system id.
+         */
+        @Label("System Id")
+        private String systemId;
+        /**
+         * The catalog URI scheme.
+         */
+        @Label("Scheme")
+        private String scheme;
+        /**
+         * The load time.
+         */
+        @Label("Load Time")
+        @Timespan(Timespan.NANOSECONDS)
+        private long loadTime;
+        /**
+         * True if the load failed.
+         */
+        @Label("Failed")
+        private boolean failed;
+    }
+
+    /**
+     * The cache access event.
+     */
+    @Name("net.sf.etl.xml_catalog.CacheAccess")
+    @Label("Catalog Cache Access")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class CacheAccessEvent extends Event {
+        /**
+         * The cache name ("file" or "result").
+         */
+        @Label("Cache")
+        private String cache;
+        /**
+         * The catalog system id for the file cache.
+         */
+        @Label("Key")
+        private String key;
+        /**
+         * True if the cache contained the value.
+         */
+        @Label("Hit")
+        private boolean hit;
+    }
+
+    /**
+     * The resolution event.
+     */
+    @Name("net.sf.etl.xml_catalog.Resolution")
+    @Label("Catalog Resolution")
+    @Category(CATEGORY)
+    static final class ResolutionEvent extends Event {
+        /**
+         * The resolution result.
+         */
+        @Label("Resolution")
+        private String resolution;
+        /**
+         * True if the request was resolved.
+         */
+        @Label("Resolved")
+        private boolean resolved;
+        /**
+         * The resolution time.
+         */
+        @Label("Resolution Time")
+        @Timespan(Timespan.NANOSECONDS)
+        private long resolutionTime;
+        /**
+         * The amount of consulted catalogs.
+         */
+        @Label("Catalogs Visited")
+        private int catalogsVisited;
+        /**
+         * The amount of delegations.
+         */
+        @Label("Delegation Depth")
+        private int delegationDepth;
+        /**
+         * True if the result was taken from the cache.
+         */
+        @Label("Cached")
+        private boolean cached;
+    }
+}
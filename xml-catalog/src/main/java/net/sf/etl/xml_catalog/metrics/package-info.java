@@ -0,0 +1,35 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+/**
+ * The instrumentation of the catalog resolution. The instrumented components ({@link
+ * net.sf.etl.xml_catalog.blocking.BlockingCatalog}, {@link
+ * net.sf.etl.xml_catalog.blocking.provider.CatalogRuntimeProvider}, and {@link
+ * net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache}) report to
+ * {@link net.sf.etl.xml_catalog.metrics.CatalogMetricsListener}. The listener {@link
+ * net.sf.etl.xml_catalog.metrics.CatalogMetrics} aggregates the reports, and {@link
+ * net.sf.etl.xml_catalog.metrics.JfrCatalogMetricsListener} records them as JFR events.
+ */
+package net.sf.etl.xml_catalog.metrics;
@@ -28,6 +28,7 @@ package net.sf.etl.xml_catalog.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 
@@ -40,6 +41,11 @@ public final class URIUtil {
      */
     private static final Logger LOG = LoggerFactory.getLogger(URIUtil.class);
 
+    /**
+     * The jar URL separator.
+     */
+    private static final String JAR_SEPARATOR = "!/";
+
     /**
      * Private constructor for utility class.
      */
@@ -116,4 +122,44 @@ public final class URIUtil {
         }
         return result;
     }
+
+    /**
+     * Get the local file that contains the resource. For <code>file:</code> URIs it is the file itself,
+     * for <code>jar:file:</code> URIs it is the jar file.
+     *
+     * @param systemId the system id of the resource
+     * @return the local file, or null if the resource is not backed by a local file
+     */
+    public static File toLocalFile(final String systemId) {
+        try {
+            URI uri = new URI(systemId);
+            if ("jar".equals(uri.getScheme())) {
+                final String path = uri.getRawSchemeSpecificPart();
+                final int separator = path.indexOf(JAR_SEPARATOR);
+                if (separator == -1) {
+                    return null;
+                }
+                uri = new URI(path.substring(0, separator));
+            }
+            if (!"file".equals(uri.getScheme()) || uri.isOpaque()) {
+                return null;
+            }
+            return new File(uri);
+        } catch (Exception e) { // NOPMD
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Not a local file: " + systemId, e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Get the version of the local file. The version changes when the file is modified.
+     *
+     * @param file the file
+     * @return the version
+     */
+    public static String fileVersion(final File file) {
+        return file.lastModified() + ":" + file.length();
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.impl;
+
+import net.sf.etl.xml_catalog.async.AsyncCatalog;
+import net.sf.etl.xml_catalog.async.AsyncCatalogProvider;
+import net.sf.etl.xml_catalog.async.AsyncCatalogProviders;
+import net.sf.etl.xml_catalog.blocking.BlockingCatalog;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.CatalogResultTrace;
+import net.sf.etl.xml_catalog.event.DefaultCatalogContext;
+import net.sf.etl.xml_catalog.util.URIUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * The test for asynchronous catalog
+ */
+public class AsyncCatalogTest {
+    @Test
+    public void sameAsBlocking() throws Exception {
+        final BlockingCatalog blocking = BlockingCatalog.getDefaultCatalog(AsyncCatalogTest.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final CatalogResolutionCache cache = new CatalogResolutionCache();
+            final AsyncCatalogProvider provider = AsyncCatalogProviders.createCachedCatalog(
+                    AsyncCatalogProviders.createFileProvider(executor, AsyncCatalogProviders.fromBlocking(
+                            CatalogProviders.createDefaultCatalogProvider(AsyncCatalogTest.class), executor)),
+                    cache);
+            final AsyncCatalog async = new AsyncCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST, provider, null, cache);
+            final String[][] requests = {
+                    {"-//OASIS//DTD XML Catalogs V1.1//EN",
+                            "http://www.oasis-open.org/committees/entity/release/1.1/catalog.dtd"},
+                    {null, "urn:publicid:-:OASIS:DTD+XML+Catalogs+V1.1:EN"},
+                    {null, "urn:missing:system"},
+                    {"-//MISSING//DTD Missing//EN", null},
+            };
+            final List<CompletableFuture<CatalogResult>> futures = new ArrayList<>();
+            for (final String[] request : requests) {
+                futures.add(async.resolveEntity(request[0], request[1], null));
+            }
+            for (int i = 0; i < requests.length; i++) {
+                final CatalogResult expected = blocking.resolveEntity(requests[i][0], requests[i][1], null);
+                final CatalogResult actual = futures.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(expected.getResolution(), actual.getResolution(), actual.toDebugString());
+                assertEquals(expected.isResolved(), actual.isResolved());
+                assertEquals(trace(expected), trace(actual));
+            }
+            // the concurrent loads of the same catalogs prevent caching of the first results
+            final CatalogResult cached = async.resolveEntity(requests[0][0], requests[0][1], null).get();
+            assertSame(cached, async.resolveEntity(requests[0][0], requests[0][1], null).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fileVersion(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("catalog.xml");
+        Files.write(file, "<catalog xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'/>"
+                .getBytes(StandardCharsets.UTF_8));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final AsyncCatalogProvider provider = AsyncCatalogProviders.createFileProvider(executor,
+                    (catalogContext, request) -> CompletableFuture.failedFuture(new AssertionError("fallback")));
+            final CatalogResolutionEvent event = provider.getCatalog(DefaultCatalogContext.INSTANCE,
+                    new CatalogRequest(file.toUri().toString())).get(10, TimeUnit.SECONDS);
+            assertEquals(URIUtil.fileVersion(file.toFile()), event.getFile().getVersion());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get catalogs visited during resolution.
+     *
+     * @param result the result
+     * @return the visited catalogs in the order of processing
+     */
+    private static String trace(final CatalogResult result) {
+        final StringBuilder b = new StringBuilder();
+        for (CatalogResultTrace t = result.getTrace(); t != null; t = t.getPrevious()) {
+            b.insert(0, t.getCatalogRequest().getSystemId() + "\n");
+        }
+        return b.toString();
+    }
+}
@@ -28,11 +28,19 @@ package net.sf.etl.xml_catalog.impl;
 import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.CatalogResultTrace;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -63,4 +71,61 @@ public class CatalogCacheTest {
         cache.clear();
         assertEquals(0, cache.getCurrentSize());
     }
+
+    @Test
+    public void negativeTtlTest() {
+        final CatalogRequest r1 = new CatalogRequest("r1");
+        final CatalogResolutionEvent e1 = new CatalogResolutionEvent(r1, null, new IOException());
+        // the clock overflows during the test, as System.nanoTime() values might
+        final AtomicLong clock = new AtomicLong(Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(20));
+        final CatalogResolutionCache cache = new CatalogResolutionCache(clock::get);
+        assertEquals(CatalogResolutionCache.DEFAULT_NEGATIVE_TTL, cache.getNegativeTtl());
+        cache.setNegativeTtl(0);
+        cache.cacheFile(e1);
+        assertNull(cache.getFile(r1));
+        cache.setNegativeTtl(50);
+        cache.cacheFile(e1);
+        assertEquals(e1, cache.getFile(r1));
+        final CatalogResult miss = new CatalogResult(null, false, null);
+        cache.cacheResult("key", miss, cache.getGeneration());
+        assertEquals(miss, cache.getResult("key"));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(e1, cache.getFile(r1));
+        assertEquals(miss, cache.getResult("key"));
+        clock.incrementAndGet();
+        assertNull(cache.getFile(r1));
+        assertNull(cache.getResult("key"));
+        assertEquals(0, cache.getCurrentSize());
+        assertEquals(0, cache.getCurrentResultSize());
+    }
+
+    @Test
+    public void resultTest() {
+        final CatalogResolutionCache cache = new CatalogResolutionCache();
+        final CatalogRequest root = new CatalogRequest("root");
+        final CatalogRequest next = new CatalogRequest("next");
+        final CatalogResultTrace rootTrace = new CatalogResultTrace(root,
+                Collections.singletonList(new CatalogResourceUsage("catalog", "root", null)),
+                null, null, null, null, null);
+        final CatalogResultTrace nextTrace = new CatalogResultTrace(next, Collections.emptyList(),
+                null, null, null, rootTrace, null);
+        final CatalogResult result = new CatalogResult("resolved", true, nextTrace);
+        final CatalogResult other = new CatalogResult("other", true, rootTrace);
+        cache.cacheResult("k1", result, cache.getGeneration());
+        cache.cacheResult("k2", other, cache.getGeneration());
+        assertEquals(2, cache.getCurrentResultSize());
+        assertSame(result, cache.getResult("k1"));
+        cache.expireFile("next");
+        assertNull(cache.getResult("k1"));
+        assertSame(other, cache.getResult("k2"));
+        final long generation = cache.getGeneration();
+        cache.expireFile("root");
+        assertEquals(0, cache.getCurrentResultSize());
+        cache.cacheResult("k1", result, generation);
+        assertNull(cache.getResult("k1"));
+        cache.cacheResult("k1", result, cache.getGeneration());
+        assertSame(result, cache.getResult("k1"));
+        cache.setResultCacheSize(0);
+        assertEquals(0, cache.getCurrentResultSize());
+    }
 }
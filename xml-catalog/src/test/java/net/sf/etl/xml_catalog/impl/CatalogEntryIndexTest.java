@@ -0,0 +1,208 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.impl;
+
+import net.sf.etl.xml_catalog.event.CatalogFile;
+import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
+import net.sf.etl.xml_catalog.event.engine.impl.step.EntityResolutionStep;
+import net.sf.etl.xml_catalog.event.engine.impl.step.ResolutionStep;
+import net.sf.etl.xml_catalog.event.engine.impl.step.TR9401ResolutionStep;
+import net.sf.etl.xml_catalog.event.engine.impl.step.URIResolutionStep;
+import net.sf.etl.xml_catalog.event.entries.CatalogEntry;
+import net.sf.etl.xml_catalog.event.entries.DelegatePublicEntry;
+import net.sf.etl.xml_catalog.event.entries.DelegateSystemEntry;
+import net.sf.etl.xml_catalog.event.entries.DelegateUriEntry;
+import net.sf.etl.xml_catalog.event.entries.GroupEntry;
+import net.sf.etl.xml_catalog.event.entries.PublicEntry;
+import net.sf.etl.xml_catalog.event.entries.RewriteSystemEntry;
+import net.sf.etl.xml_catalog.event.entries.RewriteUriEntry;
+import net.sf.etl.xml_catalog.event.entries.SystemEntry;
+import net.sf.etl.xml_catalog.event.entries.SystemSuffixEntry;
+import net.sf.etl.xml_catalog.event.entries.UriEntry;
+import net.sf.etl.xml_catalog.event.entries.UriSuffixEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.DTDDeclEntry;
+import net.sf.etl.xml_catalog.event.entries.tr9401.EntityEntry;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test that checks that the catalog index finds the same entries as the scan of the large catalog.
+ */
+public class CatalogEntryIndexTest {
+    /**
+     * The base URI.
+     */
+    private static final URI BASE = URI.create("file:/catalog.xml");
+    /**
+     * The natures.
+     */
+    private static final String[] NATURES = {null, "urn:a", "urn:b"};
+    /**
+     * The random generator.
+     */
+    private final Random random = new Random(42);
+
+    /**
+     * @return the random short string that often shares prefixes and suffixes with other strings
+     */
+    private String text() {
+        final StringBuilder b = new StringBuilder("x:");
+        final int length = random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            b.append((char) ('a' + random.nextInt(3)));
+        }
+        return b.toString();
+    }
+
+    /**
+     * @return the random nature
+     */
+    private String nature() {
+        return NATURES[random.nextInt(NATURES.length)];
+    }
+
+    /**
+     * Create random entries.
+     *
+     * @param count the entry count
+     * @param depth the group depth
+     * @return the entries
+     */
+    private List<CatalogEntry> entries(final int count, final int depth) { // NOPMD
+        final List<CatalogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final URI uri = BASE.resolve("e" + i);
+            switch (random.nextInt(depth > 0 ? 14 : 13)) {
+                case 0:
+                    entries.add(new UriEntry(null, BASE, uri, nature(), nature(), text()));
+                    break;
+                case 1:
+                    entries.add(new RewriteUriEntry(null, BASE, nature(), nature(), text(), "r" + i + "/"));
+                    break;
+                case 2:
+                    entries.add(new UriSuffixEntry(null, BASE, uri, nature(), nature(), text()));
+                    break;
+                case 3:
+                    entries.add(new DelegateUriEntry(null, BASE, uri, nature(), nature(), text()));
+                    break;
+                case 4:
+                    entries.add(new SystemEntry(null, BASE, uri, text()));
+                    break;
+                case 5:
+                    entries.add(new RewriteSystemEntry(null, BASE, text(), "s" + i + "/"));
+                    break;
+                case 6:
+                    entries.add(new SystemSuffixEntry(null, BASE, uri, text()));
+                    break;
+                case 7:
+                    entries.add(new DelegateSystemEntry(null, BASE, uri, text()));
+                    break;
+                case 8:
+                case 9:
+                    entries.add(new PublicEntry(null, BASE, uri, text()));
+                    break;
+                case 10:
+                    entries.add(new DelegatePublicEntry(null, BASE, uri, text()));
+                    break;
+                case 11:
+                    entries.add(new DTDDeclEntry(null, BASE, uri, text()));
+                    break;
+                case 12:
+                    entries.add(new EntityEntry(null, BASE, uri, text()));
+                    break;
+                default:
+                    final Boolean prefer = random.nextBoolean() ? null : random.nextBoolean();
+                    entries.add(new GroupEntry(null, BASE, entries(count / 10, depth - 1), prefer));
+                    break;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Resolve with scan and index and compare results.
+     *
+     * @param root    the root entry
+     * @param file    the catalog file
+     * @param factory the step factory
+     * @param <T>     the step type
+     * @return true if something is resolved
+     */
+    private static <T extends ResolutionStep> boolean check(final GroupEntry root, final CatalogFile file,
+                                                            final Supplier<T> factory) {
+        final T scanned = factory.get();
+        scanned.resolve(root);
+        final T indexed = factory.get();
+        indexed.resolve(file);
+        assertSame(scanned.getResolvedEntry(), indexed.getResolvedEntry());
+        assertEquals(scanned.getResolvedUri(), indexed.getResolvedUri());
+        assertEquals(scanned.getResolvedDelegates(), indexed.getResolvedDelegates());
+        if (scanned instanceof EntityResolutionStep) {
+            final EntityResolutionStep s = (EntityResolutionStep) scanned;
+            final EntityResolutionStep i = (EntityResolutionStep) indexed;
+            assertEquals(s.getPublicId(), i.getPublicId());
+            assertEquals(s.getSystemId(), i.getSystemId());
+        }
+        return scanned.getResolvedUri() != null || scanned.getResolvedDelegates() != null;
+    }
+
+    @Test
+    public void sameAsScan() {
+        final GroupEntry root = new GroupEntry(null, BASE, entries(2000, 2), null);
+        final CatalogFile file = new CatalogFile(BASE.toString(), 0, CatalogResourceUsage.NONE, root);
+        int resolved = 0;
+        for (int i = 0; i < 3000; i++) {
+            final String uri = text() + text().substring(2);
+            final String nature = nature();
+            final String purpose = nature();
+            final String publicId = random.nextBoolean() ? text() : null;
+            final String systemId = random.nextBoolean() ? text() : null;
+            final boolean preferPublic = random.nextBoolean();
+            final boolean mustPreferPublic = random.nextBoolean();
+            final String name = text();
+            if (check(root, file, () -> new URIResolutionStep(uri, nature, purpose))) {
+                resolved++;
+            }
+            if ((publicId != null || systemId != null)
+                    && check(root, file, () -> new EntityResolutionStep(publicId, systemId, preferPublic))) {
+                resolved++;
+            }
+            check(root, file, () -> new TR9401ResolutionStep(DTDDeclEntry.class, name, mustPreferPublic,
+                    preferPublic));
+            check(root, file, () -> new TR9401ResolutionStep(EntityEntry.class, name, false, preferPublic));
+        }
+        assertTrue(resolved > 1000);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.impl;
+
+import net.sf.etl.xml_catalog.blocking.BlockingCatalog;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogRuntimeProvider;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.metrics.CatalogMetrics;
+import net.sf.etl.xml_catalog.metrics.Histogram;
+import net.sf.etl.xml_catalog.metrics.JfrCatalogMetricsListener;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for catalog metrics
+ */
+public class CatalogMetricsTest {
+    @Test
+    public void histogramTest() {
+        final Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getQuantile(0.5));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(0);
+        assertEquals(101, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        final long median = histogram.getQuantile(0.5);
+        assertTrue(median >= 32 && median < 128, Long.toString(median));
+        assertEquals(1, histogram.getBucketCounts()[0]);
+    }
+
+    @Test
+    public void resolutionTest() {
+        final CatalogMetrics metrics = new CatalogMetrics();
+        final CatalogRuntimeProvider runtime = CatalogProviders.createDefaultCatalogProvider(CatalogMetricsTest.class);
+        runtime.setMetricsListener(new JfrCatalogMetricsListener(metrics));
+        final CatalogResolutionCache cache = new CatalogResolutionCache();
+        cache.setMetricsListener(metrics);
+        final BlockingCatalog catalog = new BlockingCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST,
+                CatalogProviders.createCachedCatalog(runtime, cache), null, cache).withMetrics(metrics);
+        assertSame(metrics, catalog.getMetricsListener());
+        final CatalogResult first = catalog.resolveEntity("-//OASIS//DTD XML Catalogs V1.1//EN", null, null);
+        assertTrue(first.isResolved(), first.toDebugString());
+        final CatalogResult second = catalog.resolveEntity("-//OASIS//DTD XML Catalogs V1.1//EN", null, null);
+        assertSame(first, second);
+        assertEquals(1, metrics.getResultCacheHits());
+        assertEquals(1, metrics.getResultCacheMisses());
+        assertTrue(metrics.getFileCacheMisses() > 0);
+        assertEquals(2, metrics.getResolutionTime().getCount());
+        assertTrue(metrics.getCatalogsVisited().getMax() > 0);
+        assertFalse(metrics.getSchemes().isEmpty());
+        for (final String scheme : metrics.getSchemes()) {
+            assertNotNull(metrics.getSchemeStatistics(scheme));
+        }
+        assertFalse(metrics.getSlowestCatalogs(3).isEmpty());
+        catalog.resolveEntity("-//MISSING//DTD Missing//EN", null, null);
+        assertEquals(1, metrics.getUnresolved());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.impl;
+
+import net.sf.etl.xml_catalog.blocking.BlockingCatalog;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProvider;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogProviders;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogSnapshot;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.DefaultCatalogContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for catalog snapshot.
+ */
+public class CatalogSnapshotTest {
+    /**
+     * The size of the snapshot header (the magic number and the format version).
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * The catalog text.
+     */
+    private static final String CATALOG = "<catalog xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'>"
+            + "<system systemId='urn:test:system' uri='%s'/></catalog>";
+
+    /**
+     * Write and read the snapshot.
+     *
+     * @param snapshot the snapshot
+     * @return the copy
+     * @throws Exception if failed
+     */
+    private static CatalogSnapshot copy(final CatalogSnapshot snapshot) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.write(out);
+        return CatalogSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * Create provider that records requests.
+     *
+     * @param source   the source provider
+     * @param requests the requests
+     * @return the provider
+     */
+    private static CatalogProvider recording(final CatalogProvider source, final List<String> requests) {
+        return (catalogContext, request) -> {
+            requests.add(request.getSystemId());
+            return source.getCatalog(catalogContext, request);
+        };
+    }
+
+    @Test
+    public void defaultCatalog() throws Exception {
+        final CatalogProvider live = CatalogProviders.createDefaultCatalogProvider(CatalogSnapshotTest.class);
+        final CatalogSnapshot snapshot = copy(CatalogSnapshot.build(live, DefaultCatalogContext.INSTANCE,
+                CatalogProviders.DEFAULT_ROOT_REQUEST));
+        assertFalse(snapshot.getSystemIds().isEmpty());
+        final List<String> requests = new ArrayList<>();
+        final BlockingCatalog catalog = new BlockingCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST,
+                snapshot.createProvider(recording(live, requests)));
+        final BlockingCatalog expectedCatalog = new BlockingCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST, live);
+        final String systemId = "http://www.oasis-open.org/committees/entity/release/1.1/catalog.dtd";
+        final String publicId = "-//OASIS//DTD XML Catalogs V1.1//EN";
+        final CatalogResult expected = expectedCatalog.resolveEntity(publicId, systemId, null);
+        final CatalogResult actual = catalog.resolveEntity(publicId, systemId, null);
+        assertTrue(actual.isResolved(), actual.toDebugString());
+        assertEquals(expected.getResolution(), actual.getResolution());
+        for (final String request : requests) {
+            assertFalse(snapshot.getSystemIds().contains(request), request);
+        }
+    }
+
+    @Test
+    public void outdated(@TempDir final Path dir) throws Exception {
+        final File file = dir.resolve("catalog.xml").toFile();
+        Files.write(file.toPath(), String.format(CATALOG, "a.dtd").getBytes(StandardCharsets.UTF_8));
+        final CatalogRequest request = new CatalogRequest(file.toURI().toString());
+        final CatalogProvider live = CatalogProviders.createDefaultCatalogProvider(CatalogSnapshotTest.class);
+        final CatalogSnapshot snapshot = copy(CatalogSnapshot.build(live, DefaultCatalogContext.INSTANCE, request));
+        assertEquals(Collections.singleton(request.getSystemId()), snapshot.getSystemIds());
+        final List<String> requests = new ArrayList<>();
+        final CatalogResolutionEvent event = snapshot.createProvider(recording(live, requests))
+                .getCatalog(DefaultCatalogContext.INSTANCE, request);
+        assertNotNull(event.getFile());
+        assertTrue(requests.isEmpty());
+        assertEquals(dir.resolve("a.dtd").toUri(),
+                event.getFile().getIndex().findSystem("urn:test:system").getUri());
+
+        Files.write(file.toPath(), String.format(CATALOG, "changed.dtd").getBytes(StandardCharsets.UTF_8));
+        final CatalogSnapshot outdated = copy(snapshot);
+        final CatalogResolutionEvent reloaded = outdated.createProvider(recording(live, requests))
+                .getCatalog(DefaultCatalogContext.INSTANCE, request);
+        assertEquals(Collections.singletonList(request.getSystemId()), requests);
+        assertSame(request, reloaded.getRequest());
+        assertEquals(dir.resolve("changed.dtd").toUri(),
+                reloaded.getFile().getIndex().findSystem("urn:test:system").getUri());
+    }
+
+    @Test
+    public void changedAfterAccess(@TempDir final Path dir) throws Exception {
+        final File file = dir.resolve("catalog.xml").toFile();
+        Files.write(file.toPath(), String.format(CATALOG, "a.dtd").getBytes(StandardCharsets.UTF_8));
+        final CatalogRequest request = new CatalogRequest(file.toURI().toString());
+        final CatalogProvider live = CatalogProviders.createDefaultCatalogProvider(CatalogSnapshotTest.class);
+        final List<String> requests = new ArrayList<>();
+        final CatalogProvider provider = CatalogSnapshot.build(live, DefaultCatalogContext.INSTANCE, request)
+                .createProvider(recording(live, requests));
+        assertNotNull(provider.getCatalog(DefaultCatalogContext.INSTANCE, request).getFile());
+        assertTrue(requests.isEmpty());
+
+        Files.write(file.toPath(), String.format(CATALOG, "changed.dtd").getBytes(StandardCharsets.UTF_8));
+        final CatalogResolutionEvent reloaded = provider.getCatalog(DefaultCatalogContext.INSTANCE, request);
+        assertEquals(Collections.singletonList(request.getSystemId()), requests);
+        assertEquals(dir.resolve("changed.dtd").toUri(),
+                reloaded.getFile().getIndex().findSystem("urn:test:system").getUri());
+    }
+
+    @Test
+    public void damaged(@TempDir final Path dir) throws Exception {
+        final File file = dir.resolve("catalog.xml").toFile();
+        Files.write(file.toPath(), String.format(CATALOG, "a.dtd").getBytes(StandardCharsets.UTF_8));
+        final CatalogProvider live = CatalogProviders.createDefaultCatalogProvider(CatalogSnapshotTest.class);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogSnapshot.build(live, DefaultCatalogContext.INSTANCE, new CatalogRequest(file.toURI().toString()))
+                .write(out);
+        final byte[] data = out.toByteArray();
+        assertThrows(IOException.class,
+                () -> CatalogSnapshot.read(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1))));
+        // the catalog count is replaced with a negative varint
+        final byte[] negative = Arrays.copyOf(data, HEADER_SIZE + 5);
+        System.arraycopy(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}, 0,
+                negative, HEADER_SIZE, 5);
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(new ByteArrayInputStream(negative)));
+        // the data length is much bigger than the rest of the stream
+        final ByteArrayOutputStream huge = new ByteArrayOutputStream();
+        final DataOutputStream hugeOut = new DataOutputStream(huge);
+        hugeOut.write(data, 0, HEADER_SIZE);
+        hugeOut.writeByte(1);
+        hugeOut.writeUTF("urn:test:catalog");
+        hugeOut.writeByte(0);
+        hugeOut.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07});
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(new ByteArrayInputStream(huge.toByteArray())));
+    }
+}
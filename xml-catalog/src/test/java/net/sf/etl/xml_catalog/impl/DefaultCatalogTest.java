@@ -33,8 +33,12 @@ import net.sf.etl.xml_catalog.blocking.provider.schema.FileSystemCatalogProvider
 import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
 import net.sf.etl.xml_catalog.event.CatalogResult;
+import net.sf.etl.xml_catalog.event.CatalogResultTrace;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
@@ -78,4 +82,45 @@ public class DefaultCatalogTest {
         final CatalogResult catalogResult2 = catalog.resolveEntity(publicId, expected, null);
         assertEquals(expected, catalogResult2.getResolution(), catalogResult2.toDebugString());
     }
+
+    @Test
+    public void prefetch() {
+        final CatalogProvider catalogProvider = CatalogProviders.createCachedCatalog(
+                CatalogProviders.createDefaultCatalogProvider(DefaultCatalogTest.class));
+        final BlockingCatalog catalog = new BlockingCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST, catalogProvider);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final BlockingCatalog prefetching = new BlockingCatalog(CatalogProviders.DEFAULT_ROOT_REQUEST,
+                    CatalogProviders.createDefaultCatalogProvider(DefaultCatalogTest.class)).withPrefetch(executor);
+            final String[][] requests = {
+                    {"-//OASIS//DTD XML Catalogs V1.1//EN",
+                            "http://www.oasis-open.org/committees/entity/release/1.1/catalog.dtd"},
+                    {null, "urn:missing:system"},
+                    {"-//MISSING//DTD Missing//EN", null},
+            };
+            for (final String[] request : requests) {
+                final CatalogResult expected = catalog.resolveEntity(request[0], request[1], null);
+                final CatalogResult actual = prefetching.resolveEntity(request[0], request[1], null);
+                assertEquals(expected.getResolution(), actual.getResolution(), actual.toDebugString());
+                assertEquals(expected.isResolved(), actual.isResolved());
+                assertEquals(trace(expected), trace(actual));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get catalogs visited during resolution.
+     *
+     * @param result the result
+     * @return the visited catalogs in the order of processing
+     */
+    private static String trace(final CatalogResult result) {
+        final StringBuilder b = new StringBuilder();
+        for (CatalogResultTrace t = result.getTrace(); t != null; t = t.getPrevious()) {
+            b.insert(0, t.getCatalogRequest().getSystemId() + "\n");
+        }
+        return b.toString();
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.impl;
+
+import net.sf.etl.xml_catalog.blocking.provider.CatalogDirectProvider;
+import net.sf.etl.xml_catalog.blocking.provider.CatalogResolutionCache;
+import net.sf.etl.xml_catalog.blocking.provider.FileChangeInvalidator;
+import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResolutionEvent;
+import net.sf.etl.xml_catalog.event.DefaultCatalogContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test for file change invalidator.
+ */
+public class FileChangeInvalidatorTest {
+    /**
+     * The catalog text.
+     */
+    private static final String CATALOG = "<catalog xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'>"
+            + "<system systemId='urn:test:system' uri='%s'/></catalog>";
+    /**
+     * The maximum time to wait for the change notification.
+     */
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * Write the catalog with the modification time in the past, so it is older than the cache entries.
+     *
+     * @param file the catalog file
+     * @param uri  the uri in the catalog
+     * @throws Exception if failed
+     */
+    private static void write(final Path file, final String uri) throws Exception {
+        Files.write(file, String.format(CATALOG, uri).getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+    }
+
+    /**
+     * Start watching the cache and wait until the directory is registered.
+     *
+     * @param invalidator the invalidator
+     * @param cache       the cache
+     * @param dir         the directory
+     * @throws Exception if failed
+     */
+    private static void watch(final FileChangeInvalidator invalidator, final CatalogResolutionCache cache,
+                              final Path dir) throws Exception {
+        final CountDownLatch registered = new CountDownLatch(1);
+        final Path directory = dir.toAbsolutePath().normalize();
+        invalidator.setRegistrationListener(d -> {
+            if (d.equals(directory)) {
+                registered.countDown();
+            }
+        });
+        invalidator.watch(cache);
+        assertTrue(registered.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Write and cache the catalog.
+     *
+     * @param cache the cache
+     * @param file  the catalog file
+     * @param uri   the uri in the catalog
+     * @return the catalog request
+     * @throws Exception if failed
+     */
+    private static CatalogRequest cache(final CatalogResolutionCache cache, final Path file, final String uri)
+            throws Exception {
+        write(file, uri);
+        final CatalogRequest request = new CatalogRequest(file.toUri().toString());
+        final CatalogResolutionEvent event = new CatalogDirectProvider().getCatalog(DefaultCatalogContext.INSTANCE,
+                request);
+        assertNotNull(event.getFile());
+        cache.cacheFile(event);
+        return request;
+    }
+
+    @Test
+    public void changedFileIsExpired(@TempDir final Path dir) throws Exception {
+        final CatalogResolutionCache cache = new CatalogResolutionCache();
+        final CatalogRequest changed = cache(cache, dir.resolve("changed.xml"), "a.dtd");
+        final CatalogRequest stable = cache(cache, dir.resolve("stable.xml"), "b.dtd");
+        try (FileChangeInvalidator invalidator = new FileChangeInvalidator(50)) {
+            watch(invalidator, cache, dir);
+            assertNotNull(cache.getFile(changed));
+            Files.write(dir.resolve("changed.xml"), String.format(CATALOG, "c.dtd").getBytes(StandardCharsets.UTF_8));
+            final long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (cache.getFile(changed) != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertNull(cache.getFile(changed));
+            assertNotNull(cache.getFile(stable));
+        }
+    }
+
+    @Test
+    public void fileChangedBeforeRegistrationIsExpired(@TempDir final Path dir) throws Exception {
+        final CatalogResolutionCache cache = new CatalogResolutionCache();
+        final CatalogRequest changed = cache(cache, dir.resolve("changed.xml"), "a.dtd");
+        final CatalogRequest stable = cache(cache, dir.resolve("stable.xml"), "b.dtd");
+        Files.write(dir.resolve("changed.xml"), String.format(CATALOG, "c.dtd").getBytes(StandardCharsets.UTF_8));
+        try (FileChangeInvalidator invalidator = new FileChangeInvalidator(50)) {
+            watch(invalidator, cache, dir);
+            assertNull(cache.getFile(changed));
+            assertNotNull(cache.getFile(stable));
+        }
+    }
+}
@@ -26,11 +26,15 @@
 package net.sf.etl.xml_catalog.impl;
 
 import net.sf.etl.xml_catalog.blocking.BlockingCatalog;
+import net.sf.etl.xml_catalog.event.CatalogFile;
 import net.sf.etl.xml_catalog.event.CatalogRequest;
+import net.sf.etl.xml_catalog.event.CatalogResourceUsage;
 import net.sf.etl.xml_catalog.event.engine.impl.step.EntityResolutionStep;
+import net.sf.etl.xml_catalog.event.engine.impl.step.ResolutionStep;
 import net.sf.etl.xml_catalog.event.engine.impl.step.TR9401ResolutionStep;
 import net.sf.etl.xml_catalog.event.engine.impl.step.URIResolutionStep;
 import net.sf.etl.xml_catalog.event.entries.DomParser;
+import net.sf.etl.xml_catalog.event.entries.GroupEntry;
 import net.sf.etl.xml_catalog.event.entries.tr9401.DTDDeclEntry;
 import net.sf.etl.xml_catalog.event.entries.tr9401.DoctypeEntry;
 import net.sf.etl.xml_catalog.event.entries.tr9401.DocumentEntry;
@@ -52,6 +56,7 @@ import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Test entity resolution process. Note it checks only operations that are in scope of single catalog file.
@@ -103,8 +108,33 @@ public class ResolutionStepTest {
      */
     private static URIResolutionStep doResolve(final Document document, final String uri, final String nature,
                                                final String purpose) {
-        final URIResolutionStep resolution = new URIResolutionStep(uri, nature, purpose);
-        resolution.resolve(DomParser.parse(document));
+        return resolve(document, new URIResolutionStep(uri, nature, purpose),
+                new URIResolutionStep(uri, nature, purpose));
+    }
+
+    /**
+     * Resolve by scanning the entries and by using the catalog index, and check that results are the same.
+     *
+     * @param document    the document to use
+     * @param resolution  the resolution step to run over entries
+     * @param indexedStep the same resolution step to run over index
+     * @param <T>         the step type
+     * @return the first resolution step
+     */
+    private static <T extends ResolutionStep> T resolve(final Document document, final T resolution,
+                                                        final T indexedStep) {
+        final GroupEntry root = DomParser.parse(document);
+        resolution.resolve(root);
+        indexedStep.resolve(new CatalogFile(document.getDocumentURI(), 0, CatalogResourceUsage.NONE, root));
+        assertSame(resolution.getResolvedEntry(), indexedStep.getResolvedEntry());
+        assertEquals(resolution.getResolvedUri(), indexedStep.getResolvedUri());
+        assertEquals(resolution.getResolvedDelegates(), indexedStep.getResolvedDelegates());
+        if (resolution instanceof EntityResolutionStep) {
+            final EntityResolutionStep r = (EntityResolutionStep) resolution;
+            final EntityResolutionStep i = (EntityResolutionStep) indexedStep;
+            assertEquals(r.getPublicId(), i.getPublicId());
+            assertEquals(r.getSystemId(), i.getSystemId());
+        }
         return resolution;
     }
 
@@ -405,8 +435,9 @@ public class ResolutionStepTest {
      */
     private void checkTR9401(final URI expected, final boolean mustPreferPublic, final boolean preferPublic,
                              final Class<?> type, final String name) {
-        final TR9401ResolutionStep resolution = new TR9401ResolutionStep(type, name, mustPreferPublic, preferPublic);
-        resolution.resolve(DomParser.parse(document));
+        final TR9401ResolutionStep resolution = resolve(document,
+                new TR9401ResolutionStep(type, name, mustPreferPublic, preferPublic),
+                new TR9401ResolutionStep(type, name, mustPreferPublic, preferPublic));
         assertEquals(expected, resolution.getResolvedUri());
     }
 
@@ -446,9 +477,8 @@ public class ResolutionStepTest {
      */
     private EntityResolutionStep doResolve(final Document document, final String publicId, final String systemId,
                                            final boolean preferPublic) {
-        final EntityResolutionStep resolution = new EntityResolutionStep(publicId, systemId, preferPublic);
-        resolution.resolve(DomParser.parse(document));
-        return resolution;
+        return resolve(document, new EntityResolutionStep(publicId, systemId, preferPublic),
+                new EntityResolutionStep(publicId, systemId, preferPublic));
     }
 
     /**
@@ -508,8 +538,6 @@ public class ResolutionStepTest {
      */
     private URI resolveEntity(final Document document, final String publicId, final String systemId,
                               final boolean preferPublic) {
-        final EntityResolutionStep resolution = new EntityResolutionStep(publicId, systemId, preferPublic);
-        resolution.resolve(DomParser.parse(document));
-        return resolution.getResolvedUri();
+        return doResolve(document, publicId, systemId, preferPublic).getResolvedUri();
     }
 }
@@ -132,4 +132,24 @@ public class RuntimeCatalogProviderTest {
             // ok
         }
     }
+
+    /**
+     * The test for schema providers
+     */
+    @Test
+    public void testSchema() {
+        final CatalogRuntimeProvider provider = new CatalogRuntimeProvider();
+        final CatalogRequest request = new CatalogRequest("x-test:catalog");
+        assertEquals("x-test", request.getScheme());
+        assertNull(new CatalogRequest("not a uri:").getScheme());
+        assertNull(new CatalogRequest("relative/catalog.xml").getScheme());
+        final CatalogProvider schemaProvider = (context, r) -> new CatalogResolutionEvent(r,
+                CatalogFile.fromNextCatalogs(r.getSystemId(), new Vector<>()), null);
+        provider.registerSchema("x-test", schemaProvider);
+        assertNotNull(provider.getCatalog(DefaultCatalogContext.INSTANCE, request).getFile());
+        provider.removeSchema("x-test", (context, r) -> null);
+        assertNotNull(provider.getCatalog(DefaultCatalogContext.INSTANCE, request).getFile());
+        provider.removeSchema("x-test", schemaProvider);
+        assertNull(provider.getCatalog(DefaultCatalogContext.INSTANCE, request).getFile());
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Reference ETL Parser for Java
+ * Copyright (c) 2000-2022 Konstantin Plotnikov
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software,
+ * and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.sf.etl.xml_catalog.impl;
+
+import net.sf.etl.xml_catalog.blocking.BlockingCatalog;
+import net.sf.etl.xml_catalog.event.entries.DomParser;
+import net.sf.etl.xml_catalog.event.entries.GroupEntry;
+import net.sf.etl.xml_catalog.event.entries.StaxParser;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The test for StAX catalog parser, the results are compared with DOM parser.
+ */
+public class StaxParserTest {
+
+    /**
+     * Compare entries by public getters.
+     *
+     * @param path     the path to the entry
+     * @param expected the expected entry
+     * @param actual   the actual entry
+     * @throws Exception if the getter fails
+     */
+    private static void assertSameEntry(final String path, final Object expected, final Object actual)
+            throws Exception {
+        assertEquals(expected.getClass(), actual.getClass(), path);
+        for (final Method method : expected.getClass().getMethods()) {
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())
+                    || !method.getName().startsWith("get") || "getClass".equals(method.getName())) {
+                continue;
+            }
+            final Object e = method.invoke(expected);
+            final Object a = method.invoke(actual);
+            if (e instanceof List) {
+                final List<?> el = (List<?>) e;
+                final List<?> al = (List<?>) a;
+                assertEquals(el.size(), al.size(), path);
+                for (int i = 0; i < el.size(); i++) {
+                    assertSameEntry(path + "/" + i, el.get(i), al.get(i));
+                }
+            } else {
+                assertEquals(e, a, path + "." + method.getName());
+            }
+        }
+    }
+
+    /**
+     * Check that catalog is parsed in the same way by both parsers.
+     *
+     * @param url the catalog URL
+     * @throws Exception if parsing fails
+     */
+    private static void check(final URL url) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final GroupEntry dom = DomParser.parse(factory.newDocumentBuilder().parse(url.toString()));
+        final GroupEntry stax;
+        try (InputStream input = url.openStream()) {
+            stax = StaxParser.parse(url.toString(), input);
+        }
+        assertSameEntry("", dom, stax);
+    }
+
+    @Test
+    public void sameAsDom() throws Exception {
+        check(StaxParserTest.class.getResource("test_data/entities-catalog.xml"));
+        check(BlockingCatalog.class.getResource("/net/sf/etl/xml_catalog/grammars/catalog.xml"));
+    }
+
+    @Test
+    public void wrongRoot() {
+        final byte[] text = "<group xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'/>"
+                .getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class,
+                () -> StaxParser.parse("urn:test", new ByteArrayInputStream(text)));
+    }
+}